@@ -1,7 +1,8 @@
 const mongoose = require("mongoose")
-const ErrorResponse = require("../utils/errorResponse")
+const { ErrorResponse } = require("../utils/errorResponse")
 const rateLimit = require("express-rate-limit")
 const asyncHandler = require("../middleware/asyncHandler"); // Ensure asyncHandler is imported
+const { processSensorData } = require("../services/sensorDataProcessor")
 
 function getModels() {
   try {
@@ -287,6 +288,7 @@ async function findOrCreateDevice(serialNumber, inferredDeviceType) {
 const createRawSensorData = asyncHandler(async (req, res, next) => {
   const startTime = Date.now()
   const { rawHexString, timestamp: logTimestamp, source } = req.body
+  const idempotencyKey = req.body.idempotencyKey || req.get("Idempotency-Key")
   const requestId = `${Date.now()}-${Math.random().toString(36).substr(2, 9)}`
 
   console.log(`\n🔄 [${requestId}] ===== PROCESSING NEW SENSOR DATA =====`)
@@ -403,6 +405,9 @@ const createRawSensorData = asyncHandler(async (req, res, next) => {
       error_code: parsedSensorData.error_code,
       co2: parsedSensorData.co2,
     }
+    if (idempotencyKey) {
+      sensorDataRecord.idempotencyKey = idempotencyKey
+    }
 
     const newSensorReading = new SensorData(sensorDataRecord)
     await newSensorReading.save()
@@ -415,6 +420,9 @@ const createRawSensorData = asyncHandler(async (req, res, next) => {
       // Don't fail the entire request if lastSeen update fails
     }
 
+    // Alerts run once per stored reading; a repeated idempotency key never gets here
+    const alertResult = await processSensorData(newSensorReading.toObject())
+
     const processingTime = Date.now() - startTime
     console.log(`[${requestId}] ✅ SENSOR DATA SAVED in ${processingTime}ms`)
 
@@ -483,9 +491,11 @@ const createRawSensorData = asyncHandler(async (req, res, next) => {
 
     console.log(`\n✅ [${requestId}] ===== PROCESSING COMPLETE =====\n`)
 
-    res.status(201).json({
+    res.status(200).json({
       success: true,
       message: "Sensor data ingested successfully. Volume calculation triggered.",
+      alertsGenerated: alertResult.alertsGenerated,
+      alertsSummary: alertResult.summary,
       data: {
         sensorDataId: newSensorReading._id,
         deviceId: device.serialNumber,
@@ -528,6 +538,16 @@ const createRawSensorData = asyncHandler(async (req, res, next) => {
       return next(new ErrorResponse(`Database casting error: ${err.message}`, 400))
     }
 
+    if (err.code === 11000 && err.keyPattern?.idempotencyKey) {
+      // Already stored by an earlier retry or hedge of the same frame: the sender is done
+      console.log(`[${requestId}] ♻️ Duplicate idempotency key ${idempotencyKey}, already stored`)
+      return res.status(200).json({
+        success: true,
+        duplicate: true,
+        message: "Sensor data already received.",
+      })
+    }
+
     if (err.code === 11000) {
       return next(new ErrorResponse("Duplicate sensor data entry detected.", 409))
     }
@@ -24,6 +24,11 @@ if (mongoose.models.SensorData) {
         type: String,
       },
 
+      // Key sent by the TCP daemon with every retry and hedge of one frame
+      idempotencyKey: {
+        type: String,
+      },
+
       order: {
         type: Number,
       },
@@ -127,6 +132,10 @@ if (mongoose.models.SensorData) {
   sensorDataSchema.index({ deviceId: 1, timestamp: -1 })
   // --- END OF SUGGESTION ---
 
+  // A second copy of an already stored frame (daemon retry or hedge) fails with a duplicate key.
+  // Sparse, so readings saved without a key are not affected.
+  sensorDataSchema.index({ idempotencyKey: 1 }, { unique: true, sparse: true })
+
   // Post-Save Middleware to trigger volume processing
   sensorDataSchema.post("save", async (doc, next) => {
     const requestId = `post-save-trigger-${Date.now()}`
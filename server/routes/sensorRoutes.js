@@ -27,6 +27,8 @@ const {
   getHistoricalRange,
 } = require("../controllers/analyticsController")
 
+const { createRawSensorData } = require("../controllers/sensorIngestionController")
+
 const { processSensorData } = require("../services/sensorDataProcessor")
 
 const { clearThresholdCache, getCachedThresholds, loadThresholds } = require("../services/alertGenerator")
@@ -71,7 +73,13 @@ router.get("/:id([0-9a-fA-F]{24})", getSensorDataById)
 // 4️⃣ Raw data ingestion and creation with alert processing
 router.post(
   "/raw-data",
-  asyncHandler(async (req, res) => {
+  asyncHandler(async (req, res, next) => {
+    // Frames posted by the TCP daemon carry rawHexString: parse and store that frame
+    // (once per idempotency key) and check it for alerts
+    if (req.body && req.body.rawHexString) {
+      return createRawSensorData(req, res, next)
+    }
+
     try {
       const sensorData = await createSensorDataReading(req.body)
 
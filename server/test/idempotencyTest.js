@@ -0,0 +1,130 @@
+// Test script for daemon frames posted twice with the same idempotency key.
+// Runs without a database: mongoose and the alert processor are replaced by in-memory stand-ins.
+const Module = require("module")
+
+const stored = []
+const alertCalls = []
+
+// SensorData stand-in with the unique sparse index on idempotencyKey
+class FakeSensorData {
+  constructor(record) {
+    Object.assign(this, record)
+    this._id = `reading-${stored.length + 1}`
+  }
+
+  static async findOne(query) {
+    return stored.find((doc) => doc.deviceId === query.deviceId && doc.timestamp.getTime() === query.timestamp.getTime())
+  }
+
+  async save() {
+    // Let a concurrent request reach its own save first, as a hedge arriving on another connection can
+    await new Promise((resolve) => setImmediate(resolve))
+    if (this.idempotencyKey && stored.some((doc) => doc.idempotencyKey === this.idempotencyKey)) {
+      const error = new Error(`E11000 duplicate key error dup key: { idempotencyKey: "${this.idempotencyKey}" }`)
+      error.code = 11000
+      error.keyPattern = { idempotencyKey: 1 }
+      throw error
+    }
+    stored.push(this)
+    return this
+  }
+
+  toObject() {
+    return { ...this }
+  }
+}
+
+const device = {
+  _id: "device-1",
+  name: "Tank 1",
+  serialNumber: "16098522754E",
+  type: "ultrasonic_level_sensor",
+  isActive: true,
+  tankType: null,
+  parameters: { samplingInterval: 60, measurementUnit: "meters" },
+  updateLastSeen: async () => {},
+}
+
+const FakeDevice = {
+  findOne: () => ({ populate: () => ({ exec: async () => device }) }),
+}
+
+const stubs = {
+  mongoose: {
+    model: (name) => ({ SensorData: FakeSensorData, Device: FakeDevice, TankType: {} })[name],
+  },
+  "express-rate-limit": () => (req, res, next) => next(),
+  "../services/sensorDataProcessor": {
+    processSensorData: async (sensorData) => {
+      alertCalls.push(sensorData)
+      return { success: true, alertsGenerated: 1, alerts: [], summary: [] }
+    },
+  },
+}
+const originalLoad = Module._load
+Module._load = function (request, parent, isMain) {
+  return Object.prototype.hasOwnProperty.call(stubs, request) ? stubs[request] : originalLoad.apply(this, arguments)
+}
+
+const { createRawSensorData } = require("../controllers/sensorIngestionController")
+
+// FEDC, version 1.0, sensor 16098522754E, session 1, order 1, then eight 4-byte values
+const values = [215, 400, 12, 20, 450, 1200, 70, 0]
+const rawHexString =
+  "FEDC" + "0A" + "16098522754E" + "00000001" + "01" + "0020" + values.map((v) => v.toString(16).toUpperCase().padStart(8, "0")).join("")
+
+function post(body, headers = {}) {
+  return new Promise((resolve) => {
+    const req = { body, get: (name) => headers[name] }
+    const res = {
+      statusCode: 200,
+      status(code) {
+        this.statusCode = code
+        return this
+      },
+      json(payload) {
+        resolve({ status: this.statusCode, body: payload })
+        return this
+      },
+    }
+    createRawSensorData(req, res, (error) => resolve({ status: error?.statusCode || 500, error }))
+  })
+}
+
+let failures = 0
+function check(label, ok) {
+  console.log(`${ok ? "✅" : "❌"} ${label}`)
+  if (!ok) failures++
+}
+
+async function run() {
+  console.log("🧪 Testing idempotent raw-data ingestion\n")
+  const timestamp = "2024-05-01T10:00:00.000Z"
+
+  console.log("=== Test 1: primary and hedge arrive together ===")
+  const [first, second] = await Promise.all([
+    post({ rawHexString, timestamp, source: "tcp-daemon", idempotencyKey: "key-1" }),
+    post({ rawHexString, timestamp, source: "tcp-daemon" }, { "Idempotency-Key": "key-1" }),
+  ])
+  check("both copies answered 200", first.status === 200 && second.status === 200)
+  check("one copy reported as duplicate", [first, second].filter((r) => r.body?.duplicate).length === 1)
+  check("one document stored", stored.length === 1 && stored[0].idempotencyKey === "key-1")
+  check("alerts processed once", alertCalls.length === 1 && alertCalls[0].deviceId === "device-1")
+
+  console.log("\n=== Test 2: a retry after the first copy was stored ===")
+  const retry = await post({ rawHexString, timestamp, source: "tcp-daemon", idempotencyKey: "key-1" })
+  check("retry answered 200", retry.status === 200)
+  check("still one document", stored.length === 1)
+  check("still one alert run", alertCalls.length === 1)
+
+  console.log("\n=== Test 3: a different frame is stored ===")
+  const next = await post({ rawHexString, timestamp: "2024-05-01T10:01:00.000Z", idempotencyKey: "key-2" })
+  check("new frame answered 200", next.status === 200 && !next.body?.duplicate)
+  check("two documents", stored.length === 2)
+  check("two alert runs", alertCalls.length === 2)
+
+  console.log(failures === 0 ? "\n✅ All checks passed" : `\n❌ ${failures} check(s) failed`)
+  process.exitCode = failures === 0 ? 0 : 1
+}
+
+run()
@@ -1,17 +1,33 @@
 package com.iot;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.backend.BackendEndpoint;
+import com.iot.backend.BackendPool;
+import com.iot.backend.HedgePolicy;
+import com.iot.buffer.BufferPool;
+import com.iot.buffer.PooledOutputStream;
+import com.iot.limit.AdaptiveExecutor;
+import com.iot.limit.ConcurrencyLimit;
+import com.iot.limit.GradientLimit;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Enhanced HTTP Backend Forwarder with proper POST request handling
@@ -21,61 +37,164 @@ public class HttpBackendForwarder {
     private static final int CONNECT_TIMEOUT = 10000; // 10 seconds
     private static final int READ_TIMEOUT = 15000; // 15 seconds
     private static final int MAX_RETRIES = 3;
+    private static final long DEFAULT_RETRY_BACKOFF_MS = 1000;
+    private static final int INITIAL_BODY_BYTES = 1024;
+    public static final int DEFAULT_INITIAL_CONCURRENCY = 10;
+    public static final int DEFAULT_MAX_CONCURRENCY = 200;
     
-    private final String backendUrl;
+    /**
+     * Outcome of a single POST attempt
+     */
+    private enum AttemptResult { SUCCESS, RETRYABLE, NON_RETRYABLE }
+    
+    private final BackendPool backends;
     private final ObjectMapper objectMapper;
-    private final ExecutorService executorService;
+    private volatile AdaptiveExecutor executor;
+    private volatile HedgePolicy hedging;
+    private volatile ScheduledThreadPoolExecutor hedgeScheduler;
+    private volatile long retryBackoffMs = DEFAULT_RETRY_BACKOFF_MS;
+    private volatile BufferPool bufferPool = BufferPool.shared();
     
     // Statistics
-    private volatile long totalRequests = 0;
-    private volatile long successfulRequests = 0;
-    private volatile long failedRequests = 0;
+    private final AtomicLong totalRequests = new AtomicLong(0);
+    private final AtomicLong successfulRequests = new AtomicLong(0);
+    private final AtomicLong failedRequests = new AtomicLong(0);
     
     public HttpBackendForwarder() {
         this(DEFAULT_BACKEND_URL);
     }
     
     public HttpBackendForwarder(String backendUrl) {
-        this.backendUrl = backendUrl != null ? backendUrl : DEFAULT_BACKEND_URL;
+        this(List.of(backendUrl != null ? backendUrl : DEFAULT_BACKEND_URL));
+    }
+    
+    /**
+     * Forward to several backend instances, balanced per request (see {@link BackendPool})
+     */
+    public HttpBackendForwarder(List<String> backendUrls) {
+        this.backends = new BackendPool(backendUrls);
         this.objectMapper = new ObjectMapper();
-        this.executorService = Executors.newFixedThreadPool(10);
+        this.executor = new AdaptiveExecutor(
+            new GradientLimit(DEFAULT_INITIAL_CONCURRENCY, 1, DEFAULT_MAX_CONCURRENCY), DEFAULT_MAX_CONCURRENCY, "forwarder");
         
         System.out.println("🔗 HTTP Backend Forwarder initialized");
-        System.out.println("📡 Backend URL: " + this.backendUrl);
+        System.out.println("📡 Backend URL" + (backendUrls.size() > 1 ? "s: " : ": ") + String.join(", ", backendUrls));
     }
     
     /**
      * Forward sensor data to backend asynchronously
      */
     public CompletableFuture<Boolean> forwardSensorDataAsync(String hexData, String clientInfo) {
+        return forwardSensorDataAsync(hexData, clientInfo, null);
+    }
+    
+    /**
+     * Forward sensor data asynchronously with extra fields computed at the edge (e.g. tank volume)
+     */
+    public CompletableFuture<Boolean> forwardSensorDataAsync(String hexData, String clientInfo, Map<String, Object> extraFields) {
         return CompletableFuture.supplyAsync(() -> {
-            return forwardSensorData(hexData, clientInfo);
-        }, executorService);
+            return forwardSensorData(hexData, clientInfo, extraFields);
+        }, executor);
     }
     
     /**
      * Forward sensor data to backend synchronously with retry logic
      */
     public boolean forwardSensorData(String hexData, String clientInfo) {
+        return forwardSensorData(hexData, clientInfo, null);
+    }
+    
+    /**
+     * Forward sensor data synchronously; extra fields are merged into the JSON payload
+     */
+    public boolean forwardSensorData(String hexData, String clientInfo, Map<String, Object> extraFields) {
+        totalRequests.incrementAndGet();
+        
         if (hexData == null || hexData.trim().isEmpty()) {
+            failedRequests.incrementAndGet();
             System.err.println("❌ Cannot forward empty hex data");
             return false;
         }
         
-        totalRequests++;
+        String idempotencyKey = newIdempotencyKey();
+        PooledOutputStream body;
+        try {
+            body = encodePayload(hexData, clientInfo, extraFields, idempotencyKey);
+        } catch (IOException e) {
+            failedRequests.incrementAndGet();
+            System.err.println("❌ Cannot encode payload for " + hexData.substring(0, Math.min(50, hexData.length())) + "...: " + e.getMessage());
+            return false;
+        }
+        try {
+            return forwardWithRetries(body, hexData, idempotencyKey);
+        } finally {
+            body.release();
+        }
+    }
+    
+    /**
+     * JSON payload encoded once into a pooled buffer and reused by every attempt
+     */
+    private PooledOutputStream encodePayload(String hexData, String clientInfo, Map<String, Object> extraFields,
+                                             String idempotencyKey) throws IOException {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("rawHexString", hexData.trim().toUpperCase());
+        payload.put("timestamp", Instant.now().toString());
+        payload.put("source", "tcp-daemon");
+        payload.put("idempotencyKey", idempotencyKey);
+        
+        if (clientInfo != null && !clientInfo.trim().isEmpty()) {
+            payload.put("clientInfo", clientInfo);
+        }
         
+        if (extraFields != null) {
+            payload.putAll(extraFields);
+        }
+        
+        PooledOutputStream body = new PooledOutputStream(bufferPool, INITIAL_BODY_BYTES);
+        try {
+            objectMapper.writeValue(body, payload);
+        } catch (IOException | RuntimeException e) {
+            body.release();
+            throw e;
+        }
+        return body;
+    }
+    
+    /**
+     * Random key sent with every attempt and hedge of one forward, so the backend can drop
+     * repeats (UUID.randomUUID would make all forwarding threads share one SecureRandom)
+     */
+    private static String newIdempotencyKey() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+    
+    private boolean forwardWithRetries(PooledOutputStream body, String hexData, String idempotencyKey) {
+        HedgePolicy policy = hedging;
+        if (policy != null) {
+            policy.onRequest();
+        }
+        BackendEndpoint endpoint = null;
         for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
             try {
-                boolean success = attemptForward(hexData, clientInfo, attempt);
-                if (success) {
-                    successfulRequests++;
+                // A retry goes to another endpoint if there is a healthy one
+                endpoint = backends.choose(hexData, endpoint);
+                AttemptResult result = policy != null
+                    ? hedgedAttempt(policy, endpoint, body, hexData, idempotencyKey, attempt)
+                    : timedAttempt(endpoint, body, hexData, idempotencyKey, attempt, null);
+                if (result == AttemptResult.SUCCESS) {
+                    successfulRequests.incrementAndGet();
                     return true;
                 }
+                if (result == AttemptResult.NON_RETRYABLE) {
+                    break;
+                }
                 
-                // Wait before retry (exponential backoff)
+                // Wait before retry (linear backoff)
                 if (attempt < MAX_RETRIES) {
-                    System.out.println("🔄 Retrying in " + (1000 * attempt) + "ms...");
-                    Thread.sleep(1000 * attempt);
+                    System.out.println("🔄 Retrying in " + (retryBackoffMs * attempt) + "ms...");
+                    Thread.sleep(retryBackoffMs * attempt);
                 }
                 
             } catch (InterruptedException e) {
@@ -87,21 +206,196 @@ public class HttpBackendForwarder {
             }
         }
         
-        failedRequests++;
-        System.err.println("❌ All " + MAX_RETRIES + " attempts failed for: " + hexData.substring(0, Math.min(50, hexData.length())) + "...");
+        failedRequests.incrementAndGet();
+        System.err.println("❌ Forwarding failed for: " + hexData.substring(0, Math.min(50, hexData.length())) + "...");
         return false;
     }
     
+    /**
+     * One attempt, with its latency fed to the endpoint, the concurrency limit and the hedge delay;
+     * a primary cut short because its hedge already answered only gives its endpoint back
+     */
+    private AttemptResult timedAttempt(BackendEndpoint endpoint, PooledOutputStream body, String hexData,
+                                       String idempotencyKey, int attempt, HedgeRace race) {
+        backends.begin(endpoint);
+        long started = System.nanoTime();
+        AttemptResult result = attemptForward(endpoint, body, hexData, idempotencyKey, attempt, race);
+        long rtt = System.nanoTime() - started;
+        if (race != null && race.isAborted()) {
+            backends.abandon(endpoint);
+            return result;
+        }
+        // Timeouts, refused connections and 5xx are what an overloaded backend looks like
+        backends.record(endpoint, rtt, result == AttemptResult.RETRYABLE);
+        executor.onSample(rtt, result == AttemptResult.RETRYABLE);
+        HedgePolicy policy = hedging;
+        if (policy != null) {
+            policy.record(rtt);
+        }
+        return result;
+    }
+    
+    /**
+     * Attempt on {@code primary} from the calling thread; if it has not answered within the hedge
+     * delay, and the budget and the concurrency limit allow, a hedge thread sends the same request
+     * to another endpoint as well. The first definite answer wins.
+     */
+    private AttemptResult hedgedAttempt(HedgePolicy policy, BackendEndpoint primary, PooledOutputStream body,
+                                        String hexData, String idempotencyKey, int attempt) throws InterruptedException {
+        long delayNanos = policy.getDelayNanos();
+        ScheduledThreadPoolExecutor scheduler = hedgeScheduler;
+        if (delayNanos == Long.MAX_VALUE || scheduler == null || backends.getEndpoints().size() < 2) {
+            return timedAttempt(primary, body, hexData, idempotencyKey, attempt, null);
+        }
+        HedgeRace race = new HedgeRace(policy);
+        // The hedge keeps the body readable until it is done, even after the forward has returned;
+        // whichever side claims the race first gives that reference back
+        body.retain();
+        ScheduledFuture<?> hedge;
+        try {
+            hedge = scheduler.schedule(() -> {
+                if (!race.claim()) {
+                    return;
+                }
+                try {
+                    hedge(policy, race, primary, body, hexData, idempotencyKey, attempt, delayNanos);
+                } finally {
+                    body.release();
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            body.release();
+            return timedAttempt(primary, body, hexData, idempotencyKey, attempt, null);
+        }
+        
+        AttemptResult result = timedAttempt(primary, body, hexData, idempotencyKey, attempt, race);
+        race.settle(result, false);
+        if (race.claim()) {
+            // Answered before the hedge started, so it never will
+            hedge.cancel(false);
+            body.release();
+            return result;
+        }
+        return await(race.winner);
+    }
+    
+    /**
+     * Runs on a hedge thread once the delay has passed without an answer
+     */
+    private void hedge(HedgePolicy policy, HedgeRace race, BackendEndpoint primary, PooledOutputStream body,
+                       String hexData, String idempotencyKey, int attempt, long delayNanos) {
+        BackendEndpoint other = race.winner.isDone() ? primary : backends.choose(hexData, primary);
+        if (other == primary) {
+            race.settle(null, true);
+            return;
+        }
+        // A hedge is one more request in flight, so it needs a slot under the concurrency limit
+        AdaptiveExecutor limiter = executor;
+        if (!limiter.tryAcquire()) {
+            policy.onLimited();
+            race.settle(null, true);
+            return;
+        }
+        try {
+            if (!policy.tryHedge()) {
+                race.settle(null, true);
+                return;
+            }
+            System.out.println("🏁 Hedging forward to " + other.getUrl() + " after "
+                + TimeUnit.NANOSECONDS.toMillis(delayNanos) + "ms without an answer from " + primary.getUrl());
+            race.settle(timedAttempt(other, body, hexData, idempotencyKey, attempt, null), true);
+        } finally {
+            limiter.release();
+        }
+    }
+    
+    /**
+     * A primary attempt and its hedge: success or a client error from either decides at once (and
+     * a deciding hedge aborts the primary); if neither decides, the one that finished last does
+     */
+    private static final class HedgeRace {
+        final CompletableFuture<AttemptResult> winner = new CompletableFuture<>();
+        private final HedgePolicy policy;
+        private final AtomicInteger remaining = new AtomicInteger(2);
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+        private volatile AttemptResult lastFailure = AttemptResult.RETRYABLE;
+        private HttpURLConnection primaryConnection;
+        private boolean aborted;
+        
+        HedgeRace(HedgePolicy policy) {
+            this.policy = policy;
+        }
+        
+        /**
+         * True for the first caller only: the hedge about to start, or the primary that answered first
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+        
+        /**
+         * @param result null if the hedge was not sent
+         */
+        void settle(AttemptResult result, boolean fromHedge) {
+            if (result == AttemptResult.SUCCESS || result == AttemptResult.NON_RETRYABLE) {
+                if (winner.complete(result) && fromHedge) {
+                    if (result == AttemptResult.SUCCESS) {
+                        policy.onHedgeWon();
+                    }
+                    abortPrimary();
+                }
+                return;
+            }
+            if (result != null) {
+                lastFailure = result;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                winner.complete(lastFailure);
+            }
+        }
+        
+        /**
+         * The primary's connection, so a winning hedge can cut it short; false if already decided
+         */
+        synchronized boolean attach(HttpURLConnection connection) {
+            primaryConnection = connection;
+            return !aborted;
+        }
+        
+        synchronized boolean isAborted() {
+            return aborted;
+        }
+        
+        private synchronized void abortPrimary() {
+            aborted = true;
+            if (primaryConnection != null) {
+                primaryConnection.disconnect();
+            }
+        }
+    }
+    
+    private static AttemptResult await(CompletableFuture<AttemptResult> attempt) throws InterruptedException {
+        try {
+            return attempt.get();
+        } catch (ExecutionException e) {
+            return AttemptResult.RETRYABLE;
+        }
+    }
+    
     /**
      * Single attempt to forward data to backend
      */
-    private boolean attemptForward(String hexData, String clientInfo, int attempt) {
+    private AttemptResult attemptForward(BackendEndpoint endpoint, PooledOutputStream body, String hexData,
+                                         String idempotencyKey, int attempt, HedgeRace race) {
         HttpURLConnection connection = null;
         
         try {
             // Create URL and connection
-            URL url = new URL(backendUrl);
+            URL url = new URL(endpoint.getUrl());
             connection = (HttpURLConnection) url.openConnection();
+            if (race != null && !race.attach(connection)) {
+                return AttemptResult.RETRYABLE;
+            }
             
             // Configure connection for POST request
             connection.setRequestMethod("POST");
@@ -109,6 +403,7 @@ public class HttpBackendForwarder {
             connection.setRequestProperty("Accept", "application/json");
             connection.setRequestProperty("User-Agent", "TCP-Ingestion-Daemon/1.0");
             connection.setRequestProperty("Connection", "close");
+            connection.setRequestProperty("Idempotency-Key", idempotencyKey);
             
             // Set timeouts
             connection.setConnectTimeout(CONNECT_TIMEOUT);
@@ -118,31 +413,19 @@ public class HttpBackendForwarder {
             connection.setDoOutput(true);
             connection.setDoInput(true);
             
-            // Create JSON payload
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("rawHexString", hexData.trim().toUpperCase());
-            payload.put("timestamp", Instant.now().toString());
-            payload.put("source", "tcp-daemon");
-            
-            if (clientInfo != null && !clientInfo.trim().isEmpty()) {
-                payload.put("clientInfo", clientInfo);
-            }
-            
-            // Convert to JSON
-            String jsonPayload = objectMapper.writeValueAsString(payload);
+            // Known length: the body streams straight from the pooled buffer instead of being copied
+            connection.setFixedLengthStreamingMode(body.size());
             
             if (attempt == 1) { // Only log on first attempt to avoid spam
                 System.out.println("📤 [Attempt " + attempt + "] Forwarding to backend:");
-                System.out.println("   URL: " + backendUrl);
+                System.out.println("   URL: " + endpoint.getUrl());
                 System.out.println("   Hex: " + hexData.substring(0, Math.min(50, hexData.length())) + "...");
-                System.out.println("   JSON: " + jsonPayload);
+                System.out.println("   JSON: " + body);
             }
             
             // Write JSON payload
-            try (OutputStream os = connection.getOutputStream();
-                 OutputStreamWriter writer = new OutputStreamWriter(os, StandardCharsets.UTF_8)) {
-                writer.write(jsonPayload);
-                writer.flush();
+            try (OutputStream os = connection.getOutputStream()) {
+                body.writeTo(os);
             }
             
             // Get response
@@ -157,7 +440,7 @@ public class HttpBackendForwarder {
                 if (responseBody != null && !responseBody.trim().isEmpty()) {
                     System.out.println("   Response: " + responseBody.substring(0, Math.min(200, responseBody.length())));
                 }
-                return true;
+                return AttemptResult.SUCCESS;
             } else {
                 System.err.println("❌ [Attempt " + attempt + "] Backend error: " + responseCode + " - " + responseMessage);
                 if (responseBody != null && !responseBody.trim().isEmpty()) {
@@ -167,22 +450,26 @@ public class HttpBackendForwarder {
                 // Don't retry on client errors (4xx)
                 if (responseCode >= 400 && responseCode < 500) {
                     System.err.println("   Client error (4xx) - not retrying.");
-                    return false;
+                    return AttemptResult.NON_RETRYABLE;
                 }
             }
             
-        } catch (IOException e) {
-            System.err.println("❌ [Attempt " + attempt + "] Network error: " + e.getMessage());
         } catch (Exception e) {
-            System.err.println("❌ [Attempt " + attempt + "] Unexpected error: " + e.getMessage());
-            e.printStackTrace();
+            if (race != null && race.isAborted()) {
+                // Cut short by a hedge that already answered
+            } else if (e instanceof IOException) {
+                System.err.println("❌ [Attempt " + attempt + "] Network error: " + e.getMessage());
+            } else {
+                System.err.println("❌ [Attempt " + attempt + "] Unexpected error: " + e.getMessage());
+                e.printStackTrace();
+            }
         } finally {
             if (connection != null) {
                 connection.disconnect();
             }
         }
         
-        return false;
+        return AttemptResult.RETRYABLE;
     }
     
     /**
@@ -211,13 +498,23 @@ public class HttpBackendForwarder {
     }
     
     /**
-     * Test connection to backend
+     * Test connection to every backend endpoint; true if at least one is healthy
      */
     public boolean testConnection() {
+        boolean anyHealthy = false;
+        for (BackendEndpoint endpoint : backends.getEndpoints()) {
+            boolean healthy = testConnection(endpoint);
+            backends.recordProbe(endpoint, healthy);
+            anyHealthy |= healthy;
+        }
+        return anyHealthy;
+    }
+    
+    private boolean testConnection(BackendEndpoint endpoint) {
         try {
-            System.out.println("🧪 Testing backend connection...");
+            System.out.println("🧪 Testing backend connection" + (backends.getEndpoints().size() > 1 ? " to " + endpoint.getUrl() : "") + "...");
             
-            URL url = new URL(backendUrl.replace("/raw-data", "/health"));
+            URL url = new URL(endpoint.getHealthUrl());
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
             
             connection.setRequestMethod("GET");
@@ -249,17 +546,35 @@ public class HttpBackendForwarder {
         }
     }
     
+    /**
+     * Probe the backend endpoints in the background, ejecting and re-admitting them
+     * (only with more than one endpoint)
+     */
+    public void startHealthChecks() {
+        backends.start();
+    }
+    
     /**
      * Get forwarding statistics
      */
     public void printStats() {
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0;
+        long total = totalRequests.get();
+        long successful = successfulRequests.get();
+        double successRate = total > 0 ? (successful * 100.0 / total) : 0;
         
         System.out.println("📊 HTTP Forwarder Stats:");
-        System.out.println("   Total requests: " + totalRequests);
-        System.out.println("   Successful: " + successfulRequests);
-        System.out.println("   Failed: " + failedRequests);
+        System.out.println("   Total requests: " + total);
+        System.out.println("   Successful: " + successful);
+        System.out.println("   Failed: " + failedRequests.get());
         System.out.println("   Success rate: " + String.format("%.1f%%", successRate));
+        executor.printStats();
+        if (backends.getEndpoints().size() > 1) {
+            backends.printStats();
+        }
+        HedgePolicy policy = hedging;
+        if (policy != null) {
+            policy.printStats();
+        }
     }
     
     /**
@@ -267,20 +582,74 @@ public class HttpBackendForwarder {
      */
     public void shutdown() {
         System.out.println("🛑 Shutting down HTTP Backend Forwarder...");
-        executorService.shutdown();
+        backends.shutdown();
         try {
-            if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
+            if (!executor.shutdown(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
             }
         } catch (InterruptedException e) {
-            executorService.shutdownNow();
+            executor.shutdownNow();
             Thread.currentThread().interrupt();
         }
+        if (hedgeScheduler != null) {
+            hedgeScheduler.shutdownNow();
+        }
         printStats();
     }
     
+    /**
+     * Base delay between retries; attempt N waits N times this value
+     */
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+    }
+    
+    /**
+     * How many forwards may be in flight at once (default: gradient limit starting at 10, up to
+     * 200); call before the first forward
+     */
+    public void setConcurrencyLimit(ConcurrencyLimit limit) {
+        AdaptiveExecutor previous = executor;
+        executor = new AdaptiveExecutor(limit, DEFAULT_MAX_CONCURRENCY, "forwarder");
+        previous.shutdownNow();
+    }
+    
+    /**
+     * Send a second copy of forwards that are slower than the policy's percentile to another
+     * backend endpoint, taking whichever answers first; null turns hedging off (the default).
+     * Hedging needs more than one endpoint. Call before the first forward.
+     *
+     * The first copy stays on the forwarding thread. Second copies run on a pool no larger than
+     * the hedges the budget can save up, and each takes a slot under the concurrency limit.
+     */
+    public void setHedging(HedgePolicy policy) {
+        if (policy != null && hedgeScheduler == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(policy.getMaxSavedHedges(), r -> {
+                Thread t = new Thread(r, "forwarder-hedge-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            // Forwards answered within the delay cancel their hedge; do not keep it queued until then
+            scheduler.setRemoveOnCancelPolicy(true);
+            hedgeScheduler = scheduler;
+        }
+        this.hedging = policy;
+    }
+    
+    /**
+     * Pool the request bodies are encoded into (default: the shared pool)
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+    
     // Getters for statistics
-    public long getTotalRequests() { return totalRequests; }
-    public long getSuccessfulRequests() { return successfulRequests; }
-    public long getFailedRequests() { return failedRequests; }
+    public long getTotalRequests() { return totalRequests.get(); }
+    public long getSuccessfulRequests() { return successfulRequests.get(); }
+    public long getFailedRequests() { return failedRequests.get(); }
+    public int getConcurrencyLimit() { return executor.getLimit(); }
+    public AdaptiveExecutor getExecutor() { return executor; }
+    public BackendPool getBackends() { return backends; }
+    public HedgePolicy getHedging() { return hedging; }
 }
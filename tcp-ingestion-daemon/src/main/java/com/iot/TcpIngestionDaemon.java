@@ -1,17 +1,62 @@
 package com.iot;
 
+import com.iot.admission.AdmissionController;
+import com.iot.archive.FrameArchive;
+import com.iot.backend.BackendPool;
+import com.iot.backend.HedgePolicy;
+import com.iot.buffer.BufferPool;
+import com.iot.buffer.PooledLineReader;
+import com.iot.connection.ConnectionManager;
+import com.iot.archive.FrameArchiveWriter;
+import com.iot.device.DeviceCache;
+import com.iot.aggregation.RollupForwarder;
+import com.iot.aggregation.StreamingAggregation;
+import com.iot.aggregation.WindowSpec;
+import com.iot.alerts.EdgeAlertDispatcher;
+import com.iot.alerts.ThresholdEngine;
+import com.iot.filter.DeadbandFilter;
+import com.iot.flow.ReadingPublisher;
+import com.iot.latest.LatestHttpServer;
+import com.iot.limit.ConcurrencyLimit;
+import com.iot.latest.LatestValueCache;
+import com.iot.live.LiveHub;
+import com.iot.mongo.MongoSensorDataSink;
+import com.iot.pipeline.EventHandler;
+import com.iot.pipeline.FrameEvent;
+import com.iot.pipeline.IngestionPipeline;
+import com.iot.pipeline.RingBuffer;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+import com.iot.series.RecentSeriesStore;
+import com.iot.sink.ConsoleSink;
+import com.iot.sink.FanOutSink;
+import com.iot.sink.HttpSensorSink;
+import com.iot.sink.NdjsonFileSink;
+import com.iot.sink.SensorRecord;
+import com.iot.sink.SensorSink;
+import com.iot.tank.TankRegistry;
+
 import java.io.*;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Enhanced TCP Ingestion Daemon with proper HTTP forwarding
  * This is the ONLY TcpIngestionDaemon class - no duplicates!
  */
-public class TcpIngestionDaemon {
+public class TcpIngestionDaemon implements Flow.Publisher<SensorReading> {
     private static final int DEFAULT_PORT = 8081;
     private static final int MAX_THREADS = 50;
+    private static final int MAX_KEEPALIVE_IDLE_SECONDS = 32_767; // Linux TCP_KEEPIDLE limit
     private static final int STATS_INTERVAL_SECONDS = 30;
     
     private final int port;
@@ -21,20 +66,189 @@ public class TcpIngestionDaemon {
     
     private volatile boolean running = false;
     private ServerSocket serverSocket;
+    private final CountDownLatch startedLatch = new CountDownLatch(1);
+    private volatile ThresholdEngine thresholdEngine;
+    private volatile TankRegistry tankRegistry;
+    private volatile StreamingAggregation aggregation;
+    private volatile DeadbandFilter deadbandFilter;
+    private volatile SensorSink sink;
+    private volatile FrameArchiveWriter frameArchive;
+    private volatile DeviceCache deviceCache;
+    private volatile boolean dropUnregistered;
+    private volatile LatestValueCache latestValues;
+    private volatile LatestHttpServer latestHttp;
+    private volatile RecentSeriesStore recentSeries;
+    private volatile LiveHub liveHub;
+    private volatile ReadingPublisher readingPublisher = new ReadingPublisher();
+    private int pipelineRingSize;
+    private int handlerThreads = MAX_THREADS;
+    private volatile IngestionPipeline pipeline;
+    private volatile BufferPool bufferPool = BufferPool.shared();
+    private volatile ConnectionManager connections = new ConnectionManager(MAX_THREADS,
+        ConnectionManager.DEFAULT_IDLE_TIMEOUT_MILLIS, ConnectionManager.DEFAULT_READ_TIMEOUT_MILLIS);
+    private volatile AdmissionController admission = new AdmissionController();
     
     // Statistics
     private final AtomicLong connectionCount = new AtomicLong(0);
     private final AtomicLong messageCount = new AtomicLong(0);
     private final AtomicLong successCount = new AtomicLong(0);
     private final AtomicLong failureCount = new AtomicLong(0);
+    private final AtomicLong unregisteredDropped = new AtomicLong(0);
+    private final AtomicInteger forwardsInFlight = new AtomicInteger(0);
     
     public TcpIngestionDaemon(int port, String backendUrl) {
+        this(port, new HttpBackendForwarder(backendUrl));
+    }
+    
+    /**
+     * Forward to several backend instances (see {@link BackendPool})
+     */
+    public TcpIngestionDaemon(int port, List<String> backendUrls) {
+        this(port, new HttpBackendForwarder(backendUrls));
+    }
+    
+    private TcpIngestionDaemon(int port, HttpBackendForwarder backendForwarder) {
         this.port = port;
-        this.backendForwarder = new HttpBackendForwarder(backendUrl);
+        this.backendForwarder = backendForwarder;
+        this.sink = new HttpSensorSink(backendForwarder);
         this.threadPool = Executors.newFixedThreadPool(MAX_THREADS);
         this.statsExecutor = Executors.newScheduledThreadPool(1);
     }
     
+    /**
+     * Enable edge threshold evaluation (call before start)
+     */
+    public void setThresholdEngine(ThresholdEngine thresholdEngine) {
+        this.thresholdEngine = thresholdEngine;
+    }
+    
+    /**
+     * Attach tank volume and fill percentage to level readings (call before start)
+     */
+    public void setTankRegistry(TankRegistry tankRegistry) {
+        this.tankRegistry = tankRegistry;
+    }
+    
+    /**
+     * Keep windowed rollups per device (call before start)
+     */
+    public void setAggregation(StreamingAggregation aggregation) {
+        this.aggregation = aggregation;
+    }
+    
+    /**
+     * Only forward readings that changed beyond the deadband or are due a heartbeat (call before start)
+     */
+    public void setDeadbandFilter(DeadbandFilter deadbandFilter) {
+        this.deadbandFilter = deadbandFilter;
+    }
+    
+    /**
+     * Resolve sensorId → deviceId for forwarded readings; optionally drop unregistered sensors (call before start)
+     */
+    public void setDeviceCache(DeviceCache deviceCache, boolean dropUnregistered) {
+        this.deviceCache = deviceCache;
+        this.dropUnregistered = dropUnregistered;
+    }
+    
+    /**
+     * Keep the latest reading per device for LATEST and, if given, the local HTTP endpoint (call before start)
+     */
+    public void setLatestValues(LatestValueCache latestValues, LatestHttpServer latestHttp) {
+        this.latestValues = latestValues;
+        this.latestHttp = latestHttp;
+    }
+    
+    /**
+     * Keep recent compressed history of every parameter for chart queries (call before start)
+     */
+    public void setRecentSeries(RecentSeriesStore recentSeries) {
+        this.recentSeries = recentSeries;
+    }
+    
+    /**
+     * Push every decoded reading to live subscribers (call before start)
+     */
+    public void setLiveHub(LiveHub liveHub) {
+        this.liveHub = liveHub;
+    }
+    
+    /**
+     * Replace the publisher behind {@link #subscribe}, e.g. for another buffer size or overflow policy (call before start)
+     */
+    public void setReadingPublisher(ReadingPublisher readingPublisher) {
+        this.readingPublisher = readingPublisher;
+    }
+    
+    /**
+     * Receive every decoded reading in-process, with demand-driven backpressure (see {@link ReadingPublisher})
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super SensorReading> subscriber) {
+        readingPublisher.subscribe(subscriber);
+    }
+    
+    /**
+     * Run decode, enrichment and forwarding as separate stages connected by rings of the given
+     * size instead of on the connection threads; 0 keeps everything inline (call before start)
+     */
+    public void setStagedPipeline(int ringSize) {
+        this.pipelineRingSize = ringSize;
+    }
+    
+    /**
+     * Pool for connection read buffers and request bodies (default: the shared pool) (call before start)
+     */
+    public void setBufferPool(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        if (backendForwarder != null) {
+            backendForwarder.setBufferPool(bufferPool);
+        }
+    }
+    
+    /**
+     * Connection limit, idle/read timeouts and keepalive (call before start)
+     */
+    public void setConnectionManager(ConnectionManager connections) {
+        this.connections = connections;
+    }
+    
+    /**
+     * Cap on handler threads, independent of the connection limit (call before start).
+     *
+     * Handlers use blocking reads, so each open connection holds a thread (and its stack) for as
+     * long as it stays open. Connections beyond this many are refused with the same error line as
+     * those beyond the connection limit, never admitted to wait unread. Raising it serves more
+     * devices concurrently at the cost of a thread each.
+     */
+    public void setHandlerThreads(int handlerThreads) {
+        if (handlerThreads < 1) {
+            throw new IllegalArgumentException("At least one handler thread is required: " + handlerThreads);
+        }
+        this.handlerThreads = handlerThreads;
+    }
+    
+    /**
+     * Limits past which frames are answered BUSY and connections refused (call before start)
+     */
+    public void setAdmissionController(AdmissionController admission) {
+        this.admission = admission;
+    }
+    
+    /**
+     * Archive every valid frame, including those filtered at the edge (call before start)
+     */
+    public void setFrameArchive(FrameArchiveWriter frameArchive) {
+        this.frameArchive = frameArchive;
+    }
+    
+    /**
+     * Where received frames go instead of the backend forwarder (call before start)
+     */
+    public void setSink(SensorSink sink) {
+        this.sink = sink;
+    }
+    
     /**
      * Start the TCP daemon
      */
@@ -42,22 +256,55 @@ public class TcpIngestionDaemon {
         System.out.println("🚀 TCP Ingestion Daemon starting...");
         System.out.println("📡 Port: " + port);
         System.out.println("🔗 Backend URL: " + (backendForwarder != null ? "configured" : "not configured"));
-        System.out.println("🧵 Max threads: " + MAX_THREADS);
+        connections.setHandlerThreads(handlerThreads);
+        System.out.println("🧵 Max connections: " + connections.getLimit()
+            + " (connection limit " + connections.getMaxConnections() + ", handler threads " + handlerThreads
+            + ", idle timeout " + connections.getIdleTimeoutMillis() / 1000 + "s"
+            + ", read timeout " + connections.getReadTimeoutMillis() / 1000 + "s)");
         System.out.println("==========================================");
         
         // Test backend connection
         if (backendForwarder != null) {
             backendForwarder.testConnection();
+            backendForwarder.startHealthChecks();
         }
         
-        serverSocket = new ServerSocket(port);
+        // Channel-backed, so connections can read straight into pooled direct buffers
+        serverSocket = ServerSocketChannel.open().socket();
+        serverSocket.bind(new InetSocketAddress(port));
+        if (pipelineRingSize > 0) {
+            pipeline = new IngestionPipeline(pipelineRingSize,
+                (event, endOfBatch) -> decodeFrame(event),
+                (event, endOfBatch) -> enrichFrame(event),
+                EventHandler.batching(this::forwardBatch));
+            pipeline.start();
+        }
+        if (latestHttp != null) {
+            latestHttp.start();
+        }
+        // One handler thread per admitted connection; the manager refuses connections beyond them
+        ThreadPoolExecutor handlers = (ThreadPoolExecutor) threadPool;
+        int poolSize = connections.getLimit();
+        if (poolSize > handlers.getMaximumPoolSize()) {
+            handlers.setMaximumPoolSize(poolSize);
+            handlers.setCorePoolSize(poolSize);
+        } else {
+            handlers.setCorePoolSize(poolSize);
+            handlers.setMaximumPoolSize(poolSize);
+        }
+        connections.start();
+        admission.bind(this::queuedFrames, forwardsInFlight::get);
+        if (thresholdEngine != null) {
+            admission.setThresholdEngine(thresholdEngine);
+        }
         running = true;
+        startedLatch.countDown();
         
         // Start statistics reporting
         statsExecutor.scheduleAtFixedRate(this::printStats, 
             STATS_INTERVAL_SECONDS, STATS_INTERVAL_SECONDS, TimeUnit.SECONDS);
         
-        System.out.println("✅ TCP Ingestion Daemon started on port " + port);
+        System.out.println("✅ TCP Ingestion Daemon started on port " + getLocalPort());
         
         // Accept connections
         while (running) {
@@ -66,10 +313,19 @@ public class TcpIngestionDaemon {
                 connectionCount.incrementAndGet();
                 
                 String clientInfo = clientSocket.getRemoteSocketAddress().toString();
+                if (!admission.admitConnection()) {
+                    System.err.println("⚠️ Refusing connection from " + clientInfo + ": daemon overloaded");
+                    connections.refuse(clientSocket, admission.busyReply());
+                    continue;
+                }
+                ConnectionManager.Connection connection = connections.register(clientSocket, clientInfo);
+                if (connection == null) {
+                    continue;
+                }
                 System.out.println("🔌 New connection from: " + clientInfo);
                 
                 // Handle client in thread pool
-                threadPool.submit(() -> handleClient(clientSocket, clientInfo));
+                threadPool.submit(() -> handleClient(clientSocket, connection));
                 
             } catch (IOException e) {
                 if (running) {
@@ -82,14 +338,16 @@ public class TcpIngestionDaemon {
     /**
      * Handle individual client connection
      */
-    private void handleClient(Socket clientSocket, String clientInfo) {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(clientSocket.getInputStream()));
+    private void handleClient(Socket clientSocket, ConnectionManager.Connection connection) {
+        String clientInfo = connection.getClientInfo();
+        try (PooledLineReader reader = new PooledLineReader(clientSocket.getChannel(), bufferPool);
              PrintWriter writer = new PrintWriter(
                 clientSocket.getOutputStream(), true)) {
+            connection.attach(reader);
             
             String line;
             while ((line = reader.readLine()) != null && running) {
+                connection.touch();
                 line = line.trim();
                 
                 if (line.isEmpty()) {
@@ -107,38 +365,50 @@ public class TcpIngestionDaemon {
                 if ("STATUS".equalsIgnoreCase(line)) {
                     writer.println("OK - Messages: " + messageCount.get() + 
                                  ", Success: " + successCount.get() + 
-                                 ", Failed: " + failureCount.get());
+                                 ", Failed: " + failureCount.get() +
+                                 ", Connections: " + connections.getOpen() + "/" + connections.getLimit() +
+                                 ", Forward limit: " + backendForwarder.getConcurrencyLimit() +
+                                 ", Backends: " + backendForwarder.getBackends().getHealthyCount() +
+                                 "/" + backendForwarder.getBackends().getEndpoints().size() +
+                                 ", Age: " + connection.getAgeMillis() / 1000 + "s");
+                    continue;
+                }
+                
+                if ("STATUS CONNECTIONS".equalsIgnoreCase(line)) {
+                    writer.println("OK " + LatestValueCache.toJson(connections.snapshot()));
+                    continue;
+                }
+                
+                if (line.regionMatches(true, 0, "LATEST", 0, 6) && (line.length() == 6 || line.charAt(6) == ' ')) {
+                    writer.println(latest(line.substring(6).trim()));
                     continue;
                 }
                 
                 // Process hex data
                 if (isValidHexData(line)) {
+                    // Under load, devices are told to come back later instead of being queued for
+                    if (!admission.admitFrame(line)) {
+                        writer.println(admission.busyReply());
+                        continue;
+                    }
+                    
                     System.out.println("📨 Received hex data from " + clientInfo + ": " + 
                                      line.substring(0, Math.min(50, line.length())) + "...");
                     
-                    // Forward to backend
-                    boolean success = false;
-                    if (backendForwarder != null) {
-                        try {
-                            // Use asynchronous forwarding to avoid blocking the client handler thread
-                            // The CompletableFuture is not awaited here, allowing immediate response to client
-                            backendForwarder.forwardSensorDataAsync(line, clientInfo)
-                                .thenAccept(result -> {
-                                    if (result) {
-                                        successCount.incrementAndGet();
-                                        // Log success, but response to client is handled below
-                                    } else {
-                                        failureCount.incrementAndGet();
-                                        System.err.println("❌ Backend forwarding failed for " + clientInfo + " (async).");
-                                    }
-                                });
-                            success = true; // Assume success for immediate client response, actual success is async
-                        } catch (Exception e) {
-                            System.err.println("❌ Backend forwarding error (async setup): " + e.getMessage());
-                            success = false;
-                        }
+                    FrameEvent event = new FrameEvent(line, clientInfo, System.currentTimeMillis());
+                    IngestionPipeline staged = pipeline;
+                    if (staged != null) {
+                        // Decode, enrichment and forwarding continue on the pipeline's stage threads
+                        writer.println(staged.offer(event) ? "OK" : "ERROR: Daemon is shutting down");
+                        continue;
                     }
                     
+                    decodeFrame(event);
+                    enrichFrame(event);
+                    
+                    // Forward to the sink(s) (skipped for unregistered sensors, when only rollups are wanted or inside the deadband)
+                    boolean success = !event.isForward() || forward(event);
+                    
                     if (success) {
                         writer.println("OK");
                     } else {
@@ -152,8 +422,12 @@ public class TcpIngestionDaemon {
             }
             
         } catch (IOException e) {
-            System.err.println("❌ Client handling error for " + clientInfo + ": " + e.getMessage());
+            // A connection closed on timeout was already reported
+            if (connection.getClosedReason() == null) {
+                System.err.println("❌ Client handling error for " + clientInfo + ": " + e.getMessage());
+            }
         } finally {
+            connections.unregister(connection);
             try {
                 clientSocket.close();
                 System.out.println("🔌 Connection closed: " + clientInfo);
@@ -163,6 +437,204 @@ public class TcpIngestionDaemon {
         }
     }
     
+    /**
+     * Archive the frame and decode it once if any edge feature needs the values
+     */
+    private void decodeFrame(FrameEvent event) {
+        FrameArchiveWriter archive = frameArchive;
+        if (archive != null) {
+            archive.append(event.getRawHex(), event.getReceivedAtMillis());
+        }
+        if (thresholdEngine != null || tankRegistry != null || aggregation != null || deadbandFilter != null
+                || deviceCache != null || latestValues != null || recentSeries != null || liveHub != null
+                || readingPublisher.hasSubscribers()) {
+            event.setReading(SensorFrameDecoder.decode(event.getRawHex(), event.getReceivedAtMillis()));
+        }
+    }
+    
+    /**
+     * Device lookup, in-memory views, edge alerts and derived fields; decides whether the raw frame is forwarded
+     */
+    private void enrichFrame(FrameEvent event) {
+        StreamingAggregation windows = aggregation;
+        SensorReading reading = event.getReading();
+        Map<String, Object> edgeFields = null;
+        boolean suppressed = false;
+        if (reading != null) {
+            DeviceCache devices = deviceCache;
+            if (devices != null) {
+                edgeFields = devices.deviceFields(reading.getSensorId());
+                if (edgeFields == null && dropUnregistered) {
+                    unregisteredDropped.incrementAndGet();
+                    event.setForward(false);
+                    return;
+                }
+            }
+            LatestValueCache latest = latestValues;
+            if (latest != null) {
+                latest.update(reading);
+            }
+            RecentSeriesStore history = recentSeries;
+            if (history != null) {
+                history.add(reading);
+            }
+            LiveHub live = liveHub;
+            if (live != null) {
+                live.publish(reading);
+            }
+            readingPublisher.publish(reading);
+            // Edge alerts go out on their own path before the raw frame is forwarded
+            ThresholdEngine engine = thresholdEngine;
+            if (engine != null) {
+                engine.check(reading);
+            }
+            TankRegistry tanks = tankRegistry;
+            if (tanks != null) {
+                edgeFields = merge(edgeFields, tanks.volumeFields(reading));
+            }
+            if (windows != null) {
+                windows.add(reading);
+            }
+            DeadbandFilter deadband = deadbandFilter;
+            if (deadband != null) {
+                Map<String, Object> summary = deadband.check(reading, event.getReceivedAtMillis());
+                if (summary == null) {
+                    suppressed = true;
+                } else {
+                    edgeFields = merge(edgeFields, summary);
+                }
+            }
+        }
+        event.setEdgeFields(edgeFields);
+        event.setForward(!suppressed && (windows == null || windows.isForwardRaw()));
+    }
+    
+    /**
+     * Hand one frame to the sink without waiting for delivery; false if that could not even be started
+     */
+    private boolean forward(FrameEvent event) {
+        SensorSink target = sink;
+        if (target == null) {
+            return false;
+        }
+        String clientInfo = event.getClientInfo();
+        forwardsInFlight.incrementAndGet();
+        try {
+            // The CompletableFuture is not awaited here, allowing immediate response to client
+            CompletableFuture<Boolean> accepted = target.accept(event.toRecord());
+            accepted.whenComplete((ignored, error) -> forwardsInFlight.decrementAndGet());
+            accepted
+                .thenAccept(result -> {
+                    if (result) {
+                        successCount.incrementAndGet();
+                        commitDeadband(event);
+                    } else {
+                        failureCount.incrementAndGet();
+                        System.err.println("❌ Forwarding to " + target.getName() + " failed for " + clientInfo + " (async).");
+                    }
+                });
+            // A sink that refused on the spot (e.g. its queue is full) is reported to the device, not acknowledged
+            if (accepted.isDone() && (accepted.isCompletedExceptionally() || !Boolean.TRUE.equals(accepted.join()))) {
+                return false;
+            }
+            return true; // Assume success for immediate client response, actual success is async
+        } catch (Exception e) {
+            forwardsInFlight.decrementAndGet();
+            System.err.println("❌ Sink error (async setup): " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * The sink took the frame: the deadband compares later readings against it
+     */
+    private void commitDeadband(FrameEvent event) {
+        DeadbandFilter deadband = deadbandFilter;
+        if (deadband != null && event.getReading() != null) {
+            deadband.commit(event.getReading(), event.getReceivedAtMillis());
+        }
+    }
+    
+    /**
+     * Sink stage of the staged pipeline: one acceptBatch per drained batch
+     */
+    private void forwardBatch(List<FrameEvent> batch) {
+        List<SensorRecord> records = new ArrayList<>(batch.size());
+        for (FrameEvent event : batch) {
+            if (event.isForward()) {
+                records.add(event.toRecord());
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        SensorSink target = sink;
+        int size = records.size();
+        if (target == null) {
+            failureCount.addAndGet(size);
+            return;
+        }
+        forwardsInFlight.addAndGet(size);
+        target.acceptBatch(records).whenComplete((accepted, error) -> {
+            forwardsInFlight.addAndGet(-size);
+            int delivered = error == null && accepted != null ? accepted : 0;
+            successCount.addAndGet(delivered);
+            if (delivered == size) {
+                // A partial batch does not say which frames went through, so none moves the deadband
+                for (FrameEvent event : batch) {
+                    if (event.isForward()) {
+                        commitDeadband(event);
+                    }
+                }
+            }
+            if (delivered < size) {
+                failureCount.addAndGet(size - delivered);
+                System.err.println("❌ Forwarding to " + target.getName() + " failed for " + (size - delivered)
+                        + " of " + size + " frames (async).");
+            }
+        });
+    }
+    
+    /**
+     * Frames held between pipeline stages and in sink queues, for admission control
+     */
+    private int queuedFrames() {
+        IngestionPipeline staged = pipeline;
+        SensorSink target = sink;
+        return (staged != null ? staged.getInFlight() : 0) + (target != null ? target.getBacklog() : 0);
+    }
+    
+    /**
+     * Reply to "LATEST <sensorId>": "OK <reading as JSON>" or an error
+     */
+    private String latest(String sensorIdHex) {
+        LatestValueCache latest = latestValues;
+        if (latest == null) {
+            return "ERROR: Latest values not enabled";
+        }
+        if (SensorFrameDecoder.parseSensorId(sensorIdHex) < 0) {
+            return "ERROR: Invalid sensorId (expected 12 hex characters)";
+        }
+        SensorReading reading = latest.get(sensorIdHex);
+        if (reading == null) {
+            return "ERROR: No reading for " + sensorIdHex;
+        }
+        return "OK " + LatestValueCache.toJson(LatestValueCache.toMap(reading));
+    }
+    
+    /**
+     * Combine edge field maps (both are freshly built per reading, so the first may be extended)
+     */
+    private static Map<String, Object> merge(Map<String, Object> fields, Map<String, Object> more) {
+        if (fields == null) {
+            return more;
+        }
+        if (more != null) {
+            fields.putAll(more);
+        }
+        return fields;
+    }
+    
     /**
      * Validate hex data format
      */
@@ -171,6 +643,26 @@ public class TcpIngestionDaemon {
             return false;
         }
         
+        // One pass over the line for the common (valid) case; the cleaned copy is only built for error messages
+        int digits = 0;
+        boolean hex = true;
+        boolean fedc = true;
+        for (int i = 0; i < data.length() && hex; i++) {
+            char c = data.charAt(i);
+            if (c == ':' || c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B) {
+                continue;
+            }
+            char upper = c >= 'a' && c <= 'f' ? (char) (c - 32) : c;
+            hex = upper >= '0' && upper <= '9' || upper >= 'A' && upper <= 'F';
+            if (digits < 4 && upper != "FEDC".charAt(digits)) {
+                fedc = false;
+            }
+            digits++;
+        }
+        if (hex && digits >= 32 && fedc) {
+            return true;
+        }
+        
         String cleanData = data.replaceAll("[\\s:]", "").toUpperCase();
         
         // Must be valid hex characters
@@ -206,13 +698,107 @@ public class TcpIngestionDaemon {
         System.out.println("📊 Daemon Stats - Connections: " + connections + 
                          ", Messages: " + messages + 
                          ", Success: " + success + 
-                         ", Failed: " + failures);
+                         ", Failed: " + failures +
+                         (dropUnregistered ? ", Unregistered dropped: " + unregisteredDropped.get() : ""));
         
         if (backendForwarder != null) {
             backendForwarder.printStats();
         }
+        
+        if (pipeline != null) {
+            pipeline.printStats();
+        }
+        
+        this.connections.printStats();
+        
+        admission.printStats();
+        
+        bufferPool.printStats();
+        
+        if (sink != null) {
+            sink.printStats();
+        }
+        
+        if (frameArchive != null) {
+            frameArchive.printStats();
+        }
+        
+        if (deviceCache != null) {
+            deviceCache.printStats();
+        }
+        
+        if (latestValues != null) {
+            latestValues.printStats();
+        }
+        
+        if (recentSeries != null) {
+            recentSeries.printStats();
+        }
+        
+        if (liveHub != null) {
+            liveHub.printStats();
+        }
+        
+        if (readingPublisher.hasSubscribers()) {
+            readingPublisher.printStats();
+        }
+        
+        if (thresholdEngine != null) {
+            thresholdEngine.printStats();
+        }
+        
+        if (tankRegistry != null) {
+            tankRegistry.printStats();
+        }
+        
+        if (aggregation != null) {
+            aggregation.printStats();
+        }
+        
+        if (deadbandFilter != null) {
+            deadbandFilter.printStats();
+        }
+    }
+    
+    /**
+     * Wait until the server socket is bound (used when embedding or testing in-process)
+     */
+    public boolean awaitStarted(long timeout, TimeUnit unit) throws InterruptedException {
+        return startedLatch.await(timeout, unit);
     }
     
+    /**
+     * Actual bound port - differs from the configured port when started with port 0
+     */
+    public int getLocalPort() {
+        ServerSocket socket = serverSocket;
+        return socket != null ? socket.getLocalPort() : port;
+    }
+    
+    public boolean isRunning() { return running; }
+    public HttpBackendForwarder getBackendForwarder() { return backendForwarder; }
+    public long getMessageCount() { return messageCount.get(); }
+    public long getSuccessCount() { return successCount.get(); }
+    public long getFailureCount() { return failureCount.get(); }
+    public ThresholdEngine getThresholdEngine() { return thresholdEngine; }
+    public TankRegistry getTankRegistry() { return tankRegistry; }
+    public StreamingAggregation getAggregation() { return aggregation; }
+    public DeadbandFilter getDeadbandFilter() { return deadbandFilter; }
+    public SensorSink getSink() { return sink; }
+    public FrameArchiveWriter getFrameArchive() { return frameArchive; }
+    public DeviceCache getDeviceCache() { return deviceCache; }
+    public long getUnregisteredDropped() { return unregisteredDropped.get(); }
+    public LatestValueCache getLatestValues() { return latestValues; }
+    public LatestHttpServer getLatestHttp() { return latestHttp; }
+    public RecentSeriesStore getRecentSeries() { return recentSeries; }
+    public LiveHub getLiveHub() { return liveHub; }
+    public ReadingPublisher getReadingPublisher() { return readingPublisher; }
+    public IngestionPipeline getPipeline() { return pipeline; }
+    public BufferPool getBufferPool() { return bufferPool; }
+    public ConnectionManager getConnectionManager() { return connections; }
+    public AdmissionController getAdmissionController() { return admission; }
+    public int getForwardsInFlight() { return forwardsInFlight.get(); }
+    
     /**
      * Stop the daemon gracefully
      */
@@ -228,6 +814,15 @@ public class TcpIngestionDaemon {
             System.err.println("❌ Error closing server socket: " + e.getMessage());
         }
         
+        if (latestHttp != null) {
+            latestHttp.stop();
+        }
+        
+        if (liveHub != null) {
+            liveHub.shutdown();
+        }
+        
+        connections.shutdown();
         threadPool.shutdown();
         statsExecutor.shutdown();
         
@@ -244,10 +839,44 @@ public class TcpIngestionDaemon {
             Thread.currentThread().interrupt();
         }
         
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+        
+        readingPublisher.shutdown();
+        
+        if (sink != null) {
+            sink.shutdown();
+        }
+        
+        if (frameArchive != null) {
+            frameArchive.shutdown(10, TimeUnit.SECONDS);
+        }
+        
+        if (deviceCache != null) {
+            deviceCache.shutdown();
+        }
+        
+        if (recentSeries != null) {
+            recentSeries.shutdown();
+        }
+        
         if (backendForwarder != null) {
             backendForwarder.shutdown();
         }
         
+        if (thresholdEngine != null) {
+            thresholdEngine.shutdown();
+        }
+        
+        if (tankRegistry != null) {
+            tankRegistry.shutdown();
+        }
+        
+        if (aggregation != null) {
+            aggregation.shutdown();
+        }
+        
         System.out.println("✅ TCP Ingestion Daemon stopped.");
     }
     
@@ -257,25 +886,349 @@ public class TcpIngestionDaemon {
     public static void main(String[] args) {
         int port = DEFAULT_PORT;
         String backendUrl = "http://localhost:5000/api/sensor/raw-data";
+        String thresholdSource = null;
+        String alertEndpoint = null;
+        long thresholdRefreshSeconds = 300;
+        String tankSource = null;
+        long tankRefreshSeconds = 300;
+        List<WindowSpec> windowSpecs = new ArrayList<>();
+        long windowGraceMillis = 10_000;
+        int windowMaxDevices = 100_000;
+        String rollupEndpoint = null;
+        long rollupIntervalMillis = 10_000;
+        boolean forwardRaw = true;
+        String deadbandSpec = null;
+        long heartbeatMillis = 15 * 60_000;
+        List<String> sinkSpecs = new ArrayList<>();
+        int sinkQueueCapacity = FanOutSink.DEFAULT_QUEUE_CAPACITY;
+        String deviceSource = null;
+        long deviceRefreshSeconds = 300;
+        boolean dropUnregistered = false;
+        String archiveDir = null;
+        FrameArchive.Partitioning archivePartitioning = FrameArchive.Partitioning.HOURLY;
+        String mongoUri = null;
+        String mongoDatabase = null;
+        int mongoBatchSize = 1000;
+        boolean latestEnabled = false;
+        long latestBudgetBytes = LatestValueCache.DEFAULT_BUDGET_BYTES;
+        int httpPort = -1;
+        String httpBind = "127.0.0.1";
+        boolean seriesEnabled = false;
+        long seriesRetentionMillis = RecentSeriesStore.DEFAULT_RETENTION_MILLIS;
+        int seriesMaxDevices = 100_000;
+        boolean liveEnabled = false;
+        int pipelineRingSize = 0;
+        int maxConnections = MAX_THREADS;
+        int handlerThreads = MAX_THREADS;
+        long idleTimeoutMillis = ConnectionManager.DEFAULT_IDLE_TIMEOUT_MILLIS;
+        long readTimeoutMillis = ConnectionManager.DEFAULT_READ_TIMEOUT_MILLIS;
+        int keepAliveIdleSeconds = ConnectionManager.DEFAULT_KEEPALIVE_IDLE_SECONDS;
+        AdmissionController admission = new AdmissionController();
+        String forwardLimit = "gradient";
+        BackendPool.Strategy balance = BackendPool.Strategy.LEAST_OUTSTANDING;
+        boolean stickySensors = false;
+        long healthIntervalMillis = BackendPool.DEFAULT_HEALTH_INTERVAL_MILLIS;
+        double hedgePercentile = 0;
+        double hedgeBudgetPercent = HedgePolicy.DEFAULT_BUDGET_PERCENT;
         
         // Parse command line arguments
         for (int i = 0; i < args.length; i++) {
             switch (args[i]) {
                 case "--port":
                 case "-p":
+                    if (i + 1 < args.length) {
+                        port = parseIntFlag(args[++i], 1, 65535, "port number");
+                    }
+                    break;
+                case "--backend":
+                case "-b":
+                    if (i + 1 < args.length) {
+                        backendUrl = args[++i];
+                    }
+                    break;
+                case "--sink":
+                    if (i + 1 < args.length) {
+                        sinkSpecs.add(args[++i]);
+                    }
+                    break;
+                case "--sink-queue":
+                    if (i + 1 < args.length) {
+                        sinkQueueCapacity = parseIntFlag(args[++i], 1, Integer.MAX_VALUE, "sink queue size");
+                    }
+                    break;
+                case "--thresholds":
+                    if (i + 1 < args.length) {
+                        thresholdSource = args[++i];
+                    }
+                    break;
+                case "--threshold-refresh":
+                    if (i + 1 < args.length) {
+                        thresholdRefreshSeconds = parseLongFlag(args[++i], 0, Long.MAX_VALUE, "refresh interval");
+                    }
+                    break;
+                case "--alert-endpoint":
+                    if (i + 1 < args.length) {
+                        alertEndpoint = args[++i];
+                    }
+                    break;
+                case "--tanks":
+                    if (i + 1 < args.length) {
+                        tankSource = args[++i];
+                    }
+                    break;
+                case "--tank-refresh":
+                    if (i + 1 < args.length) {
+                        tankRefreshSeconds = parseLongFlag(args[++i], 0, Long.MAX_VALUE, "refresh interval");
+                    }
+                    break;
+                case "--windows":
+                    if (i + 1 < args.length) {
+                        try {
+                            for (String spec : args[++i].split(",")) {
+                                windowSpecs.add(WindowSpec.parse(spec));
+                            }
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("❌ Invalid window spec: " + e.getMessage());
+                            System.exit(1);
+                        }
+                    }
+                    break;
+                case "--window-grace":
+                    if (i + 1 < args.length) {
+                        windowGraceMillis = parseDurationFlag(args[++i], 0, Long.MAX_VALUE, "window grace");
+                    }
+                    break;
+                case "--window-max-devices":
+                    if (i + 1 < args.length) {
+                        windowMaxDevices = parseIntFlag(args[++i], 1, Integer.MAX_VALUE, "window device limit");
+                    }
+                    break;
+                case "--rollup-endpoint":
+                    if (i + 1 < args.length) {
+                        rollupEndpoint = args[++i];
+                    }
+                    break;
+                case "--rollup-interval":
+                    if (i + 1 < args.length) {
+                        rollupIntervalMillis = parseDurationFlag(args[++i], 1, Long.MAX_VALUE, "rollup interval");
+                    }
+                    break;
+                case "--rollups-only":
+                    forwardRaw = false;
+                    break;
+                case "--deadband":
+                    if (i + 1 < args.length) {
+                        deadbandSpec = args[++i];
+                    }
+                    break;
+                case "--heartbeat":
+                    if (i + 1 < args.length) {
+                        heartbeatMillis = parseDurationFlag(args[++i], 0, Long.MAX_VALUE, "heartbeat interval");
+                    }
+                    break;
+                case "--devices":
+                    if (i + 1 < args.length) {
+                        deviceSource = args[++i];
+                    }
+                    break;
+                case "--device-refresh":
+                    if (i + 1 < args.length) {
+                        deviceRefreshSeconds = parseLongFlag(args[++i], 0, Long.MAX_VALUE, "refresh interval");
+                    }
+                    break;
+                case "--drop-unregistered":
+                    dropUnregistered = true;
+                    break;
+                case "--archive":
+                    if (i + 1 < args.length) {
+                        archiveDir = args[++i];
+                    }
+                    break;
+                case "--archive-partition":
                     if (i + 1 < args.length) {
                         try {
-                            port = Integer.parseInt(args[++i]);
+                            archivePartitioning = FrameArchive.Partitioning.parse(args[++i]);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("❌ Invalid archive partitioning: " + args[i]);
+                            System.exit(1);
+                        }
+                    }
+                    break;
+                case "--mongo":
+                    if (i + 1 < args.length) {
+                        mongoUri = args[++i];
+                    }
+                    break;
+                case "--mongo-db":
+                    if (i + 1 < args.length) {
+                        mongoDatabase = args[++i];
+                    }
+                    break;
+                case "--mongo-batch":
+                    if (i + 1 < args.length) {
+                        mongoBatchSize = parseIntFlag(args[++i], 1, Integer.MAX_VALUE, "Mongo batch size");
+                    }
+                    break;
+                case "--latest":
+                    latestEnabled = true;
+                    break;
+                case "--latest-budget-mb":
+                    if (i + 1 < args.length) {
+                        latestBudgetBytes = parseLongFlag(args[++i], 1, Integer.MAX_VALUE, "latest-value budget") << 20;
+                        latestEnabled = true;
+                    }
+                    break;
+                case "--http-port":
+                    if (i + 1 < args.length) {
+                        httpPort = parseIntFlag(args[++i], 1, 65535, "HTTP port number");
+                        latestEnabled = true;
+                    }
+                    break;
+                case "--http-bind":
+                    if (i + 1 < args.length) {
+                        httpBind = args[++i];
+                    }
+                    break;
+                case "--series":
+                    seriesEnabled = true;
+                    break;
+                case "--series-retention":
+                    if (i + 1 < args.length) {
+                        seriesRetentionMillis = parseDurationFlag(args[++i], 1, Long.MAX_VALUE, "series retention");
+                        seriesEnabled = true;
+                    }
+                    break;
+                case "--series-max-devices":
+                    if (i + 1 < args.length) {
+                        seriesMaxDevices = parseIntFlag(args[++i], 1, Integer.MAX_VALUE, "series device limit");
+                    }
+                    break;
+                case "--live":
+                    liveEnabled = true;
+                    break;
+                case "--pipeline":
+                    pipelineRingSize = IngestionPipeline.DEFAULT_RING_SIZE;
+                    break;
+                case "--pipeline-ring":
+                    if (i + 1 < args.length) {
+                        pipelineRingSize = parseIntFlag(args[++i], 2, RingBuffer.MAX_CAPACITY, "ring size");
+                    }
+                    break;
+                case "--max-connections":
+                    if (i + 1 < args.length) {
+                        maxConnections = parseIntFlag(args[++i], 1, Integer.MAX_VALUE, "connection limit");
+                    }
+                    break;
+                case "--handler-threads":
+                    if (i + 1 < args.length) {
+                        handlerThreads = parseIntFlag(args[++i], 1, Integer.MAX_VALUE, "handler thread count");
+                    }
+                    break;
+                case "--idle-timeout":
+                    if (i + 1 < args.length) {
+                        idleTimeoutMillis = parseDurationFlag(args[++i], 0, Long.MAX_VALUE, "idle timeout");
+                    }
+                    break;
+                case "--read-timeout":
+                    if (i + 1 < args.length) {
+                        readTimeoutMillis = parseDurationFlag(args[++i], 0, Long.MAX_VALUE, "read timeout");
+                    }
+                    break;
+                case "--keepalive":
+                    if (i + 1 < args.length) {
+                        // Whole seconds, as the socket option takes them; below 1s would read as "off"
+                        keepAliveIdleSeconds = (int) (parseDurationFlag(args[++i], 1000,
+                            MAX_KEEPALIVE_IDLE_SECONDS * 1000L, "keepalive idle time") / 1000);
+                    }
+                    break;
+                case "--no-keepalive":
+                    keepAliveIdleSeconds = 0;
+                    break;
+                case "--shed-queue":
+                    if (i + 1 < args.length) {
+                        int[] limits = parseLimits(args[++i], Integer.MAX_VALUE);
+                        admission.setQueueDepthLimits(limits[0], limits[1]);
+                    }
+                    break;
+                case "--shed-in-flight":
+                    if (i + 1 < args.length) {
+                        int[] limits = parseLimits(args[++i], Integer.MAX_VALUE);
+                        admission.setInFlightLimits(limits[0], limits[1]);
+                    }
+                    break;
+                case "--shed-heap":
+                    if (i + 1 < args.length) {
+                        int[] limits = parseLimits(args[++i], 100);
+                        admission.setHeapLimits(limits[0] / 100.0, limits[1] / 100.0);
+                    }
+                    break;
+                case "--retry-after":
+                    if (i + 1 < args.length) {
+                        // Whole seconds, as the hint is sent
+                        admission.setRetryAfterSeconds((int) (parseDurationFlag(args[++i], 1000,
+                            Integer.MAX_VALUE * 1000L, "retry-after") / 1000));
+                    }
+                    break;
+                case "--forward-limit":
+                    if (i + 1 < args.length) {
+                        forwardLimit = args[++i];
+                    }
+                    break;
+                case "--balance":
+                    if (i + 1 < args.length) {
+                        balance = BackendPool.Strategy.parse(args[++i]);
+                        if (balance == null) {
+                            System.err.println("❌ Unknown balancing strategy: " + args[i]);
+                            System.exit(1);
+                        }
+                    }
+                    break;
+                case "--sticky-sensors":
+                    stickySensors = true;
+                    break;
+                case "--health-interval":
+                    if (i + 1 < args.length) {
+                        healthIntervalMillis = parseDurationFlag(args[++i], 0, Long.MAX_VALUE, "health check interval");
+                    }
+                    break;
+                case "--hedge":
+                    if (i + 1 < args.length) {
+                        try {
+                            hedgePercentile = Double.parseDouble(args[++i]);
                         } catch (NumberFormatException e) {
-                            System.err.println("❌ Invalid port number: " + args[i]);
+                            hedgePercentile = Double.NaN;
+                        }
+                        if (!(hedgePercentile > 0 && hedgePercentile < 100)) {
+                            System.err.println("❌ Invalid hedge percentile (above 0, below 100): " + args[i]);
                             System.exit(1);
                         }
                     }
                     break;
-                case "--backend":
-                case "-b":
+                case "--hedge-budget":
                     if (i + 1 < args.length) {
-                        backendUrl = args[++i];
+                        try {
+                            hedgeBudgetPercent = Double.parseDouble(args[++i]);
+                        } catch (NumberFormatException e) {
+                            hedgeBudgetPercent = Double.NaN;
+                        }
+                        if (!(hedgeBudgetPercent >= 0 && hedgeBudgetPercent <= 100)) {
+                            System.err.println("❌ Invalid hedge budget (0-100): " + args[i]);
+                            System.exit(1);
+                        }
+                    }
+                    break;
+                case "--priority-sensors":
+                    if (i + 1 < args.length) {
+                        Set<Long> sensorIds = new HashSet<>();
+                        for (String id : args[++i].split(",")) {
+                            long sensorId = SensorFrameDecoder.parseSensorId(id.trim());
+                            if (sensorId < 0) {
+                                System.err.println("❌ Invalid sensorId: " + id);
+                                System.exit(1);
+                            }
+                            sensorIds.add(sensorId);
+                        }
+                        admission.setPrioritySensors(sensorIds);
                     }
                     break;
                 case "--help":
@@ -286,7 +1239,134 @@ public class TcpIngestionDaemon {
             }
         }
         
-        TcpIngestionDaemon daemon = new TcpIngestionDaemon(port, backendUrl);
+        List<String> backendUrls = new ArrayList<>();
+        for (String url : backendUrl.split(",")) {
+            if (!url.trim().isEmpty()) {
+                backendUrls.add(url.trim());
+            }
+        }
+        TcpIngestionDaemon daemon = new TcpIngestionDaemon(port, backendUrls);
+        BackendPool backends = daemon.getBackendForwarder().getBackends();
+        backends.setStrategy(balance);
+        backends.setSticky(stickySensors);
+        backends.setHealthIntervalMillis(healthIntervalMillis);
+        if (hedgePercentile > 0) {
+            daemon.getBackendForwarder().setHedging(new HedgePolicy(hedgePercentile, hedgeBudgetPercent));
+        }
+        daemon.setStagedPipeline(pipelineRingSize);
+        
+        ConnectionManager connectionManager = new ConnectionManager(maxConnections, idleTimeoutMillis, readTimeoutMillis);
+        connectionManager.setKeepAlive(keepAliveIdleSeconds,
+            ConnectionManager.DEFAULT_KEEPALIVE_INTERVAL_SECONDS, ConnectionManager.DEFAULT_KEEPALIVE_COUNT);
+        daemon.setConnectionManager(connectionManager);
+        daemon.setHandlerThreads(handlerThreads);
+        daemon.setAdmissionController(admission);
+        
+        ConcurrencyLimit limit = ConcurrencyLimit.parse(forwardLimit,
+            HttpBackendForwarder.DEFAULT_INITIAL_CONCURRENCY, HttpBackendForwarder.DEFAULT_MAX_CONCURRENCY);
+        if (limit == null) {
+            System.err.println("❌ Unknown forward limit: " + forwardLimit);
+            System.exit(1);
+        }
+        daemon.getBackendForwarder().setConcurrencyLimit(limit);
+        
+        if (thresholdSource != null) {
+            if (alertEndpoint == null) {
+                System.err.println("❌ --thresholds requires --alert-endpoint <url> (the backend has no edge alert route)");
+                System.exit(1);
+            }
+            EdgeAlertDispatcher dispatcher = new EdgeAlertDispatcher(alertEndpoint);
+            ThresholdEngine engine = new ThresholdEngine(thresholdSource, dispatcher);
+            engine.start(thresholdRefreshSeconds);
+            daemon.setThresholdEngine(engine);
+        }
+        
+        if (tankSource != null) {
+            TankRegistry registry = new TankRegistry(tankSource);
+            registry.start(tankRefreshSeconds);
+            daemon.setTankRegistry(registry);
+        }
+        
+        if (!windowSpecs.isEmpty()) {
+            if (rollupEndpoint == null) {
+                System.err.println("❌ --windows requires --rollup-endpoint <url> (the backend has no rollup route)");
+                System.exit(1);
+            }
+            RollupForwarder rollups = new RollupForwarder(rollupEndpoint);
+            StreamingAggregation streaming = new StreamingAggregation(
+                windowSpecs, windowGraceMillis, windowMaxDevices, rollups, forwardRaw);
+            streaming.start(rollupIntervalMillis);
+            daemon.setAggregation(streaming);
+        }
+        
+        if (deadbandSpec != null) {
+            try {
+                daemon.setDeadbandFilter(DeadbandFilter.parse(deadbandSpec, heartbeatMillis));
+            } catch (IllegalArgumentException e) {
+                System.err.println("❌ Invalid deadband: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        
+        if (deviceSource != null) {
+            DeviceCache cache = new DeviceCache(deviceSource);
+            cache.start(deviceRefreshSeconds);
+            daemon.setDeviceCache(cache, dropUnregistered);
+        }
+        
+        RecentSeriesStore series = null;
+        if (seriesEnabled) {
+            series = new RecentSeriesStore(seriesRetentionMillis, seriesMaxDevices);
+            series.start();
+            daemon.setRecentSeries(series);
+        }
+        
+        if (liveEnabled && httpPort < 0) {
+            System.err.println("❌ --live needs --http-port <port>");
+            System.exit(1);
+        }
+        
+        if (latestEnabled) {
+            LatestValueCache latest = new LatestValueCache(latestBudgetBytes);
+            LatestHttpServer http = null;
+            if (httpPort >= 0) {
+                http = new LatestHttpServer(latest, new InetSocketAddress(httpBind, httpPort));
+                http.setRecentSeries(series);
+                if (liveEnabled) {
+                    LiveHub live = new LiveHub();
+                    live.start();
+                    http.setLiveHub(live);
+                    daemon.setLiveHub(live);
+                }
+            }
+            daemon.setLatestValues(latest, http);
+        }
+        
+        if (archiveDir != null) {
+            daemon.setFrameArchive(new FrameArchiveWriter(Paths.get(archiveDir), archivePartitioning));
+        }
+        
+        if (sinkSpecs.isEmpty() && mongoUri != null) {
+            sinkSpecs.add("mongo");
+        }
+        if (!sinkSpecs.isEmpty()) {
+            List<SensorSink> sinks = new ArrayList<>();
+            for (String spec : sinkSpecs) {
+                if (spec.equals("mongo") && mongoUri == null) {
+                    System.err.println("❌ --sink mongo needs --mongo <uri>");
+                    System.exit(1);
+                }
+                SensorSink sink = createSink(spec, daemon.getBackendForwarder(), mongoUri, mongoDatabase, mongoBatchSize);
+                if (sink == null) {
+                    System.err.println("❌ Unknown sink: " + spec);
+                    System.exit(1);
+                }
+                sinks.add(sink);
+            }
+            daemon.setSink(sinks.size() == 1
+                ? sinks.get(0)
+                : new FanOutSink(sinks, sinkQueueCapacity, FanOutSink.DEFAULT_BATCH_SIZE));
+        }
         
         // Add shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
@@ -299,12 +1379,174 @@ public class TcpIngestionDaemon {
         }
     }
     
+    /**
+     * "<soft>,<hard>" for the --shed-* options, each between 0 and max
+     */
+    private static int[] parseLimits(String spec, int max) {
+        String[] parts = spec.split(",");
+        if (parts.length != 2) {
+            System.err.println("❌ Expected <soft>,<hard>: " + spec);
+            System.exit(1);
+        }
+        int soft = -1;
+        int hard = -1;
+        try {
+            soft = Integer.parseInt(parts[0].trim());
+            hard = Integer.parseInt(parts[1].trim());
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        if (soft < 0 || hard < 0 || soft > max || hard > max) {
+            System.err.println("❌ Invalid limits (" + describeRange(0, max) + "): " + spec);
+            System.exit(1);
+        }
+        if (soft > hard) {
+            System.err.println("❌ Soft limit above hard limit: " + spec);
+            System.exit(1);
+        }
+        return new int[] {soft, hard};
+    }
+    
+    /**
+     * A whole number between min and max for a numeric option; anything else exits
+     */
+    private static long parseLongFlag(String value, long min, long max, String what) {
+        long parsed = min - 1;
+        try {
+            parsed = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        if (parsed < min || parsed > max) {
+            System.err.println("❌ Invalid " + what + " (" + describeRange(min, max) + "): " + value);
+            System.exit(1);
+        }
+        return parsed;
+    }
+    
+    private static int parseIntFlag(String value, int min, int max, String what) {
+        return (int) parseLongFlag(value, min, max, what);
+    }
+    
+    /**
+     * A duration (see {@link WindowSpec#parseDuration}) between min and max millis; anything else exits
+     */
+    private static long parseDurationFlag(String value, long minMillis, long maxMillis, String what) {
+        long parsed = minMillis - 1;
+        try {
+            parsed = WindowSpec.parseDuration(value);
+        } catch (IllegalArgumentException e) {
+            // reported below
+        }
+        if (parsed < minMillis || parsed > maxMillis) {
+            String range = maxMillis == Long.MAX_VALUE ? "at least " + formatDurationFlag(minMillis)
+                : formatDurationFlag(minMillis) + " to " + formatDurationFlag(maxMillis);
+            System.err.println("❌ Invalid " + what + " (" + range + "): " + value);
+            System.exit(1);
+        }
+        return parsed;
+    }
+    
+    private static String describeRange(long min, long max) {
+        if (max == Integer.MAX_VALUE || max == Long.MAX_VALUE) {
+            return "at least " + min;
+        }
+        return min + " to " + max;
+    }
+    
+    private static String formatDurationFlag(long millis) {
+        return millis == 0 ? "0" : WindowSpec.formatDuration(millis);
+    }
+    
+    /**
+     * Build a sink from "http", "http:<url>", "ndjson:<dir>", "console" or "mongo"; null if unknown
+     */
+    public static SensorSink createSink(String spec, HttpBackendForwarder forwarder, String mongoUri,
+                                 String mongoDatabase, int mongoBatchSize) {
+        int colon = spec.indexOf(':');
+        String type = colon < 0 ? spec : spec.substring(0, colon);
+        String arg = colon < 0 ? null : spec.substring(colon + 1);
+        switch (type) {
+            case "http":
+                return arg == null ? new HttpSensorSink(forwarder) : new HttpSensorSink(arg);
+            case "ndjson":
+                return new NdjsonFileSink(Paths.get(arg != null ? arg : "sensor-data"));
+            case "console":
+                return new ConsoleSink();
+            case "mongo":
+                return new MongoSensorDataSink(mongoUri, mongoDatabase, mongoBatchSize, 200, 100_000);
+            default:
+                return null;
+        }
+    }
+    
     private static void printUsage() {
         System.out.println("TCP Ingestion Daemon");
         System.out.println("Usage: java -jar tcp-ingestion-daemon.jar [options]");
         System.out.println("Options:");
         System.out.println("  -p, --port <port>      TCP port to listen on (default: 8081)");
-        System.out.println("  -b, --backend <url>    Backend URL (default: http://localhost:5000/api/sensor/raw-data)");
+        System.out.println("  -b, --backend <url>    Backend URL (default: http://localhost:5000/api/sensor/raw-data);");
+        System.out.println("                               comma-separated for several instances");
+        System.out.println("  --sink <spec>                Send frames to http[:<url>], ndjson:<dir>, console or mongo;");
+        System.out.println("                               repeat to fan out to several sinks (default: http)");
+        System.out.println("  --sink-queue <n>             Per-sink queue when fanning out (default: 10000)");
+        System.out.println("  --thresholds <file|url>      Evaluate threshold rules at the edge (JSON file or URL of an external");
+        System.out.println("                               export: {\"thresholds\":[...],\"deviceThresholds\":[...]})");
+        System.out.println("  --threshold-refresh <sec>    Rule reload interval (default: 300, 0 = never)");
+        System.out.println("  --alert-endpoint <url>       Where edge alerts are POSTed, required with --thresholds");
+        System.out.println("                               (external service: not served by this repo's backend)");
+        System.out.println("  --tanks <file|url>           Attach tank volume to level readings (JSON file or URL of an external");
+        System.out.println("                               device/tankType export, see TankRegistry; not served by the backend)");
+        System.out.println("  --tank-refresh <sec>         Tank registry refresh interval (default: 300, 0 = never)");
+        System.out.println("  --windows <specs>            Rollup windows, e.g. 1m,1h or 5m/1m for sliding");
+        System.out.println("  --window-grace <dur>         Wait for late readings before closing (default: 10s)");
+        System.out.println("  --window-max-devices <n>     Devices tracked per window (default: 100000)");
+        System.out.println("  --rollup-endpoint <url>      Where rollups are POSTed, required with --windows");
+        System.out.println("                               (external service: not served by this repo's backend)");
+        System.out.println("  --rollup-interval <dur>      How often closed windows are sent (default: 10s)");
+        System.out.println("  --rollups-only               Send rollups only, do not forward raw readings");
+        System.out.println("  --deadband <spec>            Forward only on change, e.g. ultrasonic_liquid_level=0.01,humidity=2%,*=1%");
+        System.out.println("  --heartbeat <dur>            Forward unchanged readings at least this often (default: 15m)");
+        System.out.println("  --devices <file|url>         Resolve sensorId -> deviceId at the edge (JSON file or URL of an external");
+        System.out.println("                               device export, see DeviceCache; not served by the backend)");
+        System.out.println("  --device-refresh <sec>       Device cache refresh interval (default: 300, 0 = never)");
+        System.out.println("  --drop-unregistered          Drop readings from sensors with no registered device");
+        System.out.println("  --archive <dir>              Archive every valid frame to compressed segment files");
+        System.out.println("  --archive-partition <p>      hourly or daily segments (default: hourly)");
+        System.out.println("  --mongo <uri>                MongoDB for the mongo sink (alone: implies --sink mongo)");
+        System.out.println("  --mongo-db <name>            Database name (default: from the URI)");
+        System.out.println("  --mongo-batch <n>            Readings per insertMany (default: 1000)");
+        System.out.println("  --latest                     Keep the latest reading per device for LATEST <sensorId>");
+        System.out.println("  --latest-budget-mb <n>       Memory for latest readings (default: 64)");
+        System.out.println("  --http-port <port>           Serve GET /latest/<sensorId> and /series/<sensorId>/<param> (implies --latest)");
+        System.out.println("  --http-bind <addr>           Address for the HTTP endpoint (default: 127.0.0.1)");
+        System.out.println("  --series                     Keep recent compressed history per device and parameter");
+        System.out.println("  --series-retention <dur>     History kept in memory (default: 24h)");
+        System.out.println("  --series-max-devices <n>     Devices with history (default: 100000)");
+        System.out.println("  --live                       Stream readings as Server-Sent Events on GET /live?sensors=<id,...>");
+        System.out.println("  --pipeline                   Decode, enrich and forward on separate stage threads (batched hand-off)");
+        System.out.println("  --pipeline-ring <n>          Ring size between stages (default: 4096, implies --pipeline)");
+        System.out.println("  --max-connections <n>        Open connections before new ones are refused (default: 50)");
+        System.out.println("  --handler-threads <n>        Connections served at once, one blocking thread each (default: 50);");
+        System.out.println("                               connections past it are refused like those past --max-connections");
+        System.out.println("  --idle-timeout <dur>         Close connections that send nothing for this long (default: 10m, 0 = never)");
+        System.out.println("  --read-timeout <dur>         Close connections that leave a line unfinished this long (default: 30s, 0 = never)");
+        System.out.println("  --keepalive <dur>            Idle time before TCP keepalive probes (default: 2m, 30s apart, 4 probes)");
+        System.out.println("  --no-keepalive               Do not enable TCP keepalive");
+        System.out.println("  --shed-queue <soft>,<hard>   Frames queued in stages and sinks before BUSY / refusing (default: 10000,50000)");
+        System.out.println("  --shed-in-flight <soft>,<hard>  Forwards in flight before BUSY / refusing (default: 10000,50000)");
+        System.out.println("  --shed-heap <soft>,<hard>    Heap % in use after GC before BUSY / refusing (default: 85,95)");
+        System.out.println("  --retry-after <dur>          Base retry hint in BUSY replies (default: 5s)");
+        System.out.println("  --priority-sensors <id,...>  Sensors whose frames are still taken under soft load");
+        System.out.println("  --forward-limit <l>          Backend requests in flight: gradient (adapts to RTT), aimd (backs off on errors)");
+        System.out.println("                               or a fixed number (default: gradient, from 10 up to 200)");
+        System.out.println("  --balance <strategy>         Spread forwards over backends: least-outstanding or latency");
+        System.out.println("                               (least latency x queue of two random picks) (default: least-outstanding)");
+        System.out.println("  --sticky-sensors             Send each sensor's frames to the same backend while it is healthy");
+        System.out.println("  --health-interval <dur>      Probe each backend's /health this often, ejecting failing ones (default: 5s)");
+        System.out.println("  --hedge <percentile>         Send a second copy of forwards slower than this percentile of recent");
+        System.out.println("                               ones (e.g. 95) to another backend; first answer wins (default: off)");
+        System.out.println("  --hedge-budget <pct>         Hedges allowed per 100 forwards (default: 10)");
         System.out.println("  -h, --help             Show this help message");
     }
 }
@@ -0,0 +1,276 @@
+package com.iot.admission;
+
+import com.iot.alerts.ThresholdEngine;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Load shedding for the connection handlers, driven by how much work the daemon is holding:
+ * frames queued between stages and in sink queues, forwards still in flight, and heap in use
+ * after the last garbage collection.
+ *
+ * Each signal has a soft and a hard limit. Past any soft limit, frames are answered with
+ * "ERROR: BUSY retry-after=N" unless they are priority frames (a listed sensor, or a reading
+ * that breaches an edge threshold). Past any hard limit, every frame is answered BUSY and new
+ * connections are refused with the same line. A level is left only once every signal is back
+ * below 90% of its limit, so the daemon does not flap at the boundary. Retry hints carry
+ * jitter so devices told to back off at the same moment do not all return together.
+ *
+ * Signals are sampled at most every few milliseconds (heap less often), so checking a frame
+ * costs a clock read in the common case.
+ */
+public class AdmissionController {
+    public static final int DEFAULT_SOFT_QUEUE_DEPTH = 10_000;
+    public static final int DEFAULT_HARD_QUEUE_DEPTH = 50_000;
+    public static final int DEFAULT_SOFT_IN_FLIGHT = 10_000;
+    public static final int DEFAULT_HARD_IN_FLIGHT = 50_000;
+    public static final double DEFAULT_SOFT_HEAP = 0.85;
+    public static final double DEFAULT_HARD_HEAP = 0.95;
+    public static final int DEFAULT_RETRY_AFTER_SECONDS = 5;
+    private static final double RECOVERY = 0.9;
+    private static final int HARD_RETRY_FACTOR = 4;
+    private static final long SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long HEAP_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * How loaded the daemon is
+     */
+    public enum Level { NORMAL, SOFT, HARD }
+
+    private int softQueueDepth = DEFAULT_SOFT_QUEUE_DEPTH;
+    private int hardQueueDepth = DEFAULT_HARD_QUEUE_DEPTH;
+    private int softInFlight = DEFAULT_SOFT_IN_FLIGHT;
+    private int hardInFlight = DEFAULT_HARD_IN_FLIGHT;
+    private double softHeap = DEFAULT_SOFT_HEAP;
+    private double hardHeap = DEFAULT_HARD_HEAP;
+    private int retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    private volatile Set<Long> prioritySensors = Set.of();
+    private volatile ThresholdEngine thresholdEngine;
+
+    private volatile IntSupplier queueDepth = () -> 0;
+    private volatile IntSupplier inFlight = () -> 0;
+    private volatile DoubleSupplier heapUsage = AdmissionController::heapUsedAfterGc;
+    private final AtomicReference<Level> level = new AtomicReference<>(Level.NORMAL);
+    private volatile long sampledAtNanos = System.nanoTime() - SAMPLE_NANOS;
+    private volatile long heapSampledAtNanos = System.nanoTime() - HEAP_SAMPLE_NANOS;
+    private volatile int lastQueueDepth;
+    private volatile int lastInFlight;
+    private volatile double lastHeap;
+
+    // Statistics
+    private final AtomicLong admitted = new AtomicLong(0);
+    private final AtomicLong priorityAdmitted = new AtomicLong(0);
+    private final AtomicLong shed = new AtomicLong(0);
+    private final AtomicLong refusedConnections = new AtomicLong(0);
+    private final AtomicLong softEntered = new AtomicLong(0);
+    private final AtomicLong hardEntered = new AtomicLong(0);
+
+    /**
+     * Frames queued and forwards in flight, read from the daemon (call before start)
+     */
+    public void bind(IntSupplier queueDepth, IntSupplier inFlight) {
+        this.queueDepth = queueDepth;
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * Replace the heap signal (fraction of the maximum heap in use), e.g. in tests
+     */
+    public void setHeapUsage(DoubleSupplier heapUsage) {
+        this.heapUsage = heapUsage;
+    }
+
+    public void setQueueDepthLimits(int soft, int hard) {
+        this.softQueueDepth = soft;
+        this.hardQueueDepth = hard;
+    }
+
+    public void setInFlightLimits(int soft, int hard) {
+        this.softInFlight = soft;
+        this.hardInFlight = hard;
+    }
+
+    /**
+     * Limits as fractions of the maximum heap, e.g. 0.85 and 0.95
+     */
+    public void setHeapLimits(double soft, double hard) {
+        this.softHeap = soft;
+        this.hardHeap = hard;
+    }
+
+    /**
+     * Base retry hint; BUSY replies ask for 1-2x this under soft load and 4-8x under hard load
+     */
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    /**
+     * Sensors whose frames are still taken under soft load
+     */
+    public void setPrioritySensors(Set<Long> sensorIds) {
+        this.prioritySensors = Set.copyOf(sensorIds);
+    }
+
+    /**
+     * Frames whose readings breach one of this engine's thresholds are still taken under soft load
+     */
+    public void setThresholdEngine(ThresholdEngine thresholdEngine) {
+        this.thresholdEngine = thresholdEngine;
+    }
+
+    /**
+     * Current level, resampling the signals if the last sample is stale
+     */
+    public Level level() {
+        long now = System.nanoTime();
+        if (now - sampledAtNanos < SAMPLE_NANOS) {
+            return level.get();
+        }
+        sampledAtNanos = now;
+        if (now - heapSampledAtNanos >= HEAP_SAMPLE_NANOS) {
+            heapSampledAtNanos = now;
+            lastHeap = heapUsage.getAsDouble();
+        }
+        lastQueueDepth = queueDepth.getAsInt();
+        lastInFlight = inFlight.getAsInt();
+
+        Level previous = level.get();
+        Level next;
+        if (over(1.0, hardQueueDepth, hardInFlight, hardHeap)
+                || previous == Level.HARD && over(RECOVERY, hardQueueDepth, hardInFlight, hardHeap)) {
+            next = Level.HARD;
+        } else if (over(1.0, softQueueDepth, softInFlight, softHeap)
+                || previous != Level.NORMAL && over(RECOVERY, softQueueDepth, softInFlight, softHeap)) {
+            next = Level.SOFT;
+        } else {
+            next = Level.NORMAL;
+        }
+        if (next != previous && level.compareAndSet(previous, next)) {
+            if (next == Level.SOFT && previous == Level.NORMAL) {
+                softEntered.incrementAndGet();
+            } else if (next == Level.HARD) {
+                hardEntered.incrementAndGet();
+            }
+            System.out.println((next == Level.NORMAL ? "🟢" : next == Level.SOFT ? "🟡" : "🔴")
+                    + " Admission " + previous + " → " + next + ": " + describeSignals());
+        }
+        return next;
+    }
+
+    private boolean over(double factor, int queueLimit, int inFlightLimit, double heapLimit) {
+        return lastQueueDepth >= queueLimit * factor
+                || lastInFlight >= inFlightLimit * factor
+                || lastHeap >= heapLimit * factor;
+    }
+
+    /**
+     * Whether to take a frame now; if not, reply with {@link #busyReply()}
+     */
+    public boolean admitFrame(String rawHex) {
+        Level current = level();
+        if (current == Level.NORMAL) {
+            admitted.incrementAndGet();
+            return true;
+        }
+        if (current == Level.SOFT && isPriority(rawHex)) {
+            admitted.incrementAndGet();
+            priorityAdmitted.incrementAndGet();
+            return true;
+        }
+        shed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Whether to take a new connection; if not, refuse it with {@link #busyReply()}
+     */
+    public boolean admitConnection() {
+        if (level() == Level.HARD) {
+            refusedConnections.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reply for a shed frame or refused connection, with a jittered retry hint for the current level
+     */
+    public String busyReply() {
+        int base = level.get() == Level.HARD ? retryAfterSeconds * HARD_RETRY_FACTOR : retryAfterSeconds;
+        return "ERROR: BUSY retry-after=" + (base + ThreadLocalRandom.current().nextInt(base + 1));
+    }
+
+    /**
+     * Listed sensor, or a reading that breaches an edge threshold (decoded only under load)
+     */
+    boolean isPriority(String rawHex) {
+        Set<Long> sensors = prioritySensors;
+        ThresholdEngine engine = thresholdEngine;
+        if (sensors.isEmpty() && engine == null) {
+            return false;
+        }
+        SensorReading reading = SensorFrameDecoder.decode(rawHex);
+        if (reading == null) {
+            return false;
+        }
+        if (sensors.contains(reading.getSensorId())) {
+            return true;
+        }
+        return engine != null && engine.getTable().evaluate(reading, (r, p, value, critical, below, threshold) -> { }) > 0;
+    }
+
+    /**
+     * Fraction of the maximum heap still in use after the last collection of each heap pool, which
+     * unlike the current usage does not count garbage waiting to be collected
+     */
+    static double heapUsedAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+        }
+        long max = Runtime.getRuntime().maxMemory();
+        return max > 0 && max != Long.MAX_VALUE ? (double) used / max : 0;
+    }
+
+    private String describeSignals() {
+        return "queued " + lastQueueDepth + " (soft " + softQueueDepth + ", hard " + hardQueueDepth + ")"
+                + ", in flight " + lastInFlight + " (soft " + softInFlight + ", hard " + hardInFlight + ")"
+                + String.format(", heap %.0f%% (soft %.0f%%, hard %.0f%%)", lastHeap * 100, softHeap * 100, hardHeap * 100);
+    }
+
+    public Level getLevel() { return level.get(); }
+    public long getAdmitted() { return admitted.get(); }
+    public long getPriorityAdmitted() { return priorityAdmitted.get(); }
+    public long getShed() { return shed.get(); }
+    public long getRefusedConnections() { return refusedConnections.get(); }
+    public long getSoftEntered() { return softEntered.get(); }
+    public long getHardEntered() { return hardEntered.get(); }
+
+    public void printStats() {
+        System.out.println("🚦 Admission - Level: " + level.get()
+                + ", Admitted: " + admitted.get()
+                + " (priority under load: " + priorityAdmitted.get() + ")"
+                + ", Shed: " + shed.get()
+                + ", Refused connections: " + refusedConnections.get()
+                + ", Soft/hard episodes: " + softEntered.get() + "/" + hardEntered.get()
+                + " - " + describeSignals());
+    }
+}
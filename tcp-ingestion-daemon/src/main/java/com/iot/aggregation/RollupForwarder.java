@@ -0,0 +1,93 @@
+package com.iot.aggregation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * POSTs batches of closed windows to the rollup endpoint as
+ * {@code {"source":"tcp-daemon","rollups":[...]}}.
+ *
+ * The rollup endpoint is an external contract: the backend in this repository has no route for
+ * it, so it must be given explicitly. Any 2xx accepts the whole batch; anything else keeps it
+ * for the next attempt, so the receiver should tolerate a batch arriving twice.
+ */
+public class RollupForwarder {
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int READ_TIMEOUT = 15000;
+
+    private final String rollupUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Statistics
+    private final AtomicLong batchesSent = new AtomicLong(0);
+    private final AtomicLong batchesFailed = new AtomicLong(0);
+    private final AtomicLong rollupsSent = new AtomicLong(0);
+
+    public RollupForwarder(String rollupUrl) {
+        this.rollupUrl = rollupUrl;
+        System.out.println("📈 Rollup endpoint: " + rollupUrl);
+    }
+
+    /**
+     * Send one batch; returns false so the caller can keep the batch for the next attempt
+     */
+    public boolean send(List<Map<String, Object>> rollups) {
+        if (rollups.isEmpty()) {
+            return true;
+        }
+        HttpURLConnection connection = null;
+        try {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("source", "tcp-daemon");
+            payload.put("rollups", rollups);
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+
+            connection = (HttpURLConnection) new URL(rollupUrl).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("User-Agent", "TCP-Ingestion-Daemon/1.0");
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setDoOutput(true);
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(json);
+            }
+
+            int status = connection.getResponseCode();
+            InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (body != null) {
+                body.readAllBytes();
+                body.close();
+            }
+            if (status >= 200 && status < 300) {
+                batchesSent.incrementAndGet();
+                rollupsSent.addAndGet(rollups.size());
+                return true;
+            }
+            System.err.println("❌ Rollup batch rejected: HTTP " + status + " (" + rollups.size() + " windows)");
+        } catch (IOException e) {
+            System.err.println("❌ Rollup batch failed: " + e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        batchesFailed.incrementAndGet();
+        return false;
+    }
+
+    public String getRollupUrl() { return rollupUrl; }
+    public long getBatchesSent() { return batchesSent.get(); }
+    public long getBatchesFailed() { return batchesFailed.get(); }
+    public long getRollupsSent() { return rollupsSent.get(); }
+}
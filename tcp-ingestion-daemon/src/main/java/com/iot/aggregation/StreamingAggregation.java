@@ -0,0 +1,171 @@
+package com.iot.aggregation;
+
+import com.iot.protocol.SensorReading;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the configured window aggregators and ships closed windows to the rollup endpoint.
+ *
+ * Every flush interval the watermark is advanced, closed windows are collected into a bounded
+ * pending queue (oldest dropped when full) and sent in batches. A failed batch stays pending
+ * and is retried on the next flush.
+ */
+public class StreamingAggregation {
+    private static final int MAX_BATCH = 500;
+    private static final int DEFAULT_MAX_PENDING = 50_000;
+
+    private final List<WindowAggregator> aggregators;
+    private final RollupForwarder forwarder;
+    private final boolean forwardRaw;
+    private final int maxPending;
+    private final ArrayDeque<Map<String, Object>> pending = new ArrayDeque<>();
+    private final Consumer<Map<String, Object>> collector = this::enqueue;
+    private volatile LongSupplier clock = System::currentTimeMillis;
+    private ScheduledExecutorService flushExecutor;
+
+    // Statistics
+    private final AtomicLong droppedRollups = new AtomicLong(0);
+
+    public StreamingAggregation(List<WindowSpec> windows, long graceMillis, int maxDevices,
+                                RollupForwarder forwarder, boolean forwardRaw) {
+        this(windows, graceMillis, maxDevices, forwarder, forwardRaw, DEFAULT_MAX_PENDING);
+    }
+
+    public StreamingAggregation(List<WindowSpec> windows, long graceMillis, int maxDevices,
+                                RollupForwarder forwarder, boolean forwardRaw, int maxPending) {
+        List<WindowAggregator> list = new ArrayList<>();
+        for (WindowSpec spec : windows) {
+            list.add(new WindowAggregator(spec, graceMillis, maxDevices));
+        }
+        this.aggregators = Collections.unmodifiableList(list);
+        this.forwarder = forwarder;
+        this.forwardRaw = forwardRaw;
+        this.maxPending = maxPending;
+
+        System.out.println("📈 Windowed aggregation: " + windows + ", grace " + graceMillis + "ms, max devices "
+                + maxDevices + (forwardRaw ? "" : ", raw forwarding disabled"));
+    }
+
+    /**
+     * Replace the wall clock (tests and replays)
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Flush every {@code flushIntervalMillis}
+     */
+    public void start(long flushIntervalMillis) {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rollup-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(SensorReading reading) {
+        long now = clock.getAsLong();
+        for (WindowAggregator aggregator : aggregators) {
+            aggregator.add(reading, now, collector);
+        }
+    }
+
+    /**
+     * Close windows up to the watermark and send everything pending
+     */
+    public void flush() {
+        try {
+            long now = clock.getAsLong();
+            for (WindowAggregator aggregator : aggregators) {
+                aggregator.flush(now, collector);
+            }
+            while (true) {
+                List<Map<String, Object>> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                if (!forwarder.send(batch)) {
+                    requeue(batch);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Rollup flush error: " + e.getMessage());
+        }
+    }
+
+    private synchronized void enqueue(Map<String, Object> rollup) {
+        if (pending.size() >= maxPending) {
+            pending.pollFirst();
+            droppedRollups.incrementAndGet();
+        }
+        pending.addLast(rollup);
+    }
+
+    private synchronized List<Map<String, Object>> nextBatch() {
+        List<Map<String, Object>> batch = new ArrayList<>(Math.min(MAX_BATCH, pending.size()));
+        while (batch.size() < MAX_BATCH && !pending.isEmpty()) {
+            batch.add(pending.pollFirst());
+        }
+        return batch;
+    }
+
+    private synchronized void requeue(List<Map<String, Object>> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (pending.size() >= maxPending) {
+                droppedRollups.incrementAndGet();
+                continue;
+            }
+            pending.addFirst(batch.get(i));
+        }
+    }
+
+    public boolean isForwardRaw() { return forwardRaw; }
+    public List<WindowAggregator> getAggregators() { return aggregators; }
+    public RollupForwarder getForwarder() { return forwarder; }
+    public synchronized int getPendingCount() { return pending.size(); }
+    public long getDroppedRollups() { return droppedRollups.get(); }
+
+    public void printStats() {
+        for (WindowAggregator aggregator : aggregators) {
+            System.out.println("📈 Window " + aggregator.getSpec()
+                    + " - Devices: " + aggregator.getDeviceCount()
+                    + ", Readings: " + aggregator.getReadingsAggregated()
+                    + ", Late: " + aggregator.getLateReadings()
+                    + ", Overflow: " + aggregator.getOverflowReadings()
+                    + ", Windows: " + aggregator.getWindowsEmitted());
+        }
+        System.out.println("📈 Rollups - Sent: " + forwarder.getRollupsSent()
+                + ", Pending: " + getPendingCount()
+                + ", Failed batches: " + forwarder.getBatchesFailed()
+                + ", Dropped: " + droppedRollups.get());
+    }
+
+    /**
+     * Stop the schedule and send whatever the watermark has closed
+     */
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            try {
+                flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
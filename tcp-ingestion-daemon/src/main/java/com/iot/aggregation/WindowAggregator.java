@@ -0,0 +1,250 @@
+package com.iot.aggregation;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Per-device, per-parameter count/min/max/sum over one {@link WindowSpec}.
+ *
+ * Readings are added to slide-sized panes held in a small ring of primitive arrays per
+ * device; a window is the merge of its panes, so sliding windows cost no more per reading than
+ * tumbling ones. Panes close once the watermark (clock - grace) passes their end; a reading
+ * for an already closed pane is late and counted, not applied.
+ *
+ * Memory is bounded: each device holds a fixed-size ring, devices idle for a full window are
+ * evicted on flush, and at most {@code maxDevices} are tracked at once.
+ */
+public class WindowAggregator {
+    private static final int P = SensorParameter.COUNT;
+
+    private final WindowSpec spec;
+    private final long graceMillis;
+    private final int maxDevices;
+    private final long paneMillis;
+    private final int panesPerWindow;
+    private final int ringSize;
+    private final ConcurrentHashMap<Long, DeviceWindows> devices = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong readingsAggregated = new AtomicLong(0);
+    private final AtomicLong lateReadings = new AtomicLong(0);
+    private final AtomicLong overflowReadings = new AtomicLong(0);
+    private final AtomicLong windowsEmitted = new AtomicLong(0);
+
+    public WindowAggregator(WindowSpec spec, long graceMillis, int maxDevices) {
+        this.spec = spec;
+        this.graceMillis = graceMillis;
+        this.maxDevices = maxDevices;
+        this.paneMillis = spec.getSlideMillis();
+        this.panesPerWindow = spec.getPanesPerWindow();
+        this.ringSize = panesPerWindow + (int) ((graceMillis + paneMillis - 1) / paneMillis) + 1;
+    }
+
+    /**
+     * Pane ring for one device; all access is synchronized on the instance
+     */
+    private final class DeviceWindows {
+        final long sensorId;
+        String sensorType;
+        final long[] paneIds = new long[ringSize];
+        final int[] counts = new int[ringSize * P];
+        final double[] sums = new double[ringSize * P];
+        final double[] mins = new double[ringSize * P];
+        final double[] maxs = new double[ringSize * P];
+        long nextPaneToClose;
+        long maxPane = Long.MIN_VALUE;
+        boolean evicted;
+
+        DeviceWindows(long sensorId, long firstOpenPane) {
+            this.sensorId = sensorId;
+            this.nextPaneToClose = firstOpenPane;
+            Arrays.fill(paneIds, Long.MIN_VALUE);
+        }
+
+        void add(SensorReading reading, long pane, Consumer<Map<String, Object>> sink) {
+            // Keep the ring from overwriting a pane that is still needed
+            long minOpen = pane + panesPerWindow - ringSize;
+            if (minOpen > nextPaneToClose) {
+                close(minOpen, sink);
+            }
+
+            int slot = (int) Math.floorMod(pane, (long) ringSize);
+            int base = slot * P;
+            if (paneIds[slot] != pane) {
+                paneIds[slot] = pane;
+                Arrays.fill(counts, base, base + P, 0);
+                Arrays.fill(sums, base, base + P, 0);
+                Arrays.fill(mins, base, base + P, Double.POSITIVE_INFINITY);
+                Arrays.fill(maxs, base, base + P, Double.NEGATIVE_INFINITY);
+            }
+            for (int p = 0; p < P; p++) {
+                double value = reading.get(SensorParameter.VALUES[p]);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int i = base + p;
+                counts[i]++;
+                sums[i] += value;
+                if (value < mins[i]) mins[i] = value;
+                if (value > maxs[i]) maxs[i] = value;
+            }
+            sensorType = reading.getSensorType();
+            if (pane > maxPane) {
+                maxPane = pane;
+            }
+        }
+
+        /**
+         * Emit every window ending at a pane boundary below {@code upToPane} (exclusive)
+         */
+        void close(long upToPane, Consumer<Map<String, Object>> sink) {
+            if (upToPane <= nextPaneToClose) {
+                return;
+            }
+            // Windows without data are skipped, so only walk from the first pane that has any
+            long start = Math.max(nextPaneToClose, minDataPane(nextPaneToClose - panesPerWindow + 1));
+            long end = maxPane == Long.MIN_VALUE ? start : Math.min(upToPane, maxPane + panesPerWindow);
+            for (long pane = start; pane < end; pane++) {
+                emit(pane, sink);
+            }
+            nextPaneToClose = upToPane;
+        }
+
+        private long minDataPane(long from) {
+            long min = Long.MAX_VALUE;
+            for (long id : paneIds) {
+                if (id >= from && id < min) {
+                    min = id;
+                }
+            }
+            return min;
+        }
+
+        private void emit(long lastPane, Consumer<Map<String, Object>> sink) {
+            Map<String, Object> parameters = null;
+            for (int p = 0; p < P; p++) {
+                long count = 0;
+                double sum = 0;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (long pane = lastPane - panesPerWindow + 1; pane <= lastPane; pane++) {
+                    int slot = (int) Math.floorMod(pane, (long) ringSize);
+                    if (paneIds[slot] != pane) {
+                        continue;
+                    }
+                    int i = slot * P + p;
+                    count += counts[i];
+                    sum += sums[i];
+                    min = Math.min(min, mins[i]);
+                    max = Math.max(max, maxs[i]);
+                }
+                if (count == 0) {
+                    continue;
+                }
+                if (parameters == null) {
+                    parameters = new LinkedHashMap<>();
+                }
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("count", count);
+                stats.put("min", min);
+                stats.put("max", max);
+                stats.put("avg", Math.round(sum / count * 100) / 100.0);
+                parameters.put(SensorParameter.VALUES[p].fieldName(), stats);
+            }
+            if (parameters == null) {
+                return;
+            }
+
+            long windowEnd = (lastPane + 1) * paneMillis;
+            Map<String, Object> rollup = new LinkedHashMap<>();
+            rollup.put("sensorId", SensorFrameDecoder.toSensorIdHex(sensorId));
+            rollup.put("sensorType", sensorType);
+            rollup.put("window", spec.toString());
+            rollup.put("windowType", spec.isTumbling() ? "tumbling" : "sliding");
+            rollup.put("windowStart", Instant.ofEpochMilli(windowEnd - spec.getSizeMillis()).toString());
+            rollup.put("windowEnd", Instant.ofEpochMilli(windowEnd).toString());
+            rollup.put("parameters", parameters);
+            windowsEmitted.incrementAndGet();
+            sink.accept(rollup);
+        }
+
+        boolean isIdle() {
+            return maxPane + panesPerWindow <= nextPaneToClose;
+        }
+    }
+
+    /**
+     * Add a reading; windows forced closed by ring pressure are emitted to the sink
+     */
+    public void add(SensorReading reading, long nowMillis, Consumer<Map<String, Object>> sink) {
+        long pane = Math.floorDiv(reading.getTimestampMillis(), paneMillis);
+        long watermarkPane = Math.floorDiv(nowMillis - graceMillis, paneMillis);
+
+        while (true) {
+            DeviceWindows windows = devices.get(reading.getSensorId());
+            if (windows == null) {
+                if (devices.size() >= maxDevices) {
+                    overflowReadings.incrementAndGet();
+                    return;
+                }
+                windows = devices.computeIfAbsent(reading.getSensorId(), id -> new DeviceWindows(id, watermarkPane));
+            }
+
+            synchronized (windows) {
+                if (windows.evicted) {
+                    // Lost a race with flush(); look the device up again
+                    continue;
+                }
+                if (pane < windows.nextPaneToClose) {
+                    lateReadings.incrementAndGet();
+                    return;
+                }
+                windows.add(reading, pane, sink);
+            }
+            readingsAggregated.incrementAndGet();
+            return;
+        }
+    }
+
+    /**
+     * Close every window the watermark has passed and evict idle devices
+     */
+    public void flush(long nowMillis, Consumer<Map<String, Object>> sink) {
+        long watermarkPane = Math.floorDiv(nowMillis - graceMillis, paneMillis);
+        Iterator<DeviceWindows> it = devices.values().iterator();
+        while (it.hasNext()) {
+            DeviceWindows windows = it.next();
+            synchronized (windows) {
+                windows.close(watermarkPane, sink);
+                if (windows.isIdle()) {
+                    windows.evicted = true;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    public WindowSpec getSpec() { return spec; }
+    public int getDeviceCount() { return devices.size(); }
+    public long getReadingsAggregated() { return readingsAggregated.get(); }
+    public long getLateReadings() { return lateReadings.get(); }
+    public long getOverflowReadings() { return overflowReadings.get(); }
+    public long getWindowsEmitted() { return windowsEmitted.get(); }
+
+    /**
+     * Approximate accumulator memory per tracked device
+     */
+    public long getBytesPerDevice() {
+        return ringSize * 8L + ringSize * P * (4L + 8 + 8 + 8);
+    }
+}
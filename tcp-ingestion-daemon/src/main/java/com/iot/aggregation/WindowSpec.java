@@ -0,0 +1,86 @@
+package com.iot.aggregation;
+
+/**
+ * Window size and slide. A tumbling window is a sliding window whose slide equals its size.
+ *
+ * Parsed from "1m" (tumbling) or "5m/1m" (5 minute windows every minute). Durations accept
+ * ms, s, m, h and d suffixes; the size must be a whole multiple of the slide.
+ */
+public final class WindowSpec {
+    private final long sizeMillis;
+    private final long slideMillis;
+    private final String label;
+
+    public WindowSpec(long sizeMillis, long slideMillis) {
+        if (sizeMillis <= 0 || slideMillis <= 0 || sizeMillis % slideMillis != 0) {
+            throw new IllegalArgumentException("Window size must be a positive multiple of the slide: "
+                    + sizeMillis + "ms / " + slideMillis + "ms");
+        }
+        this.sizeMillis = sizeMillis;
+        this.slideMillis = slideMillis;
+        this.label = sizeMillis == slideMillis
+                ? formatDuration(sizeMillis)
+                : formatDuration(sizeMillis) + "/" + formatDuration(slideMillis);
+    }
+
+    public static WindowSpec tumbling(long sizeMillis) {
+        return new WindowSpec(sizeMillis, sizeMillis);
+    }
+
+    public static WindowSpec parse(String text) {
+        String[] parts = text.trim().split("/");
+        long size = parseDuration(parts[0]);
+        long slide = parts.length > 1 ? parseDuration(parts[1]) : size;
+        return new WindowSpec(size, slide);
+    }
+
+    public static long parseDuration(String text) {
+        String s = text.trim().toLowerCase();
+        long unit;
+        if (s.endsWith("ms")) {
+            unit = 1;
+            s = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("s")) {
+            unit = 1000;
+            s = s.substring(0, s.length() - 1);
+        } else if (s.endsWith("m")) {
+            unit = 60_000;
+            s = s.substring(0, s.length() - 1);
+        } else if (s.endsWith("h")) {
+            unit = 3_600_000;
+            s = s.substring(0, s.length() - 1);
+        } else if (s.endsWith("d")) {
+            unit = 86_400_000;
+            s = s.substring(0, s.length() - 1);
+        } else {
+            unit = 1000;
+        }
+        try {
+            return Math.multiplyExact(Long.parseLong(s), unit);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid duration: " + text);
+        }
+    }
+
+    public static String formatDuration(long millis) {
+        if (millis % 86_400_000 == 0) return millis / 86_400_000 + "d";
+        if (millis % 3_600_000 == 0) return millis / 3_600_000 + "h";
+        if (millis % 60_000 == 0) return millis / 60_000 + "m";
+        if (millis % 1000 == 0) return millis / 1000 + "s";
+        return millis + "ms";
+    }
+
+    public long getSizeMillis() { return sizeMillis; }
+    public long getSlideMillis() { return slideMillis; }
+    public boolean isTumbling() { return sizeMillis == slideMillis; }
+
+    /**
+     * Number of slide-sized panes that make up one window
+     */
+    public int getPanesPerWindow() { return (int) (sizeMillis / slideMillis); }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
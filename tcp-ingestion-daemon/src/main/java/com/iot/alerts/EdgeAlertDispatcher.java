@@ -0,0 +1,171 @@
+package com.iot.alerts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers edge alerts on their own path, separate from the raw-data forwarder.
+ *
+ * A single max-priority thread drains a bounded queue and POSTs each alert to the alert
+ * endpoint, so a backlog of raw frames never delays an alert. When the queue is full the
+ * oldest alert is dropped - a fresher breach of the same rule will follow.
+ *
+ * The alert endpoint is an external contract: the backend in this repository has no route for
+ * it, so it must be given explicitly. Each alert is POSTed as one JSON object (sensorId,
+ * parameter, value, threshold, thresholdType, severity, type, message, timestamps, rawHexString);
+ * any 2xx counts as delivered, anything else is retried.
+ */
+public class EdgeAlertDispatcher {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int CONNECT_TIMEOUT = 3000;
+    private static final int READ_TIMEOUT = 5000;
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_BACKOFF_MS = 200;
+
+    private final String alertUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Map<String, Object>> queue;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Statistics
+    private final AtomicLong queued = new AtomicLong(0);
+    private final AtomicLong delivered = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    public EdgeAlertDispatcher(String alertUrl) {
+        this(alertUrl, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public EdgeAlertDispatcher(String alertUrl, int queueCapacity) {
+        this.alertUrl = alertUrl;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::run, "edge-alert-dispatcher");
+        this.worker.setDaemon(true);
+        this.worker.setPriority(Thread.MAX_PRIORITY);
+        this.worker.start();
+
+        System.out.println("🚨 Edge alert endpoint: " + alertUrl);
+    }
+
+    /**
+     * Queue an alert without blocking the caller
+     */
+    public void dispatch(Map<String, Object> alert) {
+        queued.incrementAndGet();
+        while (!queue.offer(alert)) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Map<String, Object> alert = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (alert != null) {
+                    send(alert);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private void send(Map<String, Object> alert) throws InterruptedException {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(alert);
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            System.err.println("❌ Could not serialize edge alert: " + e.getMessage());
+            return;
+        }
+
+        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+            int status = post(json);
+            if (status >= 200 && status < 300) {
+                delivered.incrementAndGet();
+                return;
+            }
+            if (status >= 400 && status < 500) {
+                break;
+            }
+            if (attempt < MAX_RETRIES) {
+                Thread.sleep(RETRY_BACKOFF_MS * attempt);
+            }
+        }
+        failed.incrementAndGet();
+        System.err.println("❌ Edge alert delivery failed: " + alert.get("message"));
+    }
+
+    /**
+     * POST one alert; returns the HTTP status or -1 on a network error
+     */
+    private int post(String json) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(alertUrl).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("User-Agent", "TCP-Ingestion-Daemon/1.0");
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setDoOutput(true);
+
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+            int status = connection.getResponseCode();
+            InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (body != null) {
+                body.readAllBytes();
+                body.close();
+            }
+            return status;
+        } catch (IOException e) {
+            System.err.println("❌ Edge alert network error: " + e.getMessage());
+            return -1;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    public long getQueued() { return queued.get(); }
+    public long getDelivered() { return delivered.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getDropped() { return dropped.get(); }
+
+    /**
+     * Drain pending alerts (up to the timeout) and stop the worker
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        try {
+            worker.join(unit.toMillis(timeout));
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        } catch (InterruptedException e) {
+            worker.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
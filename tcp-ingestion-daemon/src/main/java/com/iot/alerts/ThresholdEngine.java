@@ -0,0 +1,227 @@
+package com.iot.alerts;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.state.DeviceStateStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates decoded readings against threshold rules at the edge.
+ *
+ * Rules come from a JSON file or a backend export URL (see {@link ThresholdTable#compile})
+ * and are reloaded periodically; a reload only recompiles when the content changed. The
+ * compiled table is swapped through a volatile reference so evaluation never takes a lock.
+ * Breaches are rate-limited per (sensor, parameter, severity) and handed to the
+ * {@link EdgeAlertDispatcher}. The time each alert last fired is kept in a bounded
+ * {@link DeviceStateStore}; when it is full, the least used keys are forgotten, and those
+ * alerts may fire again before their cooldown is over.
+ */
+public class ThresholdEngine {
+    private static final long DEFAULT_COOLDOWN_MS = 60_000;
+    private static final long COOLDOWN_BUDGET_BYTES = 4L << 20;
+
+    private final String source;
+    private final EdgeAlertDispatcher dispatcher;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DeviceStateStore lastFired = new DeviceStateStore(1, COOLDOWN_BUDGET_BYTES);
+    private final ThresholdTable.BreachHandler breachHandler = this::onBreach;
+    private ScheduledExecutorService refreshExecutor;
+
+    private volatile ThresholdTable table = ThresholdTable.EMPTY;
+    private volatile long cooldownMs = DEFAULT_COOLDOWN_MS;
+    private byte[] lastContent;
+
+    // Statistics
+    private final AtomicLong evaluated = new AtomicLong(0);
+    private final AtomicLong breaches = new AtomicLong(0);
+    private final AtomicLong alertsRaised = new AtomicLong(0);
+    private final AtomicLong reloads = new AtomicLong(0);
+
+    public ThresholdEngine(String source, EdgeAlertDispatcher dispatcher) {
+        this.source = source;
+        this.dispatcher = dispatcher;
+    }
+
+    public void setCooldownMs(long cooldownMs) {
+        this.cooldownMs = cooldownMs;
+    }
+
+    /**
+     * Load the rules now and then every {@code refreshSeconds} (0 disables refresh)
+     */
+    public void start(long refreshSeconds) {
+        reload();
+        if (refreshSeconds > 0) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "threshold-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            refreshExecutor.scheduleWithFixedDelay(this::reload, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Fetch the rules and recompile if they changed; keeps the current table on any error
+     */
+    public synchronized boolean reload() {
+        try {
+            byte[] content = fetch();
+            if (Arrays.equals(content, lastContent)) {
+                return false;
+            }
+            ThresholdTable compiled = ThresholdTable.compile(objectMapper.readTree(content));
+            table = compiled;
+            lastContent = content;
+            reloads.incrementAndGet();
+            System.out.println("📏 Threshold rules loaded: " + compiled.getRuleCount() + " rules, "
+                    + compiled.getDeviceCount() + " device overrides");
+            return true;
+        } catch (Exception e) {
+            System.err.println("❌ Failed to load threshold rules from " + source + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private byte[] fetch() throws IOException {
+        if (!source.startsWith("http://") && !source.startsWith("https://")) {
+            return Files.readAllBytes(Paths.get(source));
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(source).openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("User-Agent", "TCP-Ingestion-Daemon/1.0");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(10000);
+            int status = connection.getResponseCode();
+            if (status != 200) {
+                throw new IOException("HTTP " + status);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return in.readAllBytes();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Evaluate one reading; returns the number of breaches (before cooldown)
+     */
+    public int check(SensorReading reading) {
+        evaluated.incrementAndGet();
+        return table.evaluate(reading, breachHandler);
+    }
+
+    private void onBreach(SensorReading reading, SensorParameter parameter, double value,
+                          boolean critical, boolean below, double threshold) {
+        breaches.incrementAndGet();
+
+        long now = System.currentTimeMillis();
+        long key = (reading.getSensorId() << 8) | ((long) parameter.ordinal() << 1) | (critical ? 1 : 0);
+        if (!claim(key, now)) {
+            return;
+        }
+        alertsRaised.incrementAndGet();
+
+        String severity = critical ? "critical" : "high";
+        String thresholdType = below ? "less_than" : "greater_than";
+        String message = parameter.thresholdName() + " " + (critical ? "critical" : "warning") + ": "
+                + value + " is " + (below ? "below" : "above") + " " + threshold;
+
+        Map<String, Object> alert = new LinkedHashMap<>();
+        alert.put("sensorId", reading.getSensorIdHex());
+        alert.put("parameter", parameter.thresholdName());
+        alert.put("value", value);
+        alert.put("threshold", threshold);
+        alert.put("thresholdType", thresholdType);
+        alert.put("severity", severity);
+        alert.put("type", alertType(parameter, below, critical));
+        alert.put("message", message);
+        alert.put("sensorType", reading.getSensorType());
+        alert.put("sessionId", reading.getSessionId());
+        alert.put("order", reading.getOrder());
+        alert.put("timestamp", Instant.ofEpochMilli(reading.getTimestampMillis()).toString());
+        alert.put("triggeredAt", Instant.ofEpochMilli(now).toString());
+        alert.put("rawHexString", reading.getRawHex());
+        alert.put("source", "tcp-daemon-edge");
+
+        System.out.println("🚨 Edge alert [" + severity + "] " + reading.getSensorIdHex() + " " + message);
+        dispatcher.dispatch(alert);
+    }
+
+    /**
+     * Record the alert as fired unless it fired within the cooldown; check and update happen under
+     * the store's lock, so two handler threads never both raise the same alert
+     */
+    private boolean claim(long key, long now) {
+        boolean[] fire = new boolean[1];
+        long cooldown = cooldownMs;
+        lastFired.update(key, entry -> {
+            if (entry.isNew() || now - entry.getLong(0) >= cooldown) {
+                entry.setLong(0, now);
+                fire[0] = true;
+            }
+        });
+        return fire[0];
+    }
+
+    /**
+     * Map to the Alert model's type enum
+     */
+    static String alertType(SensorParameter parameter, boolean below, boolean critical) {
+        switch (parameter) {
+            case TEMPERATURE:
+                return below ? "low_temperature" : "high_temperature";
+            case ULTRASONIC_LIQUID_LEVEL:
+                if (below) {
+                    return critical ? "critical_volume" : "low_volume";
+                }
+                return "high_volume";
+            case ERROR_CODE:
+                return "sensor_error";
+            default:
+                return "other";
+        }
+    }
+
+    public ThresholdTable getTable() { return table; }
+    public long getEvaluated() { return evaluated.get(); }
+    public long getBreaches() { return breaches.get(); }
+    public long getAlertsRaised() { return alertsRaised.get(); }
+    public long getReloads() { return reloads.get(); }
+    public EdgeAlertDispatcher getDispatcher() { return dispatcher; }
+
+    public void printStats() {
+        System.out.println("🚨 Edge Alerts - Evaluated: " + evaluated.get()
+                + ", Breaches: " + breaches.get()
+                + ", Raised: " + alertsRaised.get()
+                + ", Delivered: " + dispatcher.getDelivered()
+                + ", Failed: " + dispatcher.getFailed()
+                + ", Dropped: " + dispatcher.getDropped());
+    }
+
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        dispatcher.shutdown(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,191 @@
+package com.iot.alerts;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.util.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Threshold rules compiled into flat primitive tables.
+ *
+ * Each row holds, for every {@link SensorParameter}, four bounds: warning-low, critical-low,
+ * warning-high, critical-high (±Infinity when unset). Row 0 carries the global AlertThreshold
+ * rules; a device with its own rules gets a row that starts as a copy of row 0, so per-device
+ * rules override the global ones parameter by parameter. Evaluating a reading is one hash
+ * probe plus a loop of double comparisons - no allocation unless something is breached.
+ *
+ * Instances are immutable; a refresh compiles a new table and swaps the reference.
+ */
+public final class ThresholdTable {
+    private static final int BOUNDS = 4;
+    private static final int WARN_LOW = 0;
+    private static final int CRIT_LOW = 1;
+    private static final int WARN_HIGH = 2;
+    private static final int CRIT_HIGH = 3;
+    private static final int STRIDE = SensorParameter.COUNT * BOUNDS;
+
+    public static final ThresholdTable EMPTY = new ThresholdTable(new LongIntHashMap(1, 0), emptyRow(), 0);
+
+    /**
+     * Receives each breach found by {@link #evaluate}
+     */
+    @FunctionalInterface
+    public interface BreachHandler {
+        /**
+         * @param critical true for a critical breach, false for a warning ("high" in the Node alert model)
+         * @param below true when the value dropped below a lower bound
+         */
+        void onBreach(SensorReading reading, SensorParameter parameter, double value,
+                      boolean critical, boolean below, double threshold);
+    }
+
+    private final LongIntHashMap deviceRows;
+    private final double[] bounds;
+    private final int ruleCount;
+
+    private ThresholdTable(LongIntHashMap deviceRows, double[] bounds, int ruleCount) {
+        this.deviceRows = deviceRows;
+        this.bounds = bounds;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * Check every decoded parameter of the reading; returns the number of breaches
+     */
+    public int evaluate(SensorReading reading, BreachHandler handler) {
+        int base = deviceRows.get(reading.getSensorId()) * STRIDE;
+        int breaches = 0;
+        for (int p = 0; p < SensorParameter.COUNT; p++) {
+            SensorParameter parameter = SensorParameter.VALUES[p];
+            double value = reading.get(parameter);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            int b = base + p * BOUNDS;
+            if (value < bounds[b + CRIT_LOW]) {
+                handler.onBreach(reading, parameter, value, true, true, bounds[b + CRIT_LOW]);
+                breaches++;
+            } else if (value > bounds[b + CRIT_HIGH]) {
+                handler.onBreach(reading, parameter, value, true, false, bounds[b + CRIT_HIGH]);
+                breaches++;
+            } else if (value < bounds[b + WARN_LOW]) {
+                handler.onBreach(reading, parameter, value, false, true, bounds[b + WARN_LOW]);
+                breaches++;
+            } else if (value > bounds[b + WARN_HIGH]) {
+                handler.onBreach(reading, parameter, value, false, false, bounds[b + WARN_HIGH]);
+                breaches++;
+            }
+        }
+        return breaches;
+    }
+
+    public int getRuleCount() { return ruleCount; }
+    public int getDeviceCount() { return deviceRows.size(); }
+
+    /**
+     * Compile a rules document:
+     * <pre>
+     * {
+     *   "thresholds": [ AlertThreshold documents: parameter, thresholdType, warningThreshold, criticalThreshold, isActive ],
+     *   "deviceThresholds": [ same fields plus "sensorId" (12 hex chars) ]
+     * }
+     * </pre>
+     * A bare array is treated as "thresholds". Only greater_than / less_than rules can be
+     * expressed as bounds; other types are skipped with a warning, as are unknown parameters.
+     */
+    public static ThresholdTable compile(JsonNode root) {
+        JsonNode global = root.isArray() ? root : root.path("thresholds");
+        JsonNode perDevice = root.path("deviceThresholds");
+
+        double[] globalRow = emptyRow();
+        int rules = 0;
+        for (JsonNode rule : global) {
+            if (applyRule(globalRow, 0, rule)) {
+                rules++;
+            }
+        }
+
+        LongIntHashMap rows = new LongIntHashMap(Math.max(16, perDevice.size()), 0);
+        double[] bounds = Arrays.copyOf(globalRow, STRIDE * (1 + countDevices(perDevice)));
+        int nextRow = 1;
+        for (JsonNode rule : perDevice) {
+            long sensorId = SensorFrameDecoder.parseSensorId(rule.path("sensorId").asText("").toUpperCase());
+            if (sensorId < 0) {
+                System.err.println("⚠️ Skipping device threshold with invalid sensorId: " + rule.path("sensorId").asText());
+                continue;
+            }
+            int row = rows.get(sensorId);
+            if (row == 0) {
+                row = nextRow++;
+                rows.put(sensorId, row);
+                System.arraycopy(globalRow, 0, bounds, row * STRIDE, STRIDE);
+            }
+            if (applyRule(bounds, row * STRIDE, rule)) {
+                rules++;
+            }
+        }
+
+        return new ThresholdTable(rows, Arrays.copyOf(bounds, nextRow * STRIDE), rules);
+    }
+
+    private static int countDevices(JsonNode perDevice) {
+        return perDevice.isArray() ? perDevice.size() : 0;
+    }
+
+    private static boolean applyRule(double[] table, int rowBase, JsonNode rule) {
+        if (!rule.path("isActive").asBoolean(true)) {
+            return false;
+        }
+        String name = rule.path("parameter").asText(null);
+        SensorParameter parameter = SensorParameter.fromName(name);
+        if (parameter == null) {
+            System.err.println("⚠️ Skipping threshold for unknown parameter: " + name);
+            return false;
+        }
+
+        double warning = number(rule.get("warningThreshold"));
+        double critical = number(rule.get("criticalThreshold"));
+        int b = rowBase + parameter.ordinal() * BOUNDS;
+        String type = rule.path("thresholdType").asText("greater_than");
+
+        switch (type) {
+            case "greater_than":
+                if (!Double.isNaN(warning)) table[b + WARN_HIGH] = warning;
+                if (!Double.isNaN(critical)) table[b + CRIT_HIGH] = critical;
+                return true;
+            case "less_than":
+                if (!Double.isNaN(warning)) table[b + WARN_LOW] = warning;
+                if (!Double.isNaN(critical)) table[b + CRIT_LOW] = critical;
+                return true;
+            case "range":
+                // Edge extension: min/max band for a device, e.g. tank level
+                double min = number(rule.get("min"));
+                double max = number(rule.get("max"));
+                boolean isCritical = "critical".equals(rule.path("severity").asText("high"));
+                if (!Double.isNaN(min)) table[b + (isCritical ? CRIT_LOW : WARN_LOW)] = min;
+                if (!Double.isNaN(max)) table[b + (isCritical ? CRIT_HIGH : WARN_HIGH)] = max;
+                return true;
+            default:
+                System.err.println("⚠️ Threshold type '" + type + "' for " + name + " is evaluated by the backend only");
+                return false;
+        }
+    }
+
+    private static double number(JsonNode node) {
+        return node != null && node.isNumber() ? node.asDouble() : Double.NaN;
+    }
+
+    private static double[] emptyRow() {
+        double[] row = new double[STRIDE];
+        for (int p = 0; p < SensorParameter.COUNT; p++) {
+            row[p * BOUNDS + WARN_LOW] = Double.NEGATIVE_INFINITY;
+            row[p * BOUNDS + CRIT_LOW] = Double.NEGATIVE_INFINITY;
+            row[p * BOUNDS + WARN_HIGH] = Double.POSITIVE_INFINITY;
+            row[p * BOUNDS + CRIT_HIGH] = Double.POSITIVE_INFINITY;
+        }
+        return row;
+    }
+}
@@ -0,0 +1,293 @@
+package com.iot.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Binary archive of raw frames: one segment file per hour or day ("frames-2024-01-15T10.seg",
+ * "frames-2024-01-15.seg"), each a sequence of self-contained blocks.
+ *
+ * Block layout (big-endian):
+ * <pre>
+ *   int   magic "FRA1"
+ *   int   frame count
+ *   long  min timestamp, long max timestamp
+ *   int   dictionary size, long[] sensorIds
+ *   int   uncompressed length, int compressed length, int CRC32 of the compressed bytes
+ *   byte[] deflated columns:
+ *          varint timestamp deltas (zigzag, the first relative to min timestamp)
+ *          varint dictionary index per frame
+ *          varint frame length per frame (sensorId bytes removed)
+ *          frame bytes, concatenated
+ * </pre>
+ * The header alone is enough to skip a block outside a time range or device set, and the
+ * 6-byte sensorId of every frame is replaced by a small dictionary index. A block cut short by
+ * a crash fails its length or CRC check and ends the scan of that segment.
+ */
+public final class FrameArchive {
+    static final int BLOCK_MAGIC = 0x46524131;
+    static final String SEGMENT_PREFIX = "frames-";
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    // FE DC | version | sensorId(6) - the sensorId lives at bytes 3..8 of every frame
+    static final int SENSOR_ID_OFFSET = 3;
+    static final int SENSOR_ID_BYTES = 6;
+
+    private static final int BLOCK_HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+
+    /**
+     * Segment granularity
+     */
+    public enum Partitioning {
+        HOURLY(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH").withZone(ZoneOffset.UTC), 3_600_000L),
+        DAILY(DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC), 86_400_000L);
+
+        final DateTimeFormatter format;
+        final long millis;
+
+        Partitioning(DateTimeFormatter format, long millis) {
+            this.format = format;
+            this.millis = millis;
+        }
+
+        public String segmentName(long timestampMillis) {
+            return SEGMENT_PREFIX + format.format(Instant.ofEpochMilli(timestampMillis)) + SEGMENT_SUFFIX;
+        }
+
+        public long partitionStart(long timestampMillis) {
+            return Math.floorDiv(timestampMillis, millis) * millis;
+        }
+
+        public static Partitioning parse(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    /**
+     * Receives each frame that matches the scan
+     */
+    public interface FrameHandler {
+        /**
+         * @param frame the original binary frame (sensorId restored)
+         * @return false to stop scanning
+         */
+        boolean onFrame(long timestampMillis, long sensorId, byte[] frame) throws Exception;
+    }
+
+    private final Path directory;
+
+    // Statistics of the last scan
+    private long segmentsScanned;
+    private long blocksRead;
+    private long blocksSkipped;
+    private long corruptBlocks;
+    private long framesMatched;
+    private long compressedBytesRead;
+
+    public FrameArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Segments that may hold frames in [fromMillis, toMillis), oldest first
+     */
+    public List<Path> segments(long fromMillis, long toMillis) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.forEach(path -> {
+                long[] range = segmentRange(path.getFileName().toString());
+                if (range != null && range[0] < toMillis && range[1] > fromMillis) {
+                    segments.add(path);
+                }
+            });
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * [start, end) millis covered by a segment file name, or null if it isn't one
+     */
+    static long[] segmentRange(String fileName) {
+        if (!fileName.startsWith(SEGMENT_PREFIX) || !fileName.endsWith(SEGMENT_SUFFIX)) {
+            return null;
+        }
+        String key = fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length());
+        try {
+            if (key.length() == 13) {
+                long start = LocalDateTime.parse(key + ":00").toInstant(ZoneOffset.UTC).toEpochMilli();
+                return new long[]{start, start + Partitioning.HOURLY.millis};
+            }
+            if (key.length() == 10) {
+                long start = LocalDate.parse(key).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+                return new long[]{start, start + Partitioning.DAILY.millis};
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Scan frames with timestamps in [fromMillis, toMillis), restricted to the given sensorIds
+     * unless that set is null or empty. Frames come out in archive order within each segment.
+     */
+    public void scan(long fromMillis, long toMillis, Set<Long> sensorIds, FrameHandler handler) throws Exception {
+        segmentsScanned = blocksRead = blocksSkipped = corruptBlocks = framesMatched = compressedBytesRead = 0;
+        boolean allSensors = sensorIds == null || sensorIds.isEmpty();
+        Inflater inflater = new Inflater();
+        try {
+            for (Path segment : segments(fromMillis, toMillis)) {
+                segmentsScanned++;
+                if (!scanSegment(segment, fromMillis, toMillis, allSensors ? null : sensorIds, handler, inflater)) {
+                    return;
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private boolean scanSegment(Path segment, long fromMillis, long toMillis, Set<Long> sensorIds,
+                                FrameHandler handler, Inflater inflater) throws Exception {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return true;
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            while (buf.remaining() >= BLOCK_HEADER_BYTES) {
+                int start = buf.position();
+                if (buf.getInt() != BLOCK_MAGIC) {
+                    corruptBlocks++;
+                    System.err.println("⚠️ Archive: bad block magic in " + segment + " at " + start);
+                    return true;
+                }
+                int frameCount = buf.getInt();
+                long minTs = buf.getLong();
+                long maxTs = buf.getLong();
+                int dictionarySize = buf.getInt();
+                if (dictionarySize < 0 || buf.remaining() < dictionarySize * 8L + 12) {
+                    corruptBlocks++;
+                    return true;
+                }
+                long[] dictionary = new long[dictionarySize];
+                boolean anySensor = sensorIds == null;
+                for (int i = 0; i < dictionarySize; i++) {
+                    dictionary[i] = buf.getLong();
+                    if (!anySensor && sensorIds.contains(dictionary[i])) {
+                        anySensor = true;
+                    }
+                }
+                int rawLength = buf.getInt();
+                int compressedLength = buf.getInt();
+                int checksum = buf.getInt();
+                if (compressedLength < 0 || buf.remaining() < compressedLength) {
+                    // Partial block at the end of a segment that was being written
+                    corruptBlocks++;
+                    return true;
+                }
+
+                if (maxTs < fromMillis || minTs >= toMillis || !anySensor) {
+                    blocksSkipped++;
+                    buf.position(buf.position() + compressedLength);
+                    continue;
+                }
+
+                byte[] compressed = new byte[compressedLength];
+                buf.get(compressed);
+                crc.reset();
+                crc.update(compressed);
+                if ((int) crc.getValue() != checksum) {
+                    corruptBlocks++;
+                    System.err.println("⚠️ Archive: CRC mismatch in " + segment + " at " + start + ", skipping block");
+                    continue;
+                }
+                byte[] raw = new byte[rawLength];
+                inflater.reset();
+                inflater.setInput(compressed);
+                try {
+                    if (inflater.inflate(raw) != rawLength) {
+                        corruptBlocks++;
+                        continue;
+                    }
+                } catch (DataFormatException e) {
+                    corruptBlocks++;
+                    continue;
+                }
+                blocksRead++;
+                compressedBytesRead += compressedLength;
+                if (!emitBlock(ByteBuffer.wrap(raw), frameCount, minTs, dictionary, fromMillis, toMillis, sensorIds, handler)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean emitBlock(ByteBuffer raw, int frameCount, long minTs, long[] dictionary,
+                              long fromMillis, long toMillis, Set<Long> sensorIds, FrameHandler handler) throws Exception {
+        long[] timestamps = new long[frameCount];
+        int[] indexes = new int[frameCount];
+        int[] lengths = new int[frameCount];
+        long ts = minTs;
+        for (int i = 0; i < frameCount; i++) {
+            ts += Varint.zigzagDecode(Varint.read(raw));
+            timestamps[i] = ts;
+        }
+        for (int i = 0; i < frameCount; i++) {
+            indexes[i] = (int) Varint.read(raw);
+        }
+        for (int i = 0; i < frameCount; i++) {
+            lengths[i] = (int) Varint.read(raw);
+        }
+        for (int i = 0; i < frameCount; i++) {
+            long sensorId = dictionary[indexes[i]];
+            if (timestamps[i] < fromMillis || timestamps[i] >= toMillis
+                    || (sensorIds != null && !sensorIds.contains(sensorId))) {
+                raw.position(raw.position() + lengths[i]);
+                continue;
+            }
+            byte[] frame = new byte[lengths[i] + SENSOR_ID_BYTES];
+            raw.get(frame, 0, SENSOR_ID_OFFSET);
+            for (int b = 0; b < SENSOR_ID_BYTES; b++) {
+                frame[SENSOR_ID_OFFSET + b] = (byte) (sensorId >>> (8 * (SENSOR_ID_BYTES - 1 - b)));
+            }
+            raw.get(frame, SENSOR_ID_OFFSET + SENSOR_ID_BYTES, lengths[i] - SENSOR_ID_OFFSET);
+            framesMatched++;
+            if (!handler.onFrame(timestamps[i], sensorId, frame)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getSegmentsScanned() { return segmentsScanned; }
+    public long getBlocksRead() { return blocksRead; }
+    public long getBlocksSkipped() { return blocksSkipped; }
+    public long getCorruptBlocks() { return corruptBlocks; }
+    public long getFramesMatched() { return framesMatched; }
+    public long getCompressedBytesRead() { return compressedBytesRead; }
+}
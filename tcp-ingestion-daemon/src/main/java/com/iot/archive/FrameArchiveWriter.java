@@ -0,0 +1,383 @@
+package com.iot.archive;
+
+import com.iot.util.LongIntHashMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Appends frames to the {@link FrameArchive} layout from a single writer thread.
+ *
+ * Frames are queued (dropped and counted when the queue is full, so archiving never slows
+ * ingestion) and collected into a block that is compressed and appended when it reaches
+ * blockFrames, when the flush interval has passed, or when the frame belongs to another partition.
+ */
+public class FrameArchiveWriter {
+    private static final int DEFAULT_BLOCK_FRAMES = 4096;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 5000;
+    private static final int DEFAULT_QUEUE_CAPACITY = 100_000;
+    private static final int MIN_FRAME_BYTES = 16;
+
+    private final Path directory;
+    private final FrameArchive.Partitioning partitioning;
+    private final int blockFrames;
+    private final long flushIntervalMs;
+    private final BlockingQueue<Entry> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Writer thread state
+    private final Block block;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long channelPartition = Long.MIN_VALUE;
+
+    // Statistics
+    private final AtomicLong appended = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong framesWritten = new AtomicLong(0);
+    private final AtomicLong blocksWritten = new AtomicLong(0);
+    private final AtomicLong frameBytes = new AtomicLong(0);
+    private final AtomicLong bytesWritten = new AtomicLong(0);
+    private final AtomicLong writeErrors = new AtomicLong(0);
+
+    private static final class Entry {
+        final long timestampMillis;
+        final byte[] frame;
+
+        Entry(long timestampMillis, byte[] frame) {
+            this.timestampMillis = timestampMillis;
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * Columns of the block being filled
+     */
+    private static final class Block {
+        final long[] timestamps;
+        final int[] indexes;
+        final int[] lengths;
+        final ByteArrayOutputStream bodies = new ByteArrayOutputStream(64 * 1024);
+        long[] dictionary = new long[64];
+        LongIntHashMap dictionaryIndex = new LongIntHashMap(64, -1);
+        int count;
+        long partition;
+        long minTs;
+        long maxTs;
+        long startedAtNanos;
+
+        Block(int capacity) {
+            timestamps = new long[capacity];
+            indexes = new int[capacity];
+            lengths = new int[capacity];
+        }
+
+        void reset() {
+            bodies.reset();
+            dictionaryIndex = new LongIntHashMap(64, -1);
+            count = 0;
+        }
+
+        void add(long timestampMillis, byte[] frame) {
+            if (count == 0) {
+                minTs = maxTs = timestampMillis;
+                startedAtNanos = System.nanoTime();
+            } else {
+                minTs = Math.min(minTs, timestampMillis);
+                maxTs = Math.max(maxTs, timestampMillis);
+            }
+            long sensorId = 0;
+            for (int b = 0; b < FrameArchive.SENSOR_ID_BYTES; b++) {
+                sensorId = (sensorId << 8) | (frame[FrameArchive.SENSOR_ID_OFFSET + b] & 0xFF);
+            }
+            int index = dictionaryIndex.get(sensorId);
+            if (index < 0) {
+                index = dictionaryIndex.size();
+                if (index == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, index * 2);
+                }
+                dictionary[index] = sensorId;
+                dictionaryIndex.put(sensorId, index);
+            }
+            timestamps[count] = timestampMillis;
+            indexes[count] = index;
+            lengths[count] = frame.length - FrameArchive.SENSOR_ID_BYTES;
+            bodies.write(frame, 0, FrameArchive.SENSOR_ID_OFFSET);
+            int rest = FrameArchive.SENSOR_ID_OFFSET + FrameArchive.SENSOR_ID_BYTES;
+            bodies.write(frame, rest, frame.length - rest);
+            count++;
+        }
+    }
+
+    public FrameArchiveWriter(Path directory, FrameArchive.Partitioning partitioning) {
+        this(directory, partitioning, DEFAULT_BLOCK_FRAMES, DEFAULT_FLUSH_INTERVAL_MS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public FrameArchiveWriter(Path directory, FrameArchive.Partitioning partitioning, int blockFrames,
+                              long flushIntervalMs, int queueCapacity) {
+        this.directory = directory;
+        this.partitioning = partitioning;
+        this.blockFrames = blockFrames;
+        this.flushIntervalMs = flushIntervalMs;
+        this.block = new Block(blockFrames);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::run, "frame-archive");
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        System.out.println("🗄️ Frame archive: " + directory.toAbsolutePath() + " (" + partitioning.name().toLowerCase()
+                + " segments, " + blockFrames + " frames per block)");
+    }
+
+    /**
+     * Queue a hex frame (separators ' ' and ':' allowed); false if malformed or the queue is full
+     */
+    public boolean append(String hex, long timestampMillis) {
+        byte[] frame = parseHex(hex);
+        if (frame == null) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        return append(frame, timestampMillis);
+    }
+
+    /**
+     * The binary frame append would archive; null if malformed or too short, so callers that
+     * must not lose frames can tell a bad frame from a full queue before retrying
+     */
+    public static byte[] parseFrame(String hex) {
+        byte[] frame = parseHex(hex);
+        return frame != null && frame.length >= MIN_FRAME_BYTES ? frame : null;
+    }
+
+    /**
+     * Queue a binary frame
+     */
+    public boolean append(byte[] frame, long timestampMillis) {
+        if (frame.length < MIN_FRAME_BYTES) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (!running || !queue.offer(new Entry(timestampMillis, frame))) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        appended.incrementAndGet();
+        return true;
+    }
+
+    static byte[] parseHex(String hex) {
+        int digits = 0;
+        for (int i = 0; i < hex.length(); i++) {
+            char c = hex.charAt(i);
+            if (c != ' ' && c != ':') {
+                digits++;
+            }
+        }
+        if ((digits & 1) != 0) {
+            return null;
+        }
+        byte[] out = new byte[digits / 2];
+        int high = -1;
+        int o = 0;
+        for (int i = 0; i < hex.length(); i++) {
+            char c = hex.charAt(i);
+            if (c == ' ' || c == ':') {
+                continue;
+            }
+            int nibble = Character.digit(c, 16);
+            if (nibble < 0) {
+                return null;
+            }
+            if (high < 0) {
+                high = nibble;
+            } else {
+                out[o++] = (byte) ((high << 4) | nibble);
+                high = -1;
+            }
+        }
+        return out;
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                // Short waits so shutdown isn't held up by a long flush interval
+                long waitMs = Math.min(100, flushIntervalMs);
+                if (block.count > 0) {
+                    long age = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - block.startedAtNanos);
+                    waitMs = Math.max(1, Math.min(waitMs, flushIntervalMs - age));
+                }
+                Entry entry = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+                while (entry != null) {
+                    add(entry);
+                    entry = queue.poll();
+                }
+                if (block.count > 0 && System.nanoTime() - block.startedAtNanos >= TimeUnit.MILLISECONDS.toNanos(flushIntervalMs)) {
+                    writeBlock();
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+        }
+        writeBlock();
+        closeChannel();
+        deflater.end();
+    }
+
+    private void add(Entry entry) {
+        long partition = partitioning.partitionStart(entry.timestampMillis);
+        if (block.count > 0 && partition != block.partition) {
+            writeBlock();
+        }
+        block.partition = partition;
+        block.add(entry.timestampMillis, entry.frame);
+        frameBytes.addAndGet(entry.frame.length);
+        if (block.count == blockFrames) {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() {
+        if (block.count == 0) {
+            return;
+        }
+        int frames = block.count;
+        try {
+            ByteArrayOutputStream columns = new ByteArrayOutputStream(block.bodies.size() + frames * 6);
+            long previous = block.minTs;
+            for (int i = 0; i < frames; i++) {
+                Varint.write(columns, Varint.zigzagEncode(block.timestamps[i] - previous));
+                previous = block.timestamps[i];
+            }
+            for (int i = 0; i < frames; i++) {
+                Varint.write(columns, block.indexes[i]);
+            }
+            for (int i = 0; i < frames; i++) {
+                Varint.write(columns, block.lengths[i]);
+            }
+            block.bodies.writeTo(columns);
+            byte[] raw = columns.toByteArray();
+
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] compressed = new byte[raw.length + raw.length / 100 + 64];
+            int compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+            crc.reset();
+            crc.update(compressed, 0, compressedLength);
+
+            int dictionarySize = block.dictionaryIndex.size();
+            ByteBuffer out = ByteBuffer.allocate(40 + dictionarySize * 8 + compressedLength);
+            out.putInt(FrameArchive.BLOCK_MAGIC);
+            out.putInt(frames);
+            out.putLong(block.minTs);
+            out.putLong(block.maxTs);
+            out.putInt(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) {
+                out.putLong(block.dictionary[i]);
+            }
+            out.putInt(raw.length);
+            out.putInt(compressedLength);
+            out.putInt((int) crc.getValue());
+            out.put(compressed, 0, compressedLength);
+            out.flip();
+
+            FileChannel target = channelFor(block.partition);
+            while (out.hasRemaining()) {
+                bytesWritten.addAndGet(target.write(out));
+            }
+            framesWritten.addAndGet(frames);
+            blocksWritten.incrementAndGet();
+        } catch (IOException e) {
+            writeErrors.addAndGet(frames);
+            System.err.println("❌ Frame archive write failed: " + e.getMessage());
+            closeChannel();
+        } finally {
+            block.reset();
+        }
+    }
+
+    private FileChannel channelFor(long partition) throws IOException {
+        if (channel != null && channelPartition == partition) {
+            return channel;
+        }
+        closeChannel();
+        Files.createDirectories(directory);
+        channel = FileChannel.open(directory.resolve(partitioning.segmentName(partition)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        channelPartition = partition;
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("❌ Frame archive close failed: " + e.getMessage());
+            }
+            channel = null;
+            channelPartition = Long.MIN_VALUE;
+        }
+    }
+
+    public long getAppended() { return appended.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getRejected() { return rejected.get(); }
+    public long getFramesWritten() { return framesWritten.get(); }
+    public long getBlocksWritten() { return blocksWritten.get(); }
+    public long getBytesWritten() { return bytesWritten.get(); }
+    public long getWriteErrors() { return writeErrors.get(); }
+
+    public void printStats() {
+        long raw = frameBytes.get();
+        long written = bytesWritten.get();
+        System.out.println("🗄️ Frame Archive - Frames: " + framesWritten.get()
+                + ", Blocks: " + blocksWritten.get()
+                + ", Bytes: " + written
+                + (written > 0 ? String.format(" (%.1fx vs binary, %.1fx vs hex)", (double) raw / written, 2.0 * raw / written) : "")
+                + ", Dropped: " + dropped.get()
+                + ", Errors: " + writeErrors.get()
+                + ", Queue: " + queue.size());
+    }
+
+    /**
+     * Write out everything queued (up to the timeout) and close the current segment
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        try {
+            writer.join(unit.toMillis(timeout));
+            if (writer.isAlive()) {
+                writer.interrupt();
+            }
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.iot.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Unsigned LEB128 varints with zigzag mapping for signed deltas
+ */
+final class Varint {
+    private Varint() {
+    }
+
+    static void write(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long read(ByteBuffer buf) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buf.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
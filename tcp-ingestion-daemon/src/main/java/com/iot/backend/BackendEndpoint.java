@@ -0,0 +1,108 @@
+package com.iot.backend;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One backend instance: its URLs, the requests outstanding against it, a smoothed latency and
+ * whether it currently takes traffic. Counters are updated by the forwarding threads; the
+ * health state only by {@link BackendPool}.
+ */
+public class BackendEndpoint {
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    private final String url;
+    private final String healthUrl;
+    private final AtomicInteger outstanding = new AtomicInteger(0);
+    private volatile double latencyNanos;
+    private volatile boolean healthy = true;
+    private volatile long ejectedUntilNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+    private int probeFailures;
+    private int ejections;
+
+    // Statistics
+    private final AtomicLong requests = new AtomicLong(0);
+    private final AtomicLong failures = new AtomicLong(0);
+    private final AtomicLong ejected = new AtomicLong(0);
+
+    public BackendEndpoint(String url) {
+        this.url = url;
+        this.healthUrl = url.replace("/raw-data", "/health");
+    }
+
+    /**
+     * A request is being sent to this endpoint
+     */
+    void begin() {
+        outstanding.incrementAndGet();
+        requests.incrementAndGet();
+    }
+
+    /**
+     * The request was given up before it answered
+     */
+    void abandon() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * The request finished; returns the failures in a row, 0 if it succeeded
+     */
+    int end(long rttNanos, boolean failed) {
+        outstanding.decrementAndGet();
+        double current = latencyNanos;
+        latencyNanos = current == 0 ? rttNanos : current + LATENCY_SMOOTHING * (rttNanos - current);
+        if (failed) {
+            failures.incrementAndGet();
+            return consecutiveFailures.incrementAndGet();
+        }
+        consecutiveFailures.set(0);
+        return 0;
+    }
+
+    /**
+     * Stop routing here until {@code untilNanos}, and until a health probe passes after that
+     */
+    void eject(long untilNanos) {
+        healthy = false;
+        ejectedUntilNanos = untilNanos;
+        ejections++;
+        ejected.incrementAndGet();
+    }
+
+    void readmit() {
+        healthy = true;
+        probeFailures = 0;
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * Expected cost of one more request: smoothed latency scaled by the queue it would join
+     */
+    double load() {
+        double latency = latencyNanos == 0 ? 1 : latencyNanos;
+        return latency * (outstanding.get() + 1);
+    }
+
+    int recordProbeFailure() { return ++probeFailures; }
+    void clearProbeFailures() { probeFailures = 0; }
+    int getEjections() { return ejections; }
+    void decayEjections() { if (ejections > 0) ejections--; }
+    long getEjectedUntilNanos() { return ejectedUntilNanos; }
+
+    public String getUrl() { return url; }
+    public String getHealthUrl() { return healthUrl; }
+    public boolean isHealthy() { return healthy; }
+    public int getOutstanding() { return outstanding.get(); }
+    public double getLatencyMillis() { return latencyNanos / TimeUnit.MILLISECONDS.toNanos(1); }
+    public long getRequests() { return requests.get(); }
+    public long getFailures() { return failures.get(); }
+    public long getEjected() { return ejected.get(); }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
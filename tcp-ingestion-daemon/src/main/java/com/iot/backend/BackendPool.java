@@ -0,0 +1,369 @@
+package com.iot.backend;
+
+import com.iot.protocol.SensorFrameDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several instances of the backend API behind one forwarder.
+ *
+ * Each request goes to the healthy endpoint with the fewest requests outstanding, or, with the
+ * latency strategy, to the cheaper of two random healthy endpoints, where cost is the smoothed
+ * latency times the queue the request would join (two random choices rather than the global
+ * best, so that a burst does not pile onto whichever endpoint looked fastest a moment ago).
+ * With sticky routing, frames of one sensor go to the same endpoint by rendezvous hashing:
+ * when an endpoint is ejected, only its sensors move, and they move back when it returns.
+ *
+ * Endpoints are ejected after several failed requests in a row or failed /health probes, for
+ * an ejection time that doubles each time an endpoint is ejected again soon after. Probes keep
+ * running against ejected endpoints, which are re-admitted on the first probe that passes once
+ * their ejection time is over. If no endpoint is healthy, requests go to all of them rather
+ * than nowhere. With a single endpoint none of this applies and it always gets the request.
+ */
+public class BackendPool {
+    public static final long DEFAULT_HEALTH_INTERVAL_MILLIS = 5_000;
+    public static final long DEFAULT_EJECTION_MILLIS = 10_000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long MAX_EJECTION_MILLIS = 5 * 60_000;
+    private static final int PROBE_FAILURE_THRESHOLD = 2;
+    private static final int PROBE_TIMEOUT_MILLIS = 2_000;
+
+    /**
+     * How the endpoint for a request is picked
+     */
+    public enum Strategy {
+        LEAST_OUTSTANDING, LATENCY;
+
+        /**
+         * "least-outstanding" or "latency"; null if not recognized
+         */
+        public static Strategy parse(String spec) {
+            switch (spec) {
+                case "least-outstanding":
+                    return LEAST_OUTSTANDING;
+                case "latency":
+                    return LATENCY;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final List<BackendEndpoint> endpoints;
+    private volatile Strategy strategy = Strategy.LEAST_OUTSTANDING;
+    private volatile boolean sticky;
+    private long healthIntervalMillis = DEFAULT_HEALTH_INTERVAL_MILLIS;
+    private long ejectionMillis = DEFAULT_EJECTION_MILLIS;
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private ScheduledExecutorService prober;
+
+    // Statistics
+    private final AtomicLong probes = new AtomicLong(0);
+    private final AtomicLong readmitted = new AtomicLong(0);
+    private final AtomicLong panicRoutes = new AtomicLong(0);
+
+    public BackendPool(List<String> urls) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one backend URL is required");
+        }
+        List<BackendEndpoint> list = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            list.add(new BackendEndpoint(url));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Send each sensor's frames to the same endpoint while it is healthy
+     */
+    public void setSticky(boolean sticky) {
+        this.sticky = sticky;
+    }
+
+    /**
+     * Time between /health probes of every endpoint, 0 to never probe (call before start)
+     */
+    public void setHealthIntervalMillis(long healthIntervalMillis) {
+        this.healthIntervalMillis = healthIntervalMillis;
+    }
+
+    /**
+     * First ejection time and failed requests in a row that eject an endpoint (call before start)
+     */
+    public void setEjection(long ejectionMillis, int failureThreshold) {
+        this.ejectionMillis = ejectionMillis;
+        this.failureThreshold = Math.max(1, failureThreshold);
+    }
+
+    /**
+     * Start probing in the background; a single endpoint is never probed
+     */
+    public synchronized void start() {
+        if (prober != null || endpoints.size() < 2 || healthIntervalMillis <= 0) {
+            return;
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "backend-health");
+            t.setDaemon(true);
+            return t;
+        });
+        prober.scheduleWithFixedDelay(this::probeAll, healthIntervalMillis, healthIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Endpoint for the next attempt at forwarding a frame, preferring one other than
+     * {@code previous} (the endpoint the last attempt failed on, or null)
+     */
+    public BackendEndpoint choose(String hexData, BackendEndpoint previous) {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+        // Widen the choice until something qualifies: healthy and not just failed, healthy, any
+        int pass = 0;
+        int count;
+        while ((count = countEligible(pass, previous)) == 0) {
+            pass++;
+        }
+        if (pass == 2) {
+            panicRoutes.incrementAndGet();
+        }
+
+        long sensorId = sticky ? stickyKey(hexData) : -1;
+        if (sensorId >= 0) {
+            return rendezvous(sensorId, pass, previous);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (strategy == Strategy.LATENCY) {
+            if (count == 1) {
+                return eligibleAt(0, pass, previous);
+            }
+            int i = random.nextInt(count);
+            int j = random.nextInt(count - 1);
+            BackendEndpoint first = eligibleAt(i, pass, previous);
+            BackendEndpoint second = eligibleAt(j >= i ? j + 1 : j, pass, previous);
+            return second.load() < first.load() ? second : first;
+        }
+
+        // Least outstanding, scanning from a random start so ties are spread out
+        int start = random.nextInt(endpoints.size());
+        BackendEndpoint best = null;
+        for (int i = 0; i < endpoints.size(); i++) {
+            BackendEndpoint endpoint = endpoints.get((start + i) % endpoints.size());
+            if (eligible(endpoint, pass, previous)
+                    && (best == null || endpoint.getOutstanding() < best.getOutstanding())) {
+                best = endpoint;
+            }
+        }
+        return best;
+    }
+
+    private static boolean eligible(BackendEndpoint endpoint, int pass, BackendEndpoint previous) {
+        switch (pass) {
+            case 0:
+                return endpoint.isHealthy() && endpoint != previous;
+            case 1:
+                return endpoint.isHealthy();
+            default:
+                return true;
+        }
+    }
+
+    private int countEligible(int pass, BackendEndpoint previous) {
+        int count = 0;
+        for (BackendEndpoint endpoint : endpoints) {
+            if (eligible(endpoint, pass, previous)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private BackendEndpoint eligibleAt(int index, int pass, BackendEndpoint previous) {
+        int remaining = index;
+        for (BackendEndpoint endpoint : endpoints) {
+            if (eligible(endpoint, pass, previous) && remaining-- == 0) {
+                return endpoint;
+            }
+        }
+        // Health changed since counting; any endpoint will do for this one request
+        return endpoints.get(index % endpoints.size());
+    }
+
+    /**
+     * Highest-random-weight choice: every endpoint scores the sensor and the top score wins
+     */
+    private BackendEndpoint rendezvous(long sensorId, int pass, BackendEndpoint previous) {
+        BackendEndpoint best = null;
+        long bestScore = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            BackendEndpoint endpoint = endpoints.get(i);
+            if (!eligible(endpoint, pass, previous)) {
+                continue;
+            }
+            long score = mix(sensorId * 31 + endpoint.getUrl().hashCode());
+            if (best == null || Long.compareUnsigned(score, bestScore) > 0) {
+                best = endpoint;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Sensor ID from a frame's header, -1 if the frame is too short to have one
+     */
+    static long stickyKey(String hexData) {
+        String hex = hexData.trim();
+        return hex.length() >= 18 ? SensorFrameDecoder.parseSensorId(hex.substring(6, 18)) : -1;
+    }
+
+    /**
+     * An attempt on {@code endpoint} finished; {@code failed} if the backend looked down or
+     * overloaded (timeout, refused, 5xx) rather than rejecting the request itself
+     */
+    public void record(BackendEndpoint endpoint, long rttNanos, boolean failed) {
+        int inARow = endpoint.end(rttNanos, failed);
+        if (inARow >= failureThreshold && endpoints.size() > 1) {
+            synchronized (this) {
+                if (endpoint.isHealthy()) {
+                    eject(endpoint, inARow + " failed requests in a row");
+                }
+            }
+        }
+    }
+
+    /**
+     * A request begun on {@code endpoint} was given up before it answered (its hedge won): it no
+     * longer counts as outstanding, and says nothing about the endpoint's latency or health
+     */
+    public void abandon(BackendEndpoint endpoint) {
+        endpoint.abandon();
+    }
+
+    /**
+     * Note a request starting on {@code endpoint}, before sending it
+     */
+    public void begin(BackendEndpoint endpoint) {
+        endpoint.begin();
+    }
+
+    /**
+     * Outcome of a /health probe, from the background prober or a check at startup
+     */
+    public synchronized void recordProbe(BackendEndpoint endpoint, boolean passed) {
+        probes.incrementAndGet();
+        if (endpoints.size() < 2) {
+            return;
+        }
+        if (passed) {
+            if (endpoint.isHealthy()) {
+                endpoint.clearProbeFailures();
+                endpoint.decayEjections();
+            } else if (System.nanoTime() - endpoint.getEjectedUntilNanos() >= 0) {
+                endpoint.readmit();
+                readmitted.incrementAndGet();
+                System.out.println("✅ Backend re-admitted: " + endpoint.getUrl());
+            }
+        } else if (endpoint.isHealthy() && endpoint.recordProbeFailure() >= PROBE_FAILURE_THRESHOLD) {
+            eject(endpoint, "health check failed");
+        }
+    }
+
+    private void eject(BackendEndpoint endpoint, String reason) {
+        long millis = Math.min(MAX_EJECTION_MILLIS, ejectionMillis << Math.min(endpoint.getEjections(), 16));
+        endpoint.eject(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+        System.err.println("🚫 Ejecting backend " + endpoint.getUrl() + " for " + millis / 1000 + "s: " + reason);
+    }
+
+    private void probeAll() {
+        for (BackendEndpoint endpoint : endpoints) {
+            recordProbe(endpoint, probe(endpoint));
+        }
+    }
+
+    /**
+     * GET the endpoint's /health; true on 200
+     */
+    public boolean probe(BackendEndpoint endpoint) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(endpoint.getHealthUrl()).openConnection();
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("User-Agent", "TCP-Ingestion-Daemon/1.0");
+            connection.setConnectTimeout(PROBE_TIMEOUT_MILLIS);
+            connection.setReadTimeout(PROBE_TIMEOUT_MILLIS);
+            int responseCode = connection.getResponseCode();
+            try (InputStream body = responseCode >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+                if (body != null) {
+                    body.readAllBytes();
+                }
+            }
+            return responseCode == 200;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    public List<BackendEndpoint> getEndpoints() { return endpoints; }
+    public Strategy getStrategy() { return strategy; }
+    public boolean isSticky() { return sticky; }
+    public long getProbes() { return probes.get(); }
+    public long getReadmitted() { return readmitted.get(); }
+    public long getPanicRoutes() { return panicRoutes.get(); }
+
+    public int getHealthyCount() {
+        int healthy = 0;
+        for (BackendEndpoint endpoint : endpoints) {
+            if (endpoint.isHealthy()) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    public void printStats() {
+        System.out.println("🧭 Backends - Healthy: " + getHealthyCount() + "/" + endpoints.size()
+                + ", Routing: " + strategy.name().toLowerCase().replace('_', '-') + (sticky ? " (sticky)" : "")
+                + ", Probes: " + probes.get()
+                + ", Re-admitted: " + readmitted.get()
+                + ", Routed with none healthy: " + panicRoutes.get());
+        for (BackendEndpoint endpoint : endpoints) {
+            System.out.println(String.format("   %s %s - Outstanding: %d, Latency: %.1fms, Requests: %d, Failures: %d, Ejected: %d",
+                    endpoint.isHealthy() ? "🟢" : "🔴", endpoint.getUrl(), endpoint.getOutstanding(),
+                    endpoint.getLatencyMillis(), endpoint.getRequests(), endpoint.getFailures(), endpoint.getEjected()));
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (prober != null) {
+            prober.shutdownNow();
+            prober = null;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.iot.backend;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * When to send a second copy of a slow backend request, and how many second copies to allow.
+ *
+ * The hedge delay is a percentile (p95 by default) of the latest few hundred attempt latencies,
+ * recomputed every 64 samples, so that only requests already slower than nearly all recent ones
+ * are hedged. Until enough samples are in, nothing is hedged.
+ *
+ * A token budget caps the extra load: every forward earns a fraction of a hedge (10% by
+ * default) and every hedge spends a whole one, with at most ten saved up. When a backend is
+ * slow across the board, the percentile rises with it and the budget runs dry, so hedging
+ * cannot double the traffic to a backend that is already struggling.
+ */
+public class HedgePolicy {
+    public static final double DEFAULT_PERCENTILE = 95;
+    public static final double DEFAULT_BUDGET_PERCENT = 10;
+    private static final int WINDOW = 512;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final int MIN_SAMPLES = 32;
+    private static final long TOKEN = 1000;
+    private static final long MAX_SAVED = 10 * TOKEN;
+    private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final double percentile;
+    private final long earnedPerRequest;
+    private final long[] samples = new long[WINDOW];
+    private final AtomicLong sampleCount = new AtomicLong(0);
+    private final AtomicLong tokens = new AtomicLong(MAX_SAVED);
+    private volatile long delayNanos = Long.MAX_VALUE;
+
+    // Statistics
+    private final AtomicLong hedged = new AtomicLong(0);
+    private final AtomicLong won = new AtomicLong(0);
+    private final AtomicLong denied = new AtomicLong(0);
+    private final AtomicLong limited = new AtomicLong(0);
+
+    public HedgePolicy() {
+        this(DEFAULT_PERCENTILE, DEFAULT_BUDGET_PERCENT);
+    }
+
+    /**
+     * @param percentile    hedge requests slower than this percentile of recent attempts, e.g. 95
+     * @param budgetPercent hedges allowed per hundred forwards, e.g. 10
+     */
+    public HedgePolicy(double percentile, double budgetPercent) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        this.percentile = percentile;
+        this.earnedPerRequest = Math.max(0, Math.round(budgetPercent / 100 * TOKEN));
+    }
+
+    /**
+     * An attempt finished, hedged or not
+     */
+    public void record(long rttNanos) {
+        long n = sampleCount.getAndIncrement();
+        // Racing writers may overwrite each other's slot; one lost sample does not move a percentile
+        samples[(int) (n % WINDOW)] = rttNanos;
+        if ((n + 1) % RECOMPUTE_EVERY == 0 && n + 1 >= MIN_SAMPLES) {
+            recompute((int) Math.min(n + 1, WINDOW));
+        }
+    }
+
+    private void recompute(int count) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(count - 1, Math.ceil(percentile / 100 * count) - 1);
+        delayNanos = Math.max(MIN_DELAY_NANOS, sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * A forward is starting: earn its share of the hedge budget
+     */
+    public void onRequest() {
+        if (earnedPerRequest > 0 && tokens.get() < MAX_SAVED) {
+            tokens.accumulateAndGet(earnedPerRequest, (current, earned) -> Math.min(MAX_SAVED, current + earned));
+        }
+    }
+
+    /**
+     * Spend budget on one hedge; false if there is not enough left
+     */
+    public boolean tryHedge() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                denied.incrementAndGet();
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        hedged.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * The hedge answered first
+     */
+    public void onHedgeWon() {
+        won.incrementAndGet();
+    }
+
+    /**
+     * A hedge was due but the concurrency limit had no slot for it
+     */
+    public void onLimited() {
+        limited.incrementAndGet();
+    }
+
+    /**
+     * How long to wait for the first attempt before hedging, Long.MAX_VALUE while still warming up
+     */
+    public long getDelayNanos() { return delayNanos; }
+
+    /**
+     * Most hedges the budget allows at once, which also bounds the threads they need
+     */
+    public int getMaxSavedHedges() { return (int) (MAX_SAVED / TOKEN); }
+
+    public double getPercentile() { return percentile; }
+    public long getHedged() { return hedged.get(); }
+    public long getWon() { return won.get(); }
+    public long getDenied() { return denied.get(); }
+    public long getLimited() { return limited.get(); }
+
+    public void printStats() {
+        long delay = delayNanos;
+        System.out.println("🏁 Hedging - Delay (p" + String.format("%.0f", percentile) + "): "
+                + (delay == Long.MAX_VALUE ? "warming up" : String.format("%.1fms", delay / 1e6))
+                + ", Hedged: " + hedged.get()
+                + " (won " + won.get() + ")"
+                + ", Denied by budget: " + denied.get()
+                + ", Over concurrency limit: " + limited.get());
+    }
+}
@@ -0,0 +1,278 @@
+package com.iot.buffer;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared pool of direct ByteBuffers in power-of-four size classes (256 B to 64 KB).
+ *
+ * Buffers are carved out of 1 MB direct slabs, allocated lazily per size class until the
+ * pool's byte budget is reserved; after that, and for requests above the largest class, the
+ * pool hands out plain heap buffers and counts them as unpooled. Released buffers go back to
+ * their class's free list (LIFO, so the most recently used memory is reused first). Slabs are
+ * never returned to the OS: the pool's footprint is its peak, bounded by the budget.
+ *
+ * With leak detection on (system property {@code iot.buffers.leakDetection}, set for the test
+ * runs), every acquire records where it happened; a handle that becomes unreachable without
+ * being released is reported with that stack trace and its buffer reclaimed.
+ */
+public class BufferPool {
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    public static final String LEAK_DETECTION_PROPERTY = "iot.buffers.leakDetection";
+    static final int MIN_CLASS_SHIFT = 8;
+    static final int CLASS_COUNT = 5;
+    private static final int SLAB_BYTES = 1 << 20;
+
+    private static volatile BufferPool shared;
+
+    private final long maxBytes;
+    private final boolean leakDetection;
+    private final SizeClass[] classes = new SizeClass[CLASS_COUNT];
+    private final AtomicLong reservedBytes = new AtomicLong(0);
+    private final ReferenceQueue<PooledBuffer> collected = new ReferenceQueue<>();
+    private final Set<LeakRef> tracked = ConcurrentHashMap.newKeySet();
+
+    // Statistics
+    private final AtomicLong unpooled = new AtomicLong(0);
+    private final AtomicLong leaks = new AtomicLong(0);
+
+    /**
+     * Free list and counters of one buffer size
+     */
+    private static final class SizeClass {
+        final int size;
+        final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+        int total;
+        int inUse;
+        int peakInUse;
+        long acquired;
+
+        SizeClass(int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Tracks one acquired handle when leak detection is on; keeps what is needed to reclaim it
+     */
+    private static final class LeakRef extends PhantomReference<PooledBuffer> {
+        final ByteBuffer buffer;
+        final int sizeClass;
+        final Throwable acquiredAt;
+
+        LeakRef(PooledBuffer handle, ReferenceQueue<PooledBuffer> queue) {
+            super(handle, queue);
+            this.buffer = handle.rawBuffer();
+            this.sizeClass = handle.sizeClass;
+            this.acquiredAt = new Throwable("Buffer acquired here");
+        }
+    }
+
+    public BufferPool(long maxBytes, boolean leakDetection) {
+        this.maxBytes = maxBytes;
+        this.leakDetection = leakDetection;
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            classes[i] = new SizeClass(1 << (MIN_CLASS_SHIFT + 2 * i));
+        }
+    }
+
+    /**
+     * Pool shared by the daemon's connections and forwarders (default budget; leak detection
+     * from the system property)
+     */
+    public static BufferPool shared() {
+        BufferPool pool = shared;
+        if (pool == null) {
+            synchronized (BufferPool.class) {
+                pool = shared;
+                if (pool == null) {
+                    pool = new BufferPool(DEFAULT_MAX_BYTES, Boolean.getBoolean(LEAK_DETECTION_PROPERTY));
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Largest size served from the pool
+     */
+    public static int maxPooledSize() {
+        return 1 << (MIN_CLASS_SHIFT + 2 * (CLASS_COUNT - 1));
+    }
+
+    static int sizeClassFor(int capacity) {
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            if (capacity <= 1 << (MIN_CLASS_SHIFT + 2 * i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A cleared buffer of at least {@code minCapacity} bytes; release it when done
+     */
+    public PooledBuffer acquire(int minCapacity) {
+        if (leakDetection) {
+            reclaimLeaks();
+        }
+        int index = sizeClassFor(minCapacity);
+        ByteBuffer buffer = index < 0 ? null : take(classes[index]);
+        if (buffer == null) {
+            unpooled.incrementAndGet();
+            return new PooledBuffer(this, ByteBuffer.allocate(minCapacity), -1);
+        }
+        PooledBuffer handle = new PooledBuffer(this, buffer, index);
+        if (leakDetection) {
+            LeakRef ref = new LeakRef(handle, collected);
+            handle.leakRef = ref;
+            tracked.add(ref);
+        }
+        return handle;
+    }
+
+    private ByteBuffer take(SizeClass sizeClass) {
+        synchronized (sizeClass) {
+            if (sizeClass.free.isEmpty() && !grow(sizeClass)) {
+                return null;
+            }
+            sizeClass.acquired++;
+            sizeClass.inUse++;
+            sizeClass.peakInUse = Math.max(sizeClass.peakInUse, sizeClass.inUse);
+            return sizeClass.free.pop().clear();
+        }
+    }
+
+    /**
+     * Carve a new slab into buffers of this class, if the budget allows (holding the class lock)
+     */
+    private boolean grow(SizeClass sizeClass) {
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (reserved + SLAB_BYTES > maxBytes) {
+                return false;
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + SLAB_BYTES));
+        ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_BYTES);
+        for (int offset = 0; offset < SLAB_BYTES; offset += sizeClass.size) {
+            slab.limit(offset + sizeClass.size).position(offset);
+            sizeClass.free.push(slab.slice());
+        }
+        sizeClass.total += SLAB_BYTES / sizeClass.size;
+        return true;
+    }
+
+    void release(PooledBuffer handle) {
+        if (handle.sizeClass < 0) {
+            return;
+        }
+        PhantomReference<PooledBuffer> ref = handle.leakRef;
+        if (ref != null) {
+            tracked.remove(ref);
+            ref.clear();
+        }
+        giveBack(handle.sizeClass, handle.rawBuffer());
+        // The handle must stay reachable until its ref is cleared, or it could be reported as leaked
+        Reference.reachabilityFence(handle);
+    }
+
+    private void giveBack(int index, ByteBuffer buffer) {
+        SizeClass sizeClass = classes[index];
+        synchronized (sizeClass) {
+            sizeClass.inUse--;
+            sizeClass.free.push(buffer);
+        }
+    }
+
+    /**
+     * Report and reclaim buffers whose handles were garbage collected without being released;
+     * returns how many were found
+     */
+    public int reclaimLeaks() {
+        int found = 0;
+        Reference<? extends PooledBuffer> reference;
+        while ((reference = collected.poll()) != null) {
+            LeakRef ref = (LeakRef) reference;
+            if (!tracked.remove(ref)) {
+                continue;
+            }
+            found++;
+            leaks.incrementAndGet();
+            System.err.println("⚠️ Buffer leak: " + classes[ref.sizeClass].size
+                    + "-byte buffer was never released; reclaiming it");
+            ref.acquiredAt.printStackTrace();
+            giveBack(ref.sizeClass, ref.buffer);
+        }
+        return found;
+    }
+
+    /**
+     * Where the buffers still held were acquired (leak detection only)
+     */
+    public List<Throwable> getOutstandingAllocations() {
+        List<Throwable> sites = new ArrayList<>();
+        for (LeakRef ref : tracked) {
+            sites.add(ref.acquiredAt);
+        }
+        return sites;
+    }
+
+    public boolean isLeakDetection() { return leakDetection; }
+    public long getMaxBytes() { return maxBytes; }
+    public long getReservedBytes() { return reservedBytes.get(); }
+    public long getUnpooled() { return unpooled.get(); }
+    public long getLeaks() { return leaks.get(); }
+
+    public long getInUseBytes() {
+        long bytes = 0;
+        for (SizeClass sizeClass : classes) {
+            synchronized (sizeClass) {
+                bytes += (long) sizeClass.inUse * sizeClass.size;
+            }
+        }
+        return bytes;
+    }
+
+    public int getInUse() {
+        int count = 0;
+        for (SizeClass sizeClass : classes) {
+            synchronized (sizeClass) {
+                count += sizeClass.inUse;
+            }
+        }
+        return count;
+    }
+
+    public void printStats() {
+        long reserved = reservedBytes.get();
+        long inUse = getInUseBytes();
+        StringBuilder perClass = new StringBuilder();
+        for (SizeClass sizeClass : classes) {
+            synchronized (sizeClass) {
+                if (sizeClass.total == 0) {
+                    continue;
+                }
+                perClass.append(perClass.length() == 0 ? "" : ", ")
+                        .append(sizeClass.size >= 1024 ? (sizeClass.size >> 10) + "K" : sizeClass.size + "B")
+                        .append(' ').append(sizeClass.inUse).append('/').append(sizeClass.total)
+                        .append(" (peak ").append(sizeClass.peakInUse).append(')');
+            }
+        }
+        System.out.println("🧱 Buffer Pool - Reserved: " + (reserved >> 10) + " KB of " + (maxBytes >> 20) + " MB"
+                + ", In use: " + (inUse >> 10) + " KB"
+                + String.format(" (%.1f%%)", reserved > 0 ? inUse * 100.0 / reserved : 0)
+                + ", Unpooled: " + unpooled.get()
+                + (leakDetection ? ", Leaks: " + leaks.get() : "")
+                + (perClass.length() > 0 ? " [" + perClass + "]" : ""));
+    }
+}
@@ -0,0 +1,57 @@
+package com.iot.buffer;
+
+import java.lang.ref.PhantomReference;
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer on loan from a {@link BufferPool}. Owned by one thread at a time; must be released
+ * exactly once, after which its ByteBuffer must not be touched again.
+ */
+public final class PooledBuffer implements AutoCloseable {
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    final int sizeClass;
+    PhantomReference<PooledBuffer> leakRef;
+    private boolean released;
+
+    PooledBuffer(BufferPool pool, ByteBuffer buffer, int sizeClass) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+    }
+
+    public ByteBuffer buffer() {
+        if (released) {
+            throw new IllegalStateException("Buffer used after release");
+        }
+        return buffer;
+    }
+
+    ByteBuffer rawBuffer() {
+        return buffer;
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * True when the buffer came from a slab (false for unpooled heap fallbacks)
+     */
+    public boolean isPooled() {
+        return sizeClass >= 0;
+    }
+
+    public void release() {
+        if (released) {
+            throw new IllegalStateException("Buffer released twice");
+        }
+        released = true;
+        pool.release(this);
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+}
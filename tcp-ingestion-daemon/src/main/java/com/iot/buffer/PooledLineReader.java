@@ -0,0 +1,139 @@
+package com.iot.buffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Line reader for connection input that reads the socket straight into a pooled direct buffer.
+ *
+ * Replaces BufferedReader + InputStreamReader, which keep about 24 KB of heap buffers per
+ * connection and decode every byte to a char on the way. Lines are ASCII (hex frames and
+ * commands) and come out as Strings only once complete. The buffer starts small and moves up
+ * a size class when a line does not fit; a line longer than the largest pooled size is a
+ * protocol violation and fails the read.
+ */
+public final class PooledLineReader implements Closeable {
+    public static final int INITIAL_CAPACITY = 4096;
+
+    private final ReadableByteChannel channel;
+    private final BufferPool pool;
+    private final int maxLineBytes;
+    private PooledBuffer pooled;
+    private ByteBuffer buffer;
+    private byte[] lineBytes = new byte[256];
+    private int start;
+    private int end;
+    private boolean eof;
+    private volatile long partialSinceNanos;
+
+    public PooledLineReader(ReadableByteChannel channel, BufferPool pool) {
+        this(channel, pool, BufferPool.maxPooledSize());
+    }
+
+    public PooledLineReader(ReadableByteChannel channel, BufferPool pool, int maxLineBytes) {
+        this.channel = channel;
+        this.pool = pool;
+        this.maxLineBytes = maxLineBytes;
+        this.pooled = pool.acquire(Math.min(INITIAL_CAPACITY, maxLineBytes));
+        this.buffer = pooled.buffer();
+    }
+
+    /**
+     * Next line without its terminator ("\n" or "\r\n"), or null at end of stream
+     */
+    public String readLine() throws IOException {
+        int scanFrom = start;
+        while (true) {
+            for (int i = scanFrom; i < end; i++) {
+                if (buffer.get(i) == '\n') {
+                    String line = line(start, i);
+                    start = i + 1;
+                    partialSinceNanos = start < end ? System.nanoTime() : 0;
+                    return line;
+                }
+            }
+            if (eof) {
+                if (start == end) {
+                    return null;
+                }
+                String line = line(start, end);
+                start = end;
+                return line;
+            }
+            scanFrom = end;
+            if (end == buffer.capacity()) {
+                scanFrom -= start;
+                makeRoom();
+            }
+            buffer.limit(buffer.capacity()).position(end);
+            int n = channel.read(buffer);
+            if (n < 0) {
+                eof = true;
+            } else {
+                end += n;
+                if (n > 0 && partialSinceNanos == 0) {
+                    partialSinceNanos = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /**
+     * When the bytes of a line still missing its terminator started arriving (System.nanoTime),
+     * or 0 if nothing is buffered; safe to read from another thread, e.g. to time out a slow sender
+     */
+    public long getPartialSinceNanos() {
+        return partialSinceNanos;
+    }
+
+    /**
+     * Move the partial line to the front, or into a bigger buffer if it already fills this one
+     */
+    private void makeRoom() throws IOException {
+        if (start > 0) {
+            buffer.limit(end).position(start);
+            buffer.compact();
+            end -= start;
+            start = 0;
+            return;
+        }
+        if (buffer.capacity() >= maxLineBytes) {
+            throw new IOException("Line longer than " + maxLineBytes + " bytes");
+        }
+        PooledBuffer bigger = pool.acquire(Math.min(buffer.capacity() * 4, maxLineBytes));
+        buffer.limit(end).position(0);
+        bigger.buffer().put(buffer);
+        pooled.release();
+        pooled = bigger;
+        buffer = bigger.buffer();
+    }
+
+    private String line(int from, int to) {
+        if (to > from && buffer.get(to - 1) == '\r') {
+            to--;
+        }
+        int length = to - from;
+        if (length > lineBytes.length) {
+            lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+        }
+        buffer.limit(to).position(from);
+        buffer.get(lineBytes, 0, length);
+        buffer.limit(buffer.capacity());
+        return new String(lineBytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Return the buffer to the pool (the channel is left open)
+     */
+    @Override
+    public void close() {
+        if (pooled != null) {
+            pooled.release();
+            pooled = null;
+            buffer = null;
+        }
+    }
+}
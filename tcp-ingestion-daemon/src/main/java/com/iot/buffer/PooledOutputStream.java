@@ -0,0 +1,107 @@
+package com.iot.buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OutputStream that encodes into pooled buffers (moving up a size class as it grows), for
+ * request bodies that are written once and then sent, possibly more than once on retries.
+ *
+ * close() does not release the buffer, so serializers that close their target are harmless;
+ * call {@link #release()} when the bytes are no longer needed. A body sent from more than one
+ * thread at once (a hedged request) takes a {@link #retain()} per sender, and the buffer goes
+ * back to the pool on the last release.
+ */
+public final class PooledOutputStream extends OutputStream {
+    private static final int COPY_CHUNK = 8192;
+    private static final ThreadLocal<byte[]> COPY_BUFFER = ThreadLocal.withInitial(() -> new byte[COPY_CHUNK]);
+
+    private final BufferPool pool;
+    private PooledBuffer pooled;
+    private ByteBuffer buffer;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    public PooledOutputStream(BufferPool pool, int initialCapacity) {
+        this.pool = pool;
+        this.pooled = pool.acquire(initialCapacity);
+        this.buffer = pooled.buffer();
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensure(length);
+        buffer.put(bytes, offset, length);
+    }
+
+    private void ensure(int more) {
+        if (buffer.remaining() >= more) {
+            return;
+        }
+        int needed = buffer.position() + more;
+        PooledBuffer bigger = pool.acquire(Math.max(needed, buffer.capacity() * 4));
+        buffer.flip();
+        bigger.buffer().put(buffer);
+        pooled.release();
+        pooled = bigger;
+        buffer = bigger.buffer();
+    }
+
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Copy the bytes written so far to {@code out} (the stream stays readable for another attempt)
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        ByteBuffer view = buffer.duplicate().flip();
+        if (view.hasArray()) {
+            out.write(view.array(), view.arrayOffset(), view.remaining());
+            return;
+        }
+        byte[] chunk = COPY_BUFFER.get();
+        while (view.hasRemaining()) {
+            int n = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, n);
+            out.write(chunk, 0, n);
+        }
+    }
+
+    /**
+     * The bytes written so far as UTF-8 text (for logging)
+     */
+    @Override
+    public String toString() {
+        ByteBuffer view = buffer.duplicate().flip();
+        byte[] bytes = new byte[view.remaining()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Keep the bytes readable until a matching {@link #release()}
+     */
+    public PooledOutputStream retain() {
+        references.incrementAndGet();
+        return this;
+    }
+
+    public void release() {
+        if (references.decrementAndGet() > 0) {
+            return;
+        }
+        if (pooled != null) {
+            pooled.release();
+            pooled = null;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.iot.connection;
+
+import com.iot.buffer.PooledLineReader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketOption;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission, socket options and timeouts for device connections.
+ *
+ * Each admitted connection is read by its own blocking handler thread, so the limit is the
+ * smaller of the connection limit and the handler thread count: connections past it are refused
+ * with an explicit error line rather than admitted to wait unread for a thread. Every accepted
+ * connection gets TCP keepalive and two deadlines, checked on a {@link TimerWheel}: the idle
+ * timeout (no complete line for that long) and the read timeout (a line that started arriving
+ * but was not finished in time, e.g. a half-open cellular link mid-frame). Connection reads go
+ * through channels, where SO_TIMEOUT has no effect, so an expired connection is closed from the
+ * wheel thread, which makes the handler's blocked read fail and its thread return to the pool.
+ *
+ * A connection holds one pending check at a time, scheduled for its earliest possible deadline;
+ * when it fires and activity has moved the deadline, it is rescheduled rather than closed. Lines
+ * received never touch the wheel, so the per-line cost is one volatile write.
+ */
+public class ConnectionManager {
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 10 * 60_000;
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 30_000;
+    public static final int DEFAULT_KEEPALIVE_IDLE_SECONDS = 120;
+    public static final int DEFAULT_KEEPALIVE_INTERVAL_SECONDS = 30;
+    public static final int DEFAULT_KEEPALIVE_COUNT = 4;
+
+    private final int maxConnections;
+    private int handlerThreads = Integer.MAX_VALUE;
+    private final long idleTimeoutNanos;
+    private final long readTimeoutNanos;
+    private final TimerWheel wheel;
+    private int keepAliveIdleSeconds = DEFAULT_KEEPALIVE_IDLE_SECONDS;
+    private int keepAliveIntervalSeconds = DEFAULT_KEEPALIVE_INTERVAL_SECONDS;
+    private int keepAliveCount = DEFAULT_KEEPALIVE_COUNT;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger open = new AtomicInteger(0);
+    private final Map<Long, Connection> connections = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong accepted = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong idleClosed = new AtomicLong(0);
+    private final AtomicLong readTimeouts = new AtomicLong(0);
+    private final AtomicInteger peakOpen = new AtomicInteger(0);
+
+    /**
+     * One accepted device connection
+     */
+    public final class Connection {
+        private final long id;
+        private final String clientInfo;
+        private final Socket socket;
+        private final long connectedAtMillis;
+        private final long connectedAtNanos;
+        private volatile long lastActivityNanos;
+        private volatile PooledLineReader reader;
+        private volatile String closedReason;
+        private volatile boolean unregistered;
+        private final AtomicLong lines = new AtomicLong(0);
+
+        private Connection(Socket socket, String clientInfo) {
+            this.id = nextId.getAndIncrement();
+            this.clientInfo = clientInfo;
+            this.socket = socket;
+            this.connectedAtMillis = System.currentTimeMillis();
+            this.connectedAtNanos = System.nanoTime();
+            this.lastActivityNanos = connectedAtNanos;
+        }
+
+        /**
+         * Let the read timeout see lines that are still arriving
+         */
+        public void attach(PooledLineReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * A complete line was received
+         */
+        public void touch() {
+            lastActivityNanos = System.nanoTime();
+            lines.incrementAndGet();
+        }
+
+        public long getId() { return id; }
+        public String getClientInfo() { return clientInfo; }
+        public long getConnectedAtMillis() { return connectedAtMillis; }
+        public long getLines() { return lines.get(); }
+
+        public long getAgeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectedAtNanos);
+        }
+
+        public long getIdleMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActivityNanos);
+        }
+
+        /**
+         * Why the manager closed this connection, or null if it did not
+         */
+        public String getClosedReason() { return closedReason; }
+
+        /**
+         * Check deadlines on the wheel thread: close if one has passed, else wait for the earliest
+         */
+        private void check() {
+            if (unregistered) {
+                return;
+            }
+            long now = System.nanoTime();
+            long next = Long.MAX_VALUE;
+            if (idleTimeoutNanos > 0) {
+                long idleDeadline = lastActivityNanos + idleTimeoutNanos;
+                if (now - idleDeadline >= 0) {
+                    idleClosed.incrementAndGet();
+                    expire("idle for " + TimeUnit.NANOSECONDS.toSeconds(now - lastActivityNanos) + "s");
+                    return;
+                }
+                next = idleDeadline - now;
+            }
+            if (readTimeoutNanos > 0) {
+                PooledLineReader current = reader;
+                long partialSince = current != null ? current.getPartialSinceNanos() : 0;
+                if (partialSince != 0 && now - (partialSince + readTimeoutNanos) >= 0) {
+                    readTimeouts.incrementAndGet();
+                    expire("incomplete line for " + TimeUnit.NANOSECONDS.toSeconds(now - partialSince) + "s");
+                    return;
+                }
+                // A line may start arriving at any moment, so look again within one read timeout
+                next = Math.min(next, partialSince != 0 ? partialSince + readTimeoutNanos - now : readTimeoutNanos);
+            }
+            if (next != Long.MAX_VALUE) {
+                wheel.schedule(this::check, TimeUnit.NANOSECONDS.toMillis(next) + 1);
+            }
+        }
+
+        /**
+         * Close the socket without writing to it: the peer may be gone and a write could block
+         */
+        private void expire(String reason) {
+            closedReason = reason;
+            System.out.println("⏱️ Closing connection " + clientInfo + ": " + reason);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("❌ Error closing client socket: " + e.getMessage());
+            }
+        }
+    }
+
+    public ConnectionManager(int maxConnections, long idleTimeoutMillis, long readTimeoutMillis) {
+        this(maxConnections, idleTimeoutMillis, readTimeoutMillis, new TimerWheel());
+    }
+
+    public ConnectionManager(int maxConnections, long idleTimeoutMillis, long readTimeoutMillis, TimerWheel wheel) {
+        this.maxConnections = maxConnections;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+        this.wheel = wheel;
+    }
+
+    /**
+     * TCP keepalive probing: idle seconds before the first probe, seconds between probes and
+     * unanswered probes before the OS drops the connection; idle 0 turns keepalive off. Where the
+     * platform does not support the timings, keepalive is enabled with the OS defaults (call before start)
+     */
+    public void setKeepAlive(int idleSeconds, int intervalSeconds, int count) {
+        this.keepAliveIdleSeconds = idleSeconds;
+        this.keepAliveIntervalSeconds = intervalSeconds;
+        this.keepAliveCount = count;
+    }
+
+    /**
+     * Handler threads reading connections, one each; connections beyond them are refused like
+     * those beyond the connection limit (call before start)
+     */
+    public void setHandlerThreads(int handlerThreads) {
+        if (handlerThreads < 1) {
+            throw new IllegalArgumentException("At least one handler thread is required: " + handlerThreads);
+        }
+        this.handlerThreads = handlerThreads;
+    }
+
+    public void start() {
+        wheel.start();
+    }
+
+    /**
+     * Admit a freshly accepted socket: apply socket options and schedule its timeouts, or, past
+     * the limit, tell the client and close it. Returns null if the connection was refused.
+     */
+    public Connection register(Socket socket, String clientInfo) {
+        int limit = getLimit();
+        int count;
+        do {
+            count = open.get();
+            if (count >= limit) {
+                rejected.incrementAndGet();
+                System.err.println("⚠️ Refusing connection from " + clientInfo + ": " + count + " connections open");
+                refuse(socket, "ERROR: Too many connections (max " + limit + ")");
+                return null;
+            }
+        } while (!open.compareAndSet(count, count + 1));
+        peakOpen.accumulateAndGet(count + 1, Math::max);
+        accepted.incrementAndGet();
+
+        configure(socket);
+        Connection connection = new Connection(socket, clientInfo);
+        connections.put(connection.id, connection);
+        if (idleTimeoutNanos > 0 || readTimeoutNanos > 0) {
+            long first = idleTimeoutNanos > 0 && readTimeoutNanos > 0
+                ? Math.min(idleTimeoutNanos, readTimeoutNanos)
+                : Math.max(idleTimeoutNanos, readTimeoutNanos);
+            wheel.schedule(connection::check, TimeUnit.NANOSECONDS.toMillis(first));
+        }
+        return connection;
+    }
+
+    /**
+     * The connection's handler is done with it (its pending check becomes a no-op)
+     */
+    public void unregister(Connection connection) {
+        if (connections.remove(connection.id) != null) {
+            connection.unregistered = true;
+            open.decrementAndGet();
+        }
+    }
+
+    /**
+     * Send one error line to a socket that is not admitted, and close it
+     */
+    public void refuse(Socket socket, String reply) {
+        try (Socket refused = socket) {
+            // Small enough to fit the socket's send buffer, so the accept thread never blocks here
+            OutputStream out = refused.getOutputStream();
+            out.write((reply + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        } catch (IOException e) {
+            // The client is gone already
+        }
+    }
+
+    private void configure(Socket socket) {
+        try {
+            socket.setKeepAlive(keepAliveIdleSeconds > 0);
+            if (keepAliveIdleSeconds > 0) {
+                setIfSupported(socket, jdk.net.ExtendedSocketOptions.TCP_KEEPIDLE, keepAliveIdleSeconds);
+                setIfSupported(socket, jdk.net.ExtendedSocketOptions.TCP_KEEPINTERVAL, keepAliveIntervalSeconds);
+                setIfSupported(socket, jdk.net.ExtendedSocketOptions.TCP_KEEPCOUNT, keepAliveCount);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not set keepalive options: " + e.getMessage());
+        }
+    }
+
+    private static void setIfSupported(Socket socket, SocketOption<Integer> option, int value) throws IOException {
+        if (value > 0 && socket.supportedOptions().contains(option)) {
+            socket.setOption(option, value);
+        }
+    }
+
+    /**
+     * Open connections, oldest first, with age, idle time and lines received (for STATUS CONNECTIONS)
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Connection> current = new ArrayList<>(connections.values());
+        current.sort((a, b) -> Long.compare(a.id, b.id));
+        List<Map<String, Object>> rows = new ArrayList<>(current.size());
+        for (Connection connection : current) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", connection.id);
+            row.put("client", connection.clientInfo);
+            row.put("ageMs", connection.getAgeMillis());
+            row.put("idleMs", connection.getIdleMillis());
+            row.put("lines", connection.getLines());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public int getOpen() { return open.get(); }
+    public int getMaxConnections() { return maxConnections; }
+    public int getHandlerThreads() { return handlerThreads; }
+
+    /**
+     * Connections served at once: the connection limit or the handler threads, whichever is lower
+     */
+    public int getLimit() { return Math.min(maxConnections, handlerThreads); }
+    public long getIdleTimeoutMillis() { return TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos); }
+    public long getReadTimeoutMillis() { return TimeUnit.NANOSECONDS.toMillis(readTimeoutNanos); }
+    public long getAccepted() { return accepted.get(); }
+    public long getRejected() { return rejected.get(); }
+    public long getIdleClosed() { return idleClosed.get(); }
+    public long getReadTimeouts() { return readTimeouts.get(); }
+    public TimerWheel getWheel() { return wheel; }
+
+    public void printStats() {
+        System.out.println("🔌 Connections - Open: " + open.get() + "/" + getLimit()
+                + " (peak " + peakOpen.get() + ")"
+                + ", Accepted: " + accepted.get()
+                + ", Rejected: " + rejected.get()
+                + ", Idle closed: " + idleClosed.get()
+                + ", Read timeouts: " + readTimeouts.get()
+                + ", Timers pending: " + wheel.getPending());
+    }
+
+    public void shutdown() {
+        wheel.shutdown();
+    }
+}
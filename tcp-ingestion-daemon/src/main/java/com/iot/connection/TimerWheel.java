@@ -0,0 +1,192 @@
+package com.iot.connection;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel for connection timeouts: scheduling and cancelling are O(1) no matter
+ * how many timers are pending, where a ScheduledExecutorService pays O(log n) per operation
+ * on a shared heap and keeps a cancelled task in it until it is due or purged.
+ *
+ * Time advances in fixed ticks; a timer lands in slot {@code deadlineTick % slots} with the
+ * number of full turns still to wait. Timers are handed to the wheel's thread through a
+ * lock-free queue and only that thread touches the slots. Cancelling just marks the timer, which
+ * is unlinked when its slot comes round. Timers fire up to one tick late, never early, and run
+ * on the wheel thread, so tasks must be short (closing a socket, rescheduling).
+ */
+public class TimerWheel {
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_SLOTS = 512;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] slots;
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile long startNanos;
+    private volatile boolean running;
+    private long tick;
+
+    // Statistics
+    private final AtomicLong scheduled = new AtomicLong(0);
+    private final AtomicLong expired = new AtomicLong(0);
+    private final AtomicLong cancelled = new AtomicLong(0);
+    private final AtomicLong pending = new AtomicLong(0);
+
+    /**
+     * A scheduled task; cancel it if it is no longer needed
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile boolean cancelled;
+        private long rounds;
+        private Timeout next;
+        private Timeout prev;
+        private int slot = -1;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public TimerWheel() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_SLOTS);
+    }
+
+    public TimerWheel(long tickMillis, int slots) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        if (slots <= 0 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Slots must be a power of two: " + slots);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = slots - 1;
+        this.slots = new Timeout[slots];
+        this.worker = new Thread(this::run, "timer-wheel");
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        running = true;
+        worker.start();
+    }
+
+    /**
+     * Run {@code task} on the wheel thread once {@code delayMillis} have passed
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)));
+        scheduled.incrementAndGet();
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime()) < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                if (!running) {
+                    return;
+                }
+            }
+            transferAdded();
+            expireSlot((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    /**
+     * Put newly scheduled timers into their slots (wheel thread only)
+     */
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.cancelled) {
+                cancelled.incrementAndGet();
+                pending.decrementAndGet();
+                continue;
+            }
+            long deadlineTick = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos - 1);
+            timeout.rounds = (deadlineTick - tick) / slots.length;
+            int slot = (int) (deadlineTick & mask);
+            timeout.slot = slot;
+            timeout.next = slots[slot];
+            if (slots[slot] != null) {
+                slots[slot].prev = timeout;
+            }
+            slots[slot] = timeout;
+        }
+    }
+
+    /**
+     * Fire the slot's due timers, drop cancelled ones and count the rest down a round
+     */
+    private void expireSlot(int slot) {
+        Timeout timeout = slots[slot];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.cancelled) {
+                unlink(timeout);
+                cancelled.incrementAndGet();
+                pending.decrementAndGet();
+            } else if (timeout.rounds <= 0) {
+                unlink(timeout);
+                pending.decrementAndGet();
+                expired.incrementAndGet();
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Timer task failed: " + e.getMessage());
+                }
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.next = null;
+        timeout.prev = null;
+    }
+
+    public long getScheduled() { return scheduled.get(); }
+    public long getExpired() { return expired.get(); }
+    public long getCancelled() { return cancelled.get(); }
+    public long getPending() { return pending.get(); }
+
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.iot.device;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * sensorId → Device (_id, type) cache, so forwarded readings can carry their deviceId and
+ * readings from unregistered sensors can be dropped at the edge.
+ *
+ * Loaded from the same kind of export as the tank registry:
+ * <pre>
+ * { "generatedAt": "...", "incremental": false,
+ *   "devices": [ { "_id": "65f0c0ffee...", "serialNumber" | "sensorId": "16098522754E", "type": "Level1" } ],
+ *   "removed": [ "sensorId", ... ] }
+ * </pre>
+ * Entries live in primitive arrays behind a long-keyed index (ObjectId as a long + an int, type
+ * as an index into a small name table), swapped as an immutable snapshot on refresh.
+ *
+ * A miss against a URL source triggers one background lookup ({@code ?serialNumber=<id>}); until
+ * it answers, and for the negative TTL after it finds nothing, the sensor counts as unknown
+ * without further requests.
+ *
+ * Like the tank export, this is an external contract: the backend in this repository serves
+ * neither the export nor the lookup, so a URL source must point at a service that implements
+ * both, including {@code since=} and {@code serialNumber=}.
+ */
+public class DeviceCache {
+    private static final long DEFAULT_NEGATIVE_TTL_MS = 10 * 60_000;
+    private static final int MAX_NEGATIVE_ENTRIES = 100_000;
+    private static final int MAX_PENDING_LOOKUPS = 1000;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String source;
+    private final boolean remote;
+    private final long negativeTtlMillis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ScheduledExecutorService refreshExecutor;
+    private final ExecutorService lookupExecutor;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private String lastGeneratedAt;
+    private long lastModified = -1;
+
+    // sensorId → time the sensor was last found missing (or the lookup was started)
+    private final ConcurrentHashMap<Long, Long> unknown = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong negativeHits = new AtomicLong(0);
+    private final AtomicLong lookups = new AtomicLong(0);
+
+    /**
+     * Immutable sensorId → device view, swapped on refresh
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new LongIntHashMap(1, -1), new long[0], new long[0], new int[0],
+                new byte[0], new String[0]);
+
+        final LongIntHashMap index;
+        final long[] sensorIds;
+        final long[] idHigh;
+        final int[] idLow;
+        final byte[] typeIndex;
+        final String[] types;
+
+        Snapshot(LongIntHashMap index, long[] sensorIds, long[] idHigh, int[] idLow, byte[] typeIndex, String[] types) {
+            this.index = index;
+            this.sensorIds = sensorIds;
+            this.idHigh = idHigh;
+            this.idLow = idLow;
+            this.typeIndex = typeIndex;
+            this.types = types;
+        }
+
+        Map<Long, Device> toMap() {
+            Map<Long, Device> map = new HashMap<>(sensorIds.length * 2);
+            for (int i = 0; i < sensorIds.length; i++) {
+                map.put(sensorIds[i], device(i));
+            }
+            return map;
+        }
+
+        Device device(int i) {
+            return new Device(sensorIds[i], objectIdHex(idHigh[i], idLow[i]), typeIndex[i] < 0 ? null : types[typeIndex[i]]);
+        }
+
+        static Snapshot of(Map<Long, Device> map) {
+            int n = map.size();
+            LongIntHashMap index = new LongIntHashMap(n, -1);
+            long[] sensorIds = new long[n];
+            long[] idHigh = new long[n];
+            int[] idLow = new int[n];
+            byte[] typeIndex = new byte[n];
+            List<String> types = new ArrayList<>();
+            int i = 0;
+            for (Device device : map.values()) {
+                sensorIds[i] = device.sensorId;
+                idHigh[i] = Long.parseUnsignedLong(device.deviceId.substring(0, 16), 16);
+                idLow[i] = (int) Long.parseLong(device.deviceId.substring(16), 16);
+                int t = device.type == null ? -1 : types.indexOf(device.type);
+                if (device.type != null && t < 0) {
+                    if (types.size() == 127) {
+                        throw new IllegalStateException("More than 127 device types");
+                    }
+                    types.add(device.type);
+                    t = types.size() - 1;
+                }
+                typeIndex[i] = (byte) t;
+                index.put(device.sensorId, i);
+                i++;
+            }
+            return new Snapshot(index, sensorIds, idHigh, idLow, typeIndex, types.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * A resolved device
+     */
+    public static final class Device {
+        final long sensorId;
+        final String deviceId;
+        final String type;
+
+        Device(long sensorId, String deviceId, String type) {
+            this.sensorId = sensorId;
+            this.deviceId = deviceId;
+            this.type = type;
+        }
+
+        public long getSensorId() { return sensorId; }
+        public String getDeviceId() { return deviceId; }
+        public String getType() { return type; }
+    }
+
+    public DeviceCache(String source) {
+        this(source, DEFAULT_NEGATIVE_TTL_MS);
+    }
+
+    public DeviceCache(String source, long negativeTtlMillis) {
+        this.source = source;
+        this.remote = source.startsWith("http://") || source.startsWith("https://");
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.lookupExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_LOOKUPS), r -> {
+                    Thread t = new Thread(r, "device-cache-lookup");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Preload now and then refresh every {@code refreshSeconds} (0 disables refresh)
+     */
+    public void start(long refreshSeconds) {
+        refresh();
+        if (refreshSeconds > 0) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "device-cache-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Fetch the export (incrementally after the first load) and apply it; -1 on error
+     */
+    public synchronized int refresh() {
+        try {
+            JsonNode root = fetch(lastGeneratedAt != null ? "since=" + encode(lastGeneratedAt) : null);
+            if (root == null) {
+                return 0;
+            }
+            int applied = apply(root);
+            if (root.hasNonNull("generatedAt")) {
+                lastGeneratedAt = root.get("generatedAt").asText();
+            }
+            return applied;
+        } catch (Exception e) {
+            System.err.println("❌ Failed to refresh device cache from " + source + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Apply an export document (full or incremental); returns the number of devices added or changed
+     */
+    public synchronized int apply(JsonNode root) {
+        boolean incremental = root.path("incremental").asBoolean(false);
+        Map<Long, Device> next = incremental ? snapshot.toMap() : new HashMap<>();
+        int changed = 0;
+        int skipped = 0;
+        for (JsonNode node : root.path("devices")) {
+            Device device = parseDevice(node);
+            if (device == null) {
+                skipped++;
+                continue;
+            }
+            Device previous = next.put(device.sensorId, device);
+            if (previous == null || !previous.deviceId.equals(device.deviceId)
+                    || !String.valueOf(previous.type).equals(String.valueOf(device.type))) {
+                changed++;
+            }
+            unknown.remove(device.sensorId);
+        }
+        for (JsonNode removed : root.path("removed")) {
+            long sensorId = SensorFrameDecoder.parseSensorId(removed.asText("").trim().toUpperCase());
+            if (sensorId >= 0) {
+                next.remove(sensorId);
+            }
+        }
+        snapshot = Snapshot.of(next);
+        if (!incremental || changed > 0 || skipped > 0) {
+            System.out.println("📇 Device cache " + (incremental ? "updated" : "loaded") + ": " + next.size()
+                    + " devices, " + changed + " changed" + (skipped > 0 ? ", " + skipped + " skipped" : ""));
+        }
+        return changed;
+    }
+
+    private static Device parseDevice(JsonNode node) {
+        String id = node.hasNonNull("sensorId") ? node.get("sensorId").asText() : node.path("serialNumber").asText("");
+        long sensorId = SensorFrameDecoder.parseSensorId(id.trim().toUpperCase());
+        String deviceId = node.path("_id").asText("");
+        if (node.path("_id").has("$oid")) {
+            deviceId = node.path("_id").path("$oid").asText("");
+        }
+        if (sensorId < 0 || !isObjectId(deviceId)) {
+            return null;
+        }
+        String type = node.hasNonNull("type") ? node.get("type").asText() : null;
+        return new Device(sensorId, deviceId.toLowerCase(), type);
+    }
+
+    private static boolean isObjectId(String id) {
+        if (id.length() != 24) {
+            return false;
+        }
+        for (int i = 0; i < 24; i++) {
+            if (Character.digit(id.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String objectIdHex(long high, int low) {
+        char[] out = new char[24];
+        for (int i = 15; i >= 0; i--) {
+            out[i] = HEX[(int) (high & 0xF)];
+            high >>>= 4;
+        }
+        for (int i = 23; i >= 16; i--) {
+            out[i] = HEX[low & 0xF];
+            low >>>= 4;
+        }
+        return new String(out);
+    }
+
+    /**
+     * The device for a sensor, or null when it is not (yet) known. A miss on a URL source
+     * schedules a single background lookup unless the sensor is negatively cached.
+     */
+    public Device resolve(long sensorId) {
+        Snapshot s = snapshot;
+        int i = s.index.get(sensorId);
+        if (i >= 0) {
+            hits.incrementAndGet();
+            return s.device(i);
+        }
+        long now = System.currentTimeMillis();
+        Long since = unknown.get(sensorId);
+        if (since != null && now - since < negativeTtlMillis) {
+            negativeHits.incrementAndGet();
+            return null;
+        }
+        misses.incrementAndGet();
+        if (unknown.size() < MAX_NEGATIVE_ENTRIES || since != null) {
+            unknown.put(sensorId, now);
+            if (remote) {
+                try {
+                    lookupExecutor.execute(() -> lookup(sensorId));
+                } catch (RejectedExecutionException e) {
+                    // Too many lookups queued: the sensor stays negatively cached until the TTL expires
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean isRegistered(long sensorId) {
+        return snapshot.index.containsKey(sensorId);
+    }
+
+    /**
+     * deviceId and deviceType to attach to a forwarded reading, or null for an unknown sensor
+     */
+    public Map<String, Object> deviceFields(long sensorId) {
+        Device device = resolve(sensorId);
+        if (device == null) {
+            return null;
+        }
+        Map<String, Object> fields = new HashMap<>(4);
+        fields.put("deviceId", device.deviceId);
+        if (device.type != null) {
+            fields.put("deviceType", device.type);
+        }
+        return fields;
+    }
+
+    private void lookup(long sensorId) {
+        lookups.incrementAndGet();
+        try {
+            JsonNode root = fetch("serialNumber=" + SensorFrameDecoder.toSensorIdHex(sensorId));
+            if (root == null) {
+                return;
+            }
+            // Merge whatever came back; an empty answer leaves the negative entry in place
+            if (root instanceof ObjectNode) {
+                ((ObjectNode) root).put("incremental", true);
+                ((ObjectNode) root).remove("removed");
+                apply(root);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Device lookup failed for " + SensorFrameDecoder.toSensorIdHex(sensorId) + ": " + e.getMessage());
+        }
+    }
+
+    private JsonNode fetch(String query) throws IOException {
+        if (!remote) {
+            if (query != null && query.startsWith("serialNumber=")) {
+                return null;
+            }
+            Path path = Paths.get(source);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified == lastModified) {
+                return null;
+            }
+            lastModified = modified;
+            return objectMapper.readTree(path.toFile());
+        }
+
+        String url = source;
+        if (query != null) {
+            url += (url.contains("?") ? "&" : "?") + query;
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("User-Agent", "TCP-Ingestion-Daemon/1.0");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            int status = connection.getResponseCode();
+            if (status == 404) {
+                return null;
+            }
+            if (status != 200) {
+                throw new IOException("HTTP " + status);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return objectMapper.readTree(in);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+
+    public int size() { return snapshot.sensorIds.length; }
+    public int getNegativeCacheSize() { return unknown.size(); }
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getNegativeHits() { return negativeHits.get(); }
+    public long getLookups() { return lookups.get(); }
+
+    public void printStats() {
+        System.out.println("📇 Device Cache - Devices: " + size()
+                + ", Hits: " + hits.get()
+                + ", Misses: " + misses.get()
+                + ", Negative hits: " + negativeHits.get()
+                + ", Lookups: " + lookups.get()
+                + ", Unknown sensors: " + unknown.size());
+    }
+
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        lookupExecutor.shutdownNow();
+    }
+}
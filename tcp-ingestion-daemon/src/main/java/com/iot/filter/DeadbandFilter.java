@@ -0,0 +1,220 @@
+package com.iot.filter;
+
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.state.DeviceStateStore;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-parameter deadband: a reading is forwarded only when some value moved by more than its
+ * configured delta since the last forwarded reading, or when the heartbeat interval has passed.
+ *
+ * Deltas are absolute ("temperature=0.5") or relative to the last forwarded value
+ * ("humidity=2%"); "*" sets the default for parameters not listed. Parameters without a delta
+ * never trigger a forward on their own, except the error code, which forwards on any change.
+ * A value appearing or disappearing (NaN transitions) and a new session always forward.
+ *
+ * Every forwarded reading carries a "deadband" summary of what was suppressed since the
+ * previous one, so the backend can tell a quiet sensor from a missing one.
+ *
+ * The values later readings are compared against only move once the sink has taken the
+ * forwarded reading ({@link #commit}); a reading the sink refused leaves the device on its last
+ * delivered values, so the change is forwarded again instead of being suppressed. Per-device
+ * state lives in a bounded {@link DeviceStateStore}: an evicted device simply forwards its next
+ * reading as "first".
+ */
+public class DeadbandFilter {
+    public static final long DEFAULT_BUDGET_BYTES = 32L << 20;
+    private static final int P = SensorParameter.COUNT;
+
+    // Store fields: the last delivered value of each parameter, then the bookkeeping below
+    private static final int SESSION = P;
+    private static final int FORWARDED_AT = P + 1;
+    private static final int SUPPRESSED = P + 2;
+    private static final int SUPPRESSED_FROM = P + 3;
+    private static final int SUPPRESSED_TO = P + 4;
+    private static final int FIELDS = P + 5;
+
+    private final double[] absoluteDelta = new double[P];
+    private final double[] percentDelta = new double[P];
+    private final long heartbeatMillis;
+    private final DeviceStateStore devices;
+
+    // Statistics
+    private final AtomicLong forwarded = new AtomicLong(0);
+    private final AtomicLong suppressed = new AtomicLong(0);
+    private final AtomicLong heartbeats = new AtomicLong(0);
+
+    public DeadbandFilter(long heartbeatMillis) {
+        this(heartbeatMillis, DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * @param memoryBudgetBytes upper bound for the per-device state
+     */
+    public DeadbandFilter(long heartbeatMillis, long memoryBudgetBytes) {
+        this.heartbeatMillis = heartbeatMillis;
+        this.devices = new DeviceStateStore(FIELDS, memoryBudgetBytes);
+        Arrays.fill(absoluteDelta, Double.NaN);
+        Arrays.fill(percentDelta, Double.NaN);
+        absoluteDelta[SensorParameter.ERROR_CODE.ordinal()] = 0;
+    }
+
+    /**
+     * Parse "ultrasonic_liquid_level=0.01,temperature=0.5,humidity=2%,*=1%"
+     */
+    public static DeadbandFilter parse(String spec, long heartbeatMillis) {
+        DeadbandFilter filter = new DeadbandFilter(heartbeatMillis);
+        for (String entry : spec.split(",")) {
+            String[] kv = entry.trim().split("=");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid deadband entry: " + entry);
+            }
+            String value = kv[1].trim();
+            boolean percent = value.endsWith("%");
+            double delta = Double.parseDouble(percent ? value.substring(0, value.length() - 1) : value);
+            if ("*".equals(kv[0].trim())) {
+                filter.setDefaultDelta(delta, percent);
+                continue;
+            }
+            SensorParameter parameter = SensorParameter.fromName(kv[0].trim());
+            if (parameter == null) {
+                throw new IllegalArgumentException("Unknown parameter: " + kv[0]);
+            }
+            filter.setDelta(parameter, delta, percent);
+        }
+        return filter;
+    }
+
+    public void setDelta(SensorParameter parameter, double delta, boolean percent) {
+        (percent ? percentDelta : absoluteDelta)[parameter.ordinal()] = delta;
+    }
+
+    /**
+     * Delta for every parameter that has none yet
+     */
+    public void setDefaultDelta(double delta, boolean percent) {
+        for (int p = 0; p < P; p++) {
+            if (Double.isNaN(absoluteDelta[p]) && Double.isNaN(percentDelta[p])) {
+                (percent ? percentDelta : absoluteDelta)[p] = delta;
+            }
+        }
+    }
+
+    /**
+     * Decide whether to forward. Returns null to suppress, otherwise the summary fields to
+     * attach to the forwarded payload; call {@link #commit} once the sink has taken it.
+     */
+    public Map<String, Object> check(SensorReading reading, long nowMillis) {
+        String[] reason = new String[1];
+        long[] seen = new long[4];
+        devices.update(reading.getSensorId(), entry -> {
+            long lastForwardedAt = entry.getLong(FORWARDED_AT);
+            if (lastForwardedAt == 0) {
+                reason[0] = "first";
+            } else if (reading.getSessionId() != entry.getLong(SESSION)) {
+                reason[0] = "session";
+            } else if (changed(reading, entry)) {
+                reason[0] = "change";
+            } else if (nowMillis - lastForwardedAt >= heartbeatMillis) {
+                reason[0] = "heartbeat";
+            } else {
+                if (entry.addLong(SUPPRESSED, 1) == 1) {
+                    entry.setLong(SUPPRESSED_FROM, nowMillis);
+                }
+                entry.setLong(SUPPRESSED_TO, nowMillis);
+                return;
+            }
+            // The summary reports the suppressed run now; the values wait for commit
+            seen[0] = entry.getLong(SUPPRESSED);
+            seen[1] = entry.getLong(SUPPRESSED_FROM);
+            seen[2] = entry.getLong(SUPPRESSED_TO);
+            seen[3] = lastForwardedAt;
+            entry.setLong(SUPPRESSED, 0);
+        });
+        if (reason[0] == null) {
+            suppressed.incrementAndGet();
+            return null;
+        }
+
+        forwarded.incrementAndGet();
+        if ("heartbeat".equals(reason[0])) {
+            heartbeats.incrementAndGet();
+        }
+
+        int suppressedCount = (int) seen[0];
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("reason", reason[0]);
+        summary.put("suppressedCount", suppressedCount);
+        if (suppressedCount > 0) {
+            summary.put("suppressedFrom", Instant.ofEpochMilli(seen[1]).toString());
+            summary.put("suppressedTo", Instant.ofEpochMilli(seen[2]).toString());
+        }
+        if (seen[3] > 0) {
+            summary.put("previousForwardedAt", Instant.ofEpochMilli(seen[3]).toString());
+        }
+        Map<String, Object> fields = new HashMap<>(2);
+        fields.put("deadband", summary);
+        return fields;
+    }
+
+    /**
+     * The sink took a reading that {@link #check} let through at {@code checkedAtMillis}: later
+     * readings are compared against it. A commit older than the last one is ignored.
+     */
+    public void commit(SensorReading reading, long checkedAtMillis) {
+        devices.update(reading.getSensorId(), entry -> {
+            if (checkedAtMillis < entry.getLong(FORWARDED_AT)) {
+                return;
+            }
+            for (int p = 0; p < P; p++) {
+                entry.setDouble(p, reading.get(SensorParameter.VALUES[p]));
+            }
+            entry.setLong(SESSION, reading.getSessionId());
+            entry.setLong(FORWARDED_AT, checkedAtMillis);
+        });
+    }
+
+    private boolean changed(SensorReading reading, DeviceStateStore.Entry last) {
+        for (int p = 0; p < P; p++) {
+            double value = reading.get(SensorParameter.VALUES[p]);
+            double previous = last.getDouble(p);
+            if (Double.isNaN(value) != Double.isNaN(previous)) {
+                return true;
+            }
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            double delta = Math.abs(value - previous);
+            if (!Double.isNaN(absoluteDelta[p]) && delta > absoluteDelta[p]) {
+                return true;
+            }
+            if (!Double.isNaN(percentDelta[p]) && delta > Math.abs(previous) * percentDelta[p] / 100) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getHeartbeatMillis() { return heartbeatMillis; }
+    public long getForwarded() { return forwarded.get(); }
+    public long getSuppressed() { return suppressed.get(); }
+    public long getHeartbeats() { return heartbeats.get(); }
+    public int getDeviceCount() { return devices.size(); }
+
+    public void printStats() {
+        long total = forwarded.get() + suppressed.get();
+        System.out.println("🔇 Deadband - Forwarded: " + forwarded.get()
+                + ", Suppressed: " + suppressed.get()
+                + (total > 0 ? " (" + (suppressed.get() * 100 / total) + "%)" : "")
+                + ", Heartbeats: " + heartbeats.get()
+                + ", Devices: " + devices.size());
+        devices.printStats("Deadband");
+    }
+}
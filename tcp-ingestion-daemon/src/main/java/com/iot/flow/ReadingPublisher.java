@@ -0,0 +1,352 @@
+package com.iot.flow;
+
+import com.iot.protocol.SensorReading;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Publisher} of decoded readings for applications embedding the daemon.
+ *
+ * Every subscriber gets its own bounded buffer and receives readings only as it requests them
+ * (Reactive Streams demand). Signals to one subscriber are serialized on the executor, never on
+ * the ingestion thread. What happens when a subscriber's buffer is full is its
+ * {@link OverflowPolicy}; only BLOCK ever slows ingestion down, and only up to its timeout.
+ */
+public class ReadingPublisher implements Flow.Publisher<SensorReading>, AutoCloseable {
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /**
+     * What to do with a reading for a subscriber whose buffer is full
+     */
+    public enum OverflowPolicy {
+        /** Drop the oldest buffered reading to make room (the subscriber sees the freshest data) */
+        DROP_OLDEST,
+        /** Drop the new reading */
+        DROP_NEWEST,
+        /** Make the ingestion thread wait for room, up to the block timeout, then drop the new reading */
+        BLOCK,
+        /** Cancel the subscription and signal onError */
+        DISCONNECT
+    }
+
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final int defaultBufferSize;
+    private final OverflowPolicy defaultPolicy;
+    private final long blockTimeoutMillis;
+    private final Set<ReadingSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+    private volatile Throwable closedWith;
+
+    // Statistics
+    private final AtomicLong published = new AtomicLong(0);
+    private final AtomicLong delivered = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong disconnected = new AtomicLong(0);
+
+    public ReadingPublisher() {
+        this(DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP_OLDEST, 1000);
+    }
+
+    public ReadingPublisher(int defaultBufferSize, OverflowPolicy defaultPolicy, long blockTimeoutMillis) {
+        this(null, defaultBufferSize, defaultPolicy, blockTimeoutMillis);
+    }
+
+    /**
+     * @param executor runs subscriber signals; null for an owned pool of daemon threads
+     */
+    public ReadingPublisher(Executor executor, int defaultBufferSize, OverflowPolicy defaultPolicy,
+                            long blockTimeoutMillis) {
+        if (executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.ownedExecutor = Executors.newFixedThreadPool(
+                    Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                        Thread t = new Thread(r, "reading-publisher-" + threadNumber.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            this.executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+        this.defaultBufferSize = defaultBufferSize;
+        this.defaultPolicy = defaultPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SensorReading> subscriber) {
+        subscribe(subscriber, defaultBufferSize, defaultPolicy);
+    }
+
+    /**
+     * Subscribe with a buffer size and overflow policy of its own
+     */
+    public void subscribe(Flow.Subscriber<? super SensorReading> subscriber, int bufferSize, OverflowPolicy policy) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        ReadingSubscription subscription = new ReadingSubscription(subscriber, Math.max(1, bufferSize), policy);
+        subscriptions.add(subscription);
+        if (closed) {
+            subscriptions.remove(subscription);
+            subscription.terminate(closedWith);
+        } else {
+            subscription.signal();
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Hand a reading to every subscriber (buffered until requested)
+     */
+    public void publish(SensorReading reading) {
+        if (subscriptions.isEmpty() || closed) {
+            return;
+        }
+        published.incrementAndGet();
+        for (ReadingSubscription subscription : subscriptions) {
+            subscription.offer(reading);
+        }
+    }
+
+    /**
+     * Complete every subscriber once it has drained its buffer; later subscribers complete at once
+     */
+    @Override
+    public void close() {
+        terminate(null);
+    }
+
+    /**
+     * Signal onError to every subscriber, discarding what is still buffered
+     */
+    public void closeExceptionally(Throwable error) {
+        terminate(error);
+    }
+
+    private void terminate(Throwable error) {
+        if (closed) {
+            return;
+        }
+        closedWith = error;
+        closed = true;
+        for (ReadingSubscription subscription : subscriptions) {
+            subscription.terminate(error);
+        }
+    }
+
+    /**
+     * Stop the owned executor (after close, once subscribers had a chance to drain)
+     */
+    public void shutdown() {
+        close();
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    public int getSubscriberCount() { return subscriptions.size(); }
+    public long getPublished() { return published.get(); }
+    public long getDelivered() { return delivered.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getDisconnected() { return disconnected.get(); }
+
+    public void printStats() {
+        System.out.println("🔁 Reading Publisher - Subscribers: " + subscriptions.size()
+                + ", Published: " + published.get()
+                + ", Delivered: " + delivered.get()
+                + ", Dropped: " + dropped.get()
+                + ", Disconnected: " + disconnected.get());
+    }
+
+    /**
+     * One subscriber: bounded buffer, outstanding demand, and a work-in-progress counter so that
+     * only one drain runs at a time
+     */
+    private final class ReadingSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super SensorReading> subscriber;
+        private final int capacity;
+        private final OverflowPolicy policy;
+        private final ArrayDeque<SensorReading> buffer = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private boolean subscribed;
+        private volatile boolean cancelled;
+        private boolean terminal;
+        private Throwable error;
+        private boolean terminalSent;
+
+        ReadingSubscription(Flow.Subscriber<? super SensorReading> subscriber, int capacity, OverflowPolicy policy) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.policy = policy;
+        }
+
+        void offer(SensorReading reading) {
+            synchronized (this) {
+                if (cancelled || terminal) {
+                    return;
+                }
+                if (buffer.size() >= capacity) {
+                    switch (policy) {
+                        case DROP_OLDEST:
+                            buffer.poll();
+                            dropped.incrementAndGet();
+                            break;
+                        case DROP_NEWEST:
+                            dropped.incrementAndGet();
+                            return;
+                        case BLOCK:
+                            if (!awaitRoom()) {
+                                dropped.incrementAndGet();
+                                return;
+                            }
+                            break;
+                        default:
+                            disconnected.incrementAndGet();
+                            buffer.clear();
+                            terminal = true;
+                            error = new IllegalStateException("Subscriber fell behind by more than "
+                                    + capacity + " readings");
+                            subscriptions.remove(this);
+                            break;
+                    }
+                }
+                if (!terminal) {
+                    buffer.add(reading);
+                }
+            }
+            signal();
+        }
+
+        /**
+         * Wait (holding the monitor, released by wait) until the drain makes room
+         */
+        private boolean awaitRoom() {
+            long deadline = System.currentTimeMillis() + blockTimeoutMillis;
+            try {
+                while (buffer.size() >= capacity && !cancelled && !terminal) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return !cancelled && !terminal;
+        }
+
+        void terminate(Throwable cause) {
+            synchronized (this) {
+                if (!terminal) {
+                    terminal = true;
+                    error = cause;
+                    notifyAll();
+                }
+            }
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                synchronized (this) {
+                    buffer.clear();
+                    terminal = true;
+                    error = new IllegalArgumentException("Non-positive request: " + n + " (Reactive Streams §3.9)");
+                }
+                subscriptions.remove(this);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (this) {
+                buffer.clear();
+                notifyAll();
+            }
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Publisher shut down; nothing more is delivered
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                while (!cancelled && demand.get() > 0) {
+                    SensorReading next;
+                    synchronized (this) {
+                        next = buffer.poll();
+                        if (policy == OverflowPolicy.BLOCK) {
+                            notifyAll();
+                        }
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    delivered.incrementAndGet();
+                    try {
+                        subscriber.onNext(next);
+                    } catch (Throwable t) {
+                        // §2.13: a throwing subscriber is treated as cancelled
+                        System.err.println("❌ Reading subscriber failed, cancelling: " + t);
+                        cancel();
+                    }
+                }
+                Throwable failure = null;
+                boolean finish = false;
+                synchronized (this) {
+                    if (terminal && !terminalSent && !cancelled && (buffer.isEmpty() || error != null)) {
+                        terminalSent = true;
+                        finish = true;
+                        failure = error;
+                        buffer.clear();
+                    }
+                }
+                if (finish) {
+                    subscriptions.remove(this);
+                    if (failure != null) {
+                        subscriber.onError(failure);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.iot.latest;
+
+import com.iot.live.LiveHub;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.series.Downsampling;
+import com.iot.series.RecentSeriesStore;
+import com.iot.series.SeriesPoints;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP JSON view of the {@link LatestValueCache} (and the {@link RecentSeriesStore} and
+ * {@link LiveHub} when set), shaped like the backend routes it can front as a read-through cache:
+ *
+ *   GET /latest/:serialNumber             like /api/sensor/latest-analytics/:serialNumber
+ *   GET /latest/:serialNumber/:parameter  latest value of one parameter
+ *   GET /series/:serialNumber/:parameter?from=&to=&points=500&mode=lttb|minmax|raw
+ *                                         recent history for charts, downsampled server-side
+ *   GET /live?sensors=:serialNumber,...   Server-Sent Events stream of readings (all devices
+ *                                         when no sensors are given)
+ *
+ * Responses use the backend envelope ({"success": true, "data": ...} or
+ * {"success": false, "error": ...}); a 404 means the daemon has not seen the device, so the
+ * caller falls back to the database.
+ */
+public class LatestHttpServer {
+    private static final String PREFIX = "/latest/";
+    private static final String SERIES_PREFIX = "/series/";
+    private static final String LIVE_PATH = "/live";
+    private static final int DEFAULT_POINTS = 500;
+
+    private final LatestValueCache cache;
+    private final InetSocketAddress address;
+    private volatile RecentSeriesStore series;
+    private volatile LiveHub live;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // Statistics
+    private final AtomicLong requests = new AtomicLong(0);
+    private final AtomicLong notFound = new AtomicLong(0);
+
+    /**
+     * Serve on the loopback interface
+     */
+    public LatestHttpServer(LatestValueCache cache, int port) {
+        this(cache, new InetSocketAddress("127.0.0.1", port));
+    }
+
+    public LatestHttpServer(LatestValueCache cache, InetSocketAddress address) {
+        this.cache = cache;
+        this.address = address;
+    }
+
+    /**
+     * Also serve /series/ from the recent-series store (call before start)
+     */
+    public void setRecentSeries(RecentSeriesStore series) {
+        this.series = series;
+    }
+
+    /**
+     * Also serve the /live event stream (call before start)
+     */
+    public void setLiveHub(LiveHub live) {
+        this.live = live;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(address, 0);
+        executor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "latest-http");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        if (series != null) {
+            server.createContext(SERIES_PREFIX, this::handleSeries);
+        }
+        if (live != null) {
+            server.createContext(LIVE_PATH, this::handleLive);
+        }
+        server.start();
+        System.out.println("📍 Latest values on http://" + address.getHostString() + ":" + getPort() + PREFIX + "<sensorId>");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                respond(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            String[] parts = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+            if (parts.length < 1 || parts.length > 2 || parts[0].isEmpty()) {
+                respond(exchange, 400, error("Expected /latest/:serialNumber[/:parameter]"));
+                return;
+            }
+            SensorReading reading = cache.get(parts[0]);
+            if (reading == null) {
+                notFound.incrementAndGet();
+                respond(exchange, 404, error("No reading for " + parts[0]));
+                return;
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("success", true);
+            if (parts.length == 1) {
+                body.put("data", LatestValueCache.toMap(reading));
+            } else {
+                SensorParameter parameter = SensorParameter.fromName(parts[1]);
+                if (parameter == null) {
+                    respond(exchange, 400, error("Unknown parameter: " + parts[1]));
+                    return;
+                }
+                if (!reading.has(parameter)) {
+                    notFound.incrementAndGet();
+                    respond(exchange, 404, error("No " + parameter.fieldName() + " in the latest reading of " + parts[0]));
+                    return;
+                }
+                Map<String, Object> data = new LinkedHashMap<>();
+                data.put("sensorId", reading.getSensorIdHex());
+                data.put("parameter", parameter.fieldName());
+                data.put("value", reading.get(parameter));
+                body.put("data", data);
+            }
+            body.put("source", "tcp_daemon");
+            body.put("timestamp", Instant.ofEpochMilli(reading.getTimestampMillis()).toString());
+            respond(exchange, 200, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSeries(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                respond(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            String[] parts = exchange.getRequestURI().getPath().substring(SERIES_PREFIX.length()).split("/");
+            long sensorId = parts.length == 2 ? SensorFrameDecoder.parseSensorId(parts[0]) : -1;
+            SensorParameter parameter = parts.length == 2 ? SensorParameter.fromName(parts[1]) : null;
+            if (sensorId < 0 || parameter == null) {
+                respond(exchange, 400, error("Expected /series/:serialNumber/:parameter"));
+                return;
+            }
+            Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+            Downsampling.Mode mode = Downsampling.Mode.parse(query.getOrDefault("mode", "lttb"));
+            long to;
+            long from;
+            int maxPoints;
+            try {
+                to = query.containsKey("to") ? parseTime(query.get("to")) : System.currentTimeMillis();
+                from = query.containsKey("from") ? parseTime(query.get("from")) : to - series.getRetentionMillis();
+                maxPoints = Integer.parseInt(query.getOrDefault("points", String.valueOf(DEFAULT_POINTS)));
+            } catch (RuntimeException e) {
+                respond(exchange, 400, error("Invalid from/to/points: " + e.getMessage()));
+                return;
+            }
+            if (mode == null) {
+                respond(exchange, 400, error("Invalid mode. Use 'lttb', 'minmax' or 'raw'."));
+                return;
+            }
+
+            SeriesPoints points = series.query(sensorId, parameter, from, to, maxPoints, mode);
+            if (points == null) {
+                notFound.incrementAndGet();
+                respond(exchange, 404, error("No recent data for " + parts[0]));
+                return;
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("success", true);
+            body.put("sensorId", SensorFrameDecoder.toSensorIdHex(sensorId));
+            body.put("parameter", parameter.fieldName());
+            body.put("from", Instant.ofEpochMilli(from).toString());
+            body.put("to", Instant.ofEpochMilli(to).toString());
+            body.put("mode", mode.name().toLowerCase());
+            body.put("count", points.size());
+            body.put("data", points.toList());
+            body.put("source", "tcp_daemon");
+            respond(exchange, 200, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Hand the open response stream to the live hub; the exchange stays open until the
+     * subscriber is closed
+     */
+    private void handleLive(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            respond(exchange, 405, error("Method not allowed"));
+            exchange.close();
+            return;
+        }
+        Set<Long> sensorIds = new HashSet<>();
+        String sensors = queryParameters(exchange.getRequestURI().getRawQuery()).get("sensors");
+        if (sensors != null && !sensors.isEmpty()) {
+            for (String hex : sensors.split(",")) {
+                long sensorId = SensorFrameDecoder.parseSensorId(hex.trim());
+                if (sensorId < 0) {
+                    respond(exchange, 400, error("Invalid sensorId: " + hex));
+                    exchange.close();
+                    return;
+                }
+                sensorIds.add(sensorId);
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        out.write("retry: 3000\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        LiveHub.Subscriber subscriber = live.subscribe(sensorIds, out, exchange::close);
+        live.sendSnapshot(subscriber, cache);
+    }
+
+    /**
+     * ISO-8601 instant or epoch milliseconds
+     */
+    private static long parseTime(String value) {
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value);
+        }
+        return Instant.parse(value).toEpochMilli();
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", false);
+        body.put("error", message);
+        return body;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] bytes = LatestValueCache.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Bound port - differs from the configured one when started with port 0
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : address.getPort();
+    }
+
+    public long getRequests() { return requests.get(); }
+    public long getNotFound() { return notFound.get(); }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.iot.latest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.state.DeviceStateStore;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest decoded reading per device, so "what does sensor X read now" is answered from memory
+ * instead of a SensorData sort/limit query.
+ *
+ * Readings live in a {@link DeviceStateStore}: a few header fields plus one slot per
+ * {@link SensorParameter}, written and copied out under the stripe lock, so a lookup is a single
+ * hash probe and always returns one reading, never a mix of two. The memory budget bounds the
+ * number of devices; the ones reporting least often are evicted first.
+ */
+public class LatestValueCache {
+    public static final long DEFAULT_BUDGET_BYTES = 64L << 20;
+
+    private static final int TIMESTAMP = 0;
+    private static final int SESSION = 1;
+    private static final int HEADER = 2;
+    private static final int VALUES = 3;
+    private static final int FIELDS = VALUES + SensorParameter.COUNT;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final DeviceStateStore store;
+    private final List<String> types = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, Integer> typeIndex = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong updates = new AtomicLong(0);
+    private final AtomicLong outOfOrder = new AtomicLong(0);
+    private final AtomicLong lookups = new AtomicLong(0);
+    private final AtomicLong found = new AtomicLong(0);
+
+    public LatestValueCache() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    public LatestValueCache(long memoryBudgetBytes) {
+        this.store = new DeviceStateStore(FIELDS, memoryBudgetBytes);
+    }
+
+    /**
+     * Keep the reading unless a newer one for the same device is already cached
+     */
+    public void update(SensorReading reading) {
+        long timestamp = reading.getTimestampMillis();
+        long header = (reading.getOrder() & 0xFF) | (reading.getVersion() & 0xFF) << 8
+                | (long) typeIndex(reading.getSensorType()) << 16;
+        store.update(reading.getSensorId(), entry -> {
+            if (!entry.isNew() && entry.getLong(TIMESTAMP) > timestamp) {
+                outOfOrder.incrementAndGet();
+                return;
+            }
+            entry.setLong(TIMESTAMP, timestamp);
+            entry.setLong(SESSION, reading.getSessionId());
+            entry.setLong(HEADER, header);
+            for (SensorParameter parameter : SensorParameter.VALUES) {
+                entry.setDouble(VALUES + parameter.ordinal(), reading.get(parameter));
+            }
+        });
+        updates.incrementAndGet();
+    }
+
+    /**
+     * Latest reading of the device (without the raw frame), or null if none is cached
+     */
+    public SensorReading get(long sensorId) {
+        lookups.incrementAndGet();
+        long[] snapshot = new long[FIELDS];
+        if (!store.read(sensorId, snapshot)) {
+            return null;
+        }
+        found.incrementAndGet();
+        double[] values = new double[SensorParameter.COUNT];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Double.longBitsToDouble(snapshot[VALUES + i]);
+        }
+        long header = snapshot[HEADER];
+        return new SensorReading(sensorId, snapshot[SESSION], (int) (header & 0xFF), (int) (header >>> 8 & 0xFF),
+                types.get((int) (header >>> 16)), snapshot[TIMESTAMP], values, null);
+    }
+
+    /**
+     * Look up by the 12-character sensorId (serial number); null if malformed or not cached
+     */
+    public SensorReading get(String sensorIdHex) {
+        long sensorId = SensorFrameDecoder.parseSensorId(sensorIdHex);
+        return sensorId < 0 ? null : get(sensorId);
+    }
+
+    private int typeIndex(String type) {
+        Integer index = typeIndex.get(type);
+        if (index != null) {
+            return index;
+        }
+        synchronized (types) {
+            return typeIndex.computeIfAbsent(type, t -> {
+                types.add(t);
+                return types.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * SensorData-shaped view of a reading: identity, ISO timestamp, then every value present
+     */
+    public static Map<String, Object> toMap(SensorReading reading) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("sensorId", reading.getSensorIdHex());
+        map.put("sessionId", String.valueOf(reading.getSessionId()));
+        map.put("order", reading.getOrder());
+        map.put("versionNumber", reading.getVersion());
+        map.put("sensorType", reading.getSensorType());
+        map.put("timestamp", Instant.ofEpochMilli(reading.getTimestampMillis()).toString());
+        for (SensorParameter parameter : SensorParameter.VALUES) {
+            if (reading.has(parameter)) {
+                map.put(parameter.fieldName(), reading.get(parameter));
+            }
+        }
+        return map;
+    }
+
+    public static String toJson(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int size() { return store.size(); }
+    public long getUpdates() { return updates.get(); }
+    public long getOutOfOrder() { return outOfOrder.get(); }
+    public long getLookups() { return lookups.get(); }
+    public long getFound() { return found.get(); }
+    public DeviceStateStore getStore() { return store; }
+
+    public void printStats() {
+        System.out.println("📍 Latest Values - Devices: " + size()
+                + ", Updates: " + updates.get()
+                + ", Out of order: " + outOfOrder.get()
+                + ", Lookups: " + lookups.get() + " (found " + found.get() + ")");
+        store.printStats("Latest values");
+    }
+}
@@ -0,0 +1,185 @@
+package com.iot.limit;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor that runs at most {@link ConcurrencyLimit#getLimit()} tasks at a time and queues the
+ * rest, for work whose right parallelism depends on a remote service (backend requests).
+ *
+ * Waiting tasks do not hold a thread: a task is handed to a worker only when a slot frees up,
+ * and worker threads come and go with the limit (up to the limit's maximum). Tasks report how
+ * their requests went through {@link #onSample}, which feeds the limit together with the
+ * current number in flight.
+ */
+public class AdaptiveExecutor implements Executor {
+    private final ConcurrencyLimit limit;
+    private final ThreadPoolExecutor workers;
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private volatile boolean shutdown;
+
+    // Statistics
+    private final AtomicLong completed = new AtomicLong(0);
+    private final AtomicLong samples = new AtomicLong(0);
+    private final AtomicLong drops = new AtomicLong(0);
+    private final AtomicInteger peakLimit = new AtomicInteger(0);
+    private volatile int lowestLimit = Integer.MAX_VALUE;
+
+    public AdaptiveExecutor(ConcurrencyLimit limit, int maxThreads, String threadName) {
+        this.limit = limit;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, threadName + "-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        this.workers.allowCoreThreadTimeOut(true);
+        peakLimit.set(limit.getLimit());
+        lowestLimit = limit.getLimit();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        queued.incrementAndGet();
+        pending.add(task);
+        dispatch();
+    }
+
+    /**
+     * Start queued tasks while there are free slots
+     */
+    private void dispatch() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.getLimit()) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable task = pending.poll();
+            if (task == null) {
+                inFlight.decrementAndGet();
+                // A task may have been queued after the poll by a thread that saw no free slot
+                if (pending.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            queued.decrementAndGet();
+            workers.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                    completed.incrementAndGet();
+                    dispatch();
+                }
+            });
+        }
+    }
+
+    /**
+     * Take a slot for a request made outside the queue (a hedge); false if the limit is reached.
+     * Every successful call must be followed by {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (shutdown || current >= limit.getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a slot taken with {@link #tryAcquire}
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+        dispatch();
+    }
+
+    /**
+     * Report one request made by a running task (may be called several times per task, e.g. per retry)
+     */
+    public void onSample(long rttNanos, boolean dropped) {
+        samples.incrementAndGet();
+        if (dropped) {
+            drops.incrementAndGet();
+        }
+        int before = limit.getLimit();
+        limit.onSample(rttNanos, inFlight.get(), dropped);
+        int after = limit.getLimit();
+        peakLimit.accumulateAndGet(after, Math::max);
+        if (after < lowestLimit) {
+            lowestLimit = after;
+        }
+        if (after > before) {
+            // More room: start waiting tasks now rather than when the next one completes
+            dispatch();
+        }
+    }
+
+    public ConcurrencyLimit getConcurrencyLimit() { return limit; }
+    public int getLimit() { return limit.getLimit(); }
+    public int getInFlight() { return inFlight.get(); }
+    public int getQueued() { return queued.get(); }
+    public long getCompleted() { return completed.get(); }
+    public int getPeakLimit() { return peakLimit.get(); }
+    public int getLowestLimit() { return lowestLimit; }
+
+    public void printStats() {
+        String rtt = "";
+        if (limit instanceof GradientLimit) {
+            GradientLimit gradient = (GradientLimit) limit;
+            rtt = String.format(", RTT recent/no-load: %.1f/%.1f ms", gradient.getShortRttMillis(), gradient.getNoLoadRttMillis());
+        }
+        System.out.println("🎚️ Concurrency limit (" + limit.getName() + ") - Limit: " + limit.getLimit()
+                + " (range " + lowestLimit + "-" + peakLimit.get() + ")"
+                + ", In flight: " + inFlight.get()
+                + ", Queued: " + queued.get()
+                + ", Completed: " + completed.get()
+                + ", Drops: " + drops.get() + "/" + samples.get()
+                + rtt);
+    }
+
+    /**
+     * Stop taking tasks, let queued and running ones finish; true if they did within the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while ((inFlight.get() > 0 || !pending.isEmpty()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        workers.shutdown();
+        return workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                && pending.isEmpty();
+    }
+
+    /**
+     * Drop queued tasks and interrupt running ones
+     */
+    public void shutdownNow() {
+        shutdown = true;
+        pending.clear();
+        queued.set(0);
+        workers.shutdownNow();
+    }
+}
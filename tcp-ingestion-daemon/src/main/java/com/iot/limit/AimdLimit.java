@@ -0,0 +1,48 @@
+package com.iot.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive increase, multiplicative decrease: one more slot for each request that succeeds while
+ * the limit is actually being used, and a cut by {@link #BACKOFF_RATIO} for each one that fails
+ * or takes longer than the timeout. Reacts to errors only, not to latency creeping up.
+ */
+public class AimdLimit implements ConcurrencyLimit {
+    public static final double BACKOFF_RATIO = 0.9;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5_000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long timeoutNanos;
+    private double estimatedLimit;
+    private volatile int limit;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, long timeoutMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > timeoutNanos) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+        } else if (inFlight * 2 >= estimatedLimit) {
+            // Only grow when at least half the limit is in use, or an idle period would inflate it
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public int getLimit() { return limit; }
+
+    @Override
+    public String getName() { return "aimd"; }
+}
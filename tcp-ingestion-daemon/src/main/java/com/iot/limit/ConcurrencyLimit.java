@@ -0,0 +1,58 @@
+package com.iot.limit;
+
+/**
+ * How many requests may be outstanding at once, adjusted from the requests that complete.
+ *
+ * Implementations are fed one sample per request and must be thread-safe; {@link #getLimit()}
+ * is read on every dispatch, so it should be a plain field read.
+ */
+public interface ConcurrencyLimit {
+
+    /**
+     * A request finished
+     *
+     * @param rttNanos how long it took
+     * @param inFlight requests outstanding when it was sent, this one included
+     * @param dropped true if it failed in a way that points at overload (timeout, 5xx, refused)
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+
+    int getLimit();
+
+    String getName();
+
+    /**
+     * A limit that never moves, e.g. to reproduce the old fixed pool
+     */
+    static ConcurrencyLimit fixed(int limit) {
+        return new ConcurrencyLimit() {
+            @Override
+            public void onSample(long rttNanos, int inFlight, boolean dropped) {
+            }
+
+            @Override
+            public int getLimit() { return limit; }
+
+            @Override
+            public String getName() { return "fixed"; }
+        };
+    }
+
+    /**
+     * "gradient", "aimd" or a number for a fixed limit; null if not recognized
+     */
+    static ConcurrencyLimit parse(String spec, int initialLimit, int maxLimit) {
+        switch (spec) {
+            case "gradient":
+                return new GradientLimit(initialLimit, 1, maxLimit);
+            case "aimd":
+                return new AimdLimit(initialLimit, 1, maxLimit);
+            default:
+                try {
+                    return fixed(Integer.parseInt(spec));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.iot.limit;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency-driven limit in the style of Netflix's Gradient limit: compares the recent average RTT
+ * with the no-load RTT (the fastest recent request). While they match within a tolerance, the
+ * limit keeps growing by a small queue allowance; once requests start queueing at the backend,
+ * the limit shrinks in proportion to how much slower they got, down to half per step. Changes
+ * are smoothed so one slow request does not collapse the limit.
+ *
+ * A baseline that followed the average would also follow the queueing delay the limit itself
+ * causes, and let the limit creep up for ever. The no-load RTT is therefore a minimum, re-measured
+ * every thousand or so samples by briefly dropping the limit to the queue allowance, so that a
+ * backend that has become permanently slower is not mistaken for one that is overloaded.
+ *
+ * Requests that fail with an overload symptom count as a halving step. Samples taken while less
+ * than half the limit is in use leave the limit alone: an idle link says nothing about capacity.
+ */
+public class GradientLimit implements ConcurrencyLimit {
+    public static final double DEFAULT_TOLERANCE = 1.5;
+    public static final double DEFAULT_SMOOTHING = 0.2;
+    public static final int DEFAULT_QUEUE_SIZE = 4;
+    public static final int DEFAULT_PROBE_INTERVAL = 1000;
+    private static final int SHORT_WINDOW = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int queueSize;
+    private final int probeInterval;
+    private double estimatedLimit;
+    private double shortRtt;
+    private double noLoadRtt;
+    private long untilProbe;
+    private long probes;
+    private volatile int limit;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_TOLERANCE, DEFAULT_SMOOTHING, DEFAULT_QUEUE_SIZE, DEFAULT_PROBE_INTERVAL);
+    }
+
+    /**
+     * @param probeInterval samples between no-load RTT probes (jittered by up to half), 0 to never probe
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                         int queueSize, int probeInterval) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.queueSize = queueSize;
+        this.probeInterval = probeInterval;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+        this.untilProbe = nextProbe();
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (probeInterval > 0 && --untilProbe <= 0) {
+            // Let the backend drain so the next fast request shows the current no-load RTT
+            untilProbe = nextProbe();
+            probes++;
+            noLoadRtt = 0;
+            estimatedLimit = Math.max(minLimit, Math.min(estimatedLimit, queueSize));
+            limit = (int) estimatedLimit;
+            return;
+        }
+        double rtt = rttNanos;
+        shortRtt = shortRtt == 0 ? rtt : shortRtt + 2.0 / (SHORT_WINDOW + 1) * (rtt - shortRtt);
+        if (!dropped && (noLoadRtt == 0 || rtt < noLoadRtt)) {
+            noLoadRtt = rtt;
+        }
+        if (!dropped && inFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double target = dropped
+                ? estimatedLimit * 0.5
+                : estimatedLimit * Math.max(0.5, Math.min(1.0, tolerance * noLoadRtt / shortRtt)) + queueSize;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - smoothing) + target * smoothing));
+        limit = (int) estimatedLimit;
+    }
+
+    private long nextProbe() {
+        return probeInterval + ThreadLocalRandom.current().nextInt(probeInterval / 2 + 1);
+    }
+
+    public synchronized double getShortRttMillis() { return shortRtt / 1e6; }
+    public synchronized double getNoLoadRttMillis() { return noLoadRtt / 1e6; }
+    public synchronized long getProbes() { return probes; }
+
+    @Override
+    public int getLimit() { return limit; }
+
+    @Override
+    public String getName() { return "gradient"; }
+}
@@ -0,0 +1,286 @@
+package com.iot.live;
+
+import com.iot.latest.LatestValueCache;
+import com.iot.protocol.SensorReading;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of decoded readings to live dashboard subscribers as Server-Sent Events.
+ *
+ * Each reading is serialized once; subscribers only get a reference to the shared event bytes.
+ * A subscriber's queue conflates by device: a newer reading replaces the one still waiting,
+ * so a slow browser holds at most one pending event per device it watches and memory does not
+ * grow with its lag. Queues are drained by a small writer pool, one drain per subscriber at a
+ * time; a subscriber whose write has been blocked longer than the write timeout is closed.
+ */
+public class LiveHub {
+    public static final int DEFAULT_WRITER_THREADS = 8;
+    public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 10_000;
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final long HEARTBEAT_KEY = -1;
+    private static final byte[] HEARTBEAT = ": keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ExecutorService writers;
+    private final long writeTimeoutMillis;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> allDevices = new CopyOnWriteArraySet<>();
+    private final ConcurrentHashMap<Long, CopyOnWriteArraySet<Subscriber>> bySensor = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong published = new AtomicLong(0);
+    private final AtomicLong delivered = new AtomicLong(0);
+    private final AtomicLong conflated = new AtomicLong(0);
+    private final AtomicLong slowClosed = new AtomicLong(0);
+
+    /**
+     * One live connection and its conflating queue
+     */
+    public final class Subscriber {
+        private final long id;
+        private final Set<Long> sensorIds;
+        private final OutputStream out;
+        private final Closeable connection;
+        private LinkedHashMap<Long, byte[]> pending = new LinkedHashMap<>();
+        private boolean scheduled;
+        private volatile long writingSince;
+        private volatile boolean closed;
+        private final AtomicInteger sent = new AtomicInteger();
+
+        private Subscriber(Set<Long> sensorIds, OutputStream out, Closeable connection) {
+            this.id = nextId.getAndIncrement();
+            this.sensorIds = sensorIds;
+            this.out = out;
+            this.connection = connection;
+        }
+
+        /**
+         * Queue an event, replacing any pending one for the same device
+         */
+        void offer(long sensorId, byte[] event) {
+            boolean schedule;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.put(sensorId, event) != null) {
+                    conflated.incrementAndGet();
+                }
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Map<Long, byte[]> batch;
+                synchronized (this) {
+                    if (pending.isEmpty() || closed) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = pending;
+                    pending = new LinkedHashMap<>();
+                }
+                writingSince = System.currentTimeMillis();
+                try {
+                    for (byte[] event : batch.values()) {
+                        out.write(event);
+                    }
+                    out.flush();
+                    sent.addAndGet(batch.size());
+                    delivered.addAndGet(batch.size());
+                } catch (IOException e) {
+                    close();
+                } finally {
+                    writingSince = 0;
+                }
+            }
+        }
+
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            unsubscribe(this);
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+
+        public long getId() { return id; }
+        public boolean isClosed() { return closed; }
+        public int getSent() { return sent.get(); }
+
+        public synchronized int getPending() {
+            return pending.size();
+        }
+    }
+
+    public LiveHub() {
+        this(DEFAULT_WRITER_THREADS, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    public LiveHub(int writerThreads, long writeTimeoutMillis) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "live-writer-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "live-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Send keepalives (which also detect closed browsers) and close stalled subscribers
+     */
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::closeStalled, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Register a subscriber for the given sensorIds (null or empty for every device)
+     */
+    public Subscriber subscribe(Set<Long> sensorIds, OutputStream out, Closeable connection) {
+        boolean all = sensorIds == null || sensorIds.isEmpty();
+        Subscriber subscriber = new Subscriber(all ? null : Set.copyOf(sensorIds), out, connection);
+        subscribers.add(subscriber);
+        if (all) {
+            allDevices.add(subscriber);
+        } else {
+            for (Long sensorId : subscriber.sensorIds) {
+                bySensor.computeIfAbsent(sensorId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+            }
+        }
+        return subscriber;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        if (subscriber.sensorIds == null) {
+            allDevices.remove(subscriber);
+            return;
+        }
+        for (Long sensorId : subscriber.sensorIds) {
+            bySensor.computeIfPresent(sensorId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * Send a reading to every subscriber watching its device
+     */
+    public void publish(SensorReading reading) {
+        CopyOnWriteArraySet<Subscriber> watching = bySensor.get(reading.getSensorId());
+        if (allDevices.isEmpty() && watching == null) {
+            return;
+        }
+        published.incrementAndGet();
+        byte[] event = event(reading);
+        for (Subscriber subscriber : allDevices) {
+            subscriber.offer(reading.getSensorId(), event);
+        }
+        if (watching != null) {
+            for (Subscriber subscriber : watching) {
+                subscriber.offer(reading.getSensorId(), event);
+            }
+        }
+    }
+
+    /**
+     * Queue the current value of each device the subscriber watches (e.g. right after subscribing)
+     */
+    public void sendSnapshot(Subscriber subscriber, LatestValueCache latest) {
+        if (subscriber.sensorIds == null) {
+            return;
+        }
+        for (Long sensorId : subscriber.sensorIds) {
+            SensorReading reading = latest.get(sensorId);
+            if (reading != null) {
+                subscriber.offer(sensorId, event(reading));
+            }
+        }
+    }
+
+    /**
+     * "event: reading" with the SensorData-shaped JSON as data
+     */
+    static byte[] event(SensorReading reading) {
+        return ("event: reading\ndata: " + LatestValueCache.toJson(LatestValueCache.toMap(reading)) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT_KEY, HEARTBEAT);
+        }
+    }
+
+    void closeStalled() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.writingSince;
+            if (since != 0 && now - since > writeTimeoutMillis) {
+                slowClosed.incrementAndGet();
+                System.err.println("⚠️ Closing live subscriber " + subscriber.id + ": write blocked for "
+                        + (now - since) + " ms");
+                subscriber.close();
+            }
+        }
+    }
+
+    public int getSubscriberCount() { return subscribers.size(); }
+    public long getPublished() { return published.get(); }
+    public long getDelivered() { return delivered.get(); }
+    public long getConflated() { return conflated.get(); }
+    public long getSlowClosed() { return slowClosed.get(); }
+
+    public void printStats() {
+        System.out.println("📡 Live Push - Subscribers: " + subscribers.size()
+                + ", Published: " + published.get()
+                + ", Delivered: " + delivered.get()
+                + ", Conflated: " + conflated.get()
+                + ", Slow closed: " + slowClosed.get());
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        writers.shutdownNow();
+    }
+}
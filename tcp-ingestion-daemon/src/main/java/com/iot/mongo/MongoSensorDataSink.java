@@ -0,0 +1,385 @@
+package com.iot.mongo;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.sink.SensorRecord;
+import com.iot.sink.SensorSink;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes decoded readings straight into the SensorData collection, bypassing the Node API.
+ *
+ * Readings are queued and a single writer thread inserts them with unordered insertMany
+ * batches, using the field names of the Mongoose schema. SensorData requires a deviceId, so
+ * each batch resolves sensorId → Device._id through a cache (looked up by serialNumber in one
+ * query per batch); readings of unregistered devices are counted and dropped, and the miss is
+ * cached for a while so they don't cost a query each.
+ *
+ * Note that Mongoose middleware (post-save volume processing) does not run for these inserts.
+ */
+public class MongoSensorDataSink implements SensorSink {
+    public static final String SENSOR_DATA_COLLECTION = "sensordatas";
+    public static final String DEVICES_COLLECTION = "devices";
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int DEFAULT_QUEUE_CAPACITY = 100_000;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 200;
+    private static final long NEGATIVE_CACHE_TTL_MS = 60_000;
+    private static final int MAX_RETRIES = 3;
+    // The sensorType enum of server/models/SensorData.js: anything else fails Mongoose validation
+    private static final Set<String> SENSOR_TYPES = Set.of(
+            "air_quality", "temperature_humidity", "WeatherS", "Level1", "multi_sensor", "air_quality_noise",
+            "generic", "raw", "unknown", "Level2", "radar_level_sensor", "pressure_transmitter",
+            "submersible_level_sensor", "guided_wave_radar", "laser_level_sensor", "float_switch",
+            "capacitive_level_sensor", "vibrating_fork", "load_cell");
+
+    private final MongoClient client;
+    private final MongoCollection<Document> sensorData;
+    private final MongoCollection<Document> devices;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // sensorId → device, and sensorId → time of the last failed lookup
+    private final ConcurrentHashMap<Long, DeviceRef> deviceCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> unknownDevices = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong accepted = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong inserted = new AtomicLong(0);
+    private final AtomicLong writeErrors = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong unregistered = new AtomicLong(0);
+    private final AtomicLong batches = new AtomicLong(0);
+    private final AtomicLong deviceLookups = new AtomicLong(0);
+
+    private static final class Pending {
+        final SensorReading reading;
+        final Map<String, Object> extraFields;
+
+        Pending(SensorReading reading, Map<String, Object> extraFields) {
+            this.reading = reading;
+            this.extraFields = extraFields;
+        }
+    }
+
+    private static final class DeviceRef {
+        final ObjectId id;
+        final String type;
+
+        DeviceRef(ObjectId id, String type) {
+            this.id = id;
+            this.type = type;
+        }
+    }
+
+    public MongoSensorDataSink(String connectionString, String database) {
+        this(connectionString, database, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public MongoSensorDataSink(String connectionString, String database, int batchSize,
+                               long flushIntervalMs, int queueCapacity) {
+        ConnectionString uri = new ConnectionString(connectionString);
+        this.client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(uri)
+                .applicationName("tcp-ingestion-daemon")
+                .build());
+        String db = database != null ? database : (uri.getDatabase() != null ? uri.getDatabase() : "test");
+        this.sensorData = client.getDatabase(db).getCollection(SENSOR_DATA_COLLECTION);
+        this.devices = client.getDatabase(db).getCollection(DEVICES_COLLECTION);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::run, "mongo-sensor-sink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        System.out.println("🍃 MongoDB sink: " + db + "." + SENSOR_DATA_COLLECTION + " (batch " + batchSize + ")");
+    }
+
+    /**
+     * Queue a record; frames that can't be decoded are rejected
+     */
+    @Override
+    public CompletableFuture<Boolean> accept(SensorRecord record) {
+        SensorReading reading = record.getReading();
+        if (reading == null) {
+            rejected.incrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        }
+        return CompletableFuture.completedFuture(accept(reading, record.getExtraFields()));
+    }
+
+    /**
+     * Queue a reading; returns false when the queue is full
+     */
+    public boolean accept(SensorReading reading, Map<String, Object> extraFields) {
+        if (!running || !queue.offer(new Pending(reading, extraFields))) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                System.err.println("❌ MongoDB sink error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) throws InterruptedException {
+        resolveDevices(batch);
+
+        List<Document> documents = new ArrayList<>(batch.size());
+        Date now = new Date();
+        for (Pending pending : batch) {
+            DeviceRef device = suppliedDevice(pending);
+            if (device == null) {
+                device = deviceCache.get(pending.reading.getSensorId());
+            }
+            if (device == null) {
+                unregistered.incrementAndGet();
+                continue;
+            }
+            documents.add(toDocument(pending, device, now));
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+            try {
+                sensorData.insertMany(documents, new InsertManyOptions().ordered(false));
+                inserted.addAndGet(documents.size());
+                batches.incrementAndGet();
+                return;
+            } catch (MongoBulkWriteException e) {
+                // Unordered: everything except the failed documents was written
+                int errors = e.getWriteErrors().size();
+                inserted.addAndGet(documents.size() - errors);
+                writeErrors.addAndGet(errors);
+                batches.incrementAndGet();
+                System.err.println("⚠️ MongoDB sink: " + errors + " write errors in batch of " + documents.size()
+                        + " (first: " + e.getWriteErrors().get(0).getMessage() + ")");
+                return;
+            } catch (MongoException e) {
+                System.err.println("❌ [Attempt " + attempt + "] MongoDB insertMany failed: " + e.getMessage());
+                if (attempt < MAX_RETRIES) {
+                    Thread.sleep(500L * attempt);
+                }
+            }
+        }
+        failed.addAndGet(documents.size());
+    }
+
+    /**
+     * Look up every sensorId in the batch that is neither cached nor recently unknown, in one query
+     */
+    private void resolveDevices(List<Pending> batch) {
+        long now = System.currentTimeMillis();
+        Set<Long> missing = new HashSet<>();
+        for (Pending pending : batch) {
+            long sensorId = pending.reading.getSensorId();
+            if (deviceCache.containsKey(sensorId) || suppliedDevice(pending) != null) {
+                continue;
+            }
+            Long failedAt = unknownDevices.get(sensorId);
+            if (failedAt != null && now - failedAt < NEGATIVE_CACHE_TTL_MS) {
+                continue;
+            }
+            missing.add(sensorId);
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        List<String> serials = new ArrayList<>(missing.size());
+        for (Pending pending : batch) {
+            if (missing.contains(pending.reading.getSensorId())) {
+                String hex = pending.reading.getSensorIdHex();
+                if (!serials.contains(hex)) {
+                    serials.add(hex);
+                }
+            }
+        }
+        deviceLookups.incrementAndGet();
+        for (Document device : devices.find(Filters.in("serialNumber", serials))
+                .projection(Projections.include("_id", "serialNumber", "type"))) {
+            long sensorId = parseSerial(device.getString("serialNumber"));
+            if (sensorId >= 0) {
+                deviceCache.put(sensorId, new DeviceRef(device.getObjectId("_id"), device.getString("type")));
+                missing.remove(sensorId);
+                unknownDevices.remove(sensorId);
+            }
+        }
+        for (Long sensorId : missing) {
+            unknownDevices.put(sensorId, now);
+        }
+    }
+
+    /**
+     * Device already resolved at the edge (deviceId / deviceType fields from the device cache)
+     */
+    private static DeviceRef suppliedDevice(Pending pending) {
+        Object deviceId = pending.extraFields != null ? pending.extraFields.get("deviceId") : null;
+        if (!(deviceId instanceof String) || !ObjectId.isValid((String) deviceId)) {
+            return null;
+        }
+        Object type = pending.extraFields.get("deviceType");
+        return new DeviceRef(new ObjectId((String) deviceId), type instanceof String ? (String) type : null);
+    }
+
+    private static long parseSerial(String serial) {
+        return serial == null ? -1 : SensorFrameDecoder.parseSensorId(serial.trim());
+    }
+
+    /**
+     * Same fields as sensorIngestionController's sensorDataRecord
+     */
+    static Document toDocument(Pending pending, DeviceRef device, Date now) {
+        SensorReading reading = pending.reading;
+        Document doc = new Document();
+        doc.put("deviceId", device.id);
+        doc.put("sensorId", reading.getSensorIdHex());
+        doc.put("sessionId", Long.toString(reading.getSessionId()));
+        doc.put("order", reading.getOrder());
+        doc.put("sensorType", sensorType(reading, device.type));
+        doc.put("timestamp", new Date(reading.getTimestampMillis()));
+        doc.put("version", reading.getVersion());
+        doc.put("rawHexString", reading.getRawHex());
+        for (SensorParameter parameter : SensorParameter.VALUES) {
+            double value = reading.get(parameter);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (parameter == SensorParameter.WIND_DIRECTION) {
+                // String in the Mongoose schema
+                doc.put(parameter.fieldName(), Long.toString(Math.round(value)));
+            } else {
+                doc.put(parameter.fieldName(), value);
+            }
+        }
+        if (pending.extraFields != null) {
+            for (Map.Entry<String, Object> entry : pending.extraFields.entrySet()) {
+                // deviceId is stored as an ObjectId above, deviceType as sensorType
+                if (!"deviceId".equals(entry.getKey()) && !"deviceType".equals(entry.getKey())) {
+                    doc.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        doc.put("status", "unknown");
+        doc.put("processed", false);
+        doc.put("processedForAnalytics", false);
+        doc.put("source", "tcp-daemon-direct");
+        doc.put("createdAt", now);
+        doc.put("updatedAt", now);
+        return doc;
+    }
+
+    /**
+     * The device's registered type when it is a valid SensorData sensorType, else the frame's
+     */
+    static String sensorType(SensorReading reading, String deviceType) {
+        if (deviceType != null && SENSOR_TYPES.contains(deviceType)) {
+            return deviceType;
+        }
+        String decoded = "weather".equals(reading.getSensorType()) ? "WeatherS" : reading.getSensorType();
+        return SENSOR_TYPES.contains(decoded) ? decoded : "unknown";
+    }
+
+    @Override
+    public String getName() { return "mongo"; }
+
+    public long getAccepted() { return accepted.get(); }
+    public long getRejected() { return rejected.get(); }
+    public long getInserted() { return inserted.get(); }
+    public long getWriteErrors() { return writeErrors.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getUnregistered() { return unregistered.get(); }
+    public long getBatches() { return batches.get(); }
+    public long getDeviceLookups() { return deviceLookups.get(); }
+    public int getQueueDepth() { return queue.size(); }
+
+    @Override
+    public int getBacklog() { return queue.size(); }
+
+    @Override
+    public void printStats() {
+        System.out.println("🍃 MongoDB Sink - Accepted: " + accepted.get()
+                + ", Inserted: " + inserted.get()
+                + ", Batches: " + batches.get()
+                + ", Unregistered: " + unregistered.get()
+                + ", Write errors: " + writeErrors.get()
+                + ", Failed: " + failed.get()
+                + ", Queue: " + queue.size());
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Drain the queue (up to the timeout) and close the client
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        try {
+            writer.join(unit.toMillis(timeout));
+            if (writer.isAlive()) {
+                writer.interrupt();
+            }
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        client.close();
+    }
+}
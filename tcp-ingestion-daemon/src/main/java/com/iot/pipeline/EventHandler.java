@@ -0,0 +1,36 @@
+package com.iot.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Work done by a pipeline stage for each event it drains from its ring.
+ *
+ * endOfBatch is true for the last event of the current drain, so handlers that write in bulk
+ * can flush there instead of per event. Handlers run on the stage's own thread only.
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    void onEvent(E event, boolean endOfBatch);
+
+    /**
+     * Collect events and hand each drained batch to {@code onBatch} as a list of its own
+     */
+    static <E> EventHandler<E> batching(Consumer<List<E>> onBatch) {
+        return new EventHandler<E>() {
+            private List<E> batch = new ArrayList<>();
+
+            @Override
+            public void onEvent(E event, boolean endOfBatch) {
+                batch.add(event);
+                if (endOfBatch) {
+                    List<E> full = batch;
+                    batch = new ArrayList<>(full.size());
+                    onBatch.accept(full);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.iot.pipeline;
+
+import com.iot.protocol.SensorReading;
+import com.iot.sink.SensorRecord;
+
+import java.util.Map;
+
+/**
+ * One received frame on its way through the pipeline. Each stage fills in its part; the ring
+ * hand-off between stages publishes those writes to the next stage's thread.
+ */
+public final class FrameEvent {
+    private final String rawHex;
+    private final String clientInfo;
+    private final long receivedAtMillis;
+    private SensorReading reading;
+    private Map<String, Object> edgeFields;
+    private boolean forward = true;
+    long enqueuedNanos;
+
+    public FrameEvent(String rawHex, String clientInfo, long receivedAtMillis) {
+        this.rawHex = rawHex;
+        this.clientInfo = clientInfo;
+        this.receivedAtMillis = receivedAtMillis;
+    }
+
+    public String getRawHex() { return rawHex; }
+    public String getClientInfo() { return clientInfo; }
+    public long getReceivedAtMillis() { return receivedAtMillis; }
+    public SensorReading getReading() { return reading; }
+    public Map<String, Object> getEdgeFields() { return edgeFields; }
+    public boolean isForward() { return forward; }
+
+    public void setReading(SensorReading reading) { this.reading = reading; }
+    public void setEdgeFields(Map<String, Object> edgeFields) { this.edgeFields = edgeFields; }
+
+    /**
+     * Whether the sink stage should send the frame on (false once filtered or dropped)
+     */
+    public void setForward(boolean forward) { this.forward = forward; }
+
+    public SensorRecord toRecord() {
+        return new SensorRecord(rawHex, clientInfo, receivedAtMillis, reading, edgeFields);
+    }
+}
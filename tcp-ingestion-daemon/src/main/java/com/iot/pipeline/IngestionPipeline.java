@@ -0,0 +1,117 @@
+package com.iot.pipeline;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Staged ingestion: connection threads (network read) → decode → enrich → sink, each stage on
+ * its own thread and connected by preallocated rings.
+ *
+ * Many connection threads feed the decode stage, so its ring is multi-producer; the rings
+ * behind it have exactly one producer and one consumer. Each stage drains its ring in batches
+ * (up to the batch limit), and the sink stage sees a batch boundary it can write in bulk.
+ * A full ring makes its producer wait, so a slow sink eventually slows the connection
+ * threads down and, through TCP, the devices.
+ */
+public class IngestionPipeline {
+    public static final int DEFAULT_RING_SIZE = 4096;
+    public static final int DEFAULT_BATCH_LIMIT = 256;
+    private static final long DRAIN_TIMEOUT_SECONDS = 10;
+
+    private final RingBuffer<FrameEvent> decodeRing;
+    private final Stage decode;
+    private final Stage enrich;
+    private final Stage sink;
+    private volatile boolean accepting;
+
+    // Statistics of the network read side
+    private final AtomicLong offered = new AtomicLong(0);
+    private final AtomicLong readStalls = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    public IngestionPipeline(int ringSize, EventHandler<FrameEvent> decodeHandler,
+                             EventHandler<FrameEvent> enrichHandler, EventHandler<FrameEvent> sinkHandler) {
+        this(ringSize, DEFAULT_BATCH_LIMIT, decodeHandler, enrichHandler, sinkHandler);
+    }
+
+    public IngestionPipeline(int ringSize, int batchLimit, EventHandler<FrameEvent> decodeHandler,
+                             EventHandler<FrameEvent> enrichHandler, EventHandler<FrameEvent> sinkHandler) {
+        this.decodeRing = RingBuffer.multiProducer(ringSize);
+        RingBuffer<FrameEvent> enrichRing = RingBuffer.singleProducer(ringSize);
+        RingBuffer<FrameEvent> sinkRing = RingBuffer.singleProducer(ringSize);
+        this.decode = new Stage("decode", decodeRing, decodeHandler, enrichRing, batchLimit);
+        this.enrich = new Stage("enrich", enrichRing, enrichHandler, sinkRing, batchLimit);
+        this.sink = new Stage("sink", sinkRing, sinkHandler, null, batchLimit);
+    }
+
+    public void start() {
+        sink.start();
+        enrich.start();
+        decode.start();
+        accepting = true;
+        System.out.println("🧵 Staged pipeline started (ring " + decodeRing.getCapacity() + ")");
+    }
+
+    /**
+     * Hand a frame from a connection thread to the decode stage, waiting while the ring is full;
+     * false once the pipeline is shutting down
+     */
+    public boolean offer(FrameEvent event) {
+        if (!accepting) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        event.enqueuedNanos = System.nanoTime();
+        if (!decodeRing.offer(event)) {
+            readStalls.incrementAndGet();
+            int attempt = 0;
+            do {
+                if (!accepting) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                attempt = Stage.idle(attempt);
+            } while (!decodeRing.offer(event));
+        }
+        offered.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stop accepting frames and let each stage drain, upstream first
+     */
+    public void shutdown() {
+        accepting = false;
+        for (Stage stage : getStages()) {
+            if (!stage.stop(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("⚠️ Pipeline stage " + stage.getName() + " did not drain within "
+                        + DRAIN_TIMEOUT_SECONDS + "s");
+            }
+        }
+    }
+
+    public List<Stage> getStages() {
+        return List.of(decode, enrich, sink);
+    }
+
+    /**
+     * Frames queued in any stage's ring
+     */
+    public int getInFlight() {
+        return decode.getDepth() + enrich.getDepth() + sink.getDepth();
+    }
+
+    public long getOffered() { return offered.get(); }
+    public long getReadStalls() { return readStalls.get(); }
+    public long getRejected() { return rejected.get(); }
+
+    public void printStats() {
+        System.out.println("🧵 Stage [read] - Offered: " + offered.get()
+                + ", Stalls: " + readStalls.get()
+                + ", Rejected: " + rejected.get());
+        for (Stage stage : getStages()) {
+            stage.printStats();
+        }
+    }
+}
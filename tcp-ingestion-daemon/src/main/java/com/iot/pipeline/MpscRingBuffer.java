@@ -0,0 +1,74 @@
+package com.iot.pipeline;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Multi-producer, single-consumer ring (Vyukov's bounded queue): producers claim a sequence
+ * with a CAS on the tail, then publish their slot through its own sequence number, so a slow
+ * producer never blocks the others from claiming. The consumer only reads slot sequences and
+ * never contends on the tail.
+ *
+ * A slot is writable for sequence s when its number is s, readable when it is s + 1; reading
+ * sets it to s + capacity, the sequence that reuses it next.
+ */
+final class MpscRingBuffer<E> extends RingBuffer<E> {
+    /** Unused longs on either side of the slot sequences (128 bytes) */
+    private static final int SEQUENCE_PAD = 16;
+
+    private final AtomicLongArray sequences;
+
+    MpscRingBuffer(int capacity) {
+        super(capacity);
+        this.sequences = new AtomicLongArray(this.capacity + 2 * SEQUENCE_PAD);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.lazySet(SEQUENCE_PAD + i, i);
+        }
+    }
+
+    private int sequenceIndex(long sequence) {
+        return SEQUENCE_PAD + (int) (sequence & mask);
+    }
+
+    @Override
+    public boolean offer(E event) {
+        long t;
+        while (true) {
+            t = tail;
+            long ready = sequences.getAcquire(sequenceIndex(t));
+            if (ready == t) {
+                if (TAIL.compareAndSet(this, t, t + 1)) {
+                    break;
+                }
+            } else if (ready < t) {
+                // The consumer has not freed this slot from the previous lap yet
+                return false;
+            }
+            // Another producer claimed t; retry with the new tail
+        }
+        slots[slot(t)] = event;
+        sequences.setRelease(sequenceIndex(t), t + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drain(EventHandler<? super E> handler, int limit) {
+        long h = (long) HEAD.getOpaque(this);
+        int n = 0;
+        while (n < limit && sequences.getAcquire(sequenceIndex(h + n)) == h + n + 1) {
+            n++;
+        }
+        for (int i = 0; i < n; i++) {
+            long sequence = h + i;
+            int index = slot(sequence);
+            E event = (E) slots[index];
+            slots[index] = null;
+            sequences.setRelease(sequenceIndex(sequence), sequence + capacity);
+            handler.onEvent(event, i == n - 1);
+        }
+        if (n > 0) {
+            HEAD.setRelease(this, h + n);
+        }
+        return n;
+    }
+}
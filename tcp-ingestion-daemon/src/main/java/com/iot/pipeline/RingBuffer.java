@@ -0,0 +1,93 @@
+package com.iot.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded, preallocated, lock-free queue between pipeline stages with a single consumer.
+ *
+ * Capacity is rounded up to a power of two so a sequence maps to its slot with a mask. Head and
+ * tail live on cache lines of their own (see {@link RingPadding}) and each side caches its view
+ * of the other, so in steady state a producer and consumer only touch each other's line when
+ * the ring looks full or empty. The slot array is padded at both ends for the same reason.
+ * The consumer drains whatever is available in one go (up to a limit), which amortizes the
+ * hand-off over a batch.
+ */
+public abstract class RingBuffer<E> extends RingPadding {
+    /** Largest capacity a ring can be asked for */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    /** Unused references on either side of the slots (128 bytes with compressed oops) */
+    static final int SLOT_PAD = 32;
+
+    static final VarHandle TAIL;
+    static final VarHandle HEAD;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(RingTail.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(RingHead.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final int capacity;
+    final int mask;
+    final Object[] slots;
+
+    RingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2 || requestedCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Ring capacity must be between 2 and 2^30: " + requestedCapacity);
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new Object[capacity + 2 * SLOT_PAD];
+    }
+
+    /**
+     * Ring for exactly one producer thread and one consumer thread
+     */
+    public static <E> RingBuffer<E> singleProducer(int capacity) {
+        return new SpscRingBuffer<>(capacity);
+    }
+
+    /**
+     * Ring for any number of producer threads and one consumer thread
+     */
+    public static <E> RingBuffer<E> multiProducer(int capacity) {
+        return new MpscRingBuffer<>(capacity);
+    }
+
+    /**
+     * Add an event; false if the ring is full
+     */
+    public abstract boolean offer(E event);
+
+    /**
+     * Hand up to {@code limit} available events to the handler, oldest first, and free their
+     * slots; returns how many. Consumer thread only; the handler must not throw.
+     */
+    public abstract int drain(EventHandler<? super E> handler, int limit);
+
+    final int slot(long sequence) {
+        return SLOT_PAD + (int) (sequence & mask);
+    }
+
+    /**
+     * Events currently queued (a snapshot; exact only when both sides are idle)
+     */
+    public int size() {
+        long size = tail - head;
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,9 @@
+package com.iot.pipeline;
+
+/**
+ * Consumer side: next sequence to read, and the consumer's last view of the producer
+ */
+abstract class RingHead extends RingPad1 {
+    volatile long head;
+    long tailCache;
+}
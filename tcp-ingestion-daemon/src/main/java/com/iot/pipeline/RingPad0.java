@@ -0,0 +1,8 @@
+package com.iot.pipeline;
+
+/**
+ * Padding before the producer's sequence (see {@link RingPadding})
+ */
+abstract class RingPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
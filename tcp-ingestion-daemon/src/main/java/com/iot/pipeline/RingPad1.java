@@ -0,0 +1,8 @@
+package com.iot.pipeline;
+
+/**
+ * Padding between the producer's and the consumer's sequences (see {@link RingPadding})
+ */
+abstract class RingPad1 extends RingTail {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
@@ -0,0 +1,12 @@
+package com.iot.pipeline;
+
+/**
+ * Field layout of {@link RingBuffer}: the producer's sequence and the consumer's sequence each
+ * sit between 56+ bytes of padding, so they never share a 64-byte cache line with each other
+ * or with neighbouring objects. The JVM keeps superclass fields before subclass fields, which
+ * is what makes the class hierarchy ({@link RingPad0}, {@link RingTail}, {@link RingPad1},
+ * {@link RingHead}, then this class) a reliable way to order them.
+ */
+abstract class RingPadding extends RingHead {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
@@ -0,0 +1,9 @@
+package com.iot.pipeline;
+
+/**
+ * Producer side: next sequence to claim, and the producer's last view of the consumer
+ */
+abstract class RingTail extends RingPad0 {
+    volatile long tail;
+    long headCache;
+}
@@ -0,0 +1,49 @@
+package com.iot.pipeline;
+
+/**
+ * Single-producer, single-consumer ring: the producer publishes with a release store of the
+ * tail, the consumer frees slots with a release store of the head; no CAS on either side.
+ */
+final class SpscRingBuffer<E> extends RingBuffer<E> {
+
+    SpscRingBuffer(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public boolean offer(E event) {
+        long t = (long) TAIL.getOpaque(this);
+        if (t - headCache >= capacity) {
+            headCache = (long) HEAD.getAcquire(this);
+            if (t - headCache >= capacity) {
+                return false;
+            }
+        }
+        slots[slot(t)] = event;
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drain(EventHandler<? super E> handler, int limit) {
+        long h = (long) HEAD.getOpaque(this);
+        long available = tailCache - h;
+        if (available <= 0) {
+            tailCache = (long) TAIL.getAcquire(this);
+            available = tailCache - h;
+            if (available <= 0) {
+                return 0;
+            }
+        }
+        int n = (int) Math.min(available, limit);
+        for (int i = 0; i < n; i++) {
+            int index = slot(h + i);
+            E event = (E) slots[index];
+            slots[index] = null;
+            handler.onEvent(event, i == n - 1);
+        }
+        HEAD.setRelease(this, h + n);
+        return n;
+    }
+}
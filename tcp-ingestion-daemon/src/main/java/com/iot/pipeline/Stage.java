@@ -0,0 +1,146 @@
+package com.iot.pipeline;
+
+import com.iot.tools.LatencyFormat;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One pipeline stage: a thread that drains its input ring in batches, runs the handler on each
+ * event and passes it to the next stage's ring.
+ *
+ * When the next ring is full the stage waits for room, so a slow stage pushes back all the way
+ * to the connection threads instead of growing a queue. An idle stage spins briefly, then
+ * yields, then parks for up to 1 ms, which bounds the wake-up latency a quiet daemon pays.
+ * Latency is measured per event from when it entered this stage's ring until the handler
+ * finished with it, i.e. queueing plus service time.
+ */
+public final class Stage {
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final RingBuffer<FrameEvent> input;
+    private final EventHandler<FrameEvent> handler;
+    private final RingBuffer<FrameEvent> next;
+    private final int batchLimit;
+    private final Thread thread;
+    private volatile boolean running;
+
+    // Statistics (written by the stage thread only)
+    private final AtomicLong processed = new AtomicLong(0);
+    private final AtomicLong batches = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong stalls = new AtomicLong(0);
+    private volatile int peakDepth;
+    private final Histogram latency = new ConcurrentHistogram(3); // microseconds
+
+    /**
+     * @param next ring of the following stage, or null for the last stage
+     */
+    public Stage(String name, RingBuffer<FrameEvent> input, EventHandler<FrameEvent> handler,
+                 RingBuffer<FrameEvent> next, int batchLimit) {
+        this.name = name;
+        this.input = input;
+        this.handler = handler;
+        this.next = next;
+        this.batchLimit = batchLimit;
+        this.thread = new Thread(this::run, "pipeline-" + name);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    private void run() {
+        int idle = 0;
+        while (running || !input.isEmpty()) {
+            int depth = input.size();
+            if (depth > peakDepth) {
+                peakDepth = depth;
+            }
+            int drained = input.drain(this::handle, batchLimit);
+            if (drained == 0) {
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            processed.addAndGet(drained);
+            batches.incrementAndGet();
+        }
+    }
+
+    private void handle(FrameEvent event, boolean endOfBatch) {
+        try {
+            handler.onEvent(event, endOfBatch);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            System.err.println("❌ Pipeline stage " + name + " failed: " + e.getMessage());
+        }
+        long now = System.nanoTime();
+        latency.recordValue(Math.max(0, (now - event.enqueuedNanos) / 1000));
+        if (next != null) {
+            event.enqueuedNanos = now;
+            if (!next.offer(event)) {
+                stalls.incrementAndGet();
+                int attempt = 0;
+                while (!next.offer(event)) {
+                    attempt = idle(attempt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Back off progressively: spin, then yield, then park 10 µs longer each time up to 1 ms
+     */
+    static int idle(int attempt) {
+        if (attempt < 100) {
+            Thread.onSpinWait();
+        } else if (attempt < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, (attempt - 199) * 10_000L));
+        }
+        return Math.min(attempt + 1, 1_000);
+    }
+
+    /**
+     * Stop once the input ring is empty; waits up to the timeout for the thread to finish
+     */
+    public boolean stop(long timeout, TimeUnit unit) {
+        running = false;
+        try {
+            thread.join(Math.max(1, unit.toMillis(timeout)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    public String getName() { return name; }
+    public int getDepth() { return input.size(); }
+    public int getCapacity() { return input.getCapacity(); }
+    public int getPeakDepth() { return peakDepth; }
+    public long getProcessed() { return processed.get(); }
+    public long getBatches() { return batches.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getStalls() { return stalls.get(); }
+    public Histogram getLatency() { return latency; }
+
+    public void printStats() {
+        long count = batches.get();
+        System.out.println("🧵 Stage [" + name + "] - Processed: " + processed.get()
+                + ", Batches: " + count
+                + String.format(" (avg %.1f)", count > 0 ? (double) processed.get() / count : 0)
+                + ", Depth: " + input.size() + "/" + input.getCapacity()
+                + ", Peak: " + peakDepth
+                + ", Stalls: " + stalls.get()
+                + ", Failed: " + failed.get()
+                + ", Latency: " + LatencyFormat.describe(latency));
+    }
+}
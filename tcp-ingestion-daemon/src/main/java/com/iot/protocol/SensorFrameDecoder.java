@@ -0,0 +1,235 @@
+package com.iot.protocol;
+
+import java.util.Arrays;
+
+/**
+ * Decoder for FEDC sensor frames, mirroring server/utils/sensorParser.js.
+ *
+ * Protocol: FE DC | version(1) | sensorId(6) | sessionId(4) | order(1) | length(2) | payload
+ * where the payload is a sequence of signed 4-byte big-endian values whose meaning depends on
+ * the sensor type. Scaling and range checks match the Node parser, so values decoded here
+ * equal what the backend would store.
+ */
+public final class SensorFrameDecoder {
+    public static final long AIR_QUALITY_SENSOR_ID = 0x16098522754EL;
+    public static final long WEATHER_SENSOR_ID = 0x124A7DA90849L;
+
+    private static final int HEADER_HEX_CHARS = 32;
+    private static final int MAX_HEX_CHARS = 2048;
+    private static final int AIR_QUALITY_PAYLOAD_BYTES = 32;
+    private static final int WEATHER_PAYLOAD_BYTES = 44;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private SensorFrameDecoder() {
+    }
+
+    /**
+     * Decode a frame using the current time as the reading timestamp
+     */
+    public static SensorReading decode(String hex) {
+        return decode(hex, System.currentTimeMillis());
+    }
+
+    /**
+     * Decode a hex frame (separators ' ' and ':' allowed). Returns null if the frame is invalid.
+     */
+    public static SensorReading decode(String hex, long timestampMillis) {
+        if (hex == null) {
+            return null;
+        }
+        String clean = stripSeparators(hex);
+        int length = clean.length();
+        if (length < HEADER_HEX_CHARS || length > MAX_HEX_CHARS || (length & 1) != 0
+                || !clean.startsWith("FEDC") && !clean.startsWith("fedc")) {
+            return null;
+        }
+
+        long version = parseHex(clean, 4, 2);
+        long sensorId = parseHex(clean, 6, 12);
+        long sessionId = parseHex(clean, 18, 8);
+        long order = parseHex(clean, 26, 2);
+        long payloadBytes = parseHex(clean, 28, 4);
+        if (version < 0 || sensorId < 0 || sessionId < 0 || order < 0 || payloadBytes < 0
+                || payloadBytes > 1024 || length < HEADER_HEX_CHARS + payloadBytes * 2) {
+            return null;
+        }
+
+        String sensorType = sensorTypeFor(sensorId, (int) payloadBytes);
+        double[] values = new double[SensorParameter.COUNT];
+        Arrays.fill(values, Double.NaN);
+        Payload payload = new Payload(clean, HEADER_HEX_CHARS, HEADER_HEX_CHARS + (int) payloadBytes * 2);
+
+        switch (sensorType) {
+            case "air_quality":
+                put(values, SensorParameter.TEMPERATURE, scaled(payload.next(), 10.0, -50, 100));
+                put(values, SensorParameter.HUMIDITY, scaled(payload.next(), 10.0, 0, 100));
+                put(values, SensorParameter.PM2_5, ranged(payload.next(), 0, 1000));
+                put(values, SensorParameter.PM10, ranged(payload.next(), 0, 1000));
+                put(values, SensorParameter.NOISE, scaled(payload.next(), 10.0, 0, 200));
+                put(values, SensorParameter.ULTRASONIC_LIQUID_LEVEL, scaled(payload.next(), 1000.0, 0, 10));
+                putRssi(values, payload.next());
+                put(values, SensorParameter.ERROR_CODE, ranged(payload.next(), 0, 65535));
+                break;
+            case "weather":
+                put(values, SensorParameter.TEMPERATURE, scaled(payload.next(), 10.0, -50, 100));
+                put(values, SensorParameter.HUMIDITY, scaled(payload.next(), 10.0, 0, 100));
+                put(values, SensorParameter.ATMOSPHERIC_PRESSURE, scaled(payload.next(), 100.0, 800, 1200));
+                put(values, SensorParameter.PM2_5, ranged(payload.next(), 0, 1000));
+                put(values, SensorParameter.PM10, ranged(payload.next(), 0, 1000));
+                put(values, SensorParameter.WIND_SPEED, scaled(payload.next(), 10.0, 0, 100));
+                put(values, SensorParameter.WIND_DIRECTION, ranged(payload.next(), 0, 360));
+                put(values, SensorParameter.RAINFALL, scaled(payload.next(), 10.0, 0, 1000));
+                put(values, SensorParameter.TOTAL_SOLAR_RADIATION, ranged(payload.next(), 0, 2000));
+                putRssi(values, payload.next());
+                put(values, SensorParameter.ERROR_CODE, ranged(payload.next(), 0, 65535));
+                break;
+            default:
+                put(values, SensorParameter.TEMPERATURE, scaled(payload.next(), 10.0, -50, 100));
+                put(values, SensorParameter.HUMIDITY, scaled(payload.next(), 10.0, 0, 100));
+                putRssi(values, payload.next());
+                put(values, SensorParameter.ERROR_CODE, ranged(payload.next(), 0, 65535));
+                break;
+        }
+
+        return new SensorReading(sensorId, sessionId, (int) order, (int) version, sensorType,
+                timestampMillis, values, clean.toUpperCase());
+    }
+
+    /**
+     * Known sensor IDs first (as in the Node PROTOCOL_CONFIG), then the payload size of
+     * the two known layouts, otherwise the generic layout
+     */
+    static String sensorTypeFor(long sensorId, int payloadBytes) {
+        if (sensorId == AIR_QUALITY_SENSOR_ID) {
+            return "air_quality";
+        }
+        if (sensorId == WEATHER_SENSOR_ID) {
+            return "weather";
+        }
+        if (payloadBytes == AIR_QUALITY_PAYLOAD_BYTES) {
+            return "air_quality";
+        }
+        if (payloadBytes == WEATHER_PAYLOAD_BYTES) {
+            return "weather";
+        }
+        return "generic";
+    }
+
+    /**
+     * Reads consecutive signed 32-bit values; Long.MIN_VALUE once the payload is exhausted
+     */
+    private static final class Payload {
+        private final String hex;
+        private final int end;
+        private int index;
+
+        Payload(String hex, int start, int end) {
+            this.hex = hex;
+            this.index = start;
+            this.end = end;
+        }
+
+        long next() {
+            if (index + 8 > end) {
+                return Long.MIN_VALUE;
+            }
+            long raw = parseHex(hex, index, 8);
+            index += 8;
+            return raw < 0 ? Long.MIN_VALUE : (int) raw;
+        }
+    }
+
+    private static void put(double[] values, SensorParameter parameter, double value) {
+        values[parameter.ordinal()] = value;
+    }
+
+    private static void putRssi(double[] values, long raw) {
+        double rssi = ranged(raw, 0, 100);
+        put(values, SensorParameter.SIGNAL_RSSI_RAW, rssi);
+        if (!Double.isNaN(rssi)) {
+            put(values, SensorParameter.SIGNAL_RSSI_DBM, rssi == 0 ? -100 : Math.max(-100, Math.min(0, -(100 - rssi))));
+        }
+    }
+
+    private static double scaled(long raw, double divisor, double min, double max) {
+        if (raw == Long.MIN_VALUE) {
+            return Double.NaN;
+        }
+        double value = raw / divisor;
+        if (value < min || value > max) {
+            return Double.NaN;
+        }
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static double ranged(long raw, double min, double max) {
+        if (raw == Long.MIN_VALUE || raw < min || raw > max) {
+            return Double.NaN;
+        }
+        return raw;
+    }
+
+    /**
+     * Parse {@code digits} hex characters at {@code offset}; -1 on a non-hex character
+     */
+    static long parseHex(CharSequence s, int offset, int digits) {
+        long value = 0;
+        for (int i = offset; i < offset + digits; i++) {
+            int d = Character.digit(s.charAt(i), 16);
+            if (d < 0) {
+                return -1;
+            }
+            value = (value << 4) | d;
+        }
+        return value;
+    }
+
+    /**
+     * Parse a 12-character sensor ID to its 48-bit value; -1 if malformed
+     */
+    public static long parseSensorId(String hex) {
+        if (hex == null || hex.length() != 12) {
+            return -1;
+        }
+        return parseHex(hex, 0, 12);
+    }
+
+    public static String toSensorIdHex(long sensorId) {
+        char[] out = new char[12];
+        for (int i = 11; i >= 0; i--) {
+            out[i] = HEX[(int) (sensorId & 0xF)];
+            sensorId >>>= 4;
+        }
+        return new String(out);
+    }
+
+    /**
+     * Uppercase hex of a binary frame
+     */
+    public static String toHex(byte[] frame) {
+        char[] out = new char[frame.length * 2];
+        for (int i = 0; i < frame.length; i++) {
+            out[2 * i] = HEX[(frame[i] >> 4) & 0xF];
+            out[2 * i + 1] = HEX[frame[i] & 0xF];
+        }
+        return new String(out);
+    }
+
+    private static String stripSeparators(String hex) {
+        int n = hex.length();
+        for (int i = 0; i < n; i++) {
+            char c = hex.charAt(i);
+            if (c == ' ' || c == ':' || c == '\t') {
+                StringBuilder sb = new StringBuilder(n);
+                for (int j = 0; j < n; j++) {
+                    char d = hex.charAt(j);
+                    if (d != ' ' && d != ':' && d != '\t') {
+                        sb.append(d);
+                    }
+                }
+                return sb.toString();
+            }
+        }
+        return hex;
+    }
+}
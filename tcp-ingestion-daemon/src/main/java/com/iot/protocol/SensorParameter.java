@@ -0,0 +1,57 @@
+package com.iot.protocol;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decoded sensor parameters, in the field names the Node parser and SensorData schema use.
+ *
+ * {@code thresholdName} is the name used by the AlertThreshold model where it differs
+ * (pm25, atmosphericPressure, windSpeed, ...).
+ */
+public enum SensorParameter {
+    TEMPERATURE("temperature", "temperature"),
+    HUMIDITY("humidity", "humidity"),
+    PM2_5("pm2_5", "pm25"),
+    PM10("pm10", "pm10"),
+    NOISE("noise", "noise"),
+    ULTRASONIC_LIQUID_LEVEL("ultrasonic_liquid_level", "ultrasonic_liquid_level"),
+    ATMOSPHERIC_PRESSURE("atmospheric_pressure", "atmosphericPressure"),
+    WIND_SPEED("wind_speed", "windSpeed"),
+    WIND_DIRECTION("wind_direction", "windDir"),
+    RAINFALL("rainfall", "rainfall"),
+    TOTAL_SOLAR_RADIATION("total_solar_radiation", "totalSolarRadiation"),
+    SIGNAL_RSSI_RAW("signal_rssi_raw", "signal_rssi_raw"),
+    SIGNAL_RSSI_DBM("signal_rssi_dbm", "signalStrength"),
+    ERROR_CODE("error_code", "error_code");
+
+    public static final SensorParameter[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+
+    private static final Map<String, SensorParameter> BY_NAME = new HashMap<>();
+
+    static {
+        for (SensorParameter p : VALUES) {
+            BY_NAME.put(p.fieldName, p);
+            BY_NAME.put(p.thresholdName, p);
+        }
+    }
+
+    private final String fieldName;
+    private final String thresholdName;
+
+    SensorParameter(String fieldName, String thresholdName) {
+        this.fieldName = fieldName;
+        this.thresholdName = thresholdName;
+    }
+
+    public String fieldName() { return fieldName; }
+    public String thresholdName() { return thresholdName; }
+
+    /**
+     * Look up by SensorData field name or AlertThreshold parameter name; null if unknown
+     */
+    public static SensorParameter fromName(String name) {
+        return name != null ? BY_NAME.get(name) : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.iot.protocol;
+
+import java.util.Arrays;
+
+/**
+ * One decoded FEDC frame.
+ *
+ * Parameter values live in a primitive array indexed by {@link SensorParameter#ordinal()};
+ * parameters the frame does not carry (or that failed range validation) are NaN, which is
+ * what the Node parser reports as null.
+ */
+public final class SensorReading {
+    private final long sensorId;
+    private final long sessionId;
+    private final int order;
+    private final int version;
+    private final String sensorType;
+    private final long timestampMillis;
+    private final double[] values;
+    private final String rawHex;
+
+    public SensorReading(long sensorId, long sessionId, int order, int version, String sensorType,
+                         long timestampMillis, double[] values, String rawHex) {
+        this.sensorId = sensorId;
+        this.sessionId = sessionId;
+        this.order = order;
+        this.version = version;
+        this.sensorType = sensorType;
+        this.timestampMillis = timestampMillis;
+        this.values = values;
+        this.rawHex = rawHex;
+    }
+
+    /**
+     * 48-bit sensor ID as a long (the 6 ID bytes, big-endian)
+     */
+    public long getSensorId() { return sensorId; }
+    public String getSensorIdHex() { return SensorFrameDecoder.toSensorIdHex(sensorId); }
+    public long getSessionId() { return sessionId; }
+    public int getOrder() { return order; }
+    public int getVersion() { return version; }
+    public String getSensorType() { return sensorType; }
+    public long getTimestampMillis() { return timestampMillis; }
+    public String getRawHex() { return rawHex; }
+
+    public double get(SensorParameter parameter) {
+        return values[parameter.ordinal()];
+    }
+
+    public boolean has(SensorParameter parameter) {
+        return !Double.isNaN(values[parameter.ordinal()]);
+    }
+
+    /**
+     * Copy with a different sensor type (e.g. once the device registry knows better than the frame)
+     */
+    public SensorReading withSensorType(String type) {
+        return new SensorReading(sensorId, sessionId, order, version, type, timestampMillis, values, rawHex);
+    }
+
+    @Override
+    public String toString() {
+        return "SensorReading{" + getSensorIdHex() + ", type=" + sensorType + ", order=" + order
+                + ", values=" + Arrays.toString(values) + "}";
+    }
+}
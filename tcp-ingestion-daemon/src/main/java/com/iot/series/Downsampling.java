@@ -0,0 +1,131 @@
+package com.iot.series;
+
+/**
+ * Reduce a series to a requested number of points for charting
+ */
+public final class Downsampling {
+
+    public enum Mode {
+        /** Largest-Triangle-Three-Buckets: keeps the visual shape, one point per bucket */
+        LTTB,
+        /** Min and max of each time bucket: keeps every spike, two points per bucket */
+        MINMAX,
+        /** No reduction */
+        RAW;
+
+        /**
+         * "lttb", "minmax" or "raw"; null if unknown
+         */
+        public static Mode parse(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    private Downsampling() {
+    }
+
+    public static SeriesPoints apply(SeriesPoints points, int maxPoints, Mode mode) {
+        switch (mode) {
+            case LTTB:
+                return lttb(points, maxPoints);
+            case MINMAX:
+                return minMax(points, maxPoints);
+            default:
+                return points;
+        }
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets (Steinarsson, 2013). Keeps the first and last point and, from
+     * each of the {@code maxPoints - 2} buckets in between, the point forming the largest triangle
+     * with the point kept from the previous bucket and the average of the next bucket.
+     */
+    public static SeriesPoints lttb(SeriesPoints points, int maxPoints) {
+        int n = points.size();
+        if (maxPoints >= n || maxPoints < 3) {
+            return points;
+        }
+        SeriesPoints out = new SeriesPoints(maxPoints);
+        double bucketSize = (double) (n - 2) / (maxPoints - 2);
+        int kept = 0;
+        out.add(points.timestamp(0), points.value(0));
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            // Average of the next bucket (the last point for the final bucket)
+            int nextStart = end;
+            int nextEnd = Math.min(n, (int) ((bucket + 2) * bucketSize) + 1);
+            double avgT = 0;
+            double avgV = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgT += points.timestamp(i);
+                avgV += points.value(i);
+            }
+            int nextCount = nextEnd - nextStart;
+            avgT /= nextCount;
+            avgV /= nextCount;
+
+            double keptT = points.timestamp(kept);
+            double keptV = points.value(kept);
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((keptT - avgT) * (points.value(i) - keptV)
+                        - (keptT - points.timestamp(i)) * (avgV - keptV));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            out.add(points.timestamp(chosen), points.value(chosen));
+            kept = chosen;
+        }
+        out.add(points.timestamp(n - 1), points.value(n - 1));
+        return out;
+    }
+
+    /**
+     * Split the time range into {@code maxPoints / 2} equal buckets and keep each bucket's minimum
+     * and maximum, in time order (one point if they coincide, none for an empty bucket)
+     */
+    public static SeriesPoints minMax(SeriesPoints points, int maxPoints) {
+        int n = points.size();
+        int buckets = maxPoints / 2;
+        if (maxPoints >= n || buckets < 1) {
+            return points;
+        }
+        long first = points.timestamp(0);
+        double width = (double) (points.timestamp(n - 1) - first + 1) / buckets;
+        SeriesPoints out = new SeriesPoints(buckets * 2);
+        int i = 0;
+        for (int bucket = 0; bucket < buckets && i < n; bucket++) {
+            long bucketEnd = first + (long) Math.ceil((bucket + 1) * width);
+            int min = -1;
+            int max = -1;
+            for (; i < n && (points.timestamp(i) < bucketEnd || bucket == buckets - 1); i++) {
+                if (min < 0 || points.value(i) < points.value(min)) {
+                    min = i;
+                }
+                if (max < 0 || points.value(i) > points.value(max)) {
+                    max = i;
+                }
+            }
+            if (min < 0) {
+                continue;
+            }
+            int a = Math.min(min, max);
+            int b = Math.max(min, max);
+            out.add(points.timestamp(a), points.value(a));
+            if (b != a) {
+                out.add(points.timestamp(b), points.value(b));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,213 @@
+package com.iot.series;
+
+import java.util.Arrays;
+
+/**
+ * Append-only compressed block of (timestamp, value) points, encoded as in Facebook's Gorilla:
+ * delta-of-delta timestamps and XOR-ed doubles, written into a packed bit stream.
+ *
+ * Timestamps are epoch milliseconds. A device reporting on a steady interval costs one bit per
+ * timestamp, a jittery one 9-16; an unchanged value costs one bit, a slowly moving one usually
+ * well under two bytes.
+ *
+ * Not thread-safe; the owning series synchronizes.
+ */
+final class GorillaChunk {
+    private final long start;
+    private long[] words = new long[4];
+    private long bits;
+    private int count;
+
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValueBits;
+    private int lastLeading = Integer.MAX_VALUE;
+    private int lastTrailing;
+
+    /**
+     * @param start beginning of the time range the chunk covers (for retention)
+     */
+    GorillaChunk(long start) {
+        this.start = start;
+    }
+
+    long getStart() { return start; }
+    long getLastTimestamp() { return lastTimestamp; }
+    int getCount() { return count; }
+
+    long getBytes() {
+        return 8L * words.length;
+    }
+
+    /**
+     * Append a point; timestamps must not go backwards
+     */
+    void append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            write(timestamp, 64);
+            write(valueBits, 64);
+        } else {
+            long delta = timestamp - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            writeXor(valueBits ^ lastValueBits);
+            lastDelta = delta;
+        }
+        lastTimestamp = timestamp;
+        lastValueBits = valueBits;
+        count++;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            write(0b0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            write(0b10, 2);
+            write(dod, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            write(0b110, 3);
+            write(dod, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            write(0b1110, 4);
+            write(dod, 12);
+        } else {
+            write(0b1111, 4);
+            write(dod, 64);
+        }
+    }
+
+    private void writeXor(long xor) {
+        if (xor == 0) {
+            write(0b0, 1);
+            return;
+        }
+        int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (leading >= lastLeading && trailing >= lastTrailing) {
+            // Fits in the previous meaningful-bit window
+            write(0b10, 2);
+            write(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+        } else {
+            int meaningful = 64 - leading - trailing;
+            write(0b11, 2);
+            write(leading, 5);
+            write(meaningful - 1, 6);
+            write(xor >>> trailing, meaningful);
+            lastLeading = leading;
+            lastTrailing = trailing;
+        }
+    }
+
+    /**
+     * Write the low {@code n} bits of {@code value}, most significant first
+     */
+    private void write(long value, int n) {
+        if (n == 0) {
+            return;
+        }
+        int word = (int) (bits >>> 6);
+        if (word + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        int offset = (int) (bits & 63);
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        int free = 64 - offset;
+        if (n <= free) {
+            words[word] |= value << (free - n);
+        } else {
+            words[word] |= value >>> (n - free);
+            words[word + 1] |= value << (64 - (n - free));
+        }
+        bits += n;
+    }
+
+    /**
+     * Shrink the buffer once no more points will be appended
+     */
+    void seal() {
+        words = Arrays.copyOf(words, (int) ((bits + 63) >>> 6) + 1);
+    }
+
+    /**
+     * Decode the points with timestamps in [from, to] into {@code out}
+     */
+    void decode(long from, long to, SeriesPoints out) {
+        Reader reader = new Reader();
+        long timestamp = 0;
+        long delta = 0;
+        long valueBits = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamp = reader.read(64);
+                valueBits = reader.read(64);
+            } else {
+                delta += readDeltaOfDelta(reader);
+                timestamp += delta;
+                if (reader.read(1) != 0) {
+                    if (reader.read(1) != 0) {
+                        leading = (int) reader.read(5);
+                        int meaningful = (int) reader.read(6) + 1;
+                        trailing = 64 - leading - meaningful;
+                    }
+                    valueBits ^= reader.read(64 - leading - trailing) << trailing;
+                }
+            }
+            if (timestamp > to) {
+                return;
+            }
+            if (timestamp >= from) {
+                out.add(timestamp, Double.longBitsToDouble(valueBits));
+            }
+        }
+    }
+
+    private static long readDeltaOfDelta(Reader reader) {
+        if (reader.read(1) == 0) {
+            return 0;
+        }
+        if (reader.read(1) == 0) {
+            return signExtend(reader.read(7), 7);
+        }
+        if (reader.read(1) == 0) {
+            return signExtend(reader.read(9), 9);
+        }
+        if (reader.read(1) == 0) {
+            return signExtend(reader.read(12), 12);
+        }
+        return reader.read(64);
+    }
+
+    /**
+     * Values 2^(n-1) .. 2^n - 1 were negative; the one exception is the positive bucket maximum
+     * (64, 256, 2048), which was written as its two's-complement twin and is told apart here
+     */
+    private static long signExtend(long value, int n) {
+        long max = 1L << (n - 1);
+        return value <= max ? value : value - (1L << n);
+    }
+
+    private final class Reader {
+        private long position;
+
+        long read(int n) {
+            if (n == 0) {
+                return 0;
+            }
+            int word = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            int available = 64 - offset;
+            long value;
+            if (n <= available) {
+                value = words[word] >>> (available - n);
+            } else {
+                value = words[word] << (n - available) | words[word + 1] >>> (64 - (n - available));
+            }
+            position += n;
+            return n == 64 ? value : value & ((1L << n) - 1);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.iot.series;
+
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recent history (24 h by default) of every parameter of every device, kept in memory as
+ * Gorilla-compressed chunks so chart queries over recent data never reach MongoDB.
+ *
+ * Each (device, parameter) series is a ring of chunks, one per {@code retention / 12} of time;
+ * a new point that starts a new chunk seals the previous one and drops chunks that have fallen
+ * out of the retention. Devices that stop reporting are dropped by the periodic prune.
+ * Queries decode only the chunks overlapping the range and downsample to the requested point
+ * count with LTTB or min/max.
+ */
+public class RecentSeriesStore {
+    public static final long DEFAULT_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final int CHUNKS_PER_RETENTION = 12;
+
+    private final long retentionMillis;
+    private final long chunkMillis;
+    private final int maxDevices;
+    private final ConcurrentHashMap<Long, DeviceSeries> devices = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    // Statistics
+    private final AtomicLong pointsStored = new AtomicLong(0);
+    private final AtomicLong outOfOrder = new AtomicLong(0);
+    private final AtomicLong overflowReadings = new AtomicLong(0);
+    private final AtomicLong queries = new AtomicLong(0);
+
+    /**
+     * Series of one device, indexed by SensorParameter ordinal (null until the parameter is seen)
+     */
+    private static final class DeviceSeries {
+        final List<ArrayDeque<GorillaChunk>> series = new ArrayList<>(Collections.nCopies(SensorParameter.COUNT, null));
+        long lastTimestamp = Long.MIN_VALUE;
+        boolean removed;
+    }
+
+    public RecentSeriesStore(long retentionMillis, int maxDevices) {
+        this.retentionMillis = retentionMillis;
+        this.chunkMillis = Math.max(1, retentionMillis / CHUNKS_PER_RETENTION);
+        this.maxDevices = maxDevices;
+    }
+
+    /**
+     * Prune idle devices every minute
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "series-prune");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(() -> prune(System.currentTimeMillis()), 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Append every value present in the reading; readings older than the device's last one are dropped
+     */
+    public void add(SensorReading reading) {
+        long timestamp = reading.getTimestampMillis();
+        while (true) {
+            DeviceSeries device = devices.get(reading.getSensorId());
+            if (device == null) {
+                if (devices.size() >= maxDevices) {
+                    overflowReadings.incrementAndGet();
+                    return;
+                }
+                device = devices.computeIfAbsent(reading.getSensorId(), id -> new DeviceSeries());
+            }
+            synchronized (device) {
+                if (device.removed) {
+                    // Lost a race with prune(); look the device up again
+                    continue;
+                }
+                if (timestamp < device.lastTimestamp) {
+                    outOfOrder.incrementAndGet();
+                    return;
+                }
+                device.lastTimestamp = timestamp;
+                long chunkStart = Math.floorDiv(timestamp, chunkMillis) * chunkMillis;
+                for (SensorParameter parameter : SensorParameter.VALUES) {
+                    if (!reading.has(parameter)) {
+                        continue;
+                    }
+                    ArrayDeque<GorillaChunk> chunks = device.series.get(parameter.ordinal());
+                    if (chunks == null) {
+                        chunks = new ArrayDeque<>();
+                        device.series.set(parameter.ordinal(), chunks);
+                    }
+                    GorillaChunk current = chunks.peekLast();
+                    if (current == null || current.getStart() != chunkStart) {
+                        if (current != null) {
+                            current.seal();
+                        }
+                        expire(chunks, timestamp);
+                        current = new GorillaChunk(chunkStart);
+                        chunks.addLast(current);
+                    }
+                    current.append(timestamp, reading.get(parameter));
+                    pointsStored.incrementAndGet();
+                }
+            }
+            return;
+        }
+    }
+
+    private void expire(ArrayDeque<GorillaChunk> chunks, long now) {
+        while (!chunks.isEmpty() && chunks.peekFirst().getStart() + chunkMillis <= now - retentionMillis) {
+            chunks.pollFirst();
+        }
+    }
+
+    /**
+     * Points of one parameter with timestamps in [from, to], downsampled to at most
+     * {@code maxPoints} (RAW mode returns everything); null if the device is unknown
+     */
+    public SeriesPoints query(long sensorId, SensorParameter parameter, long from, long to,
+                              int maxPoints, Downsampling.Mode mode) {
+        queries.incrementAndGet();
+        DeviceSeries device = devices.get(sensorId);
+        if (device == null) {
+            return null;
+        }
+        SeriesPoints points = new SeriesPoints();
+        synchronized (device) {
+            ArrayDeque<GorillaChunk> chunks = device.series.get(parameter.ordinal());
+            if (chunks != null) {
+                for (GorillaChunk chunk : chunks) {
+                    if (chunk.getStart() + chunkMillis > from && chunk.getStart() <= to) {
+                        chunk.decode(from, to, points);
+                    }
+                }
+            }
+        }
+        return Downsampling.apply(points, maxPoints, mode);
+    }
+
+    /**
+     * Drop expired chunks and devices with nothing left
+     */
+    public void prune(long nowMillis) {
+        Iterator<DeviceSeries> it = devices.values().iterator();
+        while (it.hasNext()) {
+            DeviceSeries device = it.next();
+            synchronized (device) {
+                boolean empty = true;
+                for (ArrayDeque<GorillaChunk> chunks : device.series) {
+                    if (chunks != null) {
+                        expire(chunks, nowMillis);
+                        empty &= chunks.isEmpty();
+                    }
+                }
+                if (empty) {
+                    device.removed = true;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Compressed bytes held by all chunks (walks every series)
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (DeviceSeries device : devices.values()) {
+            synchronized (device) {
+                for (ArrayDeque<GorillaChunk> chunks : device.series) {
+                    if (chunks != null) {
+                        for (GorillaChunk chunk : chunks) {
+                            bytes += chunk.getBytes();
+                        }
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    public int getDeviceCount() { return devices.size(); }
+    public long getPointsStored() { return pointsStored.get(); }
+    public long getOutOfOrder() { return outOfOrder.get(); }
+    public long getOverflowReadings() { return overflowReadings.get(); }
+    public long getRetentionMillis() { return retentionMillis; }
+
+    public void printStats() {
+        long bytes = getMemoryBytes();
+        long points = pointsStored.get();
+        System.out.println("📈 Recent Series - Devices: " + devices.size()
+                + ", Points stored: " + points
+                + ", Memory: " + (bytes >> 10) + " KB"
+                + ", Queries: " + queries.get()
+                + ", Out of order: " + outOfOrder.get()
+                + ", Overflow: " + overflowReadings.get());
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
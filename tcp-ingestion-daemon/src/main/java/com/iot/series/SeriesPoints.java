@@ -0,0 +1,54 @@
+package com.iot.series;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable pair of parallel primitive arrays: timestamps (epoch millis) and values, in time order
+ */
+public final class SeriesPoints {
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+
+    public SeriesPoints() {
+        this(64);
+    }
+
+    public SeriesPoints(int capacity) {
+        this.timestamps = new long[Math.max(1, capacity)];
+        this.values = new double[Math.max(1, capacity)];
+    }
+
+    public void add(long timestamp, double value) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    public int size() { return size; }
+    public long timestamp(int i) { return timestamps[i]; }
+    public double value(int i) { return values[i]; }
+
+    /**
+     * JSON-ready list of {"timestamp": ISO-8601, "value": v}
+     */
+    public List<Map<String, Object>> toList() {
+        List<Map<String, Object>> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("timestamp", Instant.ofEpochMilli(timestamps[i]).toString());
+            point.put("value", values[i]);
+            list.add(point);
+        }
+        return list;
+    }
+}
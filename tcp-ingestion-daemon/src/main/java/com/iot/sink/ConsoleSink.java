@@ -0,0 +1,70 @@
+package com.iot.sink;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prints each record as one JSON line (debugging, piping into other tools)
+ */
+public class ConsoleSink implements SensorSink {
+    private final PrintStream out;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong printed = new AtomicLong(0);
+
+    public ConsoleSink() {
+        this(System.out);
+    }
+
+    public ConsoleSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> accept(SensorRecord record) {
+        return CompletableFuture.completedFuture(print(record));
+    }
+
+    @Override
+    public CompletableFuture<Integer> acceptBatch(List<SensorRecord> records) {
+        int count = 0;
+        synchronized (out) {
+            for (SensorRecord record : records) {
+                if (print(record)) {
+                    count++;
+                }
+            }
+        }
+        return CompletableFuture.completedFuture(count);
+    }
+
+    private boolean print(SensorRecord record) {
+        try {
+            out.println(objectMapper.writeValueAsString(record.toMap()));
+            printed.incrementAndGet();
+            return true;
+        } catch (JsonProcessingException e) {
+            System.err.println("❌ Console sink: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() { return "console"; }
+
+    public long getPrinted() { return printed.get(); }
+
+    @Override
+    public void printStats() {
+        System.out.println("🖥️ Console Sink - Printed: " + printed.get());
+    }
+
+    @Override
+    public void shutdown() {
+        out.flush();
+    }
+}
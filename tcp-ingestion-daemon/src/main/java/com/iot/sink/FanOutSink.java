@@ -0,0 +1,163 @@
+package com.iot.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends every record to several sinks concurrently.
+ *
+ * Each sink gets its own bounded queue and delivery thread, which hands it batches and waits
+ * for each batch to complete before taking the next one. A slow sink therefore only fills its
+ * own queue; once full, further records are dropped for that sink (and counted) while the
+ * others carry on. accept succeeds when at least one sink queued the record.
+ */
+public class FanOutSink implements SensorSink {
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final List<Branch> branches = new ArrayList<>();
+    private final int batchSize;
+    private volatile boolean running = true;
+
+    /**
+     * One downstream sink with its queue and delivery thread
+     */
+    private final class Branch {
+        final SensorSink sink;
+        final BlockingQueue<SensorRecord> queue;
+        final Thread thread;
+        final AtomicLong queued = new AtomicLong(0);
+        final AtomicLong dropped = new AtomicLong(0);
+        final AtomicLong delivered = new AtomicLong(0);
+        final AtomicLong failed = new AtomicLong(0);
+
+        Branch(SensorSink sink, int queueCapacity) {
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this::run, "fanout-" + sink.getName());
+            this.thread.setDaemon(true);
+        }
+
+        void run() {
+            List<SensorRecord> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    SensorRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    int accepted = sink.acceptBatch(new ArrayList<>(batch)).get();
+                    delivered.addAndGet(accepted);
+                    failed.addAndGet(batch.size() - accepted);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        break;
+                    }
+                } catch (ExecutionException | RuntimeException e) {
+                    failed.addAndGet(batch.size());
+                    System.err.println("❌ Sink " + sink.getName() + " failed: " + e.getMessage());
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    public FanOutSink(List<SensorSink> sinks) {
+        this(sinks, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public FanOutSink(List<SensorSink> sinks, int queueCapacity, int batchSize) {
+        this.batchSize = batchSize;
+        for (SensorSink sink : sinks) {
+            branches.add(new Branch(sink, queueCapacity));
+        }
+        for (Branch branch : branches) {
+            branch.thread.start();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> accept(SensorRecord record) {
+        boolean any = false;
+        for (Branch branch : branches) {
+            if (running && branch.queue.offer(record)) {
+                branch.queued.incrementAndGet();
+                any = true;
+            } else {
+                branch.dropped.incrementAndGet();
+            }
+        }
+        return CompletableFuture.completedFuture(any);
+    }
+
+    @Override
+    public String getName() {
+        StringBuilder name = new StringBuilder("fanout(");
+        for (int i = 0; i < branches.size(); i++) {
+            name.append(i > 0 ? "," : "").append(branches.get(i).sink.getName());
+        }
+        return name.append(')').toString();
+    }
+
+    public List<SensorSink> getSinks() {
+        List<SensorSink> sinks = new ArrayList<>(branches.size());
+        for (Branch branch : branches) {
+            sinks.add(branch.sink);
+        }
+        return sinks;
+    }
+
+    public long getDropped(int index) { return branches.get(index).dropped.get(); }
+    public long getDelivered(int index) { return branches.get(index).delivered.get(); }
+    public int getQueueDepth(int index) { return branches.get(index).queue.size(); }
+
+    @Override
+    public int getBacklog() {
+        int backlog = 0;
+        for (Branch branch : branches) {
+            backlog += branch.queue.size() + branch.sink.getBacklog();
+        }
+        return backlog;
+    }
+
+    @Override
+    public void printStats() {
+        for (Branch branch : branches) {
+            System.out.println("🔀 Fan-out [" + branch.sink.getName() + "] - Queued: " + branch.queued.get()
+                    + ", Delivered: " + branch.delivered.get()
+                    + ", Failed: " + branch.failed.get()
+                    + ", Dropped: " + branch.dropped.get()
+                    + ", Queue: " + branch.queue.size());
+            branch.sink.printStats();
+        }
+    }
+
+    /**
+     * Stop accepting, let each branch drain its queue (up to 10s), then shut the sinks down
+     */
+    @Override
+    public void shutdown() {
+        running = false;
+        long deadline = System.currentTimeMillis() + 10_000;
+        for (Branch branch : branches) {
+            try {
+                branch.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (branch.thread.isAlive()) {
+                branch.thread.interrupt();
+            }
+            branch.sink.shutdown();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.iot.sink;
+
+import com.iot.HttpBackendForwarder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Posts each record to the backend's raw-data endpoint through an {@link HttpBackendForwarder}
+ */
+public class HttpSensorSink implements SensorSink {
+    private final HttpBackendForwarder forwarder;
+    private final boolean ownsForwarder;
+
+    /**
+     * Sink over a forwarder owned by someone else (the daemon's), which stays open on shutdown
+     */
+    public HttpSensorSink(HttpBackendForwarder forwarder) {
+        this(forwarder, false);
+    }
+
+    public HttpSensorSink(String backendUrl) {
+        this(new HttpBackendForwarder(backendUrl), true);
+    }
+
+    private HttpSensorSink(HttpBackendForwarder forwarder, boolean ownsForwarder) {
+        this.forwarder = forwarder;
+        this.ownsForwarder = ownsForwarder;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> accept(SensorRecord record) {
+        return forwarder.forwardSensorDataAsync(record.getRawHex(), record.getClientInfo(), record.getExtraFields());
+    }
+
+    @Override
+    public String getName() { return "http"; }
+
+    public HttpBackendForwarder getForwarder() { return forwarder; }
+
+    @Override
+    public void printStats() {
+        if (ownsForwarder) {
+            forwarder.printStats();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (ownsForwarder) {
+            forwarder.shutdown();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.iot.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends records as newline-delimited JSON, one file per UTC hour
+ * (sensors-2024-01-15T10.ndjson), rolling over to .1, .2... when a file reaches the size limit.
+ * Writes happen on a single thread; each accept or batch is flushed before its future completes.
+ */
+public class NdjsonFileSink implements SensorSink {
+    public static final long DEFAULT_MAX_FILE_BYTES = 256L * 1024 * 1024;
+
+    private static final DateTimeFormatter HOUR = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final String prefix;
+    private final long maxFileBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService writerThread;
+
+    // Only touched from the writer thread
+    private OutputStream writer;
+    private Path currentFile;
+    private String currentHour;
+    private int currentPart;
+    private long currentBytes;
+
+    // Statistics
+    private final AtomicLong written = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong bytesWritten = new AtomicLong(0);
+    private final AtomicLong filesOpened = new AtomicLong(0);
+
+    public NdjsonFileSink(Path directory) {
+        this(directory, "sensors", DEFAULT_MAX_FILE_BYTES);
+    }
+
+    public NdjsonFileSink(Path directory, String prefix, long maxFileBytes) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.maxFileBytes = maxFileBytes;
+        this.writerThread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ndjson-sink");
+            t.setDaemon(true);
+            return t;
+        });
+        System.out.println("📝 NDJSON sink: " + directory.toAbsolutePath() + " (hourly, max " + (maxFileBytes / (1024 * 1024)) + " MB per file)");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> accept(SensorRecord record) {
+        return acceptBatch(Collections.singletonList(record)).thenApply(count -> count == 1);
+    }
+
+    @Override
+    public CompletableFuture<Integer> acceptBatch(List<SensorRecord> records) {
+        try {
+            return CompletableFuture.supplyAsync(() -> write(records), writerThread);
+        } catch (RejectedExecutionException e) {
+            failed.addAndGet(records.size());
+            return CompletableFuture.completedFuture(0);
+        }
+    }
+
+    private int write(List<SensorRecord> records) {
+        int count = 0;
+        try {
+            for (SensorRecord record : records) {
+                byte[] line = objectMapper.writeValueAsBytes(record.toMap());
+                OutputStream out = writerFor(record.getReceivedAtMillis(), line.length + 1);
+                out.write(line);
+                out.write('\n');
+                currentBytes += line.length + 1;
+                bytesWritten.addAndGet(line.length + 1);
+                count++;
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            written.addAndGet(count);
+        } catch (IOException e) {
+            failed.addAndGet(records.size() - count);
+            written.addAndGet(count);
+            System.err.println("❌ NDJSON sink write failed (" + currentFile + "): " + e.getMessage());
+            closeQuietly();
+        }
+        return count;
+    }
+
+    /**
+     * Writer for the record's hour, rotating on hour change or when the next line would exceed the size limit
+     */
+    private OutputStream writerFor(long receivedAtMillis, int lineBytes) throws IOException {
+        String hour = HOUR.format(Instant.ofEpochMilli(receivedAtMillis));
+        if (writer != null && hour.equals(currentHour) && currentBytes + lineBytes <= maxFileBytes) {
+            return writer;
+        }
+        if (writer != null && hour.equals(currentHour)) {
+            currentPart++;
+        } else if (!hour.equals(currentHour)) {
+            currentHour = hour;
+            currentPart = 0;
+        }
+        closeQuietly();
+
+        Files.createDirectories(directory);
+        // Skip parts already filled by an earlier run
+        while (true) {
+            currentFile = directory.resolve(fileName(currentHour, currentPart));
+            currentBytes = Files.exists(currentFile) ? Files.size(currentFile) : 0;
+            if (currentBytes == 0 || currentBytes + lineBytes <= maxFileBytes) {
+                break;
+            }
+            currentPart++;
+        }
+        writer = new BufferedOutputStream(Files.newOutputStream(currentFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        filesOpened.incrementAndGet();
+        return writer;
+    }
+
+    private String fileName(String hour, int part) {
+        return prefix + "-" + hour + (part > 0 ? "." + part : "") + ".ndjson";
+    }
+
+    private void closeQuietly() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("❌ NDJSON sink close failed: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    @Override
+    public String getName() { return "ndjson"; }
+
+    public long getWritten() { return written.get(); }
+    public long getFailed() { return failed.get(); }
+    public long getFilesOpened() { return filesOpened.get(); }
+
+    @Override
+    public void printStats() {
+        System.out.println("📝 NDJSON Sink - Written: " + written.get()
+                + ", Failed: " + failed.get()
+                + ", Bytes: " + bytesWritten.get()
+                + ", Files: " + filesOpened.get());
+    }
+
+    @Override
+    public void shutdown() {
+        writerThread.submit(this::closeQuietly);
+        writerThread.shutdown();
+        try {
+            if (!writerThread.awaitTermination(10, TimeUnit.SECONDS)) {
+                writerThread.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writerThread.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
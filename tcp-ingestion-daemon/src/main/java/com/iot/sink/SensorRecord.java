@@ -0,0 +1,80 @@
+package com.iot.sink;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One received frame as handed to the sinks: the raw hex line, where it came from, the fields
+ * computed at the edge and the decoded reading (decoded on first use when the daemon didn't need it).
+ */
+public final class SensorRecord {
+    private final String rawHex;
+    private final String clientInfo;
+    private final long receivedAtMillis;
+    private final Map<String, Object> extraFields;
+    private volatile SensorReading reading;
+    private volatile boolean decoded;
+
+    public SensorRecord(String rawHex, String clientInfo, long receivedAtMillis,
+                        SensorReading reading, Map<String, Object> extraFields) {
+        this.rawHex = rawHex;
+        this.clientInfo = clientInfo;
+        this.receivedAtMillis = receivedAtMillis;
+        this.reading = reading;
+        this.decoded = reading != null;
+        this.extraFields = extraFields;
+    }
+
+    public SensorRecord(String rawHex, String clientInfo) {
+        this(rawHex, clientInfo, System.currentTimeMillis(), null, null);
+    }
+
+    public String getRawHex() { return rawHex; }
+    public String getClientInfo() { return clientInfo; }
+    public long getReceivedAtMillis() { return receivedAtMillis; }
+    public Map<String, Object> getExtraFields() { return extraFields; }
+
+    /**
+     * Decoded reading, or null when the frame can't be decoded. Decoding is pure, so concurrent
+     * first calls from several sinks at worst decode twice.
+     */
+    public SensorReading getReading() {
+        if (!decoded) {
+            reading = SensorFrameDecoder.decode(rawHex, receivedAtMillis);
+            decoded = true;
+        }
+        return reading;
+    }
+
+    /**
+     * Flat JSON-ready view: raw frame, decoded values when available, then the edge fields
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("receivedAt", Instant.ofEpochMilli(receivedAtMillis).toString());
+        map.put("clientInfo", clientInfo);
+        map.put("rawHexString", rawHex);
+        SensorReading r = getReading();
+        if (r != null) {
+            map.put("sensorId", r.getSensorIdHex());
+            map.put("sessionId", r.getSessionId());
+            map.put("order", r.getOrder());
+            map.put("sensorType", r.getSensorType());
+            map.put("timestamp", Instant.ofEpochMilli(r.getTimestampMillis()).toString());
+            for (SensorParameter parameter : SensorParameter.VALUES) {
+                if (r.has(parameter)) {
+                    map.put(parameter.fieldName(), r.get(parameter));
+                }
+            }
+        }
+        if (extraFields != null) {
+            map.putAll(extraFields);
+        }
+        return map;
+    }
+}
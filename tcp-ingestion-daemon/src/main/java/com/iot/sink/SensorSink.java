@@ -0,0 +1,50 @@
+package com.iot.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination for received sensor frames (backend API, files, console, database...).
+ *
+ * accept is asynchronous: the future completes once the sink has taken responsibility for the
+ * record (delivered it, or queued it when the sink batches internally). Sinks that can write
+ * several records more cheaply than one at a time override acceptBatch.
+ */
+public interface SensorSink {
+
+    CompletableFuture<Boolean> accept(SensorRecord record);
+
+    /**
+     * Accept several records; completes with how many were accepted
+     */
+    default CompletableFuture<Integer> acceptBatch(List<SensorRecord> records) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(records.size());
+        for (SensorRecord record : records) {
+            futures.add(accept(record));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((ignored, error) -> {
+            int accepted = 0;
+            for (CompletableFuture<Boolean> future : futures) {
+                if (Boolean.TRUE.equals(future.getNow(false))) {
+                    accepted++;
+                }
+            }
+            return accepted;
+        });
+    }
+
+    /**
+     * Records accepted but not yet delivered, held in the sink's own queues (0 for sinks that
+     * do not queue); used for admission control
+     */
+    default int getBacklog() {
+        return 0;
+    }
+
+    String getName();
+
+    void printStats();
+
+    void shutdown();
+}
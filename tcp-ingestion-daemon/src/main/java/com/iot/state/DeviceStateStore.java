@@ -0,0 +1,601 @@
+package com.iot.state;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Bounded per-device state keyed by the 48-bit sensorId, for features that keep a few numbers per
+ * device (last values, counters, dedup windows, rate buckets).
+ *
+ * Every device gets the same number of 8-byte fields, stored in flat primitive arrays: no boxed
+ * keys, no per-device objects, about {@code 8 * fields + 35} bytes per device in total. The store
+ * is split into independently locked stripes, and the arrays are sized once from a hard memory
+ * budget, so the footprint never grows past it no matter how many sensorIds show up.
+ *
+ * When a stripe is full the eviction policy is W-TinyLFU: new devices enter a small LRU window,
+ * and a device leaving the window only displaces the coldest device of the main segmented LRU if
+ * the frequency sketch says it has been seen more often. A scan of one-off sensorIds therefore
+ * cannot flush the devices that report all the time.
+ */
+public final class DeviceStateStore {
+    private static final int NIL = -1;
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+    private static final byte FREE = 3;
+
+    private final int fields;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Callback run under the stripe lock with a view of one device's fields
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(Entry entry);
+    }
+
+    /**
+     * Window into one device's fields; only valid inside the visitor call that received it
+     */
+    public static final class Entry {
+        private final Stripe stripe;
+        private int slot;
+        private boolean created;
+
+        private Entry(Stripe stripe) {
+            this.stripe = stripe;
+        }
+
+        private Entry at(int slot, boolean created) {
+            this.slot = slot;
+            this.created = created;
+            return this;
+        }
+
+        public long getSensorId() {
+            return stripe.keys[slot];
+        }
+
+        /**
+         * True if the device was added by this call; all fields start at zero
+         */
+        public boolean isNew() {
+            return created;
+        }
+
+        public int getFields() {
+            return stripe.fields;
+        }
+
+        public long getLong(int field) {
+            return stripe.data[index(field)];
+        }
+
+        public void setLong(int field, long value) {
+            stripe.data[index(field)] = value;
+        }
+
+        public long addLong(int field, long delta) {
+            return stripe.data[index(field)] += delta;
+        }
+
+        public double getDouble(int field) {
+            return Double.longBitsToDouble(stripe.data[index(field)]);
+        }
+
+        public void setDouble(int field, double value) {
+            stripe.data[index(field)] = Double.doubleToRawLongBits(value);
+        }
+
+        private int index(int field) {
+            return slot * stripe.fields + Objects.checkIndex(field, stripe.fields);
+        }
+    }
+
+    /**
+     * Store sized from the budget, with a stripe count derived from the available processors
+     */
+    public DeviceStateStore(int fields, long memoryBudgetBytes) {
+        this(fields, memoryBudgetBytes, defaultStripes(fields, memoryBudgetBytes));
+    }
+
+    /**
+     * @param fields            8-byte fields per device
+     * @param memoryBudgetBytes upper bound for all arrays of the store
+     * @param stripes           independently locked partitions (rounded up to a power of two)
+     */
+    public DeviceStateStore(int fields, long memoryBudgetBytes, int stripes) {
+        if (fields < 1) {
+            throw new IllegalArgumentException("At least one field per device is required");
+        }
+        int count = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1);
+        int stripeCapacity = capacityFor(fields, memoryBudgetBytes / count);
+        if (stripeCapacity < 1) {
+            throw new IllegalArgumentException("Memory budget of " + memoryBudgetBytes
+                    + " bytes cannot hold one device per stripe (" + count + " stripes)");
+        }
+        this.fields = fields;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(fields, stripeCapacity);
+        }
+    }
+
+    /**
+     * Approximate bytes per device, for sizing a budget
+     */
+    public static long bytesPerDevice(int fields) {
+        return 8L * fields + 35;
+    }
+
+    /**
+     * Bytes of all arrays of a stripe holding {@code capacity} devices
+     */
+    static long stripeBytes(int fields, int capacity) {
+        long perSlot = 8L * fields + 8 + 4 + 4 + 1;
+        return perSlot * capacity + 4L * tableLength(capacity) + 8L * FrequencySketch.tableLength(capacity);
+    }
+
+    private static int capacityFor(int fields, long stripeBudget) {
+        long low = 0;
+        long high = Math.min(1 << 28, stripeBudget / (8L * fields + 17));
+        while (low < high) {
+            long mid = (low + high + 1) >>> 1;
+            if (stripeBytes(fields, (int) mid) <= stripeBudget) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return (int) low;
+    }
+
+    private static int defaultStripes(int fields, long memoryBudgetBytes) {
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1);
+        while (stripes > 1 && capacityFor(Math.max(1, fields), memoryBudgetBytes / stripes) < 256) {
+            stripes >>= 1;
+        }
+        return stripes;
+    }
+
+    private static int tableLength(int capacity) {
+        return Integer.highestOneBit(Math.max(2, (capacity * 4 + 2) / 3) * 2 - 1);
+    }
+
+    static int hash(long sensorId) {
+        long h = sensorId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private Stripe stripeFor(long sensorId) {
+        return stripes[(int) ((sensorId * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask];
+    }
+
+    /**
+     * Run the visitor on the device's entry, adding the device (possibly evicting another) if absent
+     */
+    public void update(long sensorId, EntryVisitor visitor) {
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            int slot = stripe.access(sensorId, hash(sensorId), true);
+            visitor.visit(stripe.entry.at(slot, stripe.created));
+        }
+    }
+
+    /**
+     * Run the visitor if the device is present; false otherwise. Counts as an access for eviction.
+     */
+    public boolean read(long sensorId, EntryVisitor visitor) {
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            int slot = stripe.access(sensorId, hash(sensorId), false);
+            if (slot == NIL) {
+                return false;
+            }
+            visitor.visit(stripe.entry.at(slot, false));
+            return true;
+        }
+    }
+
+    /**
+     * Copy the device's fields into {@code out}; false if the device is not present
+     */
+    public boolean read(long sensorId, long[] out) {
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            int slot = stripe.access(sensorId, hash(sensorId), false);
+            if (slot == NIL) {
+                return false;
+            }
+            System.arraycopy(stripe.data, slot * fields, out, 0, Math.min(fields, out.length));
+            return true;
+        }
+    }
+
+    public long getLong(long sensorId, int field, long missingValue) {
+        Objects.checkIndex(field, fields);
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            int slot = stripe.access(sensorId, hash(sensorId), false);
+            return slot == NIL ? missingValue : stripe.data[slot * fields + field];
+        }
+    }
+
+    /**
+     * Field as a double; NaN if the device is not present
+     */
+    public double getDouble(long sensorId, int field) {
+        Objects.checkIndex(field, fields);
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            int slot = stripe.access(sensorId, hash(sensorId), false);
+            return slot == NIL ? Double.NaN : Double.longBitsToDouble(stripe.data[slot * fields + field]);
+        }
+    }
+
+    public void putLong(long sensorId, int field, long value) {
+        Objects.checkIndex(field, fields);
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            stripe.data[stripe.access(sensorId, hash(sensorId), true) * fields + field] = value;
+        }
+    }
+
+    public void putDouble(long sensorId, int field, double value) {
+        putLong(sensorId, field, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Add to a counter field, creating the device if absent; returns the new value
+     */
+    public long addLong(long sensorId, int field, long delta) {
+        Objects.checkIndex(field, fields);
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            return stripe.data[stripe.access(sensorId, hash(sensorId), true) * fields + field] += delta;
+        }
+    }
+
+    /**
+     * Presence check that does not count as an access
+     */
+    public boolean contains(long sensorId) {
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            return stripe.find(sensorId, hash(sensorId)) >= 0;
+        }
+    }
+
+    public boolean remove(long sensorId) {
+        Stripe stripe = stripeFor(sensorId);
+        synchronized (stripe) {
+            int position = stripe.find(sensorId, hash(sensorId));
+            if (position < 0) {
+                return false;
+            }
+            stripe.discard(stripe.table[position] - 1);
+            return true;
+        }
+    }
+
+    /**
+     * Visit every device, one stripe at a time; does not count as an access
+     */
+    public void forEach(EntryVisitor visitor) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (byte region = WINDOW; region <= PROTECTED; region++) {
+                    for (int slot = stripe.head[region]; slot != NIL; slot = stripe.next[slot]) {
+                        visitor.visit(stripe.entry.at(slot, false));
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    /**
+     * Devices the store can hold at once
+     */
+    public int getCapacity() {
+        return stripes.length * stripes[0].capacity;
+    }
+
+    /**
+     * Bytes allocated by the store's arrays (always within the budget)
+     */
+    public long getMemoryBytes() {
+        return stripes.length * stripeBytes(fields, stripes[0].capacity);
+    }
+
+    public long getHits() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.hits;
+            }
+        }
+        return total;
+    }
+
+    public long getMisses() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.misses;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Devices dropped to make room, including window candidates refused by the admission filter
+     */
+    public long getEvictions() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.evictions;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Window candidates the frequency sketch refused in favour of a main-region device
+     */
+    public long getRejected() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.rejected;
+            }
+        }
+        return total;
+    }
+
+    public void printStats(String name) {
+        long hits = getHits();
+        long misses = getMisses();
+        System.out.println("🗃️  " + name + " state: " + size() + "/" + getCapacity() + " devices, "
+                + (getMemoryBytes() >> 10) + " KB, hit rate "
+                + (hits + misses == 0 ? "n/a" : String.format("%.1f%%", 100.0 * hits / (hits + misses)))
+                + ", evictions: " + getEvictions() + " (admission refused: " + getRejected() + ")");
+    }
+
+    /**
+     * One locked partition: open-addressing index over fixed slots, three intrusive LRU lists
+     * (window, probation, protected) threaded through prev/next, and its own frequency sketch
+     */
+    private static final class Stripe {
+        final int fields;
+        final int capacity;
+        final int windowMax;
+        final int mainMax;
+        final int protectedMax;
+
+        final long[] keys;
+        final long[] data;
+        final int[] prev;
+        final int[] next;
+        final byte[] region;
+        final int[] table;
+        final int tableMask;
+        final FrequencySketch sketch;
+        final Entry entry = new Entry(this);
+
+        final int[] head = {NIL, NIL, NIL};
+        final int[] tail = {NIL, NIL, NIL};
+        final int[] count = new int[3];
+        int used;
+        int freeHead = NIL;
+        boolean created;
+
+        long hits;
+        long misses;
+        long evictions;
+        long rejected;
+
+        Stripe(int fields, int capacity) {
+            this.fields = fields;
+            this.capacity = capacity;
+            this.windowMax = Math.max(1, capacity / 100);
+            this.mainMax = capacity - windowMax;
+            this.protectedMax = mainMax * 4 / 5;
+            this.keys = new long[capacity];
+            this.data = new long[capacity * fields];
+            this.prev = new int[capacity];
+            this.next = new int[capacity];
+            this.region = new byte[capacity];
+            this.table = new int[tableLength(capacity)];
+            this.tableMask = table.length - 1;
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        int size() {
+            return count[WINDOW] + count[PROBATION] + count[PROTECTED];
+        }
+
+        /**
+         * Index position holding the key, or -1
+         */
+        int find(long key, int hash) {
+            int i = hash & tableMask;
+            while (true) {
+                int stored = table[i];
+                if (stored == 0) {
+                    return -1;
+                }
+                if (keys[stored - 1] == key) {
+                    return i;
+                }
+                i = (i + 1) & tableMask;
+            }
+        }
+
+        /**
+         * Record the access and return the key's slot, adding it if {@code create}; NIL otherwise
+         */
+        int access(long key, int hash, boolean create) {
+            sketch.increment(hash);
+            created = false;
+            int position = find(key, hash);
+            if (position >= 0) {
+                hits++;
+                int slot = table[position] - 1;
+                onHit(slot);
+                return slot;
+            }
+            misses++;
+            if (!create) {
+                return NIL;
+            }
+            if (freeHead == NIL && used == capacity) {
+                evict();
+            }
+            int slot;
+            if (freeHead != NIL) {
+                slot = freeHead;
+                freeHead = next[slot];
+            } else {
+                slot = used++;
+            }
+            keys[slot] = key;
+            Arrays.fill(data, slot * fields, slot * fields + fields, 0L);
+            int i = hash & tableMask;
+            while (table[i] != 0) {
+                i = (i + 1) & tableMask;
+            }
+            table[i] = slot + 1;
+            link(WINDOW, slot);
+            while (count[WINDOW] > windowMax && count[PROBATION] + count[PROTECTED] < mainMax) {
+                int overflow = tail[WINDOW];
+                unlink(overflow);
+                link(PROBATION, overflow);
+            }
+            created = true;
+            return slot;
+        }
+
+        private void onHit(int slot) {
+            switch (region[slot]) {
+                case WINDOW:
+                    unlink(slot);
+                    link(WINDOW, slot);
+                    break;
+                case PROBATION:
+                    unlink(slot);
+                    link(PROTECTED, slot);
+                    if (count[PROTECTED] > protectedMax) {
+                        int demoted = tail[PROTECTED];
+                        unlink(demoted);
+                        link(PROBATION, demoted);
+                    }
+                    break;
+                default:
+                    unlink(slot);
+                    link(PROTECTED, slot);
+                    break;
+            }
+        }
+
+        /**
+         * Free one slot: the window's LRU device competes with the main region's coldest device
+         * and the one the sketch has seen less often goes (ties keep the resident)
+         */
+        private void evict() {
+            int candidate = count[WINDOW] >= windowMax ? tail[WINDOW] : NIL;
+            int victim = tail[PROBATION] != NIL ? tail[PROBATION] : tail[PROTECTED];
+            if (candidate == NIL || victim == NIL) {
+                discard(victim != NIL ? victim : tail[WINDOW]);
+                evictions++;
+                return;
+            }
+            if (sketch.frequency(hash(keys[candidate])) > sketch.frequency(hash(keys[victim]))) {
+                discard(victim);
+                unlink(candidate);
+                link(PROBATION, candidate);
+            } else {
+                discard(candidate);
+                rejected++;
+            }
+            evictions++;
+        }
+
+        /**
+         * Unlink the slot, remove it from the index (backward-shift deletion) and free it
+         */
+        void discard(int slot) {
+            unlink(slot);
+            int hole = find(keys[slot], hash(keys[slot]));
+            int i = hole;
+            while (true) {
+                i = (i + 1) & tableMask;
+                int stored = table[i];
+                if (stored == 0) {
+                    break;
+                }
+                int home = hash(keys[stored - 1]) & tableMask;
+                boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+                if (!stays) {
+                    table[hole] = stored;
+                    hole = i;
+                }
+            }
+            table[hole] = 0;
+            region[slot] = FREE;
+            next[slot] = freeHead;
+            freeHead = slot;
+        }
+
+        private void link(byte list, int slot) {
+            region[slot] = list;
+            prev[slot] = NIL;
+            next[slot] = head[list];
+            if (head[list] != NIL) {
+                prev[head[list]] = slot;
+            } else {
+                tail[list] = slot;
+            }
+            head[list] = slot;
+            count[list]++;
+        }
+
+        private void unlink(int slot) {
+            byte list = region[slot];
+            int p = prev[slot];
+            int n = next[slot];
+            if (p != NIL) {
+                next[p] = n;
+            } else {
+                head[list] = n;
+            }
+            if (n != NIL) {
+                prev[n] = p;
+            } else {
+                tail[list] = p;
+            }
+            count[list]--;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.iot.state;
+
+/**
+ * Count-min sketch of 4-bit counters used as the TinyLFU admission filter.
+ *
+ * Each key touches four counters in one row of sixteen packed into a long. Once the number of
+ * increments reaches ten times the tracked capacity every counter is halved, so the sketch
+ * follows the recent popularity of keys instead of their all-time totals.
+ *
+ * Not thread-safe; each store stripe owns one and uses it under the stripe lock.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int length = tableLength(capacity);
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = Math.max(10, 10 * capacity);
+    }
+
+    /**
+     * Longs allocated for a stripe of the given capacity
+     */
+    static int tableLength(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+    }
+
+    int frequency(int hash) {
+        int start = (hash & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int hash) {
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xF) != 0xF) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Halve every counter (aging)
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+}
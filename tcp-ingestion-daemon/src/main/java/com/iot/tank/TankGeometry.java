@@ -0,0 +1,235 @@
+package com.iot.tank;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Tank volume geometry, ported from server/utils/tankVolumeCalculations.js.
+ *
+ * Only used to build lookup tables, so it favours matching the Node formulas exactly over
+ * speed. Dimensions are the tankType "dimensions" object (meters); results are in m³.
+ */
+public final class TankGeometry {
+
+    private TankGeometry() {
+    }
+
+    /**
+     * Volume of liquid at {@code level} meters, before dead space and capacity clamping
+     */
+    public static double volumeM3(String shape, String orientation, JsonNode dimensions, double level) {
+        if (dimensions == null || level < 0) {
+            return 0;
+        }
+        boolean horizontal = "horizontal".equals(orientation);
+
+        switch (shape.toLowerCase()) {
+            case "cylindrical":
+                return cylindrical(dimensions, level, horizontal);
+            case "rectangular":
+                return rectangular(dimensions, level);
+            case "spherical":
+                return spherical(dimensions, level);
+            case "conical":
+                return conical(dimensions, level);
+            case "silo":
+                return silo(dimensions, level);
+            case "horizontal_oval":
+            case "vertical_oval":
+                return oval(dimensions, level, horizontal);
+            case "horizontal_capsule":
+            case "vertical_capsule":
+                return capsule(dimensions, level, horizontal);
+            case "horizontal_elliptical":
+                return elliptical(dimensions, level);
+            case "dish_ends":
+                return dishEnds(dimensions, level);
+            default:
+                // Linear approximation, as the Node fallback
+                double height = first(dimensions, "height", "totalHeight");
+                if (Double.isNaN(height)) {
+                    height = 1;
+                }
+                double capacity = get(dimensions, "capacity");
+                return (level / height) * (Double.isNaN(capacity) ? 1000 : capacity) / 1000;
+        }
+    }
+
+    /**
+     * Height used for level conversion: totalHeight, height, then diameter (as the tankType model)
+     */
+    public static double effectiveHeight(JsonNode dimensions) {
+        if (dimensions == null) {
+            return Double.NaN;
+        }
+        return first(dimensions, "totalHeight", "height", "diameter");
+    }
+
+    private static double cylindrical(JsonNode d, double level, boolean horizontal) {
+        double radius = radius(d);
+        double height = first(d, "height", "totalHeight");
+        require(radius > 0 && height > 0, "Invalid cylindrical dimensions");
+        if (!horizontal) {
+            return Math.PI * radius * radius * level;
+        }
+        double length = positiveOr(get(d, "length"), height);
+        return circularSegmentArea(radius, level) * length;
+    }
+
+    private static double rectangular(JsonNode d, double level) {
+        double length = get(d, "length");
+        double width = get(d, "width");
+        double height = get(d, "height");
+        require(length > 0 && width > 0 && height > 0, "Invalid rectangular dimensions");
+        return length * width * level;
+    }
+
+    private static double spherical(JsonNode d, double level) {
+        double radius = positiveOr(get(d, "radius"), get(d, "diameter") / 2);
+        require(radius > 0, "Invalid spherical dimensions");
+        double h = Math.min(level, 2 * radius);
+        return (Math.PI / 3) * h * h * (3 * radius - h);
+    }
+
+    private static double conical(JsonNode d, double level) {
+        double radius = radius(d);
+        double height = get(d, "height");
+        require(radius > 0 && height > 0, "Invalid conical dimensions");
+        double liquidRadius = (level / height) * radius;
+        return (Math.PI / 3) * liquidRadius * liquidRadius * level;
+    }
+
+    private static double silo(JsonNode d, double level) {
+        double cylinderRadius = get(d, "diameter") / 2;
+        double totalHeight = get(d, "totalHeight");
+        require(cylinderRadius > 0 && totalHeight > 0, "Invalid silo dimensions");
+        double coneAngle = zeroIfMissing(get(d, "coneAngle"));
+        double outletRadius = zeroIfMissing(get(d, "outletDiameter")) / 2;
+
+        double coneHeight = 0;
+        if (coneAngle > 0 && cylinderRadius > outletRadius) {
+            coneHeight = (cylinderRadius - outletRadius) / Math.tan(Math.toRadians(coneAngle));
+        }
+        if (level <= coneHeight) {
+            double r1 = outletRadius;
+            double r2 = outletRadius + (level / coneHeight) * (cylinderRadius - outletRadius);
+            return (Math.PI / 3) * level * (r1 * r1 + r1 * r2 + r2 * r2);
+        }
+        double coneVolume = (Math.PI / 3) * coneHeight
+                * (outletRadius * outletRadius + outletRadius * cylinderRadius + cylinderRadius * cylinderRadius);
+        return coneVolume + Math.PI * cylinderRadius * cylinderRadius * (level - coneHeight);
+    }
+
+    private static double oval(JsonNode d, double level, boolean horizontal) {
+        double a = first(d, "majorAxis", "width") / 2;
+        double b = first(d, "minorAxis", "height") / 2;
+        double length = first(d, "length", "depth");
+        if (Double.isNaN(length)) {
+            length = 1;
+        }
+        require(a > 0 && b > 0, "Invalid oval dimensions");
+        if (horizontal) {
+            return ellipticalSegmentArea(a, b, level) * length;
+        }
+        return Math.PI * a * b * level;
+    }
+
+    private static double capsule(JsonNode d, double level, boolean horizontal) {
+        double radius = get(d, "diameter") / 2;
+        double cylinderLength = get(d, "capsuleLength");
+        require(radius > 0 && cylinderLength >= 0, "Invalid capsule dimensions");
+        if (horizontal) {
+            return circularSegmentArea(radius, level) * cylinderLength + 2 * sphericalCapVolume(radius, level);
+        }
+        if (level <= radius) {
+            return sphericalCapVolume(radius, level);
+        }
+        double bottomHemisphere = (2.0 / 3.0) * Math.PI * radius * radius * radius;
+        if (level <= radius + cylinderLength) {
+            return bottomHemisphere + Math.PI * radius * radius * (level - radius);
+        }
+        return bottomHemisphere + Math.PI * radius * radius * cylinderLength
+                + sphericalCapVolume(radius, level - radius - cylinderLength);
+    }
+
+    private static double elliptical(JsonNode d, double level) {
+        double a = get(d, "majorAxis") / 2;
+        double b = get(d, "minorAxis") / 2;
+        double length = get(d, "length");
+        require(a > 0 && b > 0 && length > 0, "Invalid elliptical dimensions");
+        return ellipticalSegmentArea(a, b, level) * length;
+    }
+
+    private static double dishEnds(JsonNode d, double level) {
+        double radius = get(d, "diameter") / 2;
+        double length = get(d, "length");
+        require(radius > 0 && length > 0, "Invalid dish end dimensions");
+        double dishRadius = positiveOr(get(d, "dishRadius"), radius);
+        return circularSegmentArea(radius, level) * length + 2 * sphericalCapVolume(dishRadius, level);
+    }
+
+    static double circularSegmentArea(double r, double h) {
+        if (h <= 0) {
+            return 0;
+        }
+        if (h >= 2 * r) {
+            return Math.PI * r * r;
+        }
+        double theta = 2 * Math.acos(Math.max(-1, Math.min(1, (r - h) / r)));
+        return (r * r / 2) * (theta - Math.sin(theta));
+    }
+
+    static double sphericalCapVolume(double r, double h) {
+        if (h <= 0) {
+            return 0;
+        }
+        if (h >= 2 * r) {
+            return (4.0 / 3.0) * Math.PI * r * r * r;
+        }
+        return (Math.PI / 3) * h * h * (3 * r - h);
+    }
+
+    private static double ellipticalSegmentArea(double a, double b, double level) {
+        double h = Math.min(level, b * 2);
+        double y = b - h;
+        return a * b * Math.acos(Math.max(-1, Math.min(1, y / b))) - y * Math.sqrt(Math.max(0, b * b - y * y));
+    }
+
+    private static double radius(JsonNode d) {
+        double diameter = get(d, "diameter");
+        if (diameter > 0) {
+            return diameter / 2;
+        }
+        double radius = get(d, "radius");
+        require(radius > 0, "Tank requires either diameter or radius");
+        return radius;
+    }
+
+    private static double get(JsonNode d, String field) {
+        JsonNode node = d.get(field);
+        return node != null && node.isNumber() ? node.asDouble() : Double.NaN;
+    }
+
+    private static double first(JsonNode d, String... fields) {
+        for (String field : fields) {
+            double value = get(d, field);
+            if (value > 0) {
+                return value;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double positiveOr(double value, double fallback) {
+        return value > 0 ? value : fallback;
+    }
+
+    private static double zeroIfMissing(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
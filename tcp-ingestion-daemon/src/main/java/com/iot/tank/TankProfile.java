@@ -0,0 +1,184 @@
+package com.iot.tank;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One device's tank, reduced to a precomputed level → volume lookup table.
+ *
+ * The table samples {@link TankGeometry} at evenly spaced levels from 0 to the effective
+ * tank height; lookups interpolate linearly between samples, so a reading costs a few
+ * multiplications regardless of tank shape.
+ */
+public final class TankProfile {
+    private static final double SAMPLE_SPACING_M = 0.005;
+    private static final int MIN_SAMPLES = 129;
+    private static final int MAX_SAMPLES = 2049;
+    private static final double DEFAULT_MIN_SENSOR_RANGE = 0.05;
+
+    private final String tankTypeId;
+    private final String fingerprint;
+    private final String shape;
+    private final boolean distanceSensor;
+    private final double height;
+    private final double offsetDepth;
+    private final double calibrationOffset;
+    private final double minRange;
+    private final double maxRange;
+    private final double pressureToHeightFactor;
+    private final double capacityLiters;
+    private final double step;
+    private final float[] litersAtLevel;
+
+    private TankProfile(String tankTypeId, String fingerprint, String shape, boolean distanceSensor,
+                        double height, double offsetDepth, double calibrationOffset,
+                        double minRange, double maxRange, double pressureToHeightFactor,
+                        double capacityLiters, float[] litersAtLevel) {
+        this.tankTypeId = tankTypeId;
+        this.fingerprint = fingerprint;
+        this.shape = shape;
+        this.distanceSensor = distanceSensor;
+        this.height = height;
+        this.offsetDepth = offsetDepth;
+        this.calibrationOffset = calibrationOffset;
+        this.minRange = minRange;
+        this.maxRange = maxRange;
+        this.pressureToHeightFactor = pressureToHeightFactor;
+        this.capacityLiters = capacityLiters;
+        this.step = height / (litersAtLevel.length - 1);
+        this.litersAtLevel = litersAtLevel;
+    }
+
+    /**
+     * Build from one registry export entry (device fields plus its populated "tankType").
+     * Throws IllegalArgumentException when the tank definition cannot produce a table.
+     */
+    public static TankProfile build(JsonNode device, String fingerprint) {
+        JsonNode tank = device.path("tankType");
+        JsonNode dimensions = tank.path("dimensions");
+        String shape = tank.path("shape").asText("cylindrical");
+        String orientation = tank.path("orientation").asText("vertical");
+
+        double height = TankGeometry.effectiveHeight(dimensions);
+        if (!(height > 0)) {
+            throw new IllegalArgumentException("Tank has no usable height");
+        }
+        double capacity = tank.path("capacity").asDouble(Double.NaN);
+        if (!(capacity > 0)) {
+            capacity = Double.POSITIVE_INFINITY;
+        }
+
+        int samples = (int) Math.max(MIN_SAMPLES, Math.min(MAX_SAMPLES, Math.ceil(height / SAMPLE_SPACING_M) + 1));
+        float[] table = new float[samples];
+        for (int i = 0; i < samples; i++) {
+            double level = height * i / (samples - 1);
+            double liters = TankGeometry.volumeM3(shape, orientation, dimensions, level) * 1000;
+            table[i] = (float) Math.min(Math.max(0, liters), capacity);
+        }
+
+        String deviceType = device.path("deviceType").asText(tank.path("deviceType").asText("")).toLowerCase();
+        JsonNode sensorConfig = device.path("sensorConfig");
+        return new TankProfile(
+                tank.path("_id").asText(null),
+                fingerprint,
+                shape,
+                isDistanceSensor(deviceType),
+                height,
+                orDefault(tank.path("offsetDepth").asDouble(0), 0),
+                orDefault(device.path("calibrationOffset").asDouble(0), 0),
+                orDefault(sensorConfig.path("minSensorRange").asDouble(0), DEFAULT_MIN_SENSOR_RANGE),
+                orDefault(sensorConfig.path("maxSensorRange").asDouble(0), height * 1.5),
+                isPressureSensor(deviceType) ? orDefault(sensorConfig.path("pressureToHeightFactor").asDouble(0), 1) : 1,
+                capacity,
+                table);
+    }
+
+    /**
+     * Level readings arrive in the ultrasonic_liquid_level field. Distance sensors report
+     * ullage (sensor to surface); every other type, including unknown ones, reports the
+     * liquid height directly.
+     */
+    static boolean isDistanceSensor(String deviceType) {
+        switch (deviceType) {
+            case "ultrasonic":
+            case "ultrasonic_level_sensor":
+            case "radar":
+            case "radar_level_sensor":
+            case "laser":
+            case "laser_level_sensor":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Pressure sensors scale the reading by pressureToHeightFactor; other direct sensors do not
+     */
+    static boolean isPressureSensor(String deviceType) {
+        switch (deviceType) {
+            case "pressure":
+            case "pressure_transmitter":
+            case "submersible":
+            case "submersible_level_sensor":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The server's {@code value || fallback}: 0 and NaN fall back too
+     */
+    private static double orDefault(double value, double fallback) {
+        return value != 0 && !Double.isNaN(value) ? value : fallback;
+    }
+
+    /**
+     * Convert a raw level reading to liquid height in meters, as convertSensorReadingToLevel
+     */
+    public double liquidLevel(double reading) {
+        if (Double.isNaN(reading)) {
+            return 0;
+        }
+        double compensated = reading + calibrationOffset;
+        double level;
+        if (distanceSensor) {
+            double effective = Math.max(Math.min(compensated, maxRange), minRange);
+            level = height - effective - offsetDepth;
+        } else {
+            level = compensated * pressureToHeightFactor + offsetDepth;
+        }
+        return Math.max(0, Math.min(height, level));
+    }
+
+    /**
+     * Interpolated volume in liters at the given liquid level
+     */
+    public double litersAt(double level) {
+        if (level <= 0) {
+            return litersAtLevel[0];
+        }
+        if (level >= height) {
+            return litersAtLevel[litersAtLevel.length - 1];
+        }
+        double x = level / step;
+        int i = (int) x;
+        double fraction = x - i;
+        return litersAtLevel[i] + (litersAtLevel[i + 1] - litersAtLevel[i]) * fraction;
+    }
+
+    /**
+     * Fill percentage of capacity (or of the full-tank volume when no capacity is set)
+     */
+    public double fillPercentage(double liters) {
+        double full = Double.isInfinite(capacityLiters) ? litersAtLevel[litersAtLevel.length - 1] : capacityLiters;
+        return full > 0 ? Math.max(0, Math.min(100, liters / full * 100)) : 0;
+    }
+
+    public String getTankTypeId() { return tankTypeId; }
+    public String getFingerprint() { return fingerprint; }
+    public String getShape() { return shape; }
+    public double getHeight() { return height; }
+    public double getCapacityLiters() { return capacityLiters; }
+    public int getSampleCount() { return litersAtLevel.length; }
+}
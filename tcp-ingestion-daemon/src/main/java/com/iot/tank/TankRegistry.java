@@ -0,0 +1,294 @@
+package com.iot.tank;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached device → tank registry used to attach volume and fill percentage at the edge.
+ *
+ * The registry is loaded from a JSON export of devices with their populated tankType:
+ * <pre>
+ * {
+ *   "generatedAt": "2024-05-01T10:00:00Z",
+ *   "incremental": false,
+ *   "devices": [ { "sensorId" | "serialNumber", "deviceType", "calibrationOffset", "sensorConfig",
+ *                  "tankType": { "_id", "updatedAt", "shape", "orientation", "dimensions", "capacity", "offsetDepth" } } ],
+ *   "removed": [ "sensorId", ... ]
+ * }
+ * </pre>
+ * When the source is a URL, refreshes ask for {@code since=<generatedAt>} and an
+ * {@code "incremental": true} response is merged into the current registry. Either way only
+ * devices whose definition changed get their lookup table rebuilt.
+ *
+ * The export is an external contract: the backend in this repository does not serve it, so a URL
+ * source must point at a service that implements the format above (including {@code since}).
+ */
+public class TankRegistry {
+    private final String source;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ScheduledExecutorService refreshExecutor;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private String lastGeneratedAt;
+    private long lastModified = -1;
+
+    // Statistics
+    private final AtomicLong readingsEnriched = new AtomicLong(0);
+    private final AtomicLong readingsUnmatched = new AtomicLong(0);
+    private final AtomicLong tablesBuilt = new AtomicLong(0);
+
+    /**
+     * Immutable sensorId → profile view, swapped on refresh
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new LongIntHashMap(1, -1), new TankProfile[0], new long[0]);
+
+        final LongIntHashMap index;
+        final TankProfile[] profiles;
+        final long[] sensorIds;
+
+        Snapshot(LongIntHashMap index, TankProfile[] profiles, long[] sensorIds) {
+            this.index = index;
+            this.profiles = profiles;
+            this.sensorIds = sensorIds;
+        }
+
+        TankProfile get(long sensorId) {
+            int i = index.get(sensorId);
+            return i >= 0 ? profiles[i] : null;
+        }
+
+        Map<Long, TankProfile> toMap() {
+            Map<Long, TankProfile> map = new HashMap<>(profiles.length * 2);
+            for (int i = 0; i < profiles.length; i++) {
+                map.put(sensorIds[i], profiles[i]);
+            }
+            return map;
+        }
+
+        static Snapshot of(Map<Long, TankProfile> map) {
+            LongIntHashMap index = new LongIntHashMap(map.size(), -1);
+            TankProfile[] profiles = new TankProfile[map.size()];
+            long[] sensorIds = new long[map.size()];
+            int i = 0;
+            for (Map.Entry<Long, TankProfile> entry : map.entrySet()) {
+                sensorIds[i] = entry.getKey();
+                profiles[i] = entry.getValue();
+                index.put(entry.getKey(), i);
+                i++;
+            }
+            return new Snapshot(index, profiles, sensorIds);
+        }
+    }
+
+    public TankRegistry(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Load the registry now and then every {@code refreshSeconds} (0 disables refresh)
+     */
+    public void start(long refreshSeconds) {
+        refresh();
+        if (refreshSeconds > 0) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "tank-registry-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Fetch the export and apply it; returns the number of rebuilt tables, or -1 on error
+     */
+    public synchronized int refresh() {
+        try {
+            JsonNode root = fetch();
+            if (root == null) {
+                return 0;
+            }
+            return apply(root);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to refresh tank registry from " + source + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Apply an export document (full or incremental) to the registry
+     */
+    public synchronized int apply(JsonNode root) {
+        boolean incremental = root.path("incremental").asBoolean(false);
+        Map<Long, TankProfile> current = snapshot.toMap();
+        Map<Long, TankProfile> next = incremental ? current : new HashMap<>();
+        int rebuilt = 0;
+        int skipped = 0;
+
+        for (JsonNode device : root.path("devices")) {
+            String id = device.hasNonNull("sensorId") ? device.get("sensorId").asText() : device.path("serialNumber").asText("");
+            long sensorId = SensorFrameDecoder.parseSensorId(id.trim());
+            if (sensorId < 0 || !device.path("tankType").isObject()) {
+                skipped++;
+                continue;
+            }
+            String fingerprint = fingerprint(device);
+            TankProfile existing = current.get(sensorId);
+            if (existing != null && existing.getFingerprint().equals(fingerprint)) {
+                next.put(sensorId, existing);
+                continue;
+            }
+            try {
+                next.put(sensorId, TankProfile.build(device, fingerprint));
+                tablesBuilt.incrementAndGet();
+                rebuilt++;
+            } catch (IllegalArgumentException e) {
+                System.err.println("⚠️ Skipping tank for " + id + ": " + e.getMessage());
+                next.remove(sensorId);
+                skipped++;
+            }
+        }
+        for (JsonNode removed : root.path("removed")) {
+            long sensorId = SensorFrameDecoder.parseSensorId(removed.asText(""));
+            if (sensorId >= 0) {
+                next.remove(sensorId);
+            }
+        }
+
+        snapshot = Snapshot.of(next);
+        if (root.hasNonNull("generatedAt")) {
+            lastGeneratedAt = root.get("generatedAt").asText();
+        }
+        System.out.println("🛢️ Tank registry " + (incremental ? "updated" : "loaded") + ": " + next.size()
+                + " tanks, " + rebuilt + " tables rebuilt" + (skipped > 0 ? ", " + skipped + " skipped" : ""));
+        return rebuilt;
+    }
+
+    /**
+     * Device fields plus the tank definition; a changed updatedAt alone also forces a rebuild
+     */
+    private String fingerprint(JsonNode device) {
+        JsonNode tank = device.path("tankType");
+        return device.path("deviceType").asText("") + '|' + device.path("calibrationOffset").asText("")
+                + '|' + device.path("sensorConfig").toString() + '|' + tank.path("updatedAt").asText("")
+                + '|' + tank.path("shape").asText("") + '|' + tank.path("orientation").asText("")
+                + '|' + tank.path("dimensions").toString() + '|' + tank.path("capacity").asText("")
+                + '|' + tank.path("offsetDepth").asText("");
+    }
+
+    private JsonNode fetch() throws IOException {
+        if (!source.startsWith("http://") && !source.startsWith("https://")) {
+            Path path = Paths.get(source);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified == lastModified) {
+                return null;
+            }
+            lastModified = modified;
+            return objectMapper.readTree(path.toFile());
+        }
+
+        String url = source;
+        if (lastGeneratedAt != null) {
+            url += (url.contains("?") ? "&" : "?") + "since=" + URLEncoder.encode(lastGeneratedAt, StandardCharsets.UTF_8.name());
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setRequestMethod("GET");
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("User-Agent", "TCP-Ingestion-Daemon/1.0");
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            int status = connection.getResponseCode();
+            if (status != 200) {
+                throw new IOException("HTTP " + status);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return objectMapper.readTree(in);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    public TankProfile get(long sensorId) {
+        return snapshot.get(sensorId);
+    }
+
+    /**
+     * Volume fields for a level reading, or null when the reading has no level or the device
+     * has no registered tank
+     */
+    public Map<String, Object> volumeFields(SensorReading reading) {
+        double raw = reading.get(SensorParameter.ULTRASONIC_LIQUID_LEVEL);
+        if (Double.isNaN(raw)) {
+            return null;
+        }
+        TankProfile profile = snapshot.get(reading.getSensorId());
+        if (profile == null) {
+            readingsUnmatched.incrementAndGet();
+            return null;
+        }
+        readingsEnriched.incrementAndGet();
+
+        double level = profile.liquidLevel(raw);
+        double liters = profile.litersAt(level);
+        Map<String, Object> volume = new LinkedHashMap<>();
+        volume.put("tankTypeId", profile.getTankTypeId());
+        volume.put("level", round(level, 3));
+        volume.put("volume", round(liters, 1));
+        volume.put("fillPercentage", round(profile.fillPercentage(liters), 2));
+        if (!Double.isInfinite(profile.getCapacityLiters())) {
+            volume.put("capacity", profile.getCapacityLiters());
+        }
+        volume.put("calculationMethod", "edge_lookup_" + profile.getShape());
+
+        Map<String, Object> fields = new HashMap<>(2);
+        fields.put("tankVolume", volume);
+        return fields;
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    public int size() { return snapshot.profiles.length; }
+    public long getReadingsEnriched() { return readingsEnriched.get(); }
+    public long getReadingsUnmatched() { return readingsUnmatched.get(); }
+    public long getTablesBuilt() { return tablesBuilt.get(); }
+
+    public void printStats() {
+        System.out.println("🛢️ Tank Volumes - Tanks: " + size()
+                + ", Enriched: " + readingsEnriched.get()
+                + ", Unregistered: " + readingsUnmatched.get()
+                + ", Tables built: " + tablesBuilt.get());
+    }
+
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.iot.tools;
+
+import com.iot.HttpBackendForwarder;
+import com.iot.TcpIngestionDaemon;
+import com.iot.sink.SensorRecord;
+import com.iot.sink.SensorSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk ingestion of "Bytes in Hex:" gateway logs, replacing the one-off Node reprocessing scripts.
+ *
+ * The file is split on line boundaries into chunks that a ForkJoinPool scans in parallel, each
+ * with its own {@link MappedLogScanner} (memory-mapped, no regex, spaced / colon / contiguous hex).
+ * Frames whose declared payload length doesn't fit are rejected. Valid frames are handed to the
+ * sink in batches; order is kept within a chunk but not across chunks.
+ */
+public class BulkLogIngester {
+    private static final long DEFAULT_CHUNK_BYTES = 32L * 1024 * 1024;
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int HEADER_HEX_CHARS = 32;
+
+    private final SensorSink sink;
+    private final int parallelism;
+    private final long chunkBytes;
+    private final int batchSize;
+
+    private final AtomicLong linesScanned = new AtomicLong();
+    private final AtomicLong framesFound = new AtomicLong();
+    private final AtomicLong framesRejected = new AtomicLong();
+    private final AtomicLong framesAccepted = new AtomicLong();
+    private final AtomicLong framesFailed = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private long bytesScanned;
+    private long elapsedNanos;
+
+    /**
+     * @param sink destination, or null to only parse and count
+     */
+    public BulkLogIngester(SensorSink sink, int parallelism, long chunkBytes, int batchSize) {
+        this.sink = sink;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkBytes = Math.max(64 * 1024, chunkBytes);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public BulkLogIngester(SensorSink sink) {
+        this(sink, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_BYTES, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Ingest the whole file and block until every batch has been accepted by the sink
+     */
+    public void ingest(Path logFile) throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            String clientInfo = "bulk-import:" + logFile.getFileName();
+            pool.invoke(new ChunkTask(channel, 0, size, clientInfo));
+            bytesScanned = size;
+        } finally {
+            pool.shutdown();
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Halves [start, end) at line boundaries until chunks are small enough to scan
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final String clientInfo;
+
+        ChunkTask(FileChannel channel, long start, long end, String clientInfo) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.clientInfo = clientInfo;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (end - start > chunkBytes) {
+                    long split = nextLineStart(channel, start + (end - start) / 2, end);
+                    if (split > start && split < end) {
+                        invokeAll(new ChunkTask(channel, start, split, clientInfo),
+                                  new ChunkTask(channel, split, end, clientInfo));
+                        return;
+                    }
+                }
+                scanChunk();
+            } catch (Exception e) {
+                throw new IllegalStateException("Chunk [" + start + ", " + end + ") failed: " + e.getMessage(), e);
+            }
+        }
+
+        private void scanChunk() throws Exception {
+            chunks.incrementAndGet();
+            MappedLogScanner scanner = new MappedLogScanner(null);
+            List<SensorRecord> batch = new ArrayList<>(batchSize);
+            long[] rejected = {0};
+            scanner.scan(channel, start, end, (timestampMillis, hex) -> {
+                if (!hasDeclaredPayload(hex)) {
+                    rejected[0]++;
+                    return true;
+                }
+                if (sink != null) {
+                    batch.add(toRecord(timestampMillis, hex, clientInfo));
+                    if (batch.size() == batchSize) {
+                        flush(batch);
+                    }
+                }
+                return true;
+            });
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+            linesScanned.addAndGet(scanner.getLinesScanned());
+            framesFound.addAndGet(scanner.getFramesFound() - rejected[0]);
+            framesRejected.addAndGet(scanner.getFramesRejected() + rejected[0]);
+        }
+
+        private void flush(List<SensorRecord> batch) throws Exception {
+            List<SensorRecord> records = new ArrayList<>(batch);
+            batch.clear();
+            // Waiting here paces the scan to the sink; other chunks keep going on their own threads
+            int accepted = sink.acceptBatch(records).get();
+            framesAccepted.addAndGet(accepted);
+            framesFailed.addAndGet(records.size() - accepted);
+        }
+    }
+
+    private static SensorRecord toRecord(long timestampMillis, byte[] hex, String clientInfo) {
+        String frame = new String(hex, StandardCharsets.US_ASCII);
+        if (timestampMillis < 0) {
+            return new SensorRecord(frame, clientInfo);
+        }
+        // Keep the log time in the forwarded payload
+        return new SensorRecord(frame, clientInfo, timestampMillis, null,
+                Map.of("timestamp", Instant.ofEpochMilli(timestampMillis).toString()));
+    }
+
+    /**
+     * First line start at or after {@code from} (the byte after the next newline), or {@code end}
+     */
+    static long nextLineStart(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < end) {
+            buf.clear();
+            int read = channel.read(buf, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && position + i < end; i++) {
+                if (buf.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * The header's payload length (hex chars 28-31) must fit in the frame, as the decoder requires
+     */
+    static boolean hasDeclaredPayload(byte[] hex) {
+        if (hex.length < HEADER_HEX_CHARS) {
+            return false;
+        }
+        int payloadBytes = 0;
+        for (int i = 28; i < 32; i++) {
+            byte b = hex[i];
+            payloadBytes = (payloadBytes << 4) | (b <= '9' ? b - '0' : b - 'A' + 10);
+        }
+        return payloadBytes <= 1024 && hex.length >= HEADER_HEX_CHARS + payloadBytes * 2;
+    }
+
+    public long getLinesScanned() { return linesScanned.get(); }
+    public long getFramesFound() { return framesFound.get(); }
+    public long getFramesRejected() { return framesRejected.get(); }
+    public long getFramesAccepted() { return framesAccepted.get(); }
+    public long getFramesFailed() { return framesFailed.get(); }
+    public long getChunks() { return chunks.get(); }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos > 0 ? bytesScanned / (1024.0 * 1024.0) / (elapsedNanos / 1e9) : 0;
+    }
+
+    public void printStats() {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("📊 Bulk ingest - %.1f MB in %.2fs (%.1f MB/s, %d chunks, %d threads)%n",
+                bytesScanned / (1024.0 * 1024.0), seconds, getMegabytesPerSecond(), chunks.get(), parallelism);
+        System.out.printf("   Lines: %d, Frames: %d (%.0f/s), Rejected: %d, Accepted by sink: %d, Failed: %d%n",
+                linesScanned.get(), framesFound.get(), seconds > 0 ? framesFound.get() / seconds : 0,
+                framesRejected.get(), framesAccepted.get(), framesFailed.get());
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            printUsage();
+            System.exit(1);
+        }
+
+        String sinkSpec = "http";
+        String backendUrl = "http://localhost:5000/api/sensor/raw-data";
+        String mongoUri = null;
+        String mongoDatabase = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long chunkBytes = DEFAULT_CHUNK_BYTES;
+        int batchSize = DEFAULT_BATCH_SIZE;
+        List<Path> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sink":
+                    sinkSpec = args[++i];
+                    break;
+                case "--backend":
+                case "-b":
+                    backendUrl = args[++i];
+                    break;
+                case "--mongo":
+                    mongoUri = args[++i];
+                    break;
+                case "--mongo-db":
+                    mongoDatabase = args[++i];
+                    break;
+                case "--threads":
+                case "-t":
+                    parallelism = Integer.parseInt(args[++i]);
+                    break;
+                case "--chunk-mb":
+                    chunkBytes = Long.parseLong(args[++i]) * 1024 * 1024;
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--count":
+                    sinkSpec = null;
+                    break;
+                default:
+                    files.add(Paths.get(args[i]));
+            }
+        }
+
+        HttpBackendForwarder forwarder = null;
+        SensorSink sink = null;
+        if (sinkSpec != null) {
+            if ("http".equals(sinkSpec)) {
+                forwarder = new HttpBackendForwarder(backendUrl);
+            }
+            if ("mongo".equals(sinkSpec) && mongoUri == null) {
+                System.err.println("❌ --sink mongo needs --mongo <uri>");
+                System.exit(1);
+            }
+            sink = TcpIngestionDaemon.createSink(sinkSpec, forwarder, mongoUri, mongoDatabase, 1000);
+            if (sink == null) {
+                System.err.println("❌ Unknown sink: " + sinkSpec);
+                System.exit(1);
+            }
+        }
+
+        try {
+            for (Path file : files) {
+                System.out.println("📂 Ingesting " + file);
+                BulkLogIngester ingester = new BulkLogIngester(sink, parallelism, chunkBytes, batchSize);
+                ingester.ingest(file);
+                ingester.printStats();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Bulk ingest failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            if (sink != null) {
+                sink.printStats();
+                sink.shutdown();
+            }
+            if (forwarder != null) {
+                forwarder.shutdown();
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java BulkLogIngester <logFile>... [options]");
+        System.out.println("Options:");
+        System.out.println("  --sink <spec>          http (default), http:<url>, ndjson:<dir>, console or mongo");
+        System.out.println("  -b, --backend <url>    Backend for the http sink");
+        System.out.println("  --mongo <uri>          MongoDB for the mongo sink (--mongo-db <name>)");
+        System.out.println("  -t, --threads <n>      Parallel scanners (default: available processors)");
+        System.out.println("  --chunk-mb <n>         Split size in MB (default: 32)");
+        System.out.println("  --batch <n>            Frames per sink batch (default: 1000)");
+        System.out.println("  --count                Only parse and count (measures scan MB/s)");
+    }
+}
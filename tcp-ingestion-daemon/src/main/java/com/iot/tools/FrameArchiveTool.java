@@ -0,0 +1,239 @@
+package com.iot.tools;
+
+import com.iot.HttpBackendForwarder;
+import com.iot.TcpIngestionDaemon;
+import com.iot.archive.FrameArchive;
+import com.iot.archive.FrameArchiveWriter;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.sink.ConsoleSink;
+import com.iot.sink.SensorRecord;
+import com.iot.sink.SensorSink;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line access to the frame archive:
+ * <pre>
+ *   import &lt;log&gt; &lt;archiveDir&gt;   convert a "Bytes in Hex:" gateway log into archive segments
+ *   scan &lt;archiveDir&gt;           re-emit frames in a time range / device set to a sink
+ * </pre>
+ * Scans read only the segments and blocks overlapping the query and hand frames to the sink a
+ * block at a time, waiting for each batch so a slow sink paces the scan. Progress goes to stderr
+ * so the console sink can be piped.
+ */
+public class FrameArchiveTool {
+    private static final int EMIT_BATCH = 1000;
+
+    private FrameArchiveTool() {
+    }
+
+    /**
+     * Import a gateway log; frames without a line timestamp are skipped
+     */
+    static long importLog(Path logFile, Path archiveDir, FrameArchive.Partitioning partitioning) throws Exception {
+        FrameArchiveWriter writer = new FrameArchiveWriter(archiveDir, partitioning, 4096, 5000, 1_000_000);
+        MappedLogScanner scanner = new MappedLogScanner(logFile);
+        long[] skipped = {0};
+        long[] malformed = {0};
+        scanner.scan((timestampMillis, hex) -> {
+            if (timestampMillis < 0) {
+                skipped[0]++;
+                return true;
+            }
+            // Validated up front, so a false from append below can only mean the queue is full
+            byte[] frame = FrameArchiveWriter.parseFrame(new String(hex, StandardCharsets.US_ASCII));
+            if (frame == null) {
+                malformed[0]++;
+                return true;
+            }
+            while (!writer.append(frame, timestampMillis)) {
+                Thread.sleep(1); // queue full: wait for the writer
+            }
+            return true;
+        });
+        writer.shutdown(1, TimeUnit.HOURS);
+
+        long logBytes = Files.size(logFile);
+        System.err.println("✅ Imported " + writer.getFramesWritten() + " frames (" + skipped[0] + " without timestamp, "
+                + malformed[0] + " malformed): " + logBytes + " log bytes -> " + writer.getBytesWritten()
+                + " archive bytes" + (writer.getBytesWritten() > 0
+                    ? String.format(" (%.1fx)", (double) logBytes / writer.getBytesWritten()) : ""));
+        return writer.getFramesWritten();
+    }
+
+    /**
+     * Re-emit matching frames to the sink; returns the number of frames emitted
+     */
+    static long scan(Path archiveDir, long fromMillis, long toMillis, Set<Long> sensorIds, SensorSink sink) throws Exception {
+        FrameArchive archive = new FrameArchive(archiveDir);
+        List<SensorRecord> batch = new ArrayList<>(EMIT_BATCH);
+        long[] emitted = {0};
+        long[] failed = {0};
+        long start = System.nanoTime();
+
+        archive.scan(fromMillis, toMillis, sensorIds, (timestampMillis, sensorId, frame) -> {
+            if (sink != null) {
+                String receivedAt = Instant.ofEpochMilli(timestampMillis).toString();
+                // Keep the original receive time in the forwarded payload
+                batch.add(new SensorRecord(SensorFrameDecoder.toHex(frame), "archive", timestampMillis, null,
+                        Map.of("timestamp", receivedAt)));
+                if (batch.size() == EMIT_BATCH) {
+                    failed[0] += batch.size() - sink.acceptBatch(new ArrayList<>(batch)).get();
+                    batch.clear();
+                }
+            }
+            emitted[0]++;
+            return true;
+        });
+        if (sink != null && !batch.isEmpty()) {
+            failed[0] += batch.size() - sink.acceptBatch(batch).get();
+        }
+
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        System.err.printf("✅ Scanned %d segments: %d frames (%d failed), %d blocks read, %d skipped, %d corrupt%n",
+                archive.getSegmentsScanned(), emitted[0], failed[0], archive.getBlocksRead(),
+                archive.getBlocksSkipped(), archive.getCorruptBlocks());
+        System.err.printf("⏱️ %.2fs, %.0f frames/s, %.1f MB/s compressed%n", seconds, emitted[0] / seconds,
+                archive.getCompressedBytesRead() / seconds / (1024 * 1024));
+        return emitted[0];
+    }
+
+    /**
+     * "2024-01-15T10:30:00Z", "2024-01-15T10:30" (UTC) or "2024-01-15"
+     */
+    static long parseTime(String value) {
+        if (value.endsWith("Z")) {
+            return Instant.parse(value).toEpochMilli();
+        }
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        }
+        return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            if ("import".equals(args[0]) && args.length >= 3) {
+                FrameArchive.Partitioning partitioning = FrameArchive.Partitioning.HOURLY;
+                for (int i = 3; i < args.length; i++) {
+                    if ("--partition".equals(args[i])) {
+                        partitioning = FrameArchive.Partitioning.parse(args[++i]);
+                    }
+                }
+                importLog(Paths.get(args[1]), Paths.get(args[2]), partitioning);
+                return;
+            }
+            if (!"scan".equals(args[0])) {
+                printUsage();
+                System.exit(1);
+            }
+
+            long from = Long.MIN_VALUE;
+            long to = Long.MAX_VALUE;
+            Set<Long> sensorIds = new HashSet<>();
+            String sinkSpec = "console";
+            String backendUrl = "http://localhost:5000/api/sensor/raw-data";
+            String mongoUri = null;
+            String mongoDatabase = null;
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--from":
+                        from = parseTime(args[++i]);
+                        break;
+                    case "--to":
+                        to = parseTime(args[++i]);
+                        break;
+                    case "--sensors":
+                        for (String id : args[++i].split(",")) {
+                            long sensorId = SensorFrameDecoder.parseSensorId(id.trim());
+                            if (sensorId < 0) {
+                                System.err.println("❌ Invalid sensorId: " + id);
+                                System.exit(1);
+                            }
+                            sensorIds.add(sensorId);
+                        }
+                        break;
+                    case "--sink":
+                        sinkSpec = args[++i];
+                        break;
+                    case "--backend":
+                        backendUrl = args[++i];
+                        break;
+                    case "--mongo":
+                        mongoUri = args[++i];
+                        break;
+                    case "--mongo-db":
+                        mongoDatabase = args[++i];
+                        break;
+                    case "--count":
+                        sinkSpec = null;
+                        break;
+                    default:
+                        System.err.println("⚠️ Unknown option: " + args[i]);
+                }
+            }
+
+            HttpBackendForwarder forwarder = null;
+            SensorSink sink = null;
+            if (sinkSpec != null) {
+                if ("http".equals(sinkSpec)) {
+                    forwarder = new HttpBackendForwarder(backendUrl);
+                }
+                if ("mongo".equals(sinkSpec) && mongoUri == null) {
+                    System.err.println("❌ --sink mongo needs --mongo <uri>");
+                    System.exit(1);
+                }
+                sink = "console".equals(sinkSpec)
+                    ? new ConsoleSink()
+                    : TcpIngestionDaemon.createSink(sinkSpec, forwarder, mongoUri, mongoDatabase, 1000);
+                if (sink == null) {
+                    System.err.println("❌ Unknown sink: " + sinkSpec);
+                    System.exit(1);
+                }
+            }
+            scan(Paths.get(args[1]), from, to, sensorIds.isEmpty() ? Collections.emptySet() : sensorIds, sink);
+            if (sink != null) {
+                sink.shutdown();
+            }
+            if (forwarder != null) {
+                forwarder.shutdown();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Archive tool error: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: java FrameArchiveTool import <logFile> <archiveDir> [--partition hourly|daily]");
+        System.out.println("       java FrameArchiveTool scan <archiveDir> [options]");
+        System.out.println("Scan options:");
+        System.out.println("  --from <time>          Start, inclusive: 2024-01-15, 2024-01-15T10:00 or ISO instant (UTC)");
+        System.out.println("  --to <time>            End, exclusive");
+        System.out.println("  --sensors <id,id>      Only these sensorIds (12 hex digits)");
+        System.out.println("  --sink <spec>          console (default), http[:<url>], ndjson:<dir> or mongo");
+        System.out.println("  --backend <url>        Backend for the http sink");
+        System.out.println("  --mongo <uri>          MongoDB for the mongo sink (--mongo-db <name>)");
+        System.out.println("  --count                Only count matching frames");
+    }
+}
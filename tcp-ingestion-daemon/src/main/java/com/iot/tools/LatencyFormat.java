@@ -0,0 +1,21 @@
+package com.iot.tools;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * One-line summary of an HdrHistogram holding latencies in microseconds, shared by the
+ * pipeline stats, the log replayer and the load tests so their reports read the same.
+ */
+public final class LatencyFormat {
+    private LatencyFormat() {
+    }
+
+    public static String describe(Histogram h) {
+        return String.format("n=%d p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                h.getTotalCount(),
+                h.getValueAtPercentile(50) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0,
+                h.getValueAtPercentile(99.9) / 1000.0,
+                h.getMaxValue() / 1000.0);
+    }
+}
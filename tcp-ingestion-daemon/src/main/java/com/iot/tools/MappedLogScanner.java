@@ -0,0 +1,229 @@
+package com.iot.tools;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Memory-mapped scanner for gateway logs containing "Bytes in Hex:" lines.
+ *
+ * The file is mapped in windows that always end on a line boundary, so logs larger than
+ * 2 GB work. Matching is a plain byte comparison (no regex, no per-line String), and the
+ * hex payload is copied once into an uppercase ASCII byte[] ready to be written to a socket.
+ */
+public class MappedLogScanner {
+    static final byte[] MARKER = "Bytes in Hex:".getBytes(StandardCharsets.US_ASCII);
+    private static final long DEFAULT_WINDOW_BYTES = 64L * 1024 * 1024;
+    private static final int MIN_FRAME_HEX_CHARS = 32;
+    // A timestamp-shaped prefix that is not a real date or time, e.g. 2024-02-30: the line is skipped
+    private static final long INVALID_TIMESTAMP = -2;
+
+    /**
+     * Receives each valid frame found in the log
+     */
+    public interface FrameHandler {
+        /**
+         * @param timestampMillis epoch millis parsed from the line prefix, or -1 when absent
+         * @param hex uppercase hex characters of the frame (no separators)
+         * @return false to stop scanning
+         */
+        boolean onFrame(long timestampMillis, byte[] hex) throws Exception;
+    }
+
+    private final Path path;
+    private final long windowBytes;
+
+    // Cached date component so only the time-of-day is parsed for most lines
+    private long cachedDateKey = -1;
+    private long cachedDateEpochMillis;
+
+    private long linesScanned = 0;
+    private long framesFound = 0;
+    private long framesRejected = 0;
+
+    public MappedLogScanner(Path path) {
+        this(path, DEFAULT_WINDOW_BYTES);
+    }
+
+    public MappedLogScanner(Path path, long windowBytes) {
+        this.path = path;
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Scan the whole file, calling the handler for every frame
+     */
+    public void scan(FrameHandler handler) throws Exception {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            scan(channel, 0, channel.size(), handler);
+        }
+    }
+
+    /**
+     * Scan [start, end) of an open channel. {@code start} must be at a line start.
+     */
+    public void scan(FileChannel channel, long start, long end, FrameHandler handler) throws Exception {
+        long position = start;
+        while (position < end) {
+            long length = Math.min(windowBytes, end - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            int limit = (int) length;
+            if (position + length < end) {
+                // Stop at the last newline so no line straddles two windows
+                int lastNewline = limit - 1;
+                while (lastNewline >= 0 && window.get(lastNewline) != '\n') {
+                    lastNewline--;
+                }
+                if (lastNewline >= 0) {
+                    limit = lastNewline + 1;
+                }
+            }
+
+            if (!scanWindow(window, limit, handler)) {
+                return;
+            }
+            position += limit;
+        }
+    }
+
+    private boolean scanWindow(MappedByteBuffer buf, int limit, FrameHandler handler) throws Exception {
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            linesScanned++;
+
+            int marker = indexOf(buf, MARKER, lineStart, lineEnd);
+            if (marker >= 0) {
+                byte[] hex = extractHex(buf, marker + MARKER.length, lineEnd);
+                long timestampMillis = hex != null ? parseTimestamp(buf, lineStart, lineEnd) : -1;
+                if (hex != null && timestampMillis != INVALID_TIMESTAMP) {
+                    framesFound++;
+                    if (!handler.onFrame(timestampMillis, hex)) {
+                        return false;
+                    }
+                } else {
+                    framesRejected++;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return true;
+    }
+
+    static int indexOf(MappedByteBuffer buf, byte[] needle, int from, int to) {
+        byte first = needle[0];
+        int last = to - needle.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (buf.get(i) != first) {
+                continue;
+            }
+            for (int j = 1; j < needle.length; j++) {
+                if (buf.get(i + j) != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Copy hex digits after the marker, skipping spaces and colons, uppercasing as we go.
+     * Returns null unless the result is a plausible FEDC frame.
+     */
+    static byte[] extractHex(MappedByteBuffer buf, int from, int to) {
+        int digits = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (isHexDigit(b)) {
+                digits++;
+            } else if (b != ' ' && b != ':' && b != '\t' && b != '\r') {
+                break;
+            }
+        }
+        if (digits < MIN_FRAME_HEX_CHARS || (digits & 1) != 0) {
+            return null;
+        }
+
+        byte[] hex = new byte[digits];
+        int n = 0;
+        for (int i = from; n < digits; i++) {
+            byte b = buf.get(i);
+            if (isHexDigit(b)) {
+                hex[n++] = (byte) (b >= 'a' ? b - 32 : b);
+            }
+        }
+        if (hex[0] != 'F' || hex[1] != 'E' || hex[2] != 'D' || hex[3] != 'C') {
+            return null;
+        }
+        return hex;
+    }
+
+    static boolean isHexDigit(byte b) {
+        return (b >= '0' && b <= '9') || (b >= 'A' && b <= 'F') || (b >= 'a' && b <= 'f');
+    }
+
+    /**
+     * Parse a "yyyy-MM-dd HH:mm:ss[.SSS]" line prefix as UTC epoch millis, -1 when there is none,
+     * or INVALID_TIMESTAMP when it names a date or time that does not exist
+     */
+    long parseTimestamp(MappedByteBuffer buf, int from, int to) {
+        if (to - from < 19 || buf.get(from + 4) != '-' || buf.get(from + 7) != '-'
+                || buf.get(from + 13) != ':' || buf.get(from + 16) != ':') {
+            return -1;
+        }
+        int year = digits(buf, from, 4);
+        int month = digits(buf, from + 5, 2);
+        int day = digits(buf, from + 8, 2);
+        int hour = digits(buf, from + 11, 2);
+        int minute = digits(buf, from + 14, 2);
+        int second = digits(buf, from + 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return -1;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59) {
+            return INVALID_TIMESTAMP;
+        }
+        int millis = 0;
+        if (to - from >= 23 && buf.get(from + 19) == '.') {
+            millis = Math.max(0, digits(buf, from + 20, 3));
+        }
+
+        long dateKey = year * 10000L + month * 100L + day;
+        if (dateKey != cachedDateKey) {
+            try {
+                cachedDateEpochMillis = LocalDate.of(year, month, day).toEpochDay() * 86_400_000L;
+            } catch (DateTimeException e) {
+                return INVALID_TIMESTAMP;
+            }
+            cachedDateKey = dateKey;
+        }
+        return cachedDateEpochMillis + ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+    }
+
+    private static int digits(MappedByteBuffer buf, int from, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = buf.get(from + i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    public long getLinesScanned() { return linesScanned; }
+    public long getFramesFound() { return framesFound; }
+    public long getFramesRejected() { return framesRejected; }
+}
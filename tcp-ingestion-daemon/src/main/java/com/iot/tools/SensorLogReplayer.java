@@ -1,54 +1,312 @@
 package com.iot.tools;
 
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Replays "Bytes in Hex:" gateway logs into the TCP daemon for load testing and backfills.
+ *
+ * The log is memory-mapped and scanned without regex ({@link MappedLogScanner}). Frames are
+ * spread over N persistent connections by sensorId, so each device keeps its ordering, and
+ * acks are read on a separate thread so frames are pipelined instead of lock-stepped.
+ * Pacing is either a fixed messages/sec or the original log timestamps scaled by a speed factor.
+ */
 public class SensorLogReplayer {
-    private static final Pattern HEX_LINE_PATTERN =
-            Pattern.compile("Bytes in Hex:\\s*([0-9A-Fa-f\\s]+)");
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final int MAX_IN_FLIGHT = 1024;
+    private static final long MIN_PARK_NANOS = 100_000;
+    private static final byte[] POISON = new byte[0];
+
+    private final String host;
+    private final int port;
+    private final int connections;
+    private final double rate;
+    private final double speed;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final Histogram ackLatency = new ConcurrentHistogram(3); // microseconds
+
+    /**
+     * @param rate target messages/sec across all connections, or 0 for unthrottled
+     * @param speed timestamp replay multiplier (e.g. 60 = one log hour per minute), or 0 to ignore timestamps
+     */
+    public SensorLogReplayer(String host, int port, int connections, double rate, double speed) {
+        this.host = host;
+        this.port = port;
+        this.connections = Math.max(1, connections);
+        this.rate = rate;
+        this.speed = speed;
+    }
+
+    /**
+     * Replay the log and block until every frame has been acked or the connections closed
+     */
+    public void replay(Path logFile) throws Exception {
+        ReplayConnection[] lanes = new ReplayConnection[connections];
+        for (int i = 0; i < connections; i++) {
+            lanes[i] = new ReplayConnection(i);
+        }
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replay-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        long start = System.nanoTime();
+        progress.scheduleAtFixedRate(() -> printProgress(start), 5, 5, TimeUnit.SECONDS);
+
+        MappedLogScanner scanner = new MappedLogScanner(logFile);
+        long[] firstLogTimestamp = {-1};
+        long[] lastLogTimestamp = {-1};
+        long[] index = {0};
+
+        scanner.scan((timestampMillis, hex) -> {
+            // System.nanoTime() may be negative, so no schedule is Long.MIN_VALUE rather than -1
+            long due = Long.MIN_VALUE;
+            if (speed > 0) {
+                long ts = timestampMillis >= 0 ? timestampMillis : lastLogTimestamp[0];
+                if (ts >= 0) {
+                    if (firstLogTimestamp[0] < 0) {
+                        firstLogTimestamp[0] = ts;
+                    }
+                    lastLogTimestamp[0] = ts;
+                    due = start + (long) ((ts - firstLogTimestamp[0]) * 1_000_000L / speed);
+                }
+            } else if (rate > 0) {
+                due = start + (long) (index[0] * 1_000_000_000L / rate);
+            }
+            index[0]++;
+
+            if (due != Long.MIN_VALUE) {
+                long wait = due - System.nanoTime();
+                if (wait > MIN_PARK_NANOS) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+
+            lanes[Math.floorMod(sensorIdHash(hex), connections)].queue.put(hex);
+            return true;
+        });
+
+        for (ReplayConnection lane : lanes) {
+            lane.queue.put(POISON);
+        }
+        for (ReplayConnection lane : lanes) {
+            lane.finished.await();
+        }
+        progress.shutdownNow();
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = elapsedNanos / 1e9;
+        long fileBytes = Files.size(logFile);
+
+        System.out.println("✅ Replay complete.");
+        System.out.println("   Lines scanned: " + scanner.getLinesScanned() + ", frames found: " + scanner.getFramesFound()
+                + ", rejected: " + scanner.getFramesRejected());
+        System.out.println("   Packets sent: " + sent.get() + ", acked OK: " + acked.get() + ", errors: " + errors.get());
+        System.out.println(String.format("   Elapsed: %.2fs, throughput: %.0f msg/s sent, %.0f msg/s acked, %.1f MB/s scanned",
+                seconds, sent.get() / seconds, acked.get() / seconds, fileBytes / 1e6 / seconds));
+        System.out.println("   Ack latency: " + LatencyFormat.describe(ackLatency));
+    }
+
+    private void printProgress(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("📊 Sent: %d, acked: %d, errors: %d, %.0f msg/s, ack p99=%.2fms",
+                sent.get(), acked.get(), errors.get(), sent.get() / seconds, ackLatency.getValueAtPercentile(99) / 1000.0));
+    }
+
+    /**
+     * FNV-1a over the 12 sensorId hex characters (frame offset 6..18)
+     */
+    static int sensorIdHash(byte[] hex) {
+        int hash = 0x811C9DC5;
+        int end = Math.min(18, hex.length);
+        for (int i = 6; i < end; i++) {
+            hash ^= hex[i];
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    /**
+     * One persistent connection: a writer thread draining its queue and an ack reader
+     * matching responses to send times in FIFO order.
+     */
+    private class ReplayConnection {
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final CountDownLatch finished = new CountDownLatch(1);
+        private final long[] sendTimes = new long[MAX_IN_FLIGHT];
+        private final AtomicLong writeIndex = new AtomicLong();
+        private final AtomicLong readIndex = new AtomicLong();
+        private final Socket socket;
+
+        ReplayConnection(int id) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 10_000);
+
+            Thread writer = new Thread(this::writeLoop, "replay-writer-" + id);
+            Thread reader = new Thread(this::ackLoop, "replay-acks-" + id);
+            writer.setDaemon(true);
+            reader.setDaemon(true);
+            writer.start();
+            reader.start();
+        }
+
+        private void writeLoop() {
+            try {
+                // Not closed via try-with-resources: that would close the socket before the acks are read
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+                while (true) {
+                    byte[] hex = queue.take();
+                    if (hex == POISON) {
+                        break;
+                    }
+                    while (writeIndex.get() - readIndex.get() >= MAX_IN_FLIGHT) {
+                        if (socket.isClosed()) {
+                            throw new IOException("connection closed by daemon");
+                        }
+                        out.flush();
+                        LockSupport.parkNanos(50_000);
+                    }
+                    sendTimes[(int) (writeIndex.get() % MAX_IN_FLIGHT)] = System.nanoTime();
+                    writeIndex.incrementAndGet();
+                    out.write(hex);
+                    out.write('\n');
+                    sent.incrementAndGet();
+                    if (queue.isEmpty()) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+                socket.shutdownOutput();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("❌ Replay connection write failed: " + e.getMessage());
+                closeQuietly();
+                discardUntilPoison();
+            }
+        }
+        
+        /**
+         * Keep the scanner from blocking on a dead lane: count its remaining frames as errors
+         */
+        private void discardUntilPoison() {
+            try {
+                while (queue.take() != POISON) {
+                    errors.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void ackLoop() {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    long index = readIndex.get();
+                    if (index < writeIndex.get()) {
+                        ackLatency.recordValue((System.nanoTime() - sendTimes[(int) (index % MAX_IN_FLIGHT)]) / 1000);
+                        readIndex.incrementAndGet();
+                    }
+                    if ("OK".equals(line)) {
+                        acked.incrementAndGet();
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Replay connection read failed: " + e.getMessage());
+            } finally {
+                closeQuietly();
+                finished.countDown();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closing
+            }
+        }
+    }
+
+    public long getSent() { return sent.get(); }
+    public long getAcked() { return acked.get(); }
+    public long getErrors() { return errors.get(); }
+    public Histogram getAckLatency() { return ackLatency; }
 
     public static void main(String[] args) {
         if (args.length < 3) {
-            System.out.println("Usage: java SensorLogReplayer <logFilePath> <host> <port> [delayMs]");
+            printUsage();
             System.exit(1);
         }
 
         String logFilePath = args[0];
         String host = args[1];
         int port = Integer.parseInt(args[2]);
-        long delayMs = args.length >= 4 ? Long.parseLong(args[3]) : 0;
-
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(logFilePath), StandardCharsets.UTF_8),
-                4000
-        );
-             Socket socket = new Socket(host, port);
-             PrintWriter writer = new PrintWriter(socket.getOutputStream(), true)) {
-
-            String line;
-            long sentCount = 0;
-
-            while ((line = reader.readLine()) != null) {
-                Matcher matcher = HEX_LINE_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    String hexData = matcher.group(1).replaceAll("\\s+", "").toUpperCase();
-
-                    if (hexData.startsWith("FEDC") && hexData.length() >= 32) {
-                        writer.println(hexData);
-                        sentCount++;
-                        if (delayMs > 0) Thread.sleep(delayMs);
+        int connections = 1;
+        double rate = 0;
+        double speed = 0;
+
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--connections":
+                case "-c":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "--rate":
+                case "-r":
+                    rate = Double.parseDouble(args[++i]);
+                    break;
+                case "--speed":
+                case "-s":
+                    speed = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    // Legacy positional [delayMs]: fixed gap between packets
+                    long delayMs = Long.parseLong(args[i]);
+                    if (delayMs > 0) {
+                        rate = 1000.0 / delayMs;
                     }
-                }
             }
+        }
 
-            System.out.println("✅ Replay complete. Packets sent: " + sentCount);
-
+        try {
+            new SensorLogReplayer(host, port, connections, rate, speed).replay(Paths.get(logFilePath));
         } catch (Exception e) {
             System.err.println("❌ Error during replay: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    private static void printUsage() {
+        System.out.println("Usage: java SensorLogReplayer <logFilePath> <host> <port> [delayMs] [options]");
+        System.out.println("Options:");
+        System.out.println("  -c, --connections <n>  Parallel connections, frames hashed by sensorId (default: 1)");
+        System.out.println("  -r, --rate <msg/s>     Target send rate across all connections (default: unthrottled)");
+        System.out.println("  -s, --speed <x>        Follow log timestamps, replaying x times faster than real time");
+    }
 }
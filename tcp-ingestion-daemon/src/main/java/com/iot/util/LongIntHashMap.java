@@ -0,0 +1,124 @@
+package com.iot.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing long → int map with no boxing, for tables keyed by the 48-bit sensorId.
+ *
+ * Not thread-safe. The daemon builds one of these off to the side and publishes it through a
+ * volatile reference; readers never see it being mutated.
+ */
+public final class LongIntHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private final int missingValue;
+
+    public LongIntHashMap(int expectedSize, int missingValue) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) * 2 - 1);
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.missingValue = missingValue;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int get(long key) {
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return missingValue;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                return true;
+            }
+            if (k == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Insert or replace; returns the previous value or the missing value
+     */
+    public int put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key Long.MIN_VALUE is reserved");
+        }
+        int i = mix(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            if (k == EMPTY) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > keys.length * LOAD_FACTOR) {
+                    resize();
+                }
+                return missingValue;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visit every entry (order unspecified)
+     */
+    public void forEach(LongIntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface LongIntConsumer {
+        void accept(long key, int value);
+    }
+}
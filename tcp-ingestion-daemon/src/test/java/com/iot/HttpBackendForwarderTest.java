@@ -1,5 +1,6 @@
 package com.iot;
 
+import com.iot.support.FakeBackendServer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
@@ -10,11 +11,16 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class HttpBackendForwarderTest {
     
+    private static final String VALID_HEX_DATA = "FEDC0116098522754E0000000103001E00000032000000640000000A00000014000000050000012C000000500000000000000001";
+    
+    private FakeBackendServer backend;
     private HttpBackendForwarder forwarder;
     
     @BeforeEach
-    void setUp() {
-        forwarder = new HttpBackendForwarder("http://localhost:5000/api/sensor/raw-data");
+    void setUp() throws Exception {
+        backend = new FakeBackendServer();
+        forwarder = new HttpBackendForwarder(backend.getRawDataUrl());
+        forwarder.setRetryBackoffMs(10);
     }
     
     @AfterEach
@@ -22,24 +28,57 @@ public class HttpBackendForwarderTest {
         if (forwarder != null) {
             forwarder.shutdown();
         }
+        if (backend != null) {
+            backend.close();
+        }
     }
     
     @Test
     void testValidHexDataForwarding() {
-        String validHexData = "FEDC0116098522754E0000000103001E00000032000000640000000A00000014000000050000012C000000500000000000000001";
+        System.out.println("Testing hex data forwarding with: " + VALID_HEX_DATA);
         
-        // This test requires the backend to be running
-        // In a real test environment, you might want to mock the HTTP calls
-        System.out.println("Testing hex data forwarding with: " + validHexData);
+        assertTrue(forwarder.testConnection(), "Health check against the fake backend should pass");
+        assertTrue(forwarder.forwardSensorData(VALID_HEX_DATA, "test-client"));
         
-        // Test connection first
-        boolean connectionOk = forwarder.testConnection();
-        System.out.println("Backend connection test: " + (connectionOk ? "PASSED" : "FAILED"));
+        assertEquals(1, backend.getAccepted());
+        String body = backend.getBodies().get(0);
+        assertTrue(body.contains("\"rawHexString\":\"" + VALID_HEX_DATA + "\""), body);
+        assertTrue(body.contains("\"source\":\"tcp-daemon\""), body);
+        assertTrue(body.contains("\"clientInfo\":\"test-client\""), body);
+    }
+    
+    @Test
+    void testServerErrorsAreRetried() {
+        backend.withServerErrorRate(1.0);
         
-        if (connectionOk) {
-            boolean result = forwarder.forwardSensorData(validHexData, "test-client");
-            System.out.println("Data forwarding test: " + (result ? "PASSED" : "FAILED"));
-        }
+        assertFalse(forwarder.forwardSensorData(VALID_HEX_DATA, "test-client"));
+        assertEquals(3, backend.getServerErrors(), "5xx responses should be retried up to MAX_RETRIES");
+        assertEquals(1, forwarder.getFailedRequests());
+    }
+    
+    @Test
+    void testClientErrorsAreNotRetried() {
+        backend.withClientErrorRate(1.0);
+        
+        assertFalse(forwarder.forwardSensorData(VALID_HEX_DATA, "test-client"));
+        assertEquals(1, backend.getClientErrors(), "4xx responses must not be retried");
+    }
+    
+    @Test
+    void testDroppedConnectionsAreRetried() {
+        backend.withDropRate(1.0);
+        
+        assertFalse(forwarder.forwardSensorData(VALID_HEX_DATA, "test-client"));
+        // HttpURLConnection may transparently re-send a POST once on a dropped connection
+        assertTrue(backend.getDropped() >= 3, "Dropped exchanges: " + backend.getDropped());
+        assertEquals(1, forwarder.getFailedRequests());
+    }
+    
+    @Test
+    void testUnhealthyBackendFailsHealthCheck() {
+        backend.withHealthy(false);
+        
+        assertFalse(forwarder.testConnection());
     }
     
     @Test
@@ -0,0 +1,311 @@
+package com.iot;
+
+import com.iot.buffer.BufferPool;
+import com.iot.latest.LatestValueCache;
+import com.iot.pipeline.IngestionPipeline;
+import com.iot.pipeline.Stage;
+import com.iot.protocol.SensorReading;
+import com.iot.sink.SensorRecord;
+import com.iot.sink.SensorSink;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.FakeBackendServer.LatencyDistribution;
+import com.iot.tools.LatencyFormat;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end tests: in-process daemon on an ephemeral port forwarding to {@link FakeBackendServer}.
+ *
+ * Throughput and latency floors can be tuned per machine with -Dit.minAckThroughput,
+ * -Dit.maxAckP99Millis and -Dit.minDeliveredThroughput.
+ */
+public class TcpIngestionDaemonIT {
+    private static final String FRAME = "FEDC0116098522754E0000000103001E00000032000000640000000A00000014000000050000012C000000500000000000000001";
+
+    private static final double MIN_ACK_THROUGHPUT = Double.parseDouble(System.getProperty("it.minAckThroughput", "500"));
+    private static final double MAX_ACK_P99_MILLIS = Double.parseDouble(System.getProperty("it.maxAckP99Millis", "100"));
+    private static final double MIN_DELIVERED_THROUGHPUT = Double.parseDouble(System.getProperty("it.minDeliveredThroughput", "100"));
+
+    private FakeBackendServer backend;
+    private EmbeddedDaemon daemon;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        backend = new FakeBackendServer().withRecordBodies(false);
+        daemon = new EmbeddedDaemon(backend.getRawDataUrl());
+        daemon.daemon().getBackendForwarder().setRetryBackoffMs(10);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (daemon != null) {
+            daemon.close();
+        }
+        if (backend != null) {
+            backend.close();
+        }
+    }
+
+    @Test
+    void testPingStatusAndInvalidFrames() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", daemon.port())) {
+            PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            writer.println("PING");
+            assertEquals("PONG", reader.readLine());
+
+            writer.println("STATUS");
+            assertTrue(reader.readLine().startsWith("OK - Messages:"));
+
+            writer.println("AAAA0116098522754E0000000103001E");
+            assertTrue(reader.readLine().startsWith("ERROR"));
+        }
+    }
+
+    @Test
+    void testFrameRefusedBySinkIsNotAcknowledged() throws Exception {
+        daemon.close();
+        TcpIngestionDaemon refusing = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+        // Like a Mongo sink whose queue is full: refused before accept returns
+        refusing.setSink(new SensorSink() {
+            @Override
+            public CompletableFuture<Boolean> accept(SensorRecord record) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            @Override
+            public String getName() { return "full"; }
+
+            @Override
+            public void printStats() {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        });
+        daemon = new EmbeddedDaemon(refusing);
+
+        try (Socket socket = new Socket("127.0.0.1", daemon.port())) {
+            PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            writer.println(FRAME);
+            assertTrue(reader.readLine().startsWith("ERROR"));
+        }
+        assertEquals(1, refusing.getFailureCount());
+    }
+
+    @Test
+    void testSustainedThroughputAndAckLatency() throws Exception {
+        int connections = 8;
+        int framesPerConnection = 500;
+        int total = connections * framesPerConnection;
+
+        Histogram ackLatency = new ConcurrentHistogram(3); // microseconds
+        long elapsedNanos = runClosedLoop(connections, framesPerConnection, ackLatency);
+        double ackThroughput = total / (elapsedNanos / 1e9);
+
+        long deliveryStart = System.nanoTime();
+        assertTrue(backend.awaitAccepted(total, 60, TimeUnit.SECONDS),
+                "Backend accepted only " + backend.getAccepted() + "/" + total);
+        double deliveredThroughput = total / ((System.nanoTime() - deliveryStart + elapsedNanos) / 1e9);
+
+        System.out.printf("📊 Ack: %.0f msg/s, %s | Delivered: %.0f msg/s%n",
+                ackThroughput, LatencyFormat.describe(ackLatency), deliveredThroughput);
+
+        assertEquals(total, ackLatency.getTotalCount());
+        assertTrue(ackThroughput >= MIN_ACK_THROUGHPUT,
+                String.format("Ack throughput %.0f msg/s below floor %.0f", ackThroughput, MIN_ACK_THROUGHPUT));
+        assertTrue(ackLatency.getValueAtPercentile(99) / 1000.0 <= MAX_ACK_P99_MILLIS,
+                String.format("Ack p99 %.2fms above ceiling %.2fms", ackLatency.getValueAtPercentile(99) / 1000.0, MAX_ACK_P99_MILLIS));
+        assertTrue(deliveredThroughput >= MIN_DELIVERED_THROUGHPUT,
+                String.format("Delivered throughput %.0f msg/s below floor %.0f", deliveredThroughput, MIN_DELIVERED_THROUGHPUT));
+    }
+
+    @Test
+    void testSlowAndFlakyBackendDoesNotStallAcks() throws Exception {
+        backend.withLatency(LatencyDistribution.exponential(20))
+               .withServerErrorRate(0.05)
+               .withClientErrorRate(0.01)
+               .withSlowRead(64, 1);
+
+        int connections = 4;
+        int framesPerConnection = 200;
+        int total = connections * framesPerConnection;
+
+        Histogram ackLatency = new ConcurrentHistogram(3); // microseconds
+        runClosedLoop(connections, framesPerConnection, ackLatency);
+        System.out.println("📊 Ack latency with degraded backend: " + LatencyFormat.describe(ackLatency));
+
+        assertTrue(ackLatency.getValueAtPercentile(99) / 1000.0 <= MAX_ACK_P99_MILLIS,
+                "Acks must not wait for a slow backend: " + LatencyFormat.describe(ackLatency));
+
+        TcpIngestionDaemon d = daemon.daemon();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (d.getSuccessCount() + d.getFailureCount() < total && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(total, d.getSuccessCount() + d.getFailureCount(), "Every frame should reach a final outcome");
+        assertTrue(backend.getServerErrors() > 0, "Error injection should have been exercised");
+
+        // Retried and failed requests must still hand their pooled bodies back, as must closed connections
+        BufferPool pool = d.getBufferPool();
+        daemon.close();
+        daemon = null;
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.getInUse() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, pool.getInUse(), "Unreleased buffers acquired at: " + pool.getOutstandingAllocations());
+    }
+
+    @Test
+    void testEmbeddedSubscriberReceivesReadingsOnDemand() throws Exception {
+        List<SensorReading> received = new CopyOnWriteArrayList<>();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        daemon.daemon().subscribe(new Flow.Subscriber<SensorReading>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(2);
+                subscribed.countDown();
+            }
+
+            @Override
+            public void onNext(SensorReading item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+
+        try (Socket socket = new Socket("127.0.0.1", daemon.port())) {
+            PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            for (int i = 0; i < 5; i++) {
+                writer.println(FRAME);
+                assertEquals("OK", reader.readLine());
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(2, received.size(), "only the requested readings are delivered");
+        assertEquals(0x16098522754EL, received.get(0).getSensorId());
+
+        subscription[0].request(10);
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(5, received.size());
+        assertEquals(5, daemon.daemon().getReadingPublisher().getDelivered());
+    }
+
+    @Test
+    void testStagedPipelineForwardsEveryFrameWithStageMetrics() throws Exception {
+        daemon.close();
+        TcpIngestionDaemon pipelined = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+        pipelined.getBackendForwarder().setRetryBackoffMs(10);
+        pipelined.setLatestValues(new LatestValueCache(1 << 20), null);
+        pipelined.setStagedPipeline(64);
+        daemon = new EmbeddedDaemon(pipelined);
+
+        int connections = 8;
+        int framesPerConnection = 500;
+        int total = connections * framesPerConnection;
+        Histogram ackLatency = new ConcurrentHistogram(3); // microseconds
+        runClosedLoop(connections, framesPerConnection, ackLatency);
+        assertTrue(backend.awaitAccepted(total, 60, TimeUnit.SECONDS),
+                "Backend accepted only " + backend.getAccepted() + "/" + total);
+
+        IngestionPipeline pipeline = pipelined.getPipeline();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pipeline.getStages().get(2).getProcessed() < total && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        pipeline.printStats();
+        assertEquals(total, pipeline.getOffered());
+        assertEquals(0, pipeline.getInFlight());
+        for (Stage stage : pipeline.getStages()) {
+            assertEquals(total, stage.getProcessed(), stage.getName());
+            assertEquals(total, stage.getLatency().getTotalCount(), stage.getName());
+            assertTrue(stage.getBatches() > 0 && stage.getBatches() <= total, stage.getName());
+            assertTrue(stage.getPeakDepth() <= stage.getCapacity(), stage.getName());
+        }
+        assertNotNull(pipelined.getLatestValues().get(0x16098522754EL), "enrich stage updated the latest values");
+    }
+
+    /**
+     * Each connection sends a frame and waits for its ack before sending the next one
+     */
+    private long runClosedLoop(int connections, int framesPerConnection, Histogram ackLatency) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(connections);
+        List<Future<Integer>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int c = 0; c < connections; c++) {
+            results.add(clients.submit(() -> {
+                int acked = 0;
+                try (Socket socket = new Socket("127.0.0.1", daemon.port())) {
+                    socket.setTcpNoDelay(true);
+                    PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    for (int i = 0; i < framesPerConnection; i++) {
+                        long sent = System.nanoTime();
+                        writer.println(FRAME);
+                        String response = reader.readLine();
+                        ackLatency.recordValue((System.nanoTime() - sent) / 1000);
+                        if ("OK".equals(response)) {
+                            acked++;
+                        }
+                    }
+                }
+                return acked;
+            }));
+        }
+
+        int acked = 0;
+        for (Future<Integer> result : results) {
+            acked += result.get(120, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+
+        assertEquals(connections * framesPerConnection, acked, "Every frame should be acked with OK");
+        return elapsed;
+    }
+}
@@ -0,0 +1,125 @@
+package com.iot.admission;
+
+import com.iot.alerts.EdgeAlertDispatcher;
+import com.iot.alerts.ThresholdEngine;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest {
+    private static final Pattern BUSY = Pattern.compile("ERROR: BUSY retry-after=(\\d+)");
+
+    private static String frame(String sensorId, double temperature) {
+        return SensorFrames.airQuality(sensorId, 1, 1, temperature, 50, 10, 20, 45.5, 2.0, 70);
+    }
+
+    /**
+     * Signals are sampled every few milliseconds; wait out the sample so the next call sees new values
+     */
+    private static AdmissionController.Level resample(AdmissionController admission) throws InterruptedException {
+        Thread.sleep(10);
+        return admission.level();
+    }
+
+    private static int retryAfter(String reply) {
+        Matcher matcher = BUSY.matcher(reply);
+        assertTrue(matcher.matches(), reply);
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    @Test
+    void testLevelsFollowEverySignalWithHysteresis() throws Exception {
+        AtomicInteger queued = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        double[] heap = {0.2};
+        AdmissionController admission = new AdmissionController();
+        admission.bind(queued::get, inFlight::get);
+        admission.setHeapUsage(() -> heap[0]);
+        admission.setQueueDepthLimits(100, 200);
+        admission.setInFlightLimits(10, 20);
+        admission.setHeapLimits(0.8, 0.9);
+        admission.setRetryAfterSeconds(3);
+
+        assertEquals(AdmissionController.Level.NORMAL, resample(admission));
+        String frame = frame(SensorFrames.AIR_QUALITY_SENSOR, 20);
+        assertTrue(admission.admitFrame(frame));
+
+        inFlight.set(10);
+        assertEquals(AdmissionController.Level.SOFT, resample(admission));
+        assertFalse(admission.admitFrame(frame), "no priority sensors or rules: every frame is shed");
+        assertTrue(admission.admitConnection(), "soft load still takes connections");
+        int softRetry = retryAfter(admission.busyReply());
+        assertTrue(softRetry >= 3 && softRetry <= 6, "jittered soft hint: " + softRetry);
+
+        // Stays soft until every signal is below 90% of its limit
+        inFlight.set(9);
+        assertEquals(AdmissionController.Level.SOFT, resample(admission));
+        inFlight.set(8);
+        assertEquals(AdmissionController.Level.NORMAL, resample(admission));
+
+        queued.set(250);
+        assertEquals(AdmissionController.Level.HARD, resample(admission));
+        assertFalse(admission.admitConnection());
+        int hardRetry = retryAfter(admission.busyReply());
+        assertTrue(hardRetry >= 12 && hardRetry <= 24, "jittered hard hint: " + hardRetry);
+        queued.set(185);
+        assertEquals(AdmissionController.Level.HARD, resample(admission));
+        queued.set(150);
+        assertEquals(AdmissionController.Level.SOFT, resample(admission));
+        queued.set(0);
+        heap[0] = 0.95;
+        Thread.sleep(100);
+        assertEquals(AdmissionController.Level.HARD, resample(admission), "heap alone is enough");
+
+        assertEquals(1, admission.getSoftEntered());
+        assertEquals(2, admission.getHardEntered());
+        assertEquals(1, admission.getShed());
+        assertEquals(1, admission.getRefusedConnections());
+        admission.printStats();
+    }
+
+    @Test
+    void testPriorityFramesPassUnderSoftLoadOnly() throws Exception {
+        Path rules = Files.createTempFile("thresholds", ".json");
+        ThresholdEngine engine = null;
+        try {
+            Files.writeString(rules, "[{\"parameter\":\"temperature\",\"thresholdType\":\"greater_than\","
+                    + "\"warningThreshold\":30,\"criticalThreshold\":40,\"isActive\":true}]");
+            engine = new ThresholdEngine(rules.toString(), new EdgeAlertDispatcher("http://127.0.0.1:9/api/alerts/edge"));
+            engine.start(0);
+
+            AtomicInteger inFlight = new AtomicInteger(15);
+            AdmissionController admission = new AdmissionController();
+            admission.bind(() -> 0, inFlight::get);
+            admission.setHeapUsage(() -> 0);
+            admission.setInFlightLimits(10, 20);
+            admission.setThresholdEngine(engine);
+            admission.setPrioritySensors(Set.of(SensorFrameDecoder.parseSensorId(SensorFrames.WEATHER_SENSOR)));
+            assertEquals(AdmissionController.Level.SOFT, resample(admission));
+
+            assertFalse(admission.admitFrame(frame("AABBCCDDEEFF", 20)), "ordinary frame is shed");
+            assertTrue(admission.admitFrame(frame("AABBCCDDEEFF", 45)), "a breaching reading gets through");
+            assertTrue(admission.admitFrame(SensorFrames.weather(SensorFrames.WEATHER_SENSOR, 1, 1,
+                    21.5, 55.2, 1013.25, 12, 30, 4.2, 270, 1.5, 800, 80)), "listed sensor gets through");
+            assertEquals(2, admission.getPriorityAdmitted());
+
+            inFlight.set(25);
+            assertEquals(AdmissionController.Level.HARD, resample(admission));
+            assertFalse(admission.admitFrame(frame("AABBCCDDEEFF", 45)), "nothing gets through under hard load");
+        } finally {
+            if (engine != null) {
+                engine.shutdown();
+            }
+            Files.deleteIfExists(rules);
+        }
+    }
+}
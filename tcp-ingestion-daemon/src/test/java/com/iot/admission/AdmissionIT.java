@@ -0,0 +1,88 @@
+package com.iot.admission;
+
+import com.iot.TcpIngestionDaemon;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.FakeBackendServer.LatencyDistribution;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionIT {
+    private static int order;
+
+    /**
+     * One frame and its reply; waits out the admission sample first so each frame sees the previous one's forward
+     */
+    private static String send(PrintWriter out, BufferedReader in, String sensorId) throws Exception {
+        Thread.sleep(10);
+        out.println(SensorFrames.airQuality(sensorId, 1, order++ & 0xFF, 20, 50, 10, 20, 45.5, 2.0, 70));
+        return in.readLine();
+    }
+
+    @Test
+    void testSlowBackendShedsFramesThenRefusesConnections() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(false)
+                .withLatency(LatencyDistribution.fixed(1_500))) {
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            AdmissionController admission = new AdmissionController();
+            admission.setInFlightLimits(2, 4);
+            admission.setHeapUsage(() -> 0);
+            admission.setPrioritySensors(Set.of(SensorFrameDecoder.parseSensorId(SensorFrames.AIR_QUALITY_SENSOR)));
+            daemon.setAdmissionController(admission);
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket socket = new Socket("127.0.0.1", embedded.port())) {
+                socket.setSoTimeout(10_000);
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+
+                // Ordinary sensor: shed once two forwards are in flight
+                String ordinary = "AABBCCDDEEFF";
+                assertEquals("OK", send(out, in, ordinary));
+                assertEquals("OK", send(out, in, ordinary));
+                assertTrue(send(out, in, ordinary).startsWith("ERROR: BUSY retry-after="));
+                assertEquals(AdmissionController.Level.SOFT, admission.getLevel());
+                out.println("PING");
+                assertEquals("PONG", in.readLine(), "commands are always answered");
+
+                // Priority sensor: still taken under soft load, until the hard limit
+                assertEquals("OK", send(out, in, SensorFrames.AIR_QUALITY_SENSOR));
+                assertEquals("OK", send(out, in, SensorFrames.AIR_QUALITY_SENSOR));
+                assertTrue(send(out, in, SensorFrames.AIR_QUALITY_SENSOR).startsWith("ERROR: BUSY retry-after="));
+                assertEquals(AdmissionController.Level.HARD, admission.getLevel());
+
+                try (Socket refused = new Socket("127.0.0.1", embedded.port())) {
+                    refused.setSoTimeout(10_000);
+                    BufferedReader refusedIn = new BufferedReader(
+                            new InputStreamReader(refused.getInputStream(), StandardCharsets.US_ASCII));
+                    assertTrue(refusedIn.readLine().startsWith("ERROR: BUSY retry-after="));
+                    assertNull(refusedIn.readLine());
+                }
+                assertEquals(1, admission.getRefusedConnections());
+                assertEquals(2, admission.getShed());
+
+                // Once the backend catches up, frames are taken again
+                assertTrue(backend.awaitAccepted(4, 30, TimeUnit.SECONDS));
+                long deadline = System.currentTimeMillis() + 10_000;
+                String reply;
+                do {
+                    Thread.sleep(40);
+                    reply = send(out, in, ordinary);
+                } while (!"OK".equals(reply) && System.currentTimeMillis() < deadline);
+                assertEquals("OK", reply);
+                assertEquals(AdmissionController.Level.NORMAL, admission.getLevel());
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.iot.aggregation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WindowAggregatorTest {
+    private static final long MINUTE = 60_000;
+    private static final long T0 = 1_700_000_040_000L - 1_700_000_040_000L % MINUTE;
+
+    private static SensorReading reading(String sensorId, long timestamp, double temperature) {
+        return SensorFrameDecoder.decode(
+                SensorFrames.airQuality(sensorId, 1, 1, temperature, 50, 10, 20, 40, 1.0, 70), timestamp);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> stats(Map<String, Object> rollup, String parameter) {
+        return (Map<String, Object>) ((Map<String, Object>) rollup.get("parameters")).get(parameter);
+    }
+
+    @Test
+    void testTumblingWindowClosesAfterGrace() {
+        WindowAggregator aggregator = new WindowAggregator(WindowSpec.parse("1m"), 10_000, 100);
+        List<Map<String, Object>> out = new ArrayList<>();
+
+        for (int s = 0; s < 60; s += 10) {
+            aggregator.add(reading(SensorFrames.AIR_QUALITY_SENSOR, T0 + s * 1000L, 20 + s / 10), T0 + s * 1000L, out::add);
+        }
+        aggregator.flush(T0 + 65_000, out::add);
+        assertTrue(out.isEmpty(), "window must stay open during the grace period");
+
+        // Out of order but within grace: still counted
+        aggregator.add(reading(SensorFrames.AIR_QUALITY_SENSOR, T0 + 30_000, 30), T0 + 66_000, out::add);
+        aggregator.flush(T0 + 70_000, out::add);
+        assertEquals(1, out.size());
+
+        Map<String, Object> temperature = stats(out.get(0), "temperature");
+        assertEquals(7L, temperature.get("count"));
+        assertEquals(20.0, temperature.get("min"));
+        assertEquals(30.0, temperature.get("max"));
+        assertEquals("tumbling", out.get(0).get("windowType"));
+        assertEquals(SensorFrames.AIR_QUALITY_SENSOR, out.get(0).get("sensorId"));
+
+        // Past the grace period the pane is closed: late, not applied
+        aggregator.add(reading(SensorFrames.AIR_QUALITY_SENSOR, T0 + 59_000, 99), T0 + 71_000, out::add);
+        assertEquals(1, aggregator.getLateReadings());
+        aggregator.flush(T0 + 10 * MINUTE, out::add);
+        assertEquals(1, out.size());
+        assertEquals(0, aggregator.getDeviceCount(), "idle devices are evicted");
+    }
+
+    @Test
+    void testSlidingWindowsMergePanes() {
+        WindowAggregator aggregator = new WindowAggregator(WindowSpec.parse("3m/1m"), 0, 100);
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (int m = 0; m < 3; m++) {
+            aggregator.add(reading(SensorFrames.AIR_QUALITY_SENSOR, T0 + m * MINUTE, 10 * (m + 1)), T0 + m * MINUTE, out::add);
+        }
+        aggregator.flush(T0 + 10 * MINUTE, out::add);
+
+        // Windows ending at +1m .. +5m contain at least one reading
+        assertEquals(5, out.size());
+        long[] counts = new long[out.size()];
+        for (int i = 0; i < out.size(); i++) {
+            counts[i] = (Long) stats(out.get(i), "temperature").get("count");
+        }
+        assertArrayEquals(new long[]{1, 2, 3, 2, 1}, counts);
+        assertEquals(20.0, stats(out.get(2), "temperature").get("avg"));
+        assertEquals("sliding", out.get(0).get("windowType"));
+    }
+
+    @Test
+    void testDeviceCapBoundsMemory() {
+        WindowAggregator aggregator = new WindowAggregator(WindowSpec.parse("1m"), 0, 2);
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (int d = 0; d < 5; d++) {
+            aggregator.add(reading(SensorFrames.hexId(0xA00000000000L + d), T0, 20), T0, out::add);
+        }
+        assertEquals(2, aggregator.getDeviceCount());
+        assertEquals(3, aggregator.getOverflowReadings());
+    }
+
+    @Test
+    void testRollupsArePostedAndRawForwardingIsOptional() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(true)) {
+            RollupForwarder forwarder = new RollupForwarder(backend.getUrl("/api/sensor/rollups"));
+            long[] now = {T0};
+            StreamingAggregation aggregation = new StreamingAggregation(
+                    List.of(WindowSpec.parse("1m"), WindowSpec.parse("5m")), 0, 100, forwarder, false);
+            aggregation.setClock(() -> now[0]);
+            assertFalse(aggregation.isForwardRaw());
+
+            aggregation.add(reading(SensorFrames.AIR_QUALITY_SENSOR, T0 + 1000, 21));
+            aggregation.add(reading(SensorFrames.WEATHER_SENSOR, T0 + 2000, 22));
+            now[0] = T0 + 5 * MINUTE;
+            aggregation.flush();
+
+            assertEquals(1, backend.getPathCount("/api/sensor/rollups"));
+            Map<?, ?> body = new ObjectMapper().readValue(backend.getBodies().get(0), Map.class);
+            assertEquals(4, ((List<?>) body.get("rollups")).size());
+            assertEquals(4, forwarder.getRollupsSent());
+            assertEquals(0, aggregation.getPendingCount());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.iot.alerts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThresholdEngineTest {
+    private static final String RULES = "{"
+            + "\"thresholds\":["
+            + "  {\"parameter\":\"temperature\",\"thresholdType\":\"greater_than\",\"warningThreshold\":30,\"criticalThreshold\":40,\"isActive\":true},"
+            + "  {\"parameter\":\"humidity\",\"thresholdType\":\"less_than\",\"warningThreshold\":20,\"criticalThreshold\":10,\"isActive\":true},"
+            + "  {\"parameter\":\"pm25\",\"thresholdType\":\"greater_than\",\"warningThreshold\":5,\"isActive\":false},"
+            + "  {\"parameter\":\"co2\",\"thresholdType\":\"greater_than\",\"warningThreshold\":1000}"
+            + "],"
+            + "\"deviceThresholds\":["
+            + "  {\"sensorId\":\"16098522754E\",\"parameter\":\"temperature\",\"thresholdType\":\"greater_than\",\"warningThreshold\":50,\"criticalThreshold\":60},"
+            + "  {\"sensorId\":\"16098522754E\",\"parameter\":\"ultrasonic_liquid_level\",\"thresholdType\":\"less_than\",\"warningThreshold\":1.0,\"criticalThreshold\":0.5}"
+            + "]}";
+
+    private FakeBackendServer backend;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        backend = new FakeBackendServer().withRecordBodies(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.close();
+    }
+
+    private static SensorReading airQuality(String sensorId, double temperature, double humidity, double level) {
+        return SensorFrameDecoder.decode(SensorFrames.airQuality(sensorId, 1, 1, temperature, humidity, 10, 20, 45.5, level, 70));
+    }
+
+    @Test
+    void testDecoderMatchesNodeScaling() {
+        SensorReading reading = SensorFrameDecoder.decode(SensorFrames.weather(
+                SensorFrames.WEATHER_SENSOR, 7, 3, 21.5, 55.2, 1013.25, 12, 30, 4.2, 270, 1.5, 800, 80));
+        assertNotNull(reading);
+        assertEquals("weather", reading.getSensorType());
+        assertEquals(21.5, reading.get(SensorParameter.TEMPERATURE));
+        assertEquals(1013.25, reading.get(SensorParameter.ATMOSPHERIC_PRESSURE));
+        assertEquals(270, reading.get(SensorParameter.WIND_DIRECTION));
+        assertEquals(-20, reading.get(SensorParameter.SIGNAL_RSSI_DBM));
+        assertFalse(reading.has(SensorParameter.NOISE));
+        assertNull(SensorFrameDecoder.decode("FEDC01"));
+    }
+
+    @Test
+    void testCompiledTableAppliesGlobalAndDeviceRules() throws Exception {
+        ThresholdTable table = ThresholdTable.compile(new ObjectMapper().readTree(RULES));
+        assertEquals(4, table.getRuleCount());
+        assertEquals(1, table.getDeviceCount());
+
+        List<String> hits = new ArrayList<>();
+        ThresholdTable.BreachHandler collect = (reading, parameter, value, critical, below, threshold) ->
+                hits.add(parameter.fieldName() + (critical ? ":critical" : ":warning") + (below ? ":low" : ":high"));
+
+        // Unknown device uses the global rules
+        assertEquals(2, table.evaluate(airQuality("AABBCCDDEEFF", 35, 5, 2.0), collect));
+        assertEquals(List.of("temperature:warning:high", "humidity:critical:low"), hits);
+
+        // The override raises the temperature limit and adds a low-level rule; humidity stays global
+        hits.clear();
+        assertEquals(2, table.evaluate(airQuality(SensorFrames.AIR_QUALITY_SENSOR, 45, 15, 0.4), collect));
+        assertEquals(List.of("humidity:warning:low", "ultrasonic_liquid_level:critical:low"), hits);
+
+        hits.clear();
+        assertEquals(0, table.evaluate(airQuality(SensorFrames.AIR_QUALITY_SENSOR, 25, 50, 2.0), collect));
+    }
+
+    @Test
+    void testBreachesAreDispatchedWithCooldown() throws Exception {
+        Path rules = Files.createTempFile("thresholds", ".json");
+        try {
+            Files.writeString(rules, RULES);
+            ThresholdEngine engine = new ThresholdEngine(rules.toString(),
+                    new EdgeAlertDispatcher(backend.getUrl("/api/alerts/edge")));
+            engine.start(0);
+
+            SensorReading hot = airQuality("AABBCCDDEEFF", 45, 50, 2.0);
+            engine.check(hot);
+            engine.check(hot);
+            assertEquals(2, engine.getBreaches());
+            assertEquals(1, engine.getAlertsRaised());
+
+            assertTrue(backend.awaitAccepted(1, 5, TimeUnit.SECONDS));
+            Map<?, ?> alert = new ObjectMapper().readValue(backend.getBodies().get(0), Map.class);
+            assertEquals("AABBCCDDEEFF", alert.get("sensorId"));
+            assertEquals("critical", alert.get("severity"));
+            assertEquals("high_temperature", alert.get("type"));
+            assertEquals(40.0, alert.get("threshold"));
+            assertEquals(1, backend.getPathCount("/api/alerts/edge"));
+
+            // Handler threads breaching at the same moment raise the alert once
+            SensorReading other = airQuality("112233445566", 45, 50, 2.0);
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        engine.check(other);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(2, engine.getAlertsRaised());
+
+            // Unchanged content is not recompiled
+            assertFalse(engine.reload());
+            engine.shutdown();
+        } finally {
+            Files.deleteIfExists(rules);
+        }
+    }
+}
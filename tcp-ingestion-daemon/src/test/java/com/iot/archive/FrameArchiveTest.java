@@ -0,0 +1,122 @@
+package com.iot.archive;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameArchiveTest {
+    private static final long HOUR = 3_600_000;
+    private static final long T0 = 1_704_067_200_000L; // 2024-01-01T00:00Z
+    private static final String[] SENSORS = {SensorFrames.AIR_QUALITY_SENSOR, "0A0B0C0D0E0F", "A1B2C3D4E5F6", "00000000BEEF"};
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 3 hours of frames, 4 sensors round-robin, one frame per second
+     */
+    private List<String> writeFrames(FrameArchiveWriter writer, int count) {
+        List<String> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String frame = SensorFrames.airQuality(SENSORS[i % SENSORS.length], 7, i & 0xFF,
+                    20 + (i % 50) / 10.0, 55, 12, 30, 41, 1.2 + (i % 7) / 100.0, 70);
+            frames.add(frame);
+            assertTrue(writer.append(frame, T0 + i * 1000L));
+        }
+        writer.shutdown(10, TimeUnit.SECONDS);
+        return frames;
+    }
+
+    @Test
+    void testRoundTripAcrossHourlySegments() throws Exception {
+        FrameArchiveWriter writer = new FrameArchiveWriter(dir, FrameArchive.Partitioning.HOURLY, 1000, 60_000, 20_000);
+        List<String> written = writeFrames(writer, 10_800);
+        assertEquals(10_800, writer.getFramesWritten());
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of("frames-2024-01-01T00.seg", "frames-2024-01-01T01.seg", "frames-2024-01-01T02.seg"),
+                    files.map(p -> p.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+        long hexBytes = written.stream().mapToLong(String::length).sum();
+        assertTrue(writer.getBytesWritten() * 8 < hexBytes,
+                "archive should be far smaller than the hex: " + writer.getBytesWritten() + " vs " + hexBytes);
+
+        List<String> read = new ArrayList<>();
+        List<Long> timestamps = new ArrayList<>();
+        FrameArchive archive = new FrameArchive(dir);
+        archive.scan(Long.MIN_VALUE, Long.MAX_VALUE, null, (ts, sensorId, frame) -> {
+            read.add(SensorFrameDecoder.toHex(frame));
+            timestamps.add(ts);
+            assertEquals(SensorFrameDecoder.toSensorIdHex(sensorId), read.get(read.size() - 1).substring(6, 18));
+            return true;
+        });
+        assertEquals(written, read);
+        assertEquals(T0 + 10_799_000L, timestamps.get(timestamps.size() - 1));
+        assertEquals(0, archive.getCorruptBlocks());
+    }
+
+    @Test
+    void testTimeRangeAndSensorFilterSkipBlocks() throws Exception {
+        FrameArchiveWriter writer = new FrameArchiveWriter(dir, FrameArchive.Partitioning.DAILY, 500, 60_000, 20_000);
+        writeFrames(writer, 10_800);
+
+        FrameArchive archive = new FrameArchive(dir);
+        long sensor = SensorFrameDecoder.parseSensorId("A1B2C3D4E5F6");
+        List<Long> timestamps = new ArrayList<>();
+        archive.scan(T0 + HOUR, T0 + 2 * HOUR, Set.of(sensor), (ts, sensorId, frame) -> {
+            assertEquals(sensor, sensorId);
+            timestamps.add(ts);
+            return true;
+        });
+        assertEquals(900, timestamps.size());
+        assertTrue(timestamps.stream().allMatch(ts -> ts >= T0 + HOUR && ts < T0 + 2 * HOUR));
+        assertTrue(archive.getBlocksSkipped() >= 14, "blocks outside the hour are skipped from their header");
+        assertTrue(archive.getBlocksRead() <= 9);
+
+        assertTrue(new FrameArchive(dir).segments(T0 + 2 * 86_400_000L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void testTruncatedTailEndsSegmentCleanly() throws Exception {
+        FrameArchiveWriter writer = new FrameArchiveWriter(dir, FrameArchive.Partitioning.HOURLY, 100, 60_000, 1000);
+        writeFrames(writer, 300);
+        Path segment = dir.resolve("frames-2024-01-01T00.seg");
+        byte[] bytes = Files.readAllBytes(segment);
+        // Half of the first block appended again: looks like a crash mid-write
+        Files.write(segment, java.util.Arrays.copyOf(bytes, bytes.length / 6), StandardOpenOption.APPEND);
+
+        FrameArchive archive = new FrameArchive(dir);
+        long[] count = {0};
+        archive.scan(Long.MIN_VALUE, Long.MAX_VALUE, null, (ts, sensorId, frame) -> ++count[0] > 0);
+        assertEquals(300, count[0]);
+        assertEquals(1, archive.getCorruptBlocks());
+    }
+
+    @Test
+    void testRejectsMalformedFrames() {
+        FrameArchiveWriter writer = new FrameArchiveWriter(dir, FrameArchive.Partitioning.HOURLY);
+        assertFalse(writer.append("FEDC0", T0));
+        assertFalse(writer.append("FEDC01ZZ", T0));
+        assertTrue(writer.append("FE DC 01 16 09 85 22 75 4E 00 00 00 07 01 00 00", T0));
+        writer.shutdown(5, TimeUnit.SECONDS);
+        assertEquals(2, writer.getRejected());
+        assertEquals(1, writer.getFramesWritten());
+
+        assertNull(FrameArchiveWriter.parseFrame("FEDC01ZZ"));
+        assertNull(FrameArchiveWriter.parseFrame("FEDC0116"), "too short to archive");
+        assertEquals(16, FrameArchiveWriter.parseFrame("FE DC 01 16 09 85 22 75 4E 00 00 00 07 01 00 00").length);
+    }
+}
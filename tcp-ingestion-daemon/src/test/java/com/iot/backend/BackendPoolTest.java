@@ -0,0 +1,111 @@
+package com.iot.backend;
+
+import com.iot.HttpBackendForwarder;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BackendPoolTest {
+
+    private static String frame(long sensorId) {
+        return SensorFrames.airQuality(String.format("%012X", sensorId), 1, 1, 21.5, 40, 12, 20, 45, 1.2, -70);
+    }
+
+    @Test
+    void testLeastOutstandingAndStickyRouting() {
+        BackendPool pool = new BackendPool(List.of("http://a/raw-data", "http://b/raw-data", "http://c/raw-data"));
+        pool.setEjection(60_000, 2);
+        BackendEndpoint a = pool.getEndpoints().get(0);
+        BackendEndpoint b = pool.getEndpoints().get(1);
+        BackendEndpoint c = pool.getEndpoints().get(2);
+        assertEquals("http://a/health", a.getHealthUrl());
+
+        pool.begin(a);
+        pool.begin(a);
+        pool.begin(b);
+        for (int i = 0; i < 20; i++) {
+            assertSame(c, pool.choose(frame(1), null), "fewest outstanding");
+        }
+        pool.begin(c);
+        assertSame(c, pool.choose(frame(1), b), "tie between b and c, b just failed");
+
+        // Sticky: a sensor always lands on the same endpoint, and sensors spread over all of them
+        pool.setSticky(true);
+        Set<BackendEndpoint> used = new HashSet<>();
+        for (long sensorId = 1; sensorId <= 100; sensorId++) {
+            BackendEndpoint target = pool.choose(frame(sensorId), null);
+            assertSame(target, pool.choose(frame(sensorId), null));
+            used.add(target);
+        }
+        assertEquals(3, used.size());
+
+        // Ejecting an endpoint moves only its own sensors
+        BackendEndpoint target = pool.choose(frame(7), null);
+        long otherSensor = 8;
+        while (pool.choose(frame(otherSensor), null) == target) {
+            otherSensor++;
+        }
+        BackendEndpoint otherTarget = pool.choose(frame(otherSensor), null);
+        pool.begin(target);
+        pool.record(target, 1_000_000, true);
+        pool.begin(target);
+        pool.record(target, 1_000_000, true);
+        assertFalse(target.isHealthy(), "ejected after 2 failures in a row");
+        assertNotSame(target, pool.choose(frame(7), null));
+        assertSame(otherTarget, pool.choose(frame(otherSensor), null));
+        assertEquals(2, pool.getHealthyCount());
+
+        // Still inside the ejection time: a passing probe does not bring it back yet
+        pool.recordProbe(target, true);
+        assertFalse(target.isHealthy());
+    }
+
+    @Test
+    void testFailingBackendIsEjectedAndReadmitted() throws Exception {
+        try (FakeBackendServer good = new FakeBackendServer().withRecordBodies(false);
+             FakeBackendServer bad = new FakeBackendServer().withRecordBodies(false)
+                     .withServerErrorRate(1.0).withHealthy(false)) {
+            HttpBackendForwarder forwarder = new HttpBackendForwarder(List.of(good.getRawDataUrl(), bad.getRawDataUrl()));
+            forwarder.setRetryBackoffMs(0);
+            BackendPool pool = forwarder.getBackends();
+            pool.setHealthIntervalMillis(50);
+            pool.setEjection(300, 3);
+            try {
+                assertTrue(forwarder.testConnection(), "one endpoint is enough");
+                forwarder.startHealthChecks();
+
+                // Every frame gets through: a failed attempt on the bad endpoint is retried on the good one
+                for (int i = 0; i < 20; i++) {
+                    assertTrue(forwarder.forwardSensorData(frame(i), "test-client"));
+                }
+                BackendEndpoint badEndpoint = pool.getEndpoints().get(1);
+                assertFalse(badEndpoint.isHealthy());
+                assertTrue(badEndpoint.getEjected() >= 1);
+                assertEquals(20, good.getAccepted());
+                assertTrue(bad.getServerErrors() <= 3, "not routed to once ejected: " + bad.getServerErrors());
+
+                // Recovered: re-admitted by the probes once the ejection time is over, then used again
+                bad.withServerErrorRate(0).withHealthy(true);
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (!badEndpoint.isHealthy() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertTrue(badEndpoint.isHealthy(), "re-admitted");
+                assertTrue(pool.getReadmitted() >= 1);
+                for (int i = 0; i < 20; i++) {
+                    assertTrue(forwarder.forwardSensorData(frame(i), "test-client"));
+                }
+                assertTrue(bad.getAccepted() > 0, "routed to again");
+                assertEquals(40, good.getAccepted() + bad.getAccepted());
+            } finally {
+                forwarder.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.iot.backend;
+
+import com.iot.HttpBackendForwarder;
+import com.iot.limit.ConcurrencyLimit;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.FakeBackendServer.LatencyDistribution;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgingTest {
+
+    private static String frame(long sensorId) {
+        return SensorFrames.airQuality(String.format("%012X", sensorId), 1, 1, 21.5, 40, 12, 20, 45, 1.2, -70);
+    }
+
+    @Test
+    void testDelayFollowsPercentileAndBudgetCapsHedges() {
+        HedgePolicy policy = new HedgePolicy(95, 10);
+        assertEquals(Long.MAX_VALUE, policy.getDelayNanos(), "no hedging before enough samples");
+        for (int i = 1; i <= 64; i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(61, TimeUnit.NANOSECONDS.toMillis(policy.getDelayNanos()));
+
+        // Ten saved up, then one per ten forwards
+        for (int i = 0; i < 10; i++) {
+            assertTrue(policy.tryHedge());
+        }
+        assertFalse(policy.tryHedge());
+        for (int i = 0; i < 10; i++) {
+            policy.onRequest();
+        }
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+        assertEquals(11, policy.getHedged());
+        assertEquals(2, policy.getDenied());
+    }
+
+    @Test
+    void testStalledEndpointIsHedgedWithTheSameIdempotencyKey() throws Exception {
+        try (FakeBackendServer fast = new FakeBackendServer();
+             FakeBackendServer stalled = new FakeBackendServer()) {
+            HttpBackendForwarder forwarder = new HttpBackendForwarder(List.of(fast.getRawDataUrl(), stalled.getRawDataUrl()));
+            forwarder.setRetryBackoffMs(0);
+            BackendPool pool = forwarder.getBackends();
+            pool.setSticky(true);
+            HedgePolicy policy = new HedgePolicy(95, 100);
+            forwarder.setHedging(policy);
+            try {
+                for (int i = 0; i < 64; i++) {
+                    assertTrue(forwarder.forwardSensorData(frame(i), "test-client"));
+                }
+                assertTrue(policy.getDelayNanos() < TimeUnit.SECONDS.toNanos(1), "hedge delay learned from warm-up");
+                long hedgedBefore = policy.getHedged();
+
+                // One instance stalls, as in a long GC pause: its sensors are answered by the other
+                stalled.withLatency(LatencyDistribution.fixed(2_000));
+                BackendEndpoint stalledEndpoint = pool.getEndpoints().get(1);
+                int sent = 0;
+                for (long sensorId = 1_000; sent < 5; sensorId++) {
+                    if (pool.choose(frame(sensorId), null) != stalledEndpoint) {
+                        continue;
+                    }
+                    long started = System.nanoTime();
+                    assertTrue(forwarder.forwardSensorData(frame(sensorId), "test-client"));
+                    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    assertTrue(millis < 1_500, "answered by the hedge after " + millis + " ms");
+                    sent++;
+                }
+                assertEquals(5, policy.getHedged() - hedgedBefore);
+                assertTrue(policy.getWon() >= 5, "hedges won: " + policy.getWon());
+
+                // Both copies of a hedged forward carry the same key, so the backend can keep one
+                List<String> fastKeys = fast.getIdempotencyKeys();
+                List<String> stalledKeys = stalled.getIdempotencyKeys();
+                assertEquals(64 + 2 * 5, fastKeys.size() + stalledKeys.size());
+                assertTrue(fastKeys.containsAll(stalledKeys.subList(stalledKeys.size() - 5, stalledKeys.size())));
+                assertTrue(fast.getBodies().get(0).contains("\"idempotencyKey\":\"" + fastKeys.get(0) + "\""));
+                assertEquals(0, stalledEndpoint.getOutstanding(), "primaries cut short by their hedge are given back");
+            } finally {
+                forwarder.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testHedgesTakeAConcurrencySlotAndClientErrorsDecide() throws Exception {
+        try (FakeBackendServer fast = new FakeBackendServer();
+             FakeBackendServer stalled = new FakeBackendServer()) {
+            HttpBackendForwarder forwarder = new HttpBackendForwarder(List.of(fast.getRawDataUrl(), stalled.getRawDataUrl()));
+            forwarder.setRetryBackoffMs(0);
+            forwarder.setConcurrencyLimit(ConcurrencyLimit.fixed(1));
+            BackendPool pool = forwarder.getBackends();
+            pool.setSticky(true);
+            HedgePolicy policy = new HedgePolicy(95, 100);
+            forwarder.setHedging(policy);
+            try {
+                for (int i = 0; i < 64; i++) {
+                    assertTrue(forwarder.forwardSensorData(frame(i), "test-client"));
+                }
+                BackendEndpoint stalledEndpoint = pool.getEndpoints().get(1);
+                long sensorId = 1_000;
+                while (pool.choose(frame(sensorId), null) != stalledEndpoint) {
+                    sensorId++;
+                }
+
+                // The only slot is taken: the hedge is not sent and the slow primary answers
+                stalled.withLatency(LatencyDistribution.fixed(300));
+                assertTrue(forwarder.getExecutor().tryAcquire());
+                long started = System.nanoTime();
+                assertTrue(forwarder.forwardSensorData(frame(sensorId), "test-client"));
+                assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(250));
+                assertEquals(1, policy.getLimited());
+                assertEquals(0, policy.getHedged());
+                forwarder.getExecutor().release();
+                assertEquals(0, forwarder.getExecutor().getInFlight());
+
+                // A client error from the hedge is an answer: no waiting for the primary, no retry
+                stalled.withLatency(LatencyDistribution.fixed(2_000));
+                fast.withClientErrorRate(1.0);
+                started = System.nanoTime();
+                assertFalse(forwarder.forwardSensorData(frame(sensorId), "test-client"));
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                assertTrue(millis < 1_500, "decided by the hedge after " + millis + " ms");
+                assertEquals(1, policy.getHedged());
+                assertEquals(0, policy.getWon());
+                assertEquals(0, forwarder.getExecutor().getInFlight(), "the hedge gave its slot back");
+            } finally {
+                forwarder.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.iot.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BufferPoolTest {
+
+    @Test
+    void testSizeClassesReuseAndBudget() {
+        BufferPool pool = new BufferPool(2L << 20, false);
+        PooledBuffer small = pool.acquire(100);
+        assertEquals(256, small.capacity());
+        assertTrue(small.buffer().isDirect());
+        PooledBuffer medium = pool.acquire(3000);
+        assertEquals(4096, medium.capacity());
+        assertEquals(2L << 20, pool.getReservedBytes(), "one slab per size class in use");
+        assertEquals(256 + 4096, pool.getInUseBytes());
+
+        small.buffer().put((byte) 7);
+        small.release();
+        PooledBuffer again = pool.acquire(200);
+        assertEquals(0, again.buffer().position(), "reused buffers come back cleared");
+        assertEquals(256 + 4096, pool.getInUseBytes());
+        assertThrows(IllegalStateException.class, small::release);
+        assertThrows(IllegalStateException.class, small::buffer);
+
+        // Budget spent: another class falls back to the heap, as does anything above 64 KB
+        PooledBuffer overBudget = pool.acquire(1024);
+        assertFalse(overBudget.isPooled());
+        assertFalse(overBudget.buffer().isDirect());
+        PooledBuffer huge = pool.acquire(1 << 20);
+        assertFalse(huge.isPooled());
+        assertEquals(2, pool.getUnpooled());
+        overBudget.release();
+        huge.release();
+        again.release();
+        medium.release();
+        assertEquals(0, pool.getInUse());
+        pool.printStats();
+    }
+
+    @Test
+    void testUnreleasedBufferIsReportedAndReclaimed() throws Exception {
+        BufferPool pool = new BufferPool(1L << 20, true);
+        PooledBuffer kept = pool.acquire(256);
+        acquireAndForget(pool);
+        assertEquals(2, pool.getInUse());
+        assertEquals(2, pool.getOutstandingAllocations().size());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        int found = 0;
+        while (found == 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(20);
+            found = pool.reclaimLeaks();
+        }
+        assertEquals(1, found);
+        assertEquals(1, pool.getLeaks());
+        assertEquals(1, pool.getInUse(), "the leaked buffer went back to its free list");
+        assertTrue(pool.getOutstandingAllocations().get(0).getStackTrace().length > 0);
+
+        kept.release();
+        assertEquals(0, pool.getInUse());
+        assertTrue(pool.getOutstandingAllocations().isEmpty());
+    }
+
+    private static void acquireAndForget(BufferPool pool) {
+        pool.acquire(256).buffer().put((byte) 1);
+    }
+
+    @Test
+    void testOutputStreamGrowsAcrossClassesAndReplays() throws Exception {
+        BufferPool pool = new BufferPool(8L << 20, true);
+        PooledOutputStream body = new PooledOutputStream(pool, 256);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            String chunk = "{\"i\":" + i + "}";
+            expected.append(chunk);
+            body.write(chunk.getBytes(StandardCharsets.UTF_8));
+        }
+        body.close();
+        assertEquals(expected.length(), body.size());
+        assertEquals(expected.toString(), body.toString());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            ByteArrayOutputStream sent = new ByteArrayOutputStream();
+            body.writeTo(sent);
+            assertEquals(expected.toString(), sent.toString(StandardCharsets.UTF_8));
+        }
+        assertEquals(1, pool.getInUse(), "smaller buffers were returned while growing");
+
+        // A hedge still sending holds the buffer after the forward itself lets go
+        body.retain();
+        body.release();
+        assertEquals(1, pool.getInUse());
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        body.writeTo(sent);
+        assertEquals(expected.length(), sent.size());
+        body.release();
+        assertEquals(0, pool.getInUse());
+    }
+}
@@ -0,0 +1,90 @@
+package com.iot.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledLineReaderTest {
+
+    /**
+     * Hands out at most {@code chunk} bytes per read, like a socket delivering partial segments
+     */
+    private static ReadableByteChannel trickle(String text, int chunk) {
+        ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1)));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                ByteBuffer limited = dst.slice();
+                limited.limit(Math.min(chunk, limited.remaining()));
+                int n = source.read(limited);
+                if (n > 0) {
+                    dst.position(dst.position() + n);
+                }
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return source.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                source.close();
+            }
+        };
+    }
+
+    @Test
+    void testSplitsLinesAcrossPartialReads() throws Exception {
+        BufferPool pool = new BufferPool(4L << 20, true);
+        String frame = "FEDC0116098522754E0000000103001E00000032000000640000000A";
+        try (PooledLineReader reader = new PooledLineReader(trickle("PING\r\n" + frame + "\n\nSTATUS", 7), pool)) {
+            assertEquals("PING", reader.readLine());
+            assertEquals(frame, reader.readLine());
+            assertEquals("", reader.readLine());
+            assertEquals("STATUS", reader.readLine(), "last line without a terminator");
+            assertNull(reader.readLine());
+        }
+        assertEquals(0, pool.getInUse());
+    }
+
+    @Test
+    void testCompactsAndGrowsForLongLines() throws Exception {
+        BufferPool pool = new BufferPool(4L << 20, true);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("LINE-").append(i).append('\n');
+        }
+        String longLine = "A".repeat(10_000);
+        text.append(longLine).append('\n').append("after\n");
+
+        try (PooledLineReader reader = new PooledLineReader(trickle(text.toString(), 1000), pool)) {
+            for (int i = 0; i < 500; i++) {
+                assertEquals("LINE-" + i, reader.readLine());
+            }
+            assertEquals(longLine, reader.readLine());
+            assertEquals("after", reader.readLine());
+            assertNull(reader.readLine());
+            assertEquals(1, pool.getInUse(), "moved to a bigger class and returned the small buffer");
+        }
+        assertEquals(0, pool.getInUse());
+    }
+
+    @Test
+    void testRejectsLineLongerThanLimit() throws Exception {
+        BufferPool pool = new BufferPool(4L << 20, true);
+        try (PooledLineReader reader = new PooledLineReader(trickle("B".repeat(5000) + "\n", 512), pool, 4096)) {
+            IOException e = assertThrows(IOException.class, reader::readLine);
+            assertTrue(e.getMessage().contains("4096"));
+        }
+        assertEquals(0, pool.getInUse());
+    }
+}
@@ -0,0 +1,124 @@
+package com.iot.connection;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.TcpIngestionDaemon;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionLifecycleIT {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testLimitStatusAndTimeouts() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(false)) {
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            ConnectionManager connections = new ConnectionManager(2, 2_000, 800, new TimerWheel(20, 64));
+            daemon.setConnectionManager(connections);
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket idle = new Socket("127.0.0.1", embedded.port());
+                 Socket slow = new Socket("127.0.0.1", embedded.port())) {
+                PrintWriter idleOut = new PrintWriter(idle.getOutputStream(), true);
+                BufferedReader idleIn = reader(idle);
+                PrintWriter slowOut = new PrintWriter(slow.getOutputStream(), true);
+                BufferedReader slowIn = reader(slow);
+
+                slowOut.println("PING");
+                assertEquals("PONG", slowIn.readLine());
+                idleOut.println("STATUS");
+                String status = idleIn.readLine();
+                assertTrue(status.startsWith("OK - Messages:"), status);
+                assertTrue(status.contains("Connections: 2/2"), status);
+
+                // Third connection is refused with a reason, not left waiting
+                try (Socket refused = new Socket("127.0.0.1", embedded.port())) {
+                    BufferedReader refusedIn = reader(refused);
+                    assertEquals("ERROR: Too many connections (max 2)", refusedIn.readLine());
+                    assertNull(refusedIn.readLine());
+                }
+                assertEquals(1, connections.getRejected());
+
+                idleOut.println("STATUS CONNECTIONS");
+                String reply = idleIn.readLine();
+                assertTrue(reply.startsWith("OK ["), reply);
+                JsonNode rows = MAPPER.readTree(reply.substring(3));
+                assertEquals(2, rows.size());
+                assertEquals(2, rows.get(0).get("lines").asLong(), "STATUS and STATUS CONNECTIONS");
+                assertTrue(rows.get(0).get("ageMs").asLong() >= rows.get(1).get("ageMs").asLong());
+                assertTrue(rows.get(0).has("idleMs"));
+
+                // Half a frame and then nothing: closed by the read timeout, long before the idle timeout
+                long sentAt = System.nanoTime();
+                OutputStream raw = slow.getOutputStream();
+                raw.write("FEDC0116".getBytes(StandardCharsets.US_ASCII));
+                raw.flush();
+                assertNull(slowIn.readLine(), "daemon closes the connection");
+                long slowClosedMillis = (System.nanoTime() - sentAt) / 1_000_000;
+                assertTrue(slowClosedMillis >= 800 && slowClosedMillis < 1_900, "closed after " + slowClosedMillis + " ms");
+                assertEquals(1, connections.getReadTimeouts());
+
+                // Silent connection: closed by the idle timeout
+                assertNull(idleIn.readLine(), "daemon closes the idle connection");
+                assertEquals(1, connections.getIdleClosed());
+                waitForOpen(connections, 0);
+
+                // Slots are free again
+                try (Socket again = new Socket("127.0.0.1", embedded.port())) {
+                    PrintWriter againOut = new PrintWriter(again.getOutputStream(), true);
+                    againOut.println("PING");
+                    assertEquals("PONG", reader(again).readLine());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testConnectionsBeyondHandlerThreadsAreRefused() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(false)) {
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            ConnectionManager connections = new ConnectionManager(10, 0, 0);
+            daemon.setConnectionManager(connections);
+            daemon.setHandlerThreads(1);
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket served = new Socket("127.0.0.1", embedded.port())) {
+                PrintWriter servedOut = new PrintWriter(served.getOutputStream(), true);
+                servedOut.println("PING");
+                assertEquals("PONG", reader(served).readLine());
+
+                // The only handler thread is busy: refused now, not left unread in the pool's queue
+                try (Socket refused = new Socket("127.0.0.1", embedded.port())) {
+                    BufferedReader refusedIn = reader(refused);
+                    assertEquals("ERROR: Too many connections (max 1)", refusedIn.readLine());
+                    assertNull(refusedIn.readLine());
+                }
+                assertEquals(1, connections.getRejected());
+                assertEquals(1, connections.getLimit());
+            }
+        }
+    }
+
+    private static BufferedReader reader(Socket socket) throws Exception {
+        socket.setSoTimeout(10_000);
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+    }
+
+    private static void waitForOpen(ConnectionManager connections, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (connections.getOpen() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, connections.getOpen());
+    }
+}
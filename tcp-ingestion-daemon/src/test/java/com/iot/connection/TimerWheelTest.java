@@ -0,0 +1,74 @@
+package com.iot.connection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimerWheelTest {
+
+    @Test
+    void testFiresInDeadlineOrderAcrossRoundsAndNeverEarly() throws Exception {
+        // 8 slots of 10 ms: the wheel turns every 80 ms, so the longer delays need several rounds
+        TimerWheel wheel = new TimerWheel(10, 8);
+        wheel.start();
+        try {
+            long[] delays = {250, 5, 120, 75, 0, 165};
+            List<Long> fired = new CopyOnWriteArrayList<>();
+            List<String> early = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(delays.length);
+            long startNanos = System.nanoTime();
+            for (long delay : delays) {
+                wheel.schedule(() -> {
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    if (elapsed < delay) {
+                        early.add(delay + " ms timer fired after " + elapsed + " ms");
+                    }
+                    fired.add(delay);
+                    done.countDown();
+                }, delay);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(), early);
+            assertEquals(List.of(0L, 5L, 75L, 120L, 165L, 250L), fired);
+            assertEquals(6, wheel.getExpired());
+            assertEquals(0, wheel.getPending());
+        } finally {
+            wheel.shutdown();
+        }
+    }
+
+    @Test
+    void testCancelledTimersDoNotRun() throws Exception {
+        TimerWheel wheel = new TimerWheel(10, 8);
+        wheel.start();
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            List<String> fired = new CopyOnWriteArrayList<>();
+            TimerWheel.Timeout early = wheel.schedule(() -> fired.add("early"), 30);
+            TimerWheel.Timeout far = wheel.schedule(() -> fired.add("far"), 200);
+            wheel.schedule(() -> {
+                fired.add("kept");
+                ran.countDown();
+            }, 60);
+            early.cancel();
+            Thread.sleep(100);
+            far.cancel();
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (wheel.getPending() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(List.of("kept"), fired);
+            assertEquals(2, wheel.getCancelled(), "cancelled timers are unlinked when their slot comes round");
+            assertEquals(0, wheel.getPending());
+        } finally {
+            wheel.shutdown();
+        }
+    }
+}
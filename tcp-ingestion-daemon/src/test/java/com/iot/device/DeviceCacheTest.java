@@ -0,0 +1,117 @@
+package com.iot.device;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.TcpIngestionDaemon;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeviceCacheTest {
+    private static final String DEVICE_A = "65f0c0ffee0000000000000a";
+    private static final String DEVICE_B = "65F0C0FFEE0000000000000B";
+    private static final long SENSOR_A = 0x16098522754EL;
+    private static final long SENSOR_B = 0x124A7DA90849L;
+    private static final long SENSOR_X = 0xA1B2C3D4E5F6L;
+
+    private static final String EXPORT = "{\"generatedAt\":\"2024-05-01T10:00:00Z\",\"devices\":["
+            + "{\"_id\":\"" + DEVICE_A + "\",\"serialNumber\":\"16098522754e\",\"type\":\"Level1\"},"
+            + "{\"_id\":{\"$oid\":\"" + DEVICE_B + "\"},\"sensorId\":\"124A7DA90849\",\"type\":\"WeatherS\"},"
+            + "{\"_id\":\"not-an-object-id\",\"serialNumber\":\"0A0B0C0D0E0F\"}]}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPreloadAndIncrementalUpdates() throws Exception {
+        Path file = tempDir.resolve("devices.json");
+        Files.writeString(file, EXPORT);
+        DeviceCache cache = new DeviceCache(file.toString());
+        cache.start(0);
+
+        assertEquals(2, cache.size());
+        assertEquals(DEVICE_A, cache.resolve(SENSOR_A).getDeviceId());
+        assertEquals("Level1", cache.resolve(SENSOR_A).getType());
+        assertEquals(DEVICE_B.toLowerCase(), cache.deviceFields(SENSOR_B).get("deviceId"));
+        assertEquals("WeatherS", cache.deviceFields(SENSOR_B).get("deviceType"));
+
+        assertNull(cache.resolve(SENSOR_X));
+        assertNull(cache.resolve(SENSOR_X));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getNegativeHits(), "unknown sensors are cached");
+
+        cache.apply(new ObjectMapper().readTree("{\"incremental\":true,"
+                + "\"devices\":[{\"_id\":\"65f0c0ffee0000000000000c\",\"serialNumber\":\"A1B2C3D4E5F6\",\"type\":\"Level2\"}],"
+                + "\"removed\":[\"124A7DA90849\"]}"));
+        assertEquals(2, cache.size());
+        assertEquals("Level2", cache.resolve(SENSOR_X).getType(), "a registration clears the negative entry");
+        assertNull(cache.resolve(SENSOR_B));
+        assertEquals(DEVICE_A, cache.resolve(SENSOR_A).getDeviceId());
+    }
+
+    @Test
+    void testMissTriggersOneLookupThenNegativeCache() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withStaticResponse("/api/devices/export", EXPORT)) {
+            DeviceCache cache = new DeviceCache(backend.getUrl("/api/devices/export"), 60_000);
+            cache.start(0);
+            assertEquals(2, cache.size());
+
+            for (int i = 0; i < 100; i++) {
+                assertNull(cache.resolve(SENSOR_X));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (backend.getPathCount("/api/devices/export") < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            assertEquals(2, backend.getPathCount("/api/devices/export"), "preload + one lookup");
+            assertEquals(1, cache.getLookups());
+            assertEquals(99, cache.getNegativeHits());
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void testDaemonForwardsDeviceIdAndDropsUnregistered() throws Exception {
+        Path file = tempDir.resolve("devices.json");
+        Files.writeString(file, EXPORT);
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(true)) {
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            DeviceCache cache = new DeviceCache(file.toString());
+            cache.start(0);
+            daemon.setDeviceCache(cache, true);
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket socket = new Socket("127.0.0.1", embedded.port());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                out.println(SensorFrames.airQuality(SensorFrames.AIR_QUALITY_SENSOR, 1, 1, 20, 50, 5, 10, 40, 0.5, 70));
+                assertEquals("OK", in.readLine());
+                out.println(SensorFrames.airQuality("A1B2C3D4E5F6", 1, 1, 20, 50, 5, 10, 40, 0.5, 70));
+                assertEquals("OK", in.readLine());
+
+                assertTrue(backend.awaitAccepted(1, 10, TimeUnit.SECONDS));
+                Thread.sleep(200);
+                assertEquals(1, backend.getAccepted());
+                assertEquals(1, daemon.getUnregisteredDropped());
+                Map<?, ?> body = new ObjectMapper().readValue(backend.getBodies().get(0), Map.class);
+                assertEquals(DEVICE_A, body.get("deviceId"));
+                assertEquals("Level1", body.get("deviceType"));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.iot.filter;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadbandFilterTest {
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static SensorReading level(long session, double temperature, double humidity, double level, int rssi) {
+        return SensorFrameDecoder.decode(SensorFrames.airQuality(
+                SensorFrames.AIR_QUALITY_SENSOR, session, 1, temperature, humidity, 10, 20, 40, level, rssi), T0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> summary(Map<String, Object> fields) {
+        return (Map<String, Object>) fields.get("deadband");
+    }
+
+    /**
+     * Check, and commit as the daemon does once the sink has taken a forwarded reading
+     */
+    private static Map<String, Object> check(DeadbandFilter filter, SensorReading reading, long now) {
+        Map<String, Object> fields = filter.check(reading, now);
+        if (fields != null) {
+            filter.commit(reading, now);
+        }
+        return fields;
+    }
+
+    @Test
+    void testSuppressesInsideDeadbandAndReportsCoverage() {
+        DeadbandFilter filter = DeadbandFilter.parse("ultrasonic_liquid_level=0.02,humidity=2%", 600_000);
+
+        assertEquals("first", summary(check(filter, level(1, 20, 50, 1.500, 70), T0)).get("reason"));
+        // Level moves 1cm (the parser's resolution), humidity 1%, temperature and RSSI have no deadband: suppressed
+        assertNull(check(filter, level(1, 25, 50.5, 1.51, 60), T0 + 30_000));
+        assertNull(check(filter, level(1, 20, 49.5, 1.49, 70), T0 + 60_000));
+
+        Map<String, Object> changed = summary(check(filter, level(1, 20, 50, 1.53, 70), T0 + 90_000));
+        assertEquals("change", changed.get("reason"));
+        assertEquals(2, changed.get("suppressedCount"));
+        assertNotNull(changed.get("suppressedFrom"));
+
+        // Humidity past 2% of the last forwarded value (50 → 51.5)
+        assertEquals("change", summary(check(filter, level(1, 20, 51.5, 1.53, 70), T0 + 120_000)).get("reason"));
+        assertEquals(2, filter.getSuppressed());
+    }
+
+    @Test
+    void testHeartbeatAndSessionForceForward() {
+        DeadbandFilter filter = DeadbandFilter.parse("*=5%", 60_000);
+        check(filter, level(1, 20, 50, 1.5, 70), T0);
+        assertNull(check(filter, level(1, 20, 50, 1.5, 70), T0 + 30_000));
+
+        Map<String, Object> heartbeat = summary(check(filter, level(1, 20, 50, 1.5, 70), T0 + 60_000));
+        assertEquals("heartbeat", heartbeat.get("reason"));
+        assertEquals(1, heartbeat.get("suppressedCount"));
+
+        assertEquals("session", summary(check(filter, level(2, 20, 50, 1.5, 70), T0 + 61_000)).get("reason"));
+        assertEquals(1, filter.getHeartbeats());
+    }
+
+    @Test
+    void testChangeRefusedBySinkIsForwardedAgain() {
+        DeadbandFilter filter = DeadbandFilter.parse("ultrasonic_liquid_level=0.02", 600_000);
+        check(filter, level(1, 20, 50, 1.50, 70), T0);
+
+        // The sink refused the change (not committed): the same level is still a change
+        assertNotNull(filter.check(level(1, 20, 50, 1.60, 70), T0 + 30_000));
+        Map<String, Object> retried = summary(check(filter, level(1, 20, 50, 1.60, 70), T0 + 60_000));
+        assertEquals("change", retried.get("reason"));
+        assertEquals(T0, Instant.parse((String) retried.get("previousForwardedAt")).toEpochMilli());
+        assertNull(check(filter, level(1, 20, 50, 1.60, 70), T0 + 90_000));
+
+        // A late commit of an older reading does not roll the device back
+        filter.commit(level(1, 20, 50, 1.50, 70), T0 + 30_000);
+        assertNull(check(filter, level(1, 20, 50, 1.60, 70), T0 + 120_000));
+    }
+
+    @Test
+    void testDeviceStateIsBounded() {
+        DeadbandFilter filter = new DeadbandFilter(600_000, 64 << 10);
+        for (long sensorId = 1; sensorId <= 10_000; sensorId++) {
+            SensorReading reading = SensorFrameDecoder.decode(SensorFrames.airQuality(
+                    String.format("%012X", sensorId), 1, 1, 20, 50, 10, 20, 40, 1.5, 70), T0);
+            check(filter, reading, T0);
+        }
+        assertTrue(filter.getDeviceCount() < 10_000, "devices kept: " + filter.getDeviceCount());
+        assertEquals(10_000, filter.getForwarded());
+    }
+
+    @Test
+    void testRejectsUnknownParameters() {
+        assertThrows(IllegalArgumentException.class, () -> DeadbandFilter.parse("co3=1", 1000));
+    }
+}
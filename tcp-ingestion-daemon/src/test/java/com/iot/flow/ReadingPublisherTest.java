@@ -0,0 +1,165 @@
+package com.iot.flow;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadingPublisherTest {
+
+    private static SensorReading reading(int order) {
+        return SensorFrameDecoder.decode(SensorFrames.airQuality(
+                SensorFrames.AIR_QUALITY_SENSOR, 1, order, 20, 50, 10, 20, 40, 1.5, 70));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Records signals; requests only when told to
+     */
+    private static final class Recorder implements Flow.Subscriber<SensorReading> {
+        final List<Integer> orders = new CopyOnWriteArrayList<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(SensorReading item) {
+            orders.add(item.getOrder());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+
+    @Test
+    void testDeliversOnlyWhatWasRequested() throws Exception {
+        ReadingPublisher publisher = new ReadingPublisher(16, ReadingPublisher.OverflowPolicy.DROP_NEWEST, 0);
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        await(() -> recorder.subscription != null);
+
+        for (int i = 0; i < 10; i++) {
+            publisher.publish(reading(i));
+        }
+        Thread.sleep(50);
+        assertTrue(recorder.orders.isEmpty(), "nothing before request");
+
+        recorder.subscription.request(3);
+        await(() -> recorder.orders.size() == 3);
+        Thread.sleep(50);
+        assertEquals(List.of(0, 1, 2), recorder.orders);
+
+        recorder.subscription.request(Long.MAX_VALUE);
+        recorder.subscription.request(Long.MAX_VALUE);
+        await(() -> recorder.orders.size() == 10);
+
+        publisher.close();
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        assertTrue(recorder.completed);
+        assertEquals(0, publisher.getSubscriberCount());
+        publisher.shutdown();
+    }
+
+    @Test
+    void testOverflowPolicies() throws Exception {
+        ReadingPublisher publisher = new ReadingPublisher(4, ReadingPublisher.OverflowPolicy.DROP_OLDEST, 0);
+        Recorder oldest = new Recorder();
+        Recorder newest = new Recorder();
+        Recorder strict = new Recorder();
+        publisher.subscribe(oldest);
+        publisher.subscribe(newest, 4, ReadingPublisher.OverflowPolicy.DROP_NEWEST);
+        publisher.subscribe(strict, 4, ReadingPublisher.OverflowPolicy.DISCONNECT);
+        await(() -> oldest.subscription != null && newest.subscription != null && strict.subscription != null);
+
+        for (int i = 0; i < 10; i++) {
+            publisher.publish(reading(i));
+        }
+        assertTrue(strict.done.await(5, TimeUnit.SECONDS));
+        assertTrue(strict.error.get() instanceof IllegalStateException);
+        assertEquals(1, publisher.getDisconnected());
+
+        oldest.subscription.request(100);
+        newest.subscription.request(100);
+        await(() -> oldest.orders.size() == 4 && newest.orders.size() == 4);
+        assertEquals(List.of(6, 7, 8, 9), oldest.orders);
+        assertEquals(List.of(0, 1, 2, 3), newest.orders);
+        assertEquals(12, publisher.getDropped());
+        publisher.shutdown();
+    }
+
+    @Test
+    void testBlockPolicyWaitsForDemand() throws Exception {
+        ReadingPublisher publisher = new ReadingPublisher(2, ReadingPublisher.OverflowPolicy.BLOCK, 5_000);
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        await(() -> recorder.subscription != null);
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 6; i++) {
+                publisher.publish(reading(i));
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive(), "producer waits while the buffer is full");
+
+        recorder.subscription.request(6);
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        await(() -> recorder.orders.size() == 6);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), recorder.orders);
+        assertEquals(0, publisher.getDropped());
+        publisher.shutdown();
+    }
+
+    @Test
+    void testNonPositiveRequestAndLateSubscriber() throws Exception {
+        ReadingPublisher publisher = new ReadingPublisher();
+        Recorder recorder = new Recorder();
+        publisher.subscribe(recorder);
+        await(() -> recorder.subscription != null);
+        recorder.subscription.request(0);
+        assertTrue(recorder.done.await(5, TimeUnit.SECONDS));
+        assertTrue(recorder.error.get() instanceof IllegalArgumentException);
+
+        publisher.close();
+        Recorder late = new Recorder();
+        publisher.subscribe(late);
+        assertTrue(late.done.await(5, TimeUnit.SECONDS));
+        assertNotNull(late.subscription, "onSubscribe comes before onComplete");
+        assertTrue(late.completed);
+        publisher.shutdown();
+    }
+}
@@ -0,0 +1,524 @@
+package com.iot.ingestion;
+
+import com.iot.support.SensorFrames;
+import com.iot.tools.LatencyFormat;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NIO device-fleet simulator: holds up to 100k persistent device connections from one process.
+ *
+ * Each simulated device owns one connection, a random per-device session ID and an order byte
+ * that increments per frame, and reports every 30-60s (configurable) with air_quality, weather
+ * or level (ultrasonic air_quality layout) frames whose values follow a slow random walk.
+ * A few selector threads drive all sockets; no thread per device.
+ *
+ * Loopback has ~28k ephemeral ports per source address, so connections are spread over
+ * 127.0.0.1..127.0.0.N with --source-ips. Raise the fd limit first (ulimit -n 200000) on both sides.
+ *
+ * Reports connect time, ack latency, and - given --daemon-pid - daemon RSS and RSS per connection.
+ *
+ * The daemon still reads each connection with its own blocking thread and refuses connections
+ * beyond --handler-threads, so the fleet measures the simulator side and the daemon up to that
+ * cap. Connected counts and RSS per connection are not a daemon capacity figure; that needs a
+ * daemon that reads without a thread per connection.
+ */
+public class DeviceFleetSimulator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int MAX_IN_FLIGHT_PER_DEVICE = 4;
+    private static final String[] TYPES = {"air_quality", "weather", "level"};
+
+    private final String host;
+    private final int port;
+    private final int devices;
+    private final int threads;
+    private final int sourceIps;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final int connectRate;
+    private final long daemonPid;
+
+    private final Recorder connectTimes = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder ackLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram connectTotal = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram ackTotal = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+    private final AtomicLong connected = new AtomicLong();
+    private final AtomicLong connectFailures = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong acksOk = new AtomicLong();
+    private final AtomicLong acksError = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public DeviceFleetSimulator(String host, int port, int devices, int threads, int sourceIps,
+                                long minIntervalMillis, long maxIntervalMillis, int connectRate, long daemonPid) {
+        this.host = host;
+        this.port = port;
+        this.devices = devices;
+        this.threads = Math.max(1, threads);
+        this.sourceIps = Math.max(1, sourceIps);
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+        this.connectRate = connectRate;
+        this.daemonPid = daemonPid;
+    }
+
+    /**
+     * One simulated device and its connection state
+     */
+    private static final class Device implements Comparable<Device> {
+        final int index;
+        final String sensorId;
+        final int type;
+        final long sessionId;
+        int order;
+        long nextReportNanos;
+        SocketChannel channel;
+        SelectionKey key;
+        boolean connected;
+        long connectStartNanos;
+        ByteBuffer pendingWrite;
+        final long[] sendTimes = new long[MAX_IN_FLIGHT_PER_DEVICE];
+        int sendHead;
+        int sendCount;
+        byte lineFirstChar;
+
+        // Random-walk state
+        double temperature;
+        double humidity;
+        double levelMeters;
+        double levelTrend;
+
+        Device(int index, Random random) {
+            this.index = index;
+            this.sensorId = SensorFrames.hexId(0xD00000000000L + index);
+            this.type = index % TYPES.length;
+            this.sessionId = random.nextInt() & 0xFFFFFFFFL;
+            this.order = random.nextInt(256);
+            this.temperature = 18 + random.nextDouble() * 12;
+            this.humidity = 40 + random.nextDouble() * 30;
+            this.levelMeters = 0.5 + random.nextDouble() * 2.5;
+            this.levelTrend = (random.nextDouble() - 0.5) * 0.02;
+        }
+
+        @Override
+        public int compareTo(Device other) {
+            return Long.compare(nextReportNanos, other.nextReportNanos);
+        }
+    }
+
+    /**
+     * Build this device's next frame and advance its order byte
+     */
+    static String nextFrame(Device d, Random random) {
+        d.temperature += (random.nextDouble() - 0.5) * 0.2;
+        d.humidity = Math.max(5, Math.min(98, d.humidity + (random.nextDouble() - 0.5)));
+        int rssi = 60 + random.nextInt(35);
+        int order = d.order;
+        d.order = (d.order + 1) & 0xFF;
+
+        switch (TYPES[d.type]) {
+            case "weather":
+                return SensorFrames.weather(d.sensorId, d.sessionId, order, d.temperature, d.humidity,
+                        1000 + random.nextDouble() * 25, 5 + random.nextInt(40), 10 + random.nextInt(60),
+                        random.nextDouble() * 12, random.nextInt(360), random.nextDouble() < 0.1 ? random.nextDouble() * 5 : 0,
+                        random.nextInt(900), rssi);
+            case "level":
+                d.levelMeters = Math.max(0.05, Math.min(3.5, d.levelMeters + d.levelTrend + (random.nextDouble() - 0.5) * 0.005));
+                if (d.levelMeters <= 0.05 || d.levelMeters >= 3.5) {
+                    d.levelTrend = -d.levelTrend;
+                }
+                return SensorFrames.airQuality(d.sensorId, d.sessionId, order, d.temperature, d.humidity,
+                        0, 0, 0, d.levelMeters, rssi);
+            default:
+                return SensorFrames.airQuality(d.sensorId, d.sessionId, order, d.temperature, d.humidity,
+                        5 + random.nextInt(60), 10 + random.nextInt(90), 35 + random.nextDouble() * 30, 0, rssi);
+        }
+    }
+
+    /**
+     * Selector loop owning devices index % threads == id
+     */
+    private class Worker implements Runnable {
+        private final int id;
+        private final Selector selector;
+        private final List<Device> toConnect = new ArrayList<>();
+        private final PriorityQueue<Device> schedule = new PriorityQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        private final Random random;
+
+        Worker(int id) throws IOException {
+            this.id = id;
+            this.selector = Selector.open();
+            this.random = new Random(id * 7919L);
+            for (int i = id; i < devices; i += threads) {
+                toConnect.add(new Device(i, random));
+            }
+        }
+
+        @Override
+        public void run() {
+            double connectsPerNanoPerThread = connectRate > 0 ? connectRate / 1e9 / threads : Double.MAX_VALUE;
+            long connectStart = System.nanoTime();
+            int nextConnect = 0;
+
+            try {
+                while (running) {
+                    long now = System.nanoTime();
+
+                    // Paced connection ramp so the daemon's accept backlog is not overrun
+                    long allowed = connectRate > 0
+                            ? (long) ((now - connectStart) * connectsPerNanoPerThread) + 1
+                            : toConnect.size();
+                    while (nextConnect < toConnect.size() && nextConnect < allowed) {
+                        startConnect(toConnect.get(nextConnect++));
+                    }
+
+                    while (!schedule.isEmpty() && schedule.peek().nextReportNanos <= now) {
+                        Device d = schedule.poll();
+                        sendReport(d, now);
+                        if (d.channel != null) {
+                            d.nextReportNanos = now + intervalNanos();
+                            schedule.add(d);
+                        }
+                    }
+
+                    long timeout = 100;
+                    if (!schedule.isEmpty()) {
+                        timeout = Math.max(1, Math.min(timeout, TimeUnit.NANOSECONDS.toMillis(schedule.peek().nextReportNanos - now)));
+                    }
+                    if (nextConnect < toConnect.size()) {
+                        timeout = 1;
+                    }
+                    selector.select(timeout);
+
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        Device d = (Device) key.attachment();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isConnectable()) {
+                            finishConnect(d);
+                        } else {
+                            if (key.isReadable()) {
+                                readAcks(d);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flushPending(d);
+                            }
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Simulator worker " + id + " failed: " + e.getMessage());
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key.channel());
+                }
+                closeQuietly(selector);
+            }
+        }
+
+        private void startConnect(Device d) {
+            try {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (sourceIps > 1) {
+                    channel.bind(new InetSocketAddress("127.0.0." + (1 + d.index % sourceIps), 0));
+                }
+                d.channel = channel;
+                d.connectStartNanos = System.nanoTime();
+                if (channel.connect(new InetSocketAddress(host, port))) {
+                    d.key = channel.register(selector, SelectionKey.OP_READ, d);
+                    onConnected(d);
+                } else {
+                    d.key = channel.register(selector, SelectionKey.OP_CONNECT, d);
+                }
+            } catch (IOException e) {
+                connectFailures.incrementAndGet();
+                closeDevice(d);
+            }
+        }
+
+        private void finishConnect(Device d) {
+            try {
+                if (d.channel.finishConnect()) {
+                    d.key.interestOps(SelectionKey.OP_READ);
+                    onConnected(d);
+                }
+            } catch (IOException e) {
+                connectFailures.incrementAndGet();
+                closeDevice(d);
+            }
+        }
+
+        private void onConnected(Device d) {
+            long now = System.nanoTime();
+            connectTimes.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - d.connectStartNanos) / 1000));
+            connected.incrementAndGet();
+            d.connected = true;
+            // Spread first reports over one interval so the fleet does not report in lockstep
+            d.nextReportNanos = now + (long) (random.nextDouble() * TimeUnit.MILLISECONDS.toNanos(maxIntervalMillis));
+            schedule.add(d);
+        }
+
+        private long intervalNanos() {
+            long span = maxIntervalMillis - minIntervalMillis;
+            long millis = minIntervalMillis + (span > 0 ? (long) (random.nextDouble() * span) : 0);
+            return TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        private void sendReport(Device d, long now) {
+            if (d.channel == null || d.pendingWrite != null || d.sendCount == MAX_IN_FLIGHT_PER_DEVICE) {
+                return; // Still backed up from the previous report; real devices would skip too
+            }
+            ByteBuffer frame = ByteBuffer.wrap((nextFrame(d, random) + "\n").getBytes(StandardCharsets.US_ASCII));
+            d.sendTimes[(d.sendHead + d.sendCount) % MAX_IN_FLIGHT_PER_DEVICE] = now;
+            d.sendCount++;
+            framesSent.incrementAndGet();
+            try {
+                d.channel.write(frame);
+                if (frame.hasRemaining()) {
+                    d.pendingWrite = frame;
+                    d.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                closeDevice(d);
+            }
+        }
+
+        private void flushPending(Device d) {
+            try {
+                d.channel.write(d.pendingWrite);
+                if (!d.pendingWrite.hasRemaining()) {
+                    d.pendingWrite = null;
+                    d.key.interestOps(SelectionKey.OP_READ);
+                }
+            } catch (IOException e) {
+                closeDevice(d);
+            }
+        }
+
+        private void readAcks(Device d) {
+            readBuffer.clear();
+            int n;
+            try {
+                n = d.channel.read(readBuffer);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                closeDevice(d);
+                return;
+            }
+            long now = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                byte b = readBuffer.get(i);
+                if (b == '\n') {
+                    if (d.sendCount > 0) {
+                        long sent = d.sendTimes[d.sendHead];
+                        d.sendHead = (d.sendHead + 1) % MAX_IN_FLIGHT_PER_DEVICE;
+                        d.sendCount--;
+                        ackLatency.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - sent) / 1000));
+                    }
+                    if (d.lineFirstChar == 'O') {
+                        acksOk.incrementAndGet();
+                    } else {
+                        acksError.incrementAndGet();
+                    }
+                    d.lineFirstChar = 0;
+                } else if (d.lineFirstChar == 0 && b != '\r') {
+                    d.lineFirstChar = b;
+                }
+            }
+        }
+
+        private void closeDevice(Device d) {
+            if (d.channel != null) {
+                if (d.connected) {
+                    d.connected = false;
+                    disconnects.incrementAndGet();
+                    connected.decrementAndGet();
+                }
+                closeQuietly(d.channel);
+                d.channel = null;
+            }
+        }
+    }
+
+    /**
+     * Run the fleet for the given duration, printing a report every {@code reportSeconds}
+     */
+    public void run(long durationSeconds, int reportSeconds) throws Exception {
+        long baselineRssKb = readRssKb(daemonPid);
+        System.out.println("🚀 Device fleet simulator: " + devices + " devices → " + host + ":" + port
+                + " (" + threads + " selector threads, " + sourceIps + " source IPs, report every "
+                + minIntervalMillis / 1000.0 + "-" + maxIntervalMillis / 1000.0 + "s)");
+        System.out.println(DAEMON_LIMIT_NOTE);
+        if (baselineRssKb > 0) {
+            System.out.println("📏 Daemon baseline RSS: " + baselineRssKb / 1024 + " MB");
+        }
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(new Worker(i), "fleet-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(TimeUnit.SECONDS.toMillis(reportSeconds),
+                    Math.max(1, TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime()))));
+            report(start, baselineRssKb);
+        }
+
+        running = false;
+        for (Thread t : workers) {
+            t.join(5000);
+        }
+
+        System.out.println("📊 Final fleet results:");
+        System.out.println("   Connect time: " + LatencyFormat.describe(connectTotal));
+        System.out.println("   Ack latency:  " + LatencyFormat.describe(ackTotal));
+        System.out.println(DAEMON_LIMIT_NOTE);
+    }
+
+    private static final String DAEMON_LIMIT_NOTE = "⚠️ The daemon serves one connection per handler thread and refuses"
+            + " the rest: these numbers are not a daemon capacity figure";
+
+    private void report(long start, long baselineRssKb) {
+        Histogram connectInterval = connectTimes.getIntervalHistogram();
+        Histogram ackInterval = ackLatency.getIntervalHistogram();
+        connectTotal.add(connectInterval);
+        ackTotal.add(ackInterval);
+
+        long conns = connected.get();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("📊 [%6.1fs] connected=%d failed=%d dropped=%d | frames=%d ok=%d err=%d | ack p50=%.2fms p99=%.2fms max=%.2fms",
+                (System.nanoTime() - start) / 1e9, conns, connectFailures.get(), disconnects.get(),
+                framesSent.get(), acksOk.get(), acksError.get(),
+                ackInterval.getValueAtPercentile(50) / 1000.0,
+                ackInterval.getValueAtPercentile(99) / 1000.0,
+                ackInterval.getMaxValue() / 1000.0));
+        long rssKb = readRssKb(daemonPid);
+        if (rssKb > 0) {
+            sb.append(String.format(" | daemon RSS=%dMB", rssKb / 1024));
+            if (conns > 0 && baselineRssKb > 0) {
+                sb.append(String.format(" (%.1f KB/conn)", (rssKb - baselineRssKb) / (double) conns));
+            }
+        }
+        System.out.println(sb);
+    }
+
+    /**
+     * Resident set size of a process from /proc (Linux), or -1
+     */
+    static long readRssKb(long pid) {
+        if (pid <= 0) {
+            return -1;
+        }
+        Path status = Paths.get("/proc", Long.toString(pid), "status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // shutting down
+        }
+    }
+
+    public long getConnected() { return connected.get(); }
+    public long getFramesSent() { return framesSent.get(); }
+    public long getAcksOk() { return acksOk.get(); }
+    public long getAcksError() { return acksError.get(); }
+    public Histogram getConnectTimes() { return connectTotal; }
+    public Histogram getAckLatency() { return ackTotal; }
+
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = 8081;
+        int devices = 100_000;
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        int sourceIps = 4;
+        long minInterval = 30_000;
+        long maxInterval = 60_000;
+        int connectRate = 2000;
+        long duration = 600;
+        long pid = -1;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": host = args[++i]; break;
+                case "--port": case "-p": port = Integer.parseInt(args[++i]); break;
+                case "--devices": case "-n": devices = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--source-ips": sourceIps = Integer.parseInt(args[++i]); break;
+                case "--min-interval": minInterval = Long.parseLong(args[++i]) * 1000; break;
+                case "--max-interval": maxInterval = Long.parseLong(args[++i]) * 1000; break;
+                case "--connect-rate": connectRate = Integer.parseInt(args[++i]); break;
+                case "--duration": duration = Long.parseLong(args[++i]); break;
+                case "--daemon-pid": pid = Long.parseLong(args[++i]); break;
+                case "--help": case "-h": printUsage(); return;
+                default:
+                    System.err.println("⚠️ Unknown option: " + args[i]);
+            }
+        }
+
+        new DeviceFleetSimulator(host, port, devices, threads, sourceIps, minInterval, maxInterval, connectRate, pid)
+                .run(duration, 10);
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: DeviceFleetSimulator [options]");
+        System.out.println("Options:");
+        System.out.println("  --host <host>                Daemon host (default: 127.0.0.1)");
+        System.out.println("  -p, --port <port>            Daemon port (default: 8081)");
+        System.out.println("  -n, --devices <n>            Simulated devices, one connection each (default: 100000)");
+        System.out.println("  --threads <n>                Selector threads (default: half the CPUs, at least 2)");
+        System.out.println("  --source-ips <n>             Spread connections over 127.0.0.1..127.0.0.n (default: 4)");
+        System.out.println("  --min-interval <s>           Shortest report interval per device (default: 30)");
+        System.out.println("  --max-interval <s>           Longest report interval per device (default: 60)");
+        System.out.println("  --connect-rate <n>           New connections per second (default: 2000, 0 = unlimited)");
+        System.out.println("  --duration <s>               How long to run (default: 600)");
+        System.out.println("  --daemon-pid <pid>           Report the daemon's RSS and RSS per connection");
+        System.out.println("  -h, --help                   Show this help message");
+        System.out.println();
+        System.out.println("The daemon reads each connection with its own thread and refuses connections beyond");
+        System.out.println("--handler-threads. Connected counts and KB per connection describe the sockets it");
+        System.out.println("holds up to that cap, not how many devices it can serve.");
+    }
+}
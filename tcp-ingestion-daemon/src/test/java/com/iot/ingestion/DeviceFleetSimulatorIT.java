@@ -0,0 +1,34 @@
+package com.iot.ingestion;
+
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Small fleet against an in-process daemon: frames must be protocol-valid and acked
+ */
+public class DeviceFleetSimulatorIT {
+
+    @Test
+    void testSmallFleetIsAcked() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(false);
+             EmbeddedDaemon daemon = new EmbeddedDaemon(backend.getRawDataUrl())) {
+            long pid = ProcessHandle.current().pid();
+            DeviceFleetSimulator simulator = new DeviceFleetSimulator(
+                    "127.0.0.1", daemon.port(), 30, 2, 2, 200, 400, 0, pid);
+
+            simulator.run(3, 1);
+
+            assertEquals(30, simulator.getConnected(), "All devices should still be connected");
+            assertTrue(simulator.getFramesSent() >= 150, "Frames sent: " + simulator.getFramesSent());
+            assertEquals(0, simulator.getAcksError(), "Simulated frames must pass daemon validation");
+            assertTrue(simulator.getAcksOk() >= simulator.getFramesSent() - 30);
+            assertTrue(simulator.getConnectTimes().getTotalCount() == 30);
+            assertTrue(backend.awaitAccepted(simulator.getAcksOk(), 30, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.iot.ingestion;
+
+import com.iot.support.SensorFrames;
+import com.iot.tools.LatencyFormat;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the TCP Ingestion Daemon.
+ *
+ * Unlike testing/LoadTester (one Socket per message, average response time), messages are
+ * scheduled at a fixed arrival rate regardless of how fast the daemon answers, and are sent
+ * over persistent connections. Latency is measured from each message's <em>intended</em> send
+ * time, so a stalled daemon shows up as a growing tail instead of silently slowing the
+ * generator down (coordinated omission). The uncorrected send-to-ack latency is reported
+ * next to it for comparison.
+ *
+ * Scenarios mirror LoadTester: sustained, burst, ramp-up and endurance.
+ */
+public class OpenLoopLoadGenerator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int REPORT_INTERVAL_SECONDS = 5;
+
+    /**
+     * A period of constant arrival rate
+     */
+    public static class Phase {
+        final String name;
+        final double rate;
+        final long durationNanos;
+
+        public Phase(String name, double rate, double durationSeconds) {
+            this.name = name;
+            this.rate = rate;
+            this.durationNanos = (long) (durationSeconds * 1e9);
+        }
+    }
+
+    /**
+     * Result of one scenario run
+     */
+    public static class Result {
+        public final String scenario;
+        public final long scheduled;
+        public final long acked;
+        public final long errors;
+        public final double seconds;
+        public final Histogram corrected;
+        public final Histogram uncorrected;
+
+        Result(String scenario, long scheduled, long acked, long errors, double seconds,
+               Histogram corrected, Histogram uncorrected) {
+            this.scenario = scenario;
+            this.scheduled = scheduled;
+            this.acked = acked;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.corrected = corrected;
+            this.uncorrected = uncorrected;
+        }
+
+        public double throughput() {
+            return acked / seconds;
+        }
+
+        public double percentileMillis(double percentile) {
+            return corrected.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    private final String host;
+    private final int port;
+
+    public OpenLoopLoadGenerator(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    // Scenarios equivalent to testing/LoadTester
+
+    public Result sustained(int connections, double rate, double durationSeconds) throws Exception {
+        return run("Sustained", connections, List.of(new Phase("steady", rate, durationSeconds)));
+    }
+
+    public Result burst(int connections, double burstRate, int messages) throws Exception {
+        return run("Burst", connections, List.of(new Phase("burst", burstRate, messages / burstRate)));
+    }
+
+    public Result rampUp(int connections, double startRate, double maxRate, int steps, double stepSeconds) throws Exception {
+        List<Phase> phases = new ArrayList<>();
+        for (int i = 0; i < steps; i++) {
+            double rate = startRate + (maxRate - startRate) * i / Math.max(1, steps - 1);
+            phases.add(new Phase(String.format("step-%d@%.0f/s", i + 1, rate), rate, stepSeconds));
+        }
+        return run("Ramp-up", connections, phases);
+    }
+
+    public Result endurance(int connections, double rate, double durationSeconds) throws Exception {
+        return run("Endurance", connections, List.of(new Phase("endurance", rate, durationSeconds)));
+    }
+
+    /**
+     * Run the phases back to back over {@code connections} persistent connections
+     */
+    public Result run(String scenario, int connections, List<Phase> phases) throws Exception {
+        System.out.println("\n📈 " + scenario + " (open loop, " + connections + " connections)");
+        System.out.println("--------------------------------------------------");
+
+        Recorder correctedRecorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Recorder uncorrectedRecorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Histogram correctedTotal = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Histogram uncorrectedTotal = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        AtomicLong acked = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+
+        List<Connection> lanes = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            lanes.add(new Connection(i, correctedRecorder, uncorrectedRecorder, acked, errors));
+        }
+
+        long start = System.nanoTime();
+        long nextReport = start + TimeUnit.SECONDS.toNanos(REPORT_INTERVAL_SECONDS);
+        long phaseStart = start;
+        long scheduled = 0;
+
+        for (Phase phase : phases) {
+            long interval = (long) (1e9 / phase.rate);
+            long phaseEnd = phaseStart + phase.durationNanos;
+            System.out.println(String.format("▶️ Phase %s: %.0f msg/s for %.1fs", phase.name, phase.rate, phase.durationNanos / 1e9));
+
+            for (long intended = phaseStart; intended < phaseEnd; intended += interval) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                // Never skip or delay the schedule: a backed-up lane just queues the intended time
+                lanes.get((int) (scheduled % connections)).pending.add(intended);
+                scheduled++;
+
+                if (System.nanoTime() >= nextReport) {
+                    nextReport += TimeUnit.SECONDS.toNanos(REPORT_INTERVAL_SECONDS);
+                    Histogram intervalHistogram = correctedRecorder.getIntervalHistogram();
+                    correctedTotal.add(intervalHistogram);
+                    uncorrectedTotal.add(uncorrectedRecorder.getIntervalHistogram());
+                    printInterval(start, acked.get(), errors.get(), intervalHistogram);
+                }
+            }
+            phaseStart = phaseEnd;
+        }
+
+        for (Connection lane : lanes) {
+            lane.finish();
+        }
+        for (Connection lane : lanes) {
+            lane.done.await(60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        correctedTotal.add(correctedRecorder.getIntervalHistogram());
+        uncorrectedTotal.add(uncorrectedRecorder.getIntervalHistogram());
+
+        Result result = new Result(scenario, scheduled, acked.get(), errors.get(), seconds, correctedTotal, uncorrectedTotal);
+        printResult(result);
+        return result;
+    }
+
+    private static void printInterval(long start, long acked, long errors, Histogram interval) {
+        System.out.println(String.format("   [%5.1fs] acked=%d errors=%d | p50=%.2fms p99=%.2fms max=%.2fms",
+                (System.nanoTime() - start) / 1e9, acked, errors,
+                interval.getValueAtPercentile(50) / 1000.0,
+                interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0));
+    }
+
+    private static void printResult(Result r) {
+        System.out.println("📊 " + r.scenario + " Results:");
+        System.out.println("   Scheduled: " + r.scheduled + ", acked OK: " + r.acked + ", errors: " + r.errors);
+        System.out.println(String.format("   Throughput: %.1f msg/s over %.2fs", r.throughput(), r.seconds));
+        System.out.println("   Latency (corrected for coordinated omission): " + LatencyFormat.describe(r.corrected));
+        System.out.println("   Latency (send-to-ack, uncorrected):           " + LatencyFormat.describe(r.uncorrected));
+    }
+
+    /**
+     * Persistent connection with a writer draining intended send times and an ack reader
+     */
+    private class Connection {
+        final LinkedBlockingQueue<Long> pending = new LinkedBlockingQueue<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        private final ConcurrentLinkedQueue<long[]> inFlight = new ConcurrentLinkedQueue<>();
+        private final Socket socket;
+        private final String sensorId;
+        private final long sessionId;
+        private volatile boolean finishing = false;
+
+        Connection(int id, Recorder corrected, Recorder uncorrected, AtomicLong acked, AtomicLong errors) throws IOException {
+            this.sensorId = SensorFrames.hexId(0x5A0000000000L + id);
+            this.sessionId = System.nanoTime() & 0xFFFFFFFFL;
+            this.socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 5000);
+
+            Thread writer = new Thread(this::writeLoop, "load-writer-" + id);
+            Thread reader = new Thread(() -> ackLoop(corrected, uncorrected, acked, errors), "load-acks-" + id);
+            writer.setDaemon(true);
+            reader.setDaemon(true);
+            writer.start();
+            reader.start();
+        }
+
+        void finish() {
+            finishing = true;
+            pending.add(-1L);
+        }
+
+        private void writeLoop() {
+            int order = 0;
+            try {
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+                while (true) {
+                    long intended = pending.take();
+                    if (intended < 0) {
+                        break;
+                    }
+                    byte[] frame = (SensorFrames.airQuality(sensorId, sessionId, order++ & 0xFF,
+                            24.5, 55.0, 12, 20, 45.0, 1.25, 80) + "\n").getBytes(StandardCharsets.US_ASCII);
+                    inFlight.add(new long[]{intended, System.nanoTime()});
+                    out.write(frame);
+                    if (pending.isEmpty()) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+                socket.shutdownOutput();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("❌ Load connection write failed: " + e.getMessage());
+            }
+        }
+
+        private void ackLoop(Recorder corrected, Recorder uncorrected, AtomicLong acked, AtomicLong errors) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    long now = System.nanoTime();
+                    long[] times = inFlight.poll();
+                    if (times != null) {
+                        corrected.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - times[0]) / 1000));
+                        uncorrected.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - times[1]) / 1000));
+                    }
+                    if ("OK".equals(line)) {
+                        acked.incrementAndGet();
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                }
+            } catch (IOException e) {
+                if (!finishing) {
+                    System.err.println("❌ Load connection read failed: " + e.getMessage());
+                }
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // closing anyway
+                }
+                done.countDown();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = 8081;
+        List<String> scenarios = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                case "-p":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    scenarios.add(args[i]);
+            }
+        }
+        if (scenarios.isEmpty() || scenarios.contains("all")) {
+            scenarios = Arrays.asList("sustained", "burst", "rampup", "endurance");
+        }
+
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(host, port);
+        System.out.println("🚀 TCP Ingestion Open-Loop Load Generator → " + host + ":" + port);
+        System.out.println("==================================================");
+
+        for (String scenario : scenarios) {
+            switch (scenario) {
+                case "sustained":
+                    generator.sustained(10, 2000, 30);
+                    break;
+                case "burst":
+                    generator.burst(50, 20000, 20000);
+                    break;
+                case "rampup":
+                    generator.rampUp(20, 100, 5000, 10, 10);
+                    break;
+                case "endurance":
+                    generator.endurance(5, 50, 300);
+                    break;
+                default:
+                    System.err.println("⚠️ Unknown scenario: " + scenario + " (sustained|burst|rampup|endurance|all)");
+            }
+        }
+    }
+}
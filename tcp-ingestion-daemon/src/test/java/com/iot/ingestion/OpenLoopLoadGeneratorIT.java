@@ -0,0 +1,54 @@
+package com.iot.ingestion;
+
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.tools.LatencyFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Short open-loop runs against an in-process daemon, guarding ack tail latency
+ */
+public class OpenLoopLoadGeneratorIT {
+    private static final double MAX_P99_MILLIS = Double.parseDouble(System.getProperty("it.maxOpenLoopP99Millis", "250"));
+
+    private FakeBackendServer backend;
+    private EmbeddedDaemon daemon;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        backend = new FakeBackendServer().withRecordBodies(false);
+        daemon = new EmbeddedDaemon(backend.getRawDataUrl());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        daemon.close();
+        backend.close();
+    }
+
+    @Test
+    void testSustainedScenario() throws Exception {
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator("127.0.0.1", daemon.port());
+        OpenLoopLoadGenerator.Result result = generator.sustained(4, 200, 3);
+
+        assertEquals(result.scheduled, result.acked, "Every scheduled frame should be acked");
+        assertEquals(0, result.errors);
+        assertEquals(result.scheduled, result.corrected.getTotalCount());
+        assertTrue(result.percentileMillis(99) <= MAX_P99_MILLIS,
+                "Corrected p99 " + LatencyFormat.describe(result.corrected));
+    }
+
+    @Test
+    void testCorrectedLatencyNeverBelowUncorrected() throws Exception {
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator("127.0.0.1", daemon.port());
+        OpenLoopLoadGenerator.Result result = generator.rampUp(2, 100, 400, 3, 1);
+
+        assertEquals(result.scheduled, result.acked);
+        assertTrue(result.corrected.getMaxValue() >= result.uncorrected.getMaxValue());
+        assertTrue(result.corrected.getValueAtPercentile(99) >= result.uncorrected.getValueAtPercentile(99));
+    }
+}
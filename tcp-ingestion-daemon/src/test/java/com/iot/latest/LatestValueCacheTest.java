@@ -0,0 +1,60 @@
+package com.iot.latest;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatestValueCacheTest {
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static SensorReading airQuality(int order, double level, long timestamp) {
+        return SensorFrameDecoder.decode(SensorFrames.airQuality(
+                SensorFrames.AIR_QUALITY_SENSOR, 9, order, 21.5, 48, 12, 30, 41, level, 70), timestamp);
+    }
+
+    @Test
+    void testKeepsNewestReadingPerDevice() {
+        LatestValueCache cache = new LatestValueCache(1 << 20);
+        assertNull(cache.get(SensorFrames.AIR_QUALITY_SENSOR));
+
+        cache.update(airQuality(1, 1.25, T0));
+        cache.update(airQuality(2, 1.5, T0 + 1000));
+        cache.update(airQuality(0, 0.75, T0 - 1000));
+        cache.update(SensorFrameDecoder.decode(SensorFrames.weather(
+                SensorFrames.WEATHER_SENSOR, 1, 4, 18, 60, 1012, 5, 10, 3.5, 270, 0.2, 400, 65), T0));
+
+        SensorReading latest = cache.get(SensorFrames.AIR_QUALITY_SENSOR);
+        assertEquals(2, latest.getOrder());
+        assertEquals(9, latest.getSessionId());
+        assertEquals(T0 + 1000, latest.getTimestampMillis());
+        assertEquals("air_quality", latest.getSensorType());
+        assertEquals(1.5, latest.get(SensorParameter.ULTRASONIC_LIQUID_LEVEL));
+        assertFalse(latest.has(SensorParameter.WIND_SPEED));
+        assertEquals(1, cache.getOutOfOrder());
+
+        SensorReading weather = cache.get(SensorFrameDecoder.parseSensorId(SensorFrames.WEATHER_SENSOR));
+        assertEquals("weather", weather.getSensorType());
+        assertEquals(1012, weather.get(SensorParameter.ATMOSPHERIC_PRESSURE));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("not-a-sensor"));
+    }
+
+    @Test
+    void testMapMatchesSensorDataFields() {
+        LatestValueCache cache = new LatestValueCache(1 << 20);
+        cache.update(airQuality(3, 1.25, T0));
+        Map<String, Object> map = LatestValueCache.toMap(cache.get(SensorFrames.AIR_QUALITY_SENSOR));
+        assertEquals(SensorFrames.AIR_QUALITY_SENSOR, map.get("sensorId"));
+        assertEquals("9", map.get("sessionId"));
+        assertEquals("2023-11-14T22:13:20Z", map.get("timestamp"));
+        assertEquals(21.5, map.get("temperature"));
+        assertEquals(1.25, map.get("ultrasonic_liquid_level"));
+        assertFalse(map.containsKey("rainfall"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.iot.latest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.TcpIngestionDaemon;
+import com.iot.live.LiveHub;
+import com.iot.series.RecentSeriesStore;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatestValueIT {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void testLatestOverTcpAndHttp() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(false)) {
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            LatestValueCache cache = new LatestValueCache(1 << 20);
+            LatestHttpServer http = new LatestHttpServer(cache, 0);
+            RecentSeriesStore series = new RecentSeriesStore(RecentSeriesStore.DEFAULT_RETENTION_MILLIS, 100);
+            http.setRecentSeries(series);
+            daemon.setLatestValues(cache, http);
+            daemon.setRecentSeries(series);
+            LiveHub live = new LiveHub(2, 5_000);
+            http.setLiveHub(live);
+            daemon.setLiveHub(live);
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket socket = new Socket("127.0.0.1", embedded.port());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                out.println("LATEST " + SensorFrames.AIR_QUALITY_SENSOR);
+                assertEquals("ERROR: No reading for " + SensorFrames.AIR_QUALITY_SENSOR, in.readLine());
+
+                for (int i = 0; i < 5; i++) {
+                    out.println(SensorFrames.airQuality(SensorFrames.AIR_QUALITY_SENSOR, 4, i, 20 + i, 50, 5, 10, 40, 0.8, 70));
+                    assertEquals("OK", in.readLine());
+                }
+
+                out.println("latest " + SensorFrames.AIR_QUALITY_SENSOR);
+                String reply = in.readLine();
+                assertTrue(reply.startsWith("OK {"), reply);
+                JsonNode reading = MAPPER.readTree(reply.substring(3));
+                assertEquals(4, reading.get("order").asInt());
+                assertEquals(24.0, reading.get("temperature").asDouble());
+
+                out.println("LATEST xyz");
+                assertTrue(in.readLine().startsWith("ERROR: Invalid sensorId"));
+                out.println("LATESTS " + SensorFrames.AIR_QUALITY_SENSOR);
+                assertEquals("ERROR: Invalid hex data format", in.readLine(), "not the LATEST command");
+
+                HttpClient client = HttpClient.newHttpClient();
+                String base = "http://127.0.0.1:" + http.getPort() + "/latest/";
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                        URI.create(base + SensorFrames.AIR_QUALITY_SENSOR)).build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode());
+                JsonNode body = MAPPER.readTree(response.body());
+                assertTrue(body.get("success").asBoolean());
+                assertEquals(SensorFrames.AIR_QUALITY_SENSOR, body.get("data").get("sensorId").asText());
+                assertEquals(0.8, body.get("data").get("ultrasonic_liquid_level").asDouble());
+
+                response = client.send(HttpRequest.newBuilder(
+                        URI.create(base + SensorFrames.AIR_QUALITY_SENSOR + "/pm25")).build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode());
+                assertEquals("pm2_5", MAPPER.readTree(response.body()).get("data").get("parameter").asText());
+
+                response = client.send(HttpRequest.newBuilder(
+                        URI.create(base + SensorFrames.WEATHER_SENSOR)).build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals(404, response.statusCode());
+                assertFalse(MAPPER.readTree(response.body()).get("success").asBoolean());
+
+                response = client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + http.getPort()
+                        + "/series/" + SensorFrames.AIR_QUALITY_SENSOR + "/temperature?points=3&mode=lttb")).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                assertEquals(200, response.statusCode());
+                JsonNode chart = MAPPER.readTree(response.body());
+                assertEquals(3, chart.get("count").asInt());
+                assertEquals(20.0, chart.get("data").get(0).get("value").asDouble());
+                assertEquals(24.0, chart.get("data").get(2).get("value").asDouble());
+
+                // Live stream: the snapshot of the subscribed device first, then new readings
+                Iterator<String> events = client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + http.getPort()
+                        + "/live?sensors=" + SensorFrames.AIR_QUALITY_SENSOR)).build(),
+                        HttpResponse.BodyHandlers.ofLines()).body().filter(l -> l.startsWith("data: ")).iterator();
+                assertEquals(4, MAPPER.readTree(events.next().substring(6)).get("order").asInt());
+                out.println(SensorFrames.airQuality(SensorFrames.AIR_QUALITY_SENSOR, 4, 5, 30, 50, 5, 10, 40, 0.9, 70));
+                assertEquals("OK", in.readLine());
+                JsonNode pushed = MAPPER.readTree(events.next().substring(6));
+                assertEquals(5, pushed.get("order").asInt());
+                assertEquals(30.0, pushed.get("temperature").asDouble());
+                assertEquals(1, live.getSubscriberCount());
+            }
+        }
+    }
+}
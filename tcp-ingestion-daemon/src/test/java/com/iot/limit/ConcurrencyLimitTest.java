@@ -0,0 +1,151 @@
+package com.iot.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitTest {
+
+    /**
+     * Backend that serves {@code capacity} requests in parallel at 10 ms; beyond that, requests queue
+     */
+    private static long rttNanos(int inFlight, int capacity) {
+        return TimeUnit.MILLISECONDS.toNanos(10) * Math.max(1, inFlight) / Math.min(Math.max(1, inFlight), capacity);
+    }
+
+    /**
+     * Feed samples from a client that always keeps the whole limit in flight
+     */
+    private static void saturate(ConcurrencyLimit limit, int capacity, int samples) {
+        for (int i = 0; i < samples; i++) {
+            int inFlight = limit.getLimit();
+            limit.onSample(rttNanos(inFlight, capacity), inFlight, false);
+        }
+    }
+
+    @Test
+    void testGradientGrowsToCapacityAndBacksOffWhenLatencyRises() {
+        GradientLimit limit = new GradientLimit(10, 1, 200, GradientLimit.DEFAULT_TOLERANCE,
+                GradientLimit.DEFAULT_SMOOTHING, GradientLimit.DEFAULT_QUEUE_SIZE, 0);
+        saturate(limit, 40, 2_000);
+        int settled = limit.getLimit();
+        assertTrue(settled >= 35 && settled <= 80, "grew past the old fixed 10 toward the backend's 40: " + settled);
+
+        // Backend degrades to a quarter of its capacity: latency rises and the limit follows it down
+        saturate(limit, 10, 2_000);
+        assertTrue(limit.getLimit() <= 25, "backed off: " + limit.getLimit());
+        assertTrue(limit.getShortRttMillis() < 30, "queueing stays bounded: " + limit.getShortRttMillis() + " ms");
+
+        // Recovers when the backend does
+        saturate(limit, 40, 2_000);
+        assertTrue(limit.getLimit() >= 35, "recovered: " + limit.getLimit());
+    }
+
+    @Test
+    void testGradientReprobesNoLoadRttWhenBackendGetsSlower() {
+        GradientLimit limit = new GradientLimit(10, 1, 200, GradientLimit.DEFAULT_TOLERANCE,
+                GradientLimit.DEFAULT_SMOOTHING, GradientLimit.DEFAULT_QUEUE_SIZE, 500);
+        saturate(limit, 40, 1_000);
+        assertEquals(10.0, limit.getNoLoadRttMillis(), 0.01);
+
+        // Same capacity, but every request now takes 30 ms: without re-probing the 10 ms baseline,
+        // this would look like heavy queueing and pin the limit low
+        int recentPeak = 0;
+        for (int i = 0; i < 3_000; i++) {
+            int inFlight = limit.getLimit();
+            limit.onSample(3 * rttNanos(inFlight, 40), inFlight, false);
+            // Right after a probe the limit is briefly at the queue allowance, so look at the peak
+            recentPeak = i < 2_000 ? 0 : Math.max(recentPeak, limit.getLimit());
+        }
+        assertTrue(limit.getProbes() >= 2);
+        assertEquals(30.0, limit.getNoLoadRttMillis(), 0.01);
+        assertTrue(recentPeak >= 30, "capacity is unchanged: " + recentPeak);
+    }
+
+    @Test
+    void testGradientIgnoresIdleSamplesAndHalvesTowardDrops() {
+        GradientLimit limit = new GradientLimit(20, 1, 200, GradientLimit.DEFAULT_TOLERANCE,
+                GradientLimit.DEFAULT_SMOOTHING, GradientLimit.DEFAULT_QUEUE_SIZE, 0);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 2, false);
+        }
+        assertEquals(20, limit.getLimit(), "a mostly idle link says nothing about capacity");
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 2, true);
+        }
+        assertTrue(limit.getLimit() <= 8, "drops shrink the limit even when idle: " + limit.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1, true);
+        }
+        assertEquals(1, limit.getLimit(), "never below the minimum");
+    }
+
+    @Test
+    void testAimdAddsOnSuccessAndCutsOnDropsOrTimeouts() {
+        AimdLimit limit = new AimdLimit(10, 2, 12, 1_000);
+        long fast = TimeUnit.MILLISECONDS.toNanos(5);
+        limit.onSample(fast, 2, false);
+        assertEquals(10, limit.getLimit(), "under-used limit does not grow");
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(fast, limit.getLimit(), false);
+        }
+        assertEquals(12, limit.getLimit(), "capped at the maximum");
+        limit.onSample(fast, 12, true);
+        assertEquals(10, limit.getLimit());
+        limit.onSample(TimeUnit.SECONDS.toNanos(2), 10, false);
+        assertEquals(9, limit.getLimit(), "a request slower than the timeout counts as a drop");
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(fast, 1, true);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void testExecutorRunsAtMostTheLimitAndStartsMoreWhenItGrows() throws Exception {
+        AimdLimit limit = new AimdLimit(3, 1, 6);
+        AdaptiveExecutor executor = new AdaptiveExecutor(limit, 6, "test-limit");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (running.get() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(3, executor.getInFlight());
+        assertEquals(17, executor.getQueued());
+
+        // Successes at full use raise the limit, which starts waiting tasks straight away
+        executor.onSample(TimeUnit.MILLISECONDS.toNanos(1), false);
+        executor.onSample(TimeUnit.MILLISECONDS.toNanos(1), false);
+        deadline = System.currentTimeMillis() + 5_000;
+        while (running.get() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(5, executor.getLimit());
+        assertEquals(5, running.get());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(5, peak.get(), "never more than the limit at once");
+        assertTrue(executor.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(20, executor.getCompleted());
+        executor.printStats();
+    }
+}
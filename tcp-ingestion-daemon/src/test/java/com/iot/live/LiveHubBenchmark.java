@@ -0,0 +1,71 @@
+package com.iot.live;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+import com.iot.support.SensorFrames;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of LiveHub.publish with 1k and 10k subscribers: half watch every device, half
+ * one device each, writing to a discarding stream. Measures the publishing thread's cost
+ * (serialize once, offer to every matching queue); the writer pool drains concurrently.
+ *
+ * Run after {@code mvn test-compile}:
+ * java -cp "target/classes:target/test-classes:target/dependency/*" com.iot.live.LiveHubBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LiveHubBenchmark {
+    private static final int DEVICES = 100;
+
+    @Param({"1000", "10000"})
+    public int subscribers;
+
+    private LiveHub hub;
+    private SensorReading[] readings;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hub = new LiveHub();
+        OutputStream discard = OutputStream.nullOutputStream();
+        for (int i = 0; i < subscribers; i++) {
+            hub.subscribe(i % 2 == 0 ? null : Set.of((long) (i % DEVICES)), discard, () -> { });
+        }
+        readings = new SensorReading[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            readings[i] = SensorFrameDecoder.decode(SensorFrames.airQuality(
+                    SensorFrames.hexId(i), 1, i, 20, 50, 10, 20, 40, 1.5, 70));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hub.printStats();
+        hub.shutdown();
+    }
+
+    @Benchmark
+    public void publish() {
+        hub.publish(readings[next++ % DEVICES]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(LiveHubBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
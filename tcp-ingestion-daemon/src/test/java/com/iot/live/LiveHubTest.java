@@ -0,0 +1,162 @@
+package com.iot.live;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiveHubTest {
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static SensorReading reading(long sensorId, int order) {
+        return SensorFrameDecoder.decode(SensorFrames.airQuality(
+                SensorFrames.hexId(sensorId), 1, order, 20, 50, 10, 20, 40, 1.5, 70), T0 + order);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Keeps the last event written; optionally blocks every write until released
+     */
+    private static final class RecordingStream extends OutputStream {
+        final CountDownLatch gate;
+        final ByteArrayOutputStream all = new ByteArrayOutputStream();
+        volatile String last = "";
+
+        RecordingStream(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void write(int b) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            try {
+                if (gate != null && !gate.await(30, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("gate never opened");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (all) {
+                all.write(b, off, len);
+            }
+            last = new String(b, off, len, StandardCharsets.UTF_8);
+        }
+
+        String text() {
+            synchronized (all) {
+                return all.toString(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    @Test
+    void testSlowSubscriberQueueConflatesPerDevice() throws Exception {
+        LiveHub hub = new LiveHub(2, 60_000);
+        try {
+            CountDownLatch gate = new CountDownLatch(1);
+            RecordingStream slow = new RecordingStream(gate);
+            LiveHub.Subscriber subscriber = hub.subscribe(null, slow, () -> { });
+            RecordingStream filtered = new RecordingStream(null);
+            hub.subscribe(Set.of(7L), filtered, () -> { });
+
+            for (int order = 0; order < 200; order++) {
+                for (long device = 1; device <= 10; device++) {
+                    hub.publish(reading(device, order));
+                }
+            }
+            // One event may already be stuck in the blocked write; the rest wait one per device
+            assertTrue(subscriber.getPending() <= 10, "pending " + subscriber.getPending());
+            assertTrue(hub.getConflated() > 1500);
+
+            gate.countDown();
+            await(() -> subscriber.getPending() == 0 && slow.text().contains("\"order\":199"));
+            String stream = slow.text();
+            assertTrue(stream.startsWith("event: reading\ndata: {"));
+            for (long device = 1; device <= 10; device++) {
+                assertTrue(stream.contains("\"sensorId\":\"" + SensorFrames.hexId(device) + "\",\"sessionId\":\"1\",\"order\":199"));
+            }
+
+            await(() -> filtered.last.contains("\"order\":199"));
+            assertFalse(filtered.text().contains(SensorFrames.hexId(8)), "only the subscribed device");
+        } finally {
+            hub.shutdown();
+        }
+    }
+
+    @Test
+    void testStalledSubscriberIsClosed() throws Exception {
+        LiveHub hub = new LiveHub(2, 50);
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        try {
+            LiveHub.Subscriber subscriber = hub.subscribe(null, new RecordingStream(gate), closed::countDown);
+            hub.publish(reading(1, 1));
+            Thread.sleep(200);
+            hub.closeStalled();
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            assertTrue(subscriber.isClosed());
+            assertEquals(0, hub.getSubscriberCount());
+            assertEquals(1, hub.getSlowClosed());
+        } finally {
+            gate.countDown();
+            hub.shutdown();
+        }
+    }
+
+    @Test
+    void testFanOutToTenThousandSubscribers() throws Exception {
+        int subscriberCount = 10_000;
+        int readings = 200;
+        LiveHub hub = new LiveHub(LiveHub.DEFAULT_WRITER_THREADS, 60_000);
+        try {
+            List<RecordingStream> streams = new ArrayList<>();
+            for (int i = 0; i < subscriberCount; i++) {
+                RecordingStream stream = new RecordingStream(null);
+                streams.add(stream);
+                hub.subscribe(i % 2 == 0 ? null : Set.of(42L), stream, () -> { });
+            }
+
+            long start = System.nanoTime();
+            for (int order = 0; order < readings; order++) {
+                hub.publish(reading(42, order));
+            }
+            long published = System.nanoTime();
+            String lastOrder = "\"order\":" + (readings - 1);
+            await(() -> streams.stream().allMatch(s -> s.last.contains(lastOrder)));
+            long drained = System.nanoTime();
+
+            double publishSeconds = (published - start) / 1e9;
+            double drainSeconds = (drained - start) / 1e9;
+            System.out.printf("📡 Fan-out to %d subscribers: %d readings published in %.3f s (%.0f offers/s), "
+                            + "drained in %.3f s; %d events written, %d conflated%n",
+                    subscriberCount, readings, publishSeconds, subscriberCount * readings / publishSeconds,
+                    drainSeconds, hub.getDelivered(), hub.getConflated());
+            assertEquals((long) subscriberCount * readings, hub.getDelivered() + hub.getConflated());
+        } finally {
+            hub.shutdown();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.iot.mongo;
+
+import com.iot.TcpIngestionDaemon;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorReading;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.MongoStandIn;
+import com.iot.support.SensorFrames;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MongoSensorDataSinkIT {
+    private static final String DB = "iot_sensor_hub";
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static BsonObjectId registerDevice(MongoStandIn mongo, String serialNumber, String type) {
+        BsonObjectId id = new BsonObjectId();
+        mongo.insert(DB, MongoSensorDataSink.DEVICES_COLLECTION, new BsonDocument("_id", id)
+                .append("serialNumber", new BsonString(serialNumber))
+                .append("type", new BsonString(type)));
+        return id;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the sink");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void testBatchesInsertWithSchemaFieldsAndDropUnregistered() throws Exception {
+        try (MongoStandIn mongo = new MongoStandIn()) {
+            BsonObjectId deviceId = registerDevice(mongo, SensorFrames.AIR_QUALITY_SENSOR, "Level1");
+            MongoSensorDataSink sink = new MongoSensorDataSink(mongo.getConnectionString(DB), null, 500, 100, 10_000);
+            try {
+                for (int i = 0; i < 200; i++) {
+                    SensorReading reading = SensorFrameDecoder.decode(SensorFrames.airQuality(
+                            SensorFrames.AIR_QUALITY_SENSOR, 7, i, 21.5, 48, 12, 30, 41, 1.25, 70), T0 + i * 1000L);
+                    assertTrue(sink.accept(reading, i == 0 ? Map.of("deadband", Map.of("reason", "first")) : null));
+                }
+                SensorReading stranger = SensorFrameDecoder.decode(SensorFrames.weather(
+                        SensorFrames.WEATHER_SENSOR, 1, 1, 18, 60, 1012, 5, 10, 3.5, 270, 0.2, 400, 65), T0);
+                assertTrue(sink.accept(stranger, null));
+
+                await(() -> sink.getInserted() + sink.getUnregistered() == 201);
+                assertEquals(200, sink.getInserted());
+                assertEquals(1, sink.getUnregistered());
+                assertFalse(mongo.isLastInsertOrdered(), "inserts must be unordered");
+
+                List<BsonDocument> docs = mongo.documents(DB, MongoSensorDataSink.SENSOR_DATA_COLLECTION);
+                assertEquals(200, docs.size());
+                BsonDocument first = docs.stream()
+                        .filter(d -> d.getInt32("order").getValue() == 0).findFirst().orElseThrow();
+                assertEquals(deviceId, first.get("deviceId"));
+                assertEquals(SensorFrames.AIR_QUALITY_SENSOR, first.getString("sensorId").getValue());
+                assertEquals("7", first.getString("sessionId").getValue());
+                assertEquals("Level1", first.getString("sensorType").getValue());
+                assertEquals(T0, first.getDateTime("timestamp").getValue());
+                assertEquals(21.5, first.getDouble("temperature").getValue());
+                assertEquals(1.25, first.getDouble("ultrasonic_liquid_level").getValue());
+                assertEquals("unknown", first.getString("status").getValue());
+                assertEquals("first", first.getDocument("deadband").getString("reason").getValue());
+            } finally {
+                sink.shutdown(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @Test
+    void testDeviceLookupsAreCachedIncludingMisses() throws Exception {
+        try (MongoStandIn mongo = new MongoStandIn()) {
+            // Not in the SensorData enum: the decoded type is stored instead
+            registerDevice(mongo, SensorFrames.AIR_QUALITY_SENSOR, "tank_sensor");
+            MongoSensorDataSink sink = new MongoSensorDataSink(mongo.getConnectionString(DB), DB, 10, 20, 1000);
+            try {
+                for (int round = 0; round < 5; round++) {
+                    sink.accept(SensorFrameDecoder.decode(SensorFrames.airQuality(
+                            SensorFrames.AIR_QUALITY_SENSOR, 1, round, 20, 50, 5, 10, 40, 0.5, 70), T0), null);
+                    sink.accept(SensorFrameDecoder.decode(SensorFrames.airQuality(
+                            SensorFrames.hexId(0xB00000000001L), 1, round, 20, 50, 5, 10, 40, 0.5, 70), T0), null);
+                    final int expected = 2 * (round + 1);
+                    await(() -> sink.getInserted() + sink.getUnregistered() == expected);
+                }
+                assertEquals(5, sink.getInserted());
+                assertEquals(5, sink.getUnregistered());
+                assertEquals(1, sink.getDeviceLookups(), "known and unknown sensors are resolved once");
+                assertEquals(1, mongo.getFindCommands());
+                for (BsonDocument doc : mongo.documents(DB, MongoSensorDataSink.SENSOR_DATA_COLLECTION)) {
+                    assertEquals("air_quality", doc.getString("sensorType").getValue());
+                }
+            } finally {
+                sink.shutdown(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @Test
+    void testDaemonWritesDirectlyAndBypassesBackend() throws Exception {
+        try (MongoStandIn mongo = new MongoStandIn();
+             FakeBackendServer backend = new FakeBackendServer()) {
+            registerDevice(mongo, SensorFrames.AIR_QUALITY_SENSOR, "Level2");
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            MongoSensorDataSink sink = new MongoSensorDataSink(mongo.getConnectionString(DB), DB, 100, 50, 1000);
+            daemon.setSink(sink);
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket socket = new Socket("127.0.0.1", embedded.port());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                for (int i = 0; i < 20; i++) {
+                    out.println(SensorFrames.airQuality(SensorFrames.AIR_QUALITY_SENSOR, 3, i, 20, 50, 5, 10, 40, 0.8, 70));
+                    assertEquals("OK", in.readLine());
+                }
+                await(() -> sink.getInserted() == 20);
+            }
+            assertEquals(20, mongo.documents(DB, MongoSensorDataSink.SENSOR_DATA_COLLECTION).size());
+            assertEquals(0, backend.getPathCount("/api/sensor/raw-data"));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.iot.pipeline;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of one producer handing events to one consumer: the single-producer ring
+ * (batch drain) against ArrayBlockingQueue (lock per offer, drainTo on the consumer side),
+ * which is how stages hand off elsewhere in the daemon. Reports offers per microsecond for
+ * the producer thread of each pair.
+ *
+ * Run after {@code mvn test-compile}:
+ * java -cp "target/classes:target/test-classes:target/dependency/*" com.iot.pipeline.RingBufferBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class RingBufferBenchmark {
+    private static final int CAPACITY = 4096;
+    private static final int BATCH = 256;
+    private static final Object EVENT = new Object();
+
+    private RingBuffer<Object> ring;
+    private ArrayBlockingQueue<Object> queue;
+    private final List<Object> drained = new ArrayList<>(BATCH);
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ring = RingBuffer.singleProducer(CAPACITY);
+        queue = new ArrayBlockingQueue<>(CAPACITY);
+    }
+
+    @Benchmark
+    @Group("ring")
+    public void ringOffer(Control control) {
+        while (!ring.offer(EVENT) && !control.stopMeasurement) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("ring")
+    public int ringDrain() {
+        return ring.drain((event, endOfBatch) -> { }, BATCH);
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    public void queueOffer(Control control) {
+        while (!queue.offer(EVENT) && !control.stopMeasurement) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    public int queueDrain() {
+        int n = queue.drainTo(drained, BATCH);
+        drained.clear();
+        return n;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RingBufferBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,111 @@
+package com.iot.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferTest {
+
+    @Test
+    void testCapacityRoundsUpAndFullRingRejects() {
+        RingBuffer<Integer> ring = RingBuffer.singleProducer(5);
+        assertEquals(8, ring.getCapacity());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(8));
+        assertEquals(8, ring.size());
+
+        List<Integer> drained = new ArrayList<>();
+        List<Boolean> ends = new ArrayList<>();
+        assertEquals(3, ring.drain((value, endOfBatch) -> {
+            drained.add(value);
+            ends.add(endOfBatch);
+        }, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(List.of(false, false, true), ends);
+        assertTrue(ring.offer(8), "drained slots are reusable");
+        assertEquals(6, ring.size());
+
+        RingBuffer<Integer> multi = RingBuffer.multiProducer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(multi.offer(i));
+        }
+        assertFalse(multi.offer(4));
+        assertEquals(4, multi.drain((value, endOfBatch) -> { }, 100));
+        assertTrue(multi.isEmpty());
+        assertEquals(0, multi.drain((value, endOfBatch) -> fail("empty"), 100));
+    }
+
+    @Test
+    void testSingleProducerKeepsOrderAcrossThreads() throws Exception {
+        RingBuffer<Long> ring = RingBuffer.singleProducer(64);
+        long count = 200_000;
+        Thread producer = new Thread(() -> {
+            for (long i = 0; i < count; i++) {
+                while (!ring.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        long[] expected = {0};
+        while (expected[0] < count) {
+            int drained = ring.drain((value, endOfBatch) -> {
+                assertEquals(expected[0], value.longValue());
+                expected[0]++;
+            }, 32);
+            if (drained == 0) {
+                Thread.yield();
+            }
+        }
+        producer.join();
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void testMultiProducerDeliversEverythingInPerProducerOrder() throws Exception {
+        RingBuffer<long[]> ring = RingBuffer.multiProducer(128);
+        int producers = 4;
+        int perProducer = 50_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long[] item = {id, i};
+                    while (!ring.offer(item)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] next = new long[producers];
+        long[] total = {0};
+        while (total[0] < (long) producers * perProducer) {
+            int drained = ring.drain((item, endOfBatch) -> {
+                int producer = (int) item[0];
+                assertEquals(next[producer], item[1], "producer " + producer + " out of order");
+                next[producer]++;
+                total[0]++;
+            }, 64);
+            if (drained == 0) {
+                Thread.yield();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long n : next) {
+            assertEquals(perProducer, n);
+        }
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.iot.series;
+
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.protocol.SensorParameter;
+import com.iot.protocol.SensorReading;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecentSeriesStoreTest {
+    private static final long T0 = 1_700_000_000_000L;
+    private static final long SENSOR = SensorFrameDecoder.parseSensorId(SensorFrames.AIR_QUALITY_SENSOR);
+
+    private static SensorReading level(long timestamp, double temperature, double level) {
+        return SensorFrameDecoder.decode(SensorFrames.airQuality(
+                SensorFrames.AIR_QUALITY_SENSOR, 1, 1, temperature, 50, 10, 20, 40, level, 70), timestamp);
+    }
+
+    @Test
+    void testGorillaRoundTripsEveryEncodingBranch() {
+        GorillaChunk chunk = new GorillaChunk(T0);
+        SeriesPoints expected = new SeriesPoints();
+        long[] deltaOfDeltas = {0, 1, -1, 64, -63, 65, -64, 256, -255, 257, 2048, -2047, 2049, -2048, 5_000_000, 0};
+        Random random = new Random(3);
+        long timestamp = T0;
+        long delta = 30_000;
+        double value = 21.5;
+        for (int i = 0; i < 2000; i++) {
+            delta = Math.max(0, delta + deltaOfDeltas[i % deltaOfDeltas.length]);
+            timestamp += delta;
+            switch (i % 4) {
+                case 0: break;
+                case 1: value += 0.01; break;
+                case 2: value = Math.round(random.nextGaussian() * 1000) / 100.0; break;
+                default: value = i % 8 == 3 ? Double.NaN : -value; break;
+            }
+            chunk.append(timestamp, value);
+            expected.add(timestamp, value);
+        }
+        chunk.seal();
+
+        SeriesPoints decoded = new SeriesPoints();
+        chunk.decode(Long.MIN_VALUE, Long.MAX_VALUE, decoded);
+        assertEquals(expected.size(), decoded.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.timestamp(i), decoded.timestamp(i), "timestamp " + i);
+            assertEquals(Double.doubleToRawLongBits(expected.value(i)), Double.doubleToRawLongBits(decoded.value(i)), "value " + i);
+        }
+    }
+
+    @Test
+    void testSteadySensorCompressesToFewBytesPerPoint() {
+        RecentSeriesStore store = new RecentSeriesStore(TimeUnit.HOURS.toMillis(24), 10);
+        int points = 24 * 60 * 2;
+        for (int i = 0; i < points; i++) {
+            // 30 s interval with a little jitter, slowly drifting values
+            long timestamp = T0 + i * 30_000L + (i * 7 % 13);
+            store.add(level(timestamp, 20 + (i / 120) * 0.1, 1.5 + (i % 50) * 0.01));
+        }
+        SeriesPoints all = store.query(SENSOR, SensorParameter.ULTRASONIC_LIQUID_LEVEL,
+                0, Long.MAX_VALUE, Integer.MAX_VALUE, Downsampling.Mode.RAW);
+        assertEquals(points, all.size());
+        assertEquals(1.5 + 49 * 0.01, all.value(49), 1e-9);
+
+        // Seven series per air-quality reading (the parameters present in the frame)
+        double bytesPerPoint = (double) store.getMemoryBytes() / store.getPointsStored();
+        assertTrue(bytesPerPoint < 4, "bytes per point: " + bytesPerPoint);
+    }
+
+    @Test
+    void testRetentionAndOutOfOrder() {
+        long hour = TimeUnit.HOURS.toMillis(1);
+        RecentSeriesStore store = new RecentSeriesStore(2 * hour, 10);
+        for (int i = 0; i <= 6 * 60; i++) {
+            store.add(level(T0 + i * 60_000L, 20, 1.0 + i * 0.001));
+        }
+        store.add(level(T0, 20, 9.0));
+        assertEquals(1, store.getOutOfOrder());
+
+        SeriesPoints kept = store.query(SENSOR, SensorParameter.ULTRASONIC_LIQUID_LEVEL,
+                0, Long.MAX_VALUE, Integer.MAX_VALUE, Downsampling.Mode.RAW);
+        long newest = T0 + 6 * hour;
+        assertEquals(newest, kept.timestamp(kept.size() - 1));
+        assertTrue(kept.timestamp(0) >= newest - 2 * hour - hour / 6, "oldest kept: " + (newest - kept.timestamp(0)));
+        assertTrue(kept.timestamp(0) <= newest - 2 * hour);
+
+        SeriesPoints window = store.query(SENSOR, SensorParameter.ULTRASONIC_LIQUID_LEVEL,
+                newest - hour, newest - hour / 2, Integer.MAX_VALUE, Downsampling.Mode.RAW);
+        assertEquals(31, window.size());
+        assertNull(store.query(SENSOR + 1, SensorParameter.TEMPERATURE, 0, Long.MAX_VALUE, 10, Downsampling.Mode.LTTB));
+
+        store.prune(newest + 3 * hour);
+        assertEquals(0, store.getDeviceCount());
+    }
+
+    @Test
+    void testDownsamplingKeepsShapeAndSpikes() {
+        SeriesPoints points = new SeriesPoints();
+        for (int i = 0; i < 10_000; i++) {
+            points.add(T0 + i * 1000L, i == 4321 ? 100 : Math.sin(i / 500.0));
+        }
+
+        SeriesPoints lttb = Downsampling.lttb(points, 200);
+        assertEquals(200, lttb.size());
+        assertEquals(T0, lttb.timestamp(0));
+        assertEquals(T0 + 9_999_000L, lttb.timestamp(199));
+        assertTrue(contains(lttb, 100), "LTTB keeps the spike");
+
+        SeriesPoints minMax = Downsampling.minMax(points, 200);
+        assertTrue(minMax.size() <= 200 && minMax.size() > 150, "size " + minMax.size());
+        assertTrue(contains(minMax, 100), "min/max keeps the spike");
+        for (int i = 1; i < minMax.size(); i++) {
+            assertTrue(minMax.timestamp(i) > minMax.timestamp(i - 1));
+        }
+        assertSame(points, Downsampling.apply(points, 20_000, Downsampling.Mode.LTTB));
+    }
+
+    private static boolean contains(SeriesPoints points, double value) {
+        for (int i = 0; i < points.size(); i++) {
+            if (points.value(i) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
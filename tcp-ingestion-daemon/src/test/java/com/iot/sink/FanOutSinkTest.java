@@ -0,0 +1,164 @@
+package com.iot.sink;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.TcpIngestionDaemon;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FanOutSinkTest {
+    private static final long HOUR = 3_600_000;
+    private static final long T0 = 1_700_000_000_000L - 1_700_000_000_000L % HOUR;
+
+    /**
+     * Records everything; optionally blocks every batch until released
+     */
+    private static class RecordingSink implements SensorSink {
+        final String name;
+        final CountDownLatch release;
+        final List<SensorRecord> records = new ArrayList<>();
+
+        RecordingSink(String name, CountDownLatch release) {
+            this.name = name;
+            this.release = release;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> accept(SensorRecord record) {
+            return acceptBatch(List.of(record)).thenApply(n -> n == 1);
+        }
+
+        @Override
+        public CompletableFuture<Integer> acceptBatch(List<SensorRecord> batch) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized (records) {
+                    records.addAll(batch);
+                }
+                return batch.size();
+            });
+        }
+
+        int count() {
+            synchronized (records) {
+                return records.size();
+            }
+        }
+
+        @Override public String getName() { return name; }
+        @Override public void printStats() { }
+        @Override public void shutdown() { }
+    }
+
+    private static SensorRecord record(int order, long receivedAt) {
+        return new SensorRecord(SensorFrames.airQuality(SensorFrames.AIR_QUALITY_SENSOR, 1, order, 20, 50, 5, 10, 40, 1.0, 70),
+                "test", receivedAt, null, null);
+    }
+
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testSlowSinkDoesNotHoldUpTheOthers() throws Exception {
+        CountDownLatch stuck = new CountDownLatch(1);
+        RecordingSink fast = new RecordingSink("fast", new CountDownLatch(0));
+        RecordingSink slow = new RecordingSink("slow", stuck);
+        FanOutSink fanOut = new FanOutSink(List.of(fast, slow), 5, 10);
+
+        for (int i = 0; i < 100; i++) {
+            // Pace by the fast sink rather than the clock, which a busy single-core box cannot keep
+            await(() -> fanOut.getQueueDepth(0) < 5);
+            assertTrue(fanOut.accept(record(i, T0)).get());
+        }
+        await(() -> fast.count() == 100);
+        assertEquals(0, slow.count());
+        assertEquals(0, fanOut.getDropped(0));
+        assertTrue(fanOut.getDropped(1) >= 80, "the slow sink sheds load once its queue is full");
+
+        stuck.countDown();
+        fanOut.shutdown();
+        assertEquals(100 - fanOut.getDropped(1), slow.count());
+    }
+
+    @Test
+    void testNdjsonRotatesByHourAndSize(@TempDir Path dir) throws Exception {
+        NdjsonFileSink sink = new NdjsonFileSink(dir, "sensors", 1024);
+        List<SensorRecord> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(record(i, T0 + i * 1000L));
+        }
+        assertEquals(10, sink.acceptBatch(batch).get());
+        assertTrue(sink.accept(record(10, T0 + HOUR)).get());
+        sink.shutdown();
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.sorted().collect(Collectors.toList());
+        }
+        assertTrue(files.size() >= 3, "size limit splits the first hour: " + files);
+        long lines = 0;
+        for (Path file : files) {
+            assertTrue(Files.size(file) <= 1024);
+            lines += Files.readAllLines(file).size();
+        }
+        assertEquals(11, lines);
+
+        Path lastHour = files.get(files.size() - 1);
+        assertTrue(lastHour.getFileName().toString().endsWith("T" + String.format("%02d", (T0 / HOUR + 1) % 24) + ".ndjson"), lastHour.toString());
+        Map<?, ?> line = new ObjectMapper().readValue(Files.readAllLines(lastHour).get(0), Map.class);
+        assertEquals(SensorFrames.AIR_QUALITY_SENSOR, line.get("sensorId"));
+        assertEquals(10, line.get("order"));
+        assertEquals(20.0, line.get("temperature"));
+    }
+
+    @Test
+    void testDaemonFansOutToBackendAndFile(@TempDir Path dir) throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer()) {
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            NdjsonFileSink file = new NdjsonFileSink(dir);
+            daemon.setSink(new FanOutSink(List.of(new HttpSensorSink(daemon.getBackendForwarder()), file)));
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket socket = new Socket("127.0.0.1", embedded.port());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                for (int i = 0; i < 25; i++) {
+                    out.println(SensorFrames.airQuality(SensorFrames.AIR_QUALITY_SENSOR, 1, i, 20, 50, 5, 10, 40, 1.0, 70));
+                    assertEquals("OK", in.readLine());
+                }
+                assertTrue(backend.awaitAccepted(25, 10, TimeUnit.SECONDS));
+                await(() -> file.getWritten() == 25);
+            }
+        }
+    }
+}
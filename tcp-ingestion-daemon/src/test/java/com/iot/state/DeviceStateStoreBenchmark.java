@@ -0,0 +1,122 @@
+package com.iot.state;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for DeviceStateStore at 10k, 100k and 1M devices.
+ *
+ * "resident" sizes the store for every device, so it measures the hit path; "overBudget" gives it
+ * room for a tenth of the devices under a skewed (Zipf-like) access pattern, so it measures
+ * eviction and admission. "boxedMap" is the ConcurrentHashMap&lt;Long, long[]&gt; the store replaces.
+ *
+ * Run after {@code mvn test-compile}:
+ * java -cp "target/classes:target/test-classes:target/dependency/*" com.iot.state.DeviceStateStoreBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DeviceStateStoreBenchmark {
+    private static final int FIELDS = 4;
+    private static final int ID_COUNT = 1 << 20;
+    private static final long ID_BASE = 0x160900000000L;
+
+    @Param({"10000", "100000", "1000000"})
+    public int devices;
+
+    private DeviceStateStore resident;
+    private DeviceStateStore overBudget;
+    private ConcurrentHashMap<Long, long[]> boxed;
+    private long[] uniformIds;
+    private long[] skewedIds;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = new Random().nextInt(ID_COUNT);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        uniformIds = new long[ID_COUNT];
+        skewedIds = new long[ID_COUNT];
+        for (int i = 0; i < ID_COUNT; i++) {
+            uniformIds[i] = ID_BASE + random.nextInt(devices);
+            // Inverse-CDF sample of a 1/x density over [1, devices]: a few devices dominate
+            skewedIds[i] = ID_BASE + (long) Math.pow(devices, random.nextDouble()) - 1;
+        }
+
+        resident = new DeviceStateStore(FIELDS, DeviceStateStore.bytesPerDevice(FIELDS) * devices * 3 / 2);
+        overBudget = new DeviceStateStore(FIELDS, DeviceStateStore.bytesPerDevice(FIELDS) * devices / 10);
+        boxed = new ConcurrentHashMap<>();
+        for (int i = 0; i < devices; i++) {
+            resident.addLong(ID_BASE + i, 0, 1);
+            boxed.put(ID_BASE + i, new long[FIELDS]);
+        }
+        System.out.println("\n🗃️  " + devices + " devices: resident store " + (resident.getMemoryBytes() >> 10)
+                + " KB for " + resident.getCapacity() + " slots, over-budget store "
+                + (overBudget.getMemoryBytes() >> 10) + " KB for " + overBudget.getCapacity() + " slots");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        overBudget.printStats("over-budget");
+    }
+
+    private static long nextId(long[] ids, Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = (i + 1) & (ID_COUNT - 1);
+        return ids[i];
+    }
+
+    @Benchmark
+    public long residentAdd(Cursor cursor) {
+        return resident.addLong(nextId(uniformIds, cursor), 1, 1);
+    }
+
+    @Benchmark
+    public double residentGet(Cursor cursor) {
+        return resident.getDouble(nextId(uniformIds, cursor), 2);
+    }
+
+    @Benchmark
+    public long residentUpdate(Cursor cursor) {
+        long id = nextId(uniformIds, cursor);
+        resident.update(id, entry -> {
+            entry.setDouble(2, entry.getDouble(2) + 0.5);
+            entry.setLong(3, id);
+        });
+        return id;
+    }
+
+    @Benchmark
+    public long overBudgetAdd(Cursor cursor) {
+        return overBudget.addLong(nextId(skewedIds, cursor), 1, 1);
+    }
+
+    @Benchmark
+    public long boxedMapAdd(Cursor cursor) {
+        long[] state = boxed.computeIfAbsent(nextId(uniformIds, cursor), id -> new long[FIELDS]);
+        synchronized (state) {
+            return ++state[1];
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DeviceStateStoreBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
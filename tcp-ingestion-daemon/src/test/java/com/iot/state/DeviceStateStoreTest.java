@@ -0,0 +1,156 @@
+package com.iot.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeviceStateStoreTest {
+
+    @Test
+    void testFieldsAreStoredPerDevice() {
+        DeviceStateStore store = new DeviceStateStore(3, 1 << 20, 4);
+        long a = 0x16098522754EL;
+        long b = 0x124A7DA90849L;
+
+        assertEquals(-1, store.getLong(a, 0, -1));
+        assertTrue(Double.isNaN(store.getDouble(a, 1)));
+
+        store.putLong(a, 0, 42);
+        store.putDouble(a, 1, 1.25);
+        assertEquals(5, store.addLong(b, 2, 5));
+        assertEquals(7, store.addLong(b, 2, 2));
+
+        assertEquals(42, store.getLong(a, 0, -1));
+        assertEquals(1.25, store.getDouble(a, 1));
+        assertEquals(0, store.getLong(b, 0, -1), "new devices start at zero");
+
+        long[] copy = new long[3];
+        assertTrue(store.read(b, copy));
+        assertArrayEquals(new long[]{0, 0, 7}, copy);
+
+        store.update(a, entry -> {
+            assertFalse(entry.isNew());
+            assertEquals(a, entry.getSensorId());
+            entry.setLong(2, entry.getLong(0) + 1);
+        });
+        assertEquals(43, store.getLong(a, 2, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.putLong(a, 3, 1));
+
+        assertTrue(store.remove(a));
+        assertFalse(store.contains(a));
+        assertFalse(store.read(a, copy));
+        store.update(a, entry -> assertTrue(entry.isNew()));
+        assertEquals(0, store.getLong(a, 0, -1), "a re-added device does not see old values");
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void testStaysWithinBudgetAndMatchesReferenceMap() {
+        long budget = 256 * 1024;
+        DeviceStateStore store = new DeviceStateStore(2, budget, 8);
+        assertTrue(store.getMemoryBytes() <= budget);
+        assertTrue(store.getCapacity() >= budget / DeviceStateStore.bytesPerDevice(2) * 8 / 10,
+                "capacity " + store.getCapacity() + " wastes the budget");
+
+        // Random adds and removes below capacity: the store must behave like a plain map
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(7);
+        int keySpace = store.getCapacity() / 2;
+        for (int i = 0; i < 200_000; i++) {
+            long id = random.nextInt(keySpace);
+            if (random.nextInt(4) == 0) {
+                assertEquals(reference.remove(id) != null, store.remove(id));
+            } else {
+                long value = random.nextLong();
+                reference.put(id, value);
+                store.putLong(id, 1, value);
+            }
+        }
+        assertEquals(reference.size(), store.size());
+        reference.forEach((id, value) -> assertEquals(value, store.getLong(id, 1, 0)));
+        assertEquals(0, store.getEvictions());
+
+        // Far more devices than fit: the size is capped, nothing grows
+        for (long id = 1_000_000; id < 1_000_000 + 10L * store.getCapacity(); id++) {
+            store.addLong(id, 0, 1);
+        }
+        assertEquals(store.getCapacity(), store.size());
+        assertTrue(store.getEvictions() > 0);
+        AtomicInteger visited = new AtomicInteger();
+        store.forEach(entry -> visited.incrementAndGet());
+        assertEquals(store.size(), visited.get());
+    }
+
+    @Test
+    void testFrequentDevicesSurviveScanOfOneOffIds() {
+        DeviceStateStore store = new DeviceStateStore(1, 64 * 1024, 1);
+        int capacity = store.getCapacity();
+        int hot = capacity / 2;
+        for (int round = 0; round < 5; round++) {
+            for (long id = 0; id < hot; id++) {
+                store.addLong(id, 0, 1);
+            }
+        }
+
+        // One-off sensorIds, interleaved with the hot devices still reporting
+        long stranger = 1L << 40;
+        for (int i = 0; i < 20 * capacity; i++) {
+            store.addLong(stranger++, 0, 1);
+            if (i % 4 == 0) {
+                store.addLong(i / 4 % hot, 0, 1);
+            }
+        }
+
+        int survivors = 0;
+        for (long id = 0; id < hot; id++) {
+            if (store.contains(id)) {
+                survivors++;
+            }
+        }
+        assertTrue(survivors > hot * 95 / 100, "only " + survivors + " of " + hot + " hot devices kept");
+        assertTrue(store.getRejected() > 0);
+    }
+
+    @Test
+    void testConcurrentCountersAreExact() throws Exception {
+        DeviceStateStore store = new DeviceStateStore(1, 1 << 20);
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        store.addLong(i % 1000, 0, 1);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long total = 0;
+        for (long id = 0; id < 1000; id++) {
+            total += store.getLong(id, 0, 0);
+        }
+        assertEquals((long) threads * perThread, total);
+    }
+
+    @Test
+    void testRejectsBudgetTooSmall() {
+        assertThrows(IllegalArgumentException.class, () -> new DeviceStateStore(4, 16, 1));
+        assertThrows(IllegalArgumentException.class, () -> new DeviceStateStore(0, 1 << 20, 1));
+    }
+}
@@ -0,0 +1,47 @@
+package com.iot.support;
+
+import com.iot.TcpIngestionDaemon;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link TcpIngestionDaemon} in-process on an ephemeral port for integration tests
+ */
+public class EmbeddedDaemon implements AutoCloseable {
+    private final TcpIngestionDaemon daemon;
+    private final Thread acceptThread;
+
+    public EmbeddedDaemon(String backendUrl) throws InterruptedException {
+        this(new TcpIngestionDaemon(0, backendUrl));
+    }
+
+    public EmbeddedDaemon(TcpIngestionDaemon daemon) throws InterruptedException {
+        this.daemon = daemon;
+        this.acceptThread = new Thread(() -> {
+            try {
+                daemon.start();
+            } catch (IOException e) {
+                throw new IllegalStateException("Embedded daemon failed to start", e);
+            }
+        }, "embedded-daemon");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        if (!daemon.awaitStarted(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Embedded daemon did not start within 10s");
+        }
+    }
+
+    public TcpIngestionDaemon daemon() { return daemon; }
+    public int port() { return daemon.getLocalPort(); }
+
+    @Override
+    public void close() {
+        daemon.stop();
+        try {
+            acceptThread.join(TimeUnit.SECONDS.toMillis(15));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.iot.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Node backend, built on com.sun.net.httpserver.
+ *
+ * Accepts the daemon's POST /api/sensor/raw-data calls and GET .../health probes and
+ * lets tests inject latency, 5xx/4xx responses, dropped exchanges and slow body reads.
+ * All knobs are volatile so a test can change backend behaviour while traffic is flowing.
+ */
+public class FakeBackendServer implements AutoCloseable {
+    public static final String RAW_DATA_PATH = "/api/sensor/raw-data";
+
+    /**
+     * Source of per-request response delays, in microseconds
+     */
+    public interface LatencyDistribution {
+        long nextDelayMicros(ThreadLocalRandom random);
+
+        static LatencyDistribution none() {
+            return random -> 0;
+        }
+
+        static LatencyDistribution fixed(long millis) {
+            return random -> millis * 1000;
+        }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            return random -> random.nextLong(minMillis * 1000, maxMillis * 1000 + 1);
+        }
+
+        static LatencyDistribution exponential(double meanMillis) {
+            return random -> (long) (-Math.log(1.0 - random.nextDouble()) * meanMillis * 1000);
+        }
+
+        /**
+         * Mostly fast responses with occasional long stalls, like a Node instance in a GC pause
+         */
+        static LatencyDistribution bimodal(long baseMillis, long stallMillis, double stallProbability) {
+            return random -> (random.nextDouble() < stallProbability ? stallMillis : baseMillis) * 1000;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile LatencyDistribution latency = LatencyDistribution.none();
+    private volatile double serverErrorRate = 0;
+    private volatile double clientErrorRate = 0;
+    private volatile double dropRate = 0;
+    private volatile int slowReadChunkBytes = 0;
+    private volatile long slowReadDelayMs = 0;
+    private volatile boolean healthy = true;
+    private volatile boolean recordBodies = true;
+
+    private final AtomicLong received = new AtomicLong(0);
+    private final AtomicLong accepted = new AtomicLong(0);
+    private final AtomicLong serverErrors = new AtomicLong(0);
+    private final AtomicLong clientErrors = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong healthChecks = new AtomicLong(0);
+    private final ConcurrentLinkedQueue<String> bodies = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> idempotencyKeys = new ConcurrentLinkedQueue<>();
+    private final Map<String, AtomicLong> pathCounts = new ConcurrentHashMap<>();
+    private final Map<String, String> staticResponses = new ConcurrentHashMap<>();
+
+    public FakeBackendServer() throws IOException {
+        this(0);
+    }
+
+    public FakeBackendServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "fake-backend");
+            t.setDaemon(true);
+            return t;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        pathCounts.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        try {
+            if (path.endsWith("/health")) {
+                healthChecks.incrementAndGet();
+                respond(exchange, healthy ? 200 : 503,
+                        "{\"success\":" + healthy + ",\"message\":\"fake backend\"}");
+                return;
+            }
+
+            String staticBody = staticResponses.get(path);
+            if ("GET".equalsIgnoreCase(exchange.getRequestMethod()) && staticBody != null) {
+                respond(exchange, 200, staticBody);
+                return;
+            }
+
+            String body = readBody(exchange.getRequestBody());
+            received.incrementAndGet();
+            if (recordBodies) {
+                bodies.add(body);
+            }
+            String idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            if (idempotencyKey != null) {
+                idempotencyKeys.add(idempotencyKey);
+            }
+
+            long delayMicros = latency.nextDelayMicros(random);
+            if (delayMicros > 0) {
+                TimeUnit.MICROSECONDS.sleep(delayMicros);
+            }
+
+            double roll = random.nextDouble();
+            if (roll < dropRate) {
+                dropped.incrementAndGet();
+                exchange.close();
+                return;
+            }
+            roll -= dropRate;
+            if (roll < serverErrorRate) {
+                serverErrors.incrementAndGet();
+                respond(exchange, 503, "{\"success\":false,\"message\":\"injected server error\"}");
+                return;
+            }
+            roll -= serverErrorRate;
+            if (roll < clientErrorRate) {
+                clientErrors.incrementAndGet();
+                respond(exchange, 400, "{\"success\":false,\"message\":\"injected client error\"}");
+                return;
+            }
+
+            accepted.incrementAndGet();
+            respond(exchange, 200, "{\"success\":true,\"message\":\"Sensor data saved successfully\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        }
+    }
+
+    private String readBody(InputStream in) throws IOException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int chunk = slowReadChunkBytes > 0 ? slowReadChunkBytes : 8192;
+        byte[] buffer = new byte[chunk];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+            if (slowReadChunkBytes > 0 && slowReadDelayMs > 0) {
+                Thread.sleep(slowReadDelayMs);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Block until at least {@code count} requests were accepted with a 2xx
+     */
+    public boolean awaitAccepted(long count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (accepted.get() < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    public void reset() {
+        received.set(0);
+        accepted.set(0);
+        serverErrors.set(0);
+        clientErrors.set(0);
+        dropped.set(0);
+        healthChecks.set(0);
+        bodies.clear();
+        idempotencyKeys.clear();
+        pathCounts.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // Configuration
+    public FakeBackendServer withLatency(LatencyDistribution latency) { this.latency = latency; return this; }
+    public FakeBackendServer withServerErrorRate(double rate) { this.serverErrorRate = rate; return this; }
+    public FakeBackendServer withClientErrorRate(double rate) { this.clientErrorRate = rate; return this; }
+    public FakeBackendServer withDropRate(double rate) { this.dropRate = rate; return this; }
+    public FakeBackendServer withHealthy(boolean healthy) { this.healthy = healthy; return this; }
+    public FakeBackendServer withRecordBodies(boolean record) { this.recordBodies = record; return this; }
+
+    public FakeBackendServer withSlowRead(int chunkBytes, long delayMs) {
+        this.slowReadChunkBytes = chunkBytes;
+        this.slowReadDelayMs = delayMs;
+        return this;
+    }
+
+    /**
+     * Serve a fixed JSON document for GET requests on {@code path} (export endpoints)
+     */
+    public FakeBackendServer withStaticResponse(String path, String json) {
+        staticResponses.put(path, json);
+        return this;
+    }
+
+    // Observations
+    public int getPort() { return server.getAddress().getPort(); }
+    public String getUrl(String path) { return "http://127.0.0.1:" + getPort() + path; }
+    public String getRawDataUrl() { return getUrl(RAW_DATA_PATH); }
+    public long getReceived() { return received.get(); }
+    public long getAccepted() { return accepted.get(); }
+    public long getServerErrors() { return serverErrors.get(); }
+    public long getClientErrors() { return clientErrors.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getHealthChecks() { return healthChecks.get(); }
+    public List<String> getBodies() { return new ArrayList<>(bodies); }
+    public List<String> getIdempotencyKeys() { return new ArrayList<>(idempotencyKeys); }
+
+    public long getPathCount(String path) {
+        AtomicLong count = pathCounts.get(path);
+        return count != null ? count.get() : 0;
+    }
+}
@@ -0,0 +1,334 @@
+package com.iot.support;
+
+import org.bson.BsonArray;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for mongod, speaking just enough of the wire protocol for the Java driver:
+ * the OP_QUERY / OP_MSG handshake, insert (including document sequences), find with equality
+ * and $in filters, and no-op replies for housekeeping commands. Data lives in memory.
+ *
+ * Not a database: no indexes other than a unique _id, no updates, no cursors beyond the first batch.
+ */
+public class MongoStandIn implements AutoCloseable {
+    private static final int OP_REPLY = 1;
+    private static final int OP_QUERY = 2004;
+    private static final int OP_MSG = 2013;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "mongo-stand-in");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, List<BsonDocument>> collections = new ConcurrentHashMap<>();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final AtomicInteger responseIds = new AtomicInteger();
+    private final AtomicLong insertCommands = new AtomicLong();
+    private final AtomicLong findCommands = new AtomicLong();
+    private volatile boolean lastInsertOrdered = true;
+    private volatile boolean failInserts;
+
+    public MongoStandIn() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        connections.submit(this::acceptLoop);
+    }
+
+    public String getConnectionString(String database) {
+        return "mongodb://127.0.0.1:" + serverSocket.getLocalPort() + "/" + database
+                + "?serverSelectionTimeoutMS=5000&connectTimeoutMS=2000";
+    }
+
+    public void insert(String database, String collection, BsonDocument document) {
+        if (!document.containsKey("_id")) {
+            document.put("_id", new BsonObjectId());
+        }
+        collection(database, collection).add(document);
+    }
+
+    public List<BsonDocument> documents(String database, String collection) {
+        List<BsonDocument> docs = collection(database, collection);
+        synchronized (docs) {
+            return new ArrayList<>(docs);
+        }
+    }
+
+    public long getInsertCommands() { return insertCommands.get(); }
+    public long getFindCommands() { return findCommands.get(); }
+    public boolean isLastInsertOrdered() { return lastInsertOrdered; }
+
+    /**
+     * Make insert commands fail with a (retryable) error until switched off
+     */
+    public void setFailInserts(boolean fail) { this.failInserts = fail; }
+
+    private List<BsonDocument> collection(String database, String collection) {
+        return collections.computeIfAbsent(database + "." + collection,
+                k -> java.util.Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                connections.submit(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            while (true) {
+                int length = Integer.reverseBytes(in.readInt());
+                byte[] message = new byte[length - 4];
+                in.readFully(message);
+                ByteBuffer buf = ByteBuffer.wrap(message).order(ByteOrder.LITTLE_ENDIAN);
+                int requestId = buf.getInt();
+                buf.getInt(); // responseTo
+                int opCode = buf.getInt();
+
+                if (opCode == OP_QUERY) {
+                    buf.getInt(); // flags
+                    readCString(buf); // full collection name
+                    buf.getInt(); // numberToSkip
+                    buf.getInt(); // numberToReturn
+                    BsonDocument reply = handle(readDocument(buf), null);
+                    out.write(opReply(requestId, reply));
+                } else if (opCode == OP_MSG) {
+                    int flags = buf.getInt();
+                    int end = message.length - ((flags & 1) != 0 ? 4 : 0);
+                    BsonDocument body = null;
+                    List<BsonDocument> sequence = new ArrayList<>();
+                    while (buf.position() < end) {
+                        byte kind = buf.get();
+                        if (kind == 0) {
+                            body = readDocument(buf);
+                        } else {
+                            int sectionEnd = buf.position() + buf.getInt();
+                            readCString(buf);
+                            while (buf.position() < sectionEnd) {
+                                sequence.add(readDocument(buf));
+                            }
+                        }
+                    }
+                    out.write(opMsg(requestId, handle(body, sequence)));
+                } else {
+                    return;
+                }
+                out.flush();
+            }
+        } catch (EOFException e) {
+            // client closed the connection
+        } catch (IOException e) {
+            // connection reset or stand-in closed
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private BsonDocument handle(BsonDocument command, List<BsonDocument> sequence) {
+        String name = command.getFirstKey();
+        String db = command.containsKey("$db") ? command.getString("$db").getValue() : "admin";
+        switch (name.toLowerCase()) {
+            case "ismaster":
+            case "hello":
+                return new BsonDocument("ismaster", BsonBoolean.TRUE)
+                        .append("isWritablePrimary", BsonBoolean.TRUE)
+                        .append("helloOk", BsonBoolean.TRUE)
+                        .append("maxBsonObjectSize", new BsonInt32(16 * 1024 * 1024))
+                        .append("maxMessageSizeBytes", new BsonInt32(48_000_000))
+                        .append("maxWriteBatchSize", new BsonInt32(100_000))
+                        .append("localTime", new BsonDateTime(System.currentTimeMillis()))
+                        .append("connectionId", new BsonInt32(responseIds.incrementAndGet()))
+                        .append("minWireVersion", new BsonInt32(0))
+                        .append("maxWireVersion", new BsonInt32(17))
+                        .append("readOnly", BsonBoolean.FALSE)
+                        .append("ok", new BsonInt32(1));
+            case "insert":
+                return insertCommand(db, command, sequence);
+            case "find":
+                return findCommand(db, command);
+            case "buildinfo":
+                return new BsonDocument("version", new BsonString("6.0.0"))
+                        .append("versionArray", new BsonArray(List.of(new BsonInt32(6), new BsonInt32(0), new BsonInt32(0))))
+                        .append("ok", new BsonInt32(1));
+            default:
+                return new BsonDocument("ok", new BsonInt32(1));
+        }
+    }
+
+    private BsonDocument insertCommand(String db, BsonDocument command, List<BsonDocument> sequence) {
+        insertCommands.incrementAndGet();
+        if (failInserts) {
+            return new BsonDocument("ok", new BsonInt32(0))
+                    .append("errmsg", new BsonString("stand-in: not primary"))
+                    .append("code", new BsonInt32(10107))
+                    .append("codeName", new BsonString("NotWritablePrimary"));
+        }
+        lastInsertOrdered = !command.containsKey("ordered") || command.getBoolean("ordered").getValue();
+        List<BsonDocument> documents = new ArrayList<>();
+        if (command.containsKey("documents")) {
+            for (BsonValue value : command.getArray("documents")) {
+                documents.add(value.asDocument());
+            }
+        }
+        if (sequence != null) {
+            documents.addAll(sequence);
+        }
+
+        List<BsonDocument> target = collection(db, command.getString("insert").getValue());
+        BsonArray writeErrors = new BsonArray();
+        int n = 0;
+        synchronized (target) {
+            for (int i = 0; i < documents.size(); i++) {
+                BsonDocument doc = documents.get(i);
+                BsonValue id = doc.get("_id");
+                boolean duplicate = id != null && target.stream().anyMatch(d -> id.equals(d.get("_id")));
+                if (duplicate) {
+                    writeErrors.add(new BsonDocument("index", new BsonInt32(i))
+                            .append("code", new BsonInt32(11000))
+                            .append("errmsg", new BsonString("E11000 duplicate key error _id: " + id)));
+                    if (lastInsertOrdered) {
+                        break;
+                    }
+                    continue;
+                }
+                insert(db, command.getString("insert").getValue(), doc);
+                n++;
+            }
+        }
+        BsonDocument reply = new BsonDocument("n", new BsonInt32(n));
+        if (!writeErrors.isEmpty()) {
+            reply.append("writeErrors", writeErrors);
+        }
+        return reply.append("ok", new BsonInt32(1));
+    }
+
+    private BsonDocument findCommand(String db, BsonDocument command) {
+        findCommands.incrementAndGet();
+        String collection = command.getString("find").getValue();
+        BsonDocument filter = command.containsKey("filter") ? command.getDocument("filter") : new BsonDocument();
+        BsonArray batch = new BsonArray();
+        for (BsonDocument doc : documents(db, collection)) {
+            if (matches(doc, filter)) {
+                batch.add(doc);
+            }
+        }
+        return new BsonDocument("cursor", new BsonDocument("firstBatch", batch)
+                .append("id", new BsonInt64(0))
+                .append("ns", new BsonString(db + "." + collection)))
+                .append("ok", new BsonInt32(1));
+    }
+
+    private static boolean matches(BsonDocument doc, BsonDocument filter) {
+        for (Map.Entry<String, BsonValue> condition : filter.entrySet()) {
+            BsonValue actual = doc.get(condition.getKey());
+            BsonValue expected = condition.getValue();
+            if (expected.isDocument() && expected.asDocument().containsKey("$in")) {
+                if (actual == null || !expected.asDocument().getArray("$in").contains(actual)) {
+                    return false;
+                }
+            } else if (!expected.equals(actual)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readCString(ByteBuffer buf) {
+        int start = buf.position();
+        while (buf.get() != 0) {
+            // scan to terminator
+        }
+        return new String(buf.array(), start, buf.position() - start - 1, StandardCharsets.UTF_8);
+    }
+
+    private static BsonDocument readDocument(ByteBuffer buf) {
+        int size = buf.getInt(buf.position());
+        ByteBuffer slice = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+        slice.limit(size);
+        buf.position(buf.position() + size);
+        try (BsonBinaryReader reader = new BsonBinaryReader(slice)) {
+            return new BsonDocumentCodec().decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    private static byte[] encode(BsonDocument document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            new BsonDocumentCodec().encode(writer, document, EncoderContext.builder().build());
+        }
+        return buffer.toByteArray();
+    }
+
+    private byte[] opReply(int responseTo, BsonDocument document) {
+        byte[] doc = encode(document);
+        ByteBuffer buf = ByteBuffer.allocate(16 + 20 + doc.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(buf.capacity()).putInt(responseIds.incrementAndGet()).putInt(responseTo).putInt(OP_REPLY);
+        buf.putInt(0).putLong(0).putInt(0).putInt(1).put(doc);
+        return buf.array();
+    }
+
+    private byte[] opMsg(int responseTo, BsonDocument document) {
+        byte[] doc = encode(document);
+        ByteBuffer buf = ByteBuffer.allocate(16 + 5 + doc.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(buf.capacity()).putInt(responseIds.incrementAndGet()).putInt(responseTo).putInt(OP_MSG);
+        buf.putInt(0).put((byte) 0).put(doc);
+        return buf.array();
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+        connections.shutdownNow();
+    }
+}
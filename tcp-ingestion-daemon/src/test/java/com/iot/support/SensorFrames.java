@@ -0,0 +1,64 @@
+package com.iot.support;
+
+/**
+ * Builds protocol-correct FEDC frames for tests and load tools.
+ *
+ * Layout: FE DC | version(1) | sensorId(6) | sessionId(4) | order(1) | length(2) | payload of 4-byte big-endian ints
+ */
+public final class SensorFrames {
+    public static final String AIR_QUALITY_SENSOR = "16098522754E";
+    public static final String WEATHER_SENSOR = "124A7DA90849";
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private SensorFrames() {
+    }
+
+    public static String frame(String sensorIdHex, long sessionId, int order, int... values) {
+        StringBuilder sb = new StringBuilder(32 + values.length * 8);
+        sb.append("FEDC01").append(sensorIdHex);
+        appendHex(sb, sessionId & 0xFFFFFFFFL, 8);
+        appendHex(sb, order & 0xFF, 2);
+        appendHex(sb, values.length * 4L, 4);
+        for (int value : values) {
+            appendHex(sb, value & 0xFFFFFFFFL, 8);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * temperature x10, humidity x10, pm2.5, pm10, noise x10, ultrasonic level in mm, rssi, error code
+     */
+    public static String airQuality(String sensorIdHex, long sessionId, int order,
+                                    double temperature, double humidity, int pm25, int pm10,
+                                    double noise, double levelMeters, int rssi) {
+        return frame(sensorIdHex, sessionId, order,
+                (int) Math.round(temperature * 10), (int) Math.round(humidity * 10), pm25, pm10,
+                (int) Math.round(noise * 10), (int) Math.round(levelMeters * 1000), rssi, 0);
+    }
+
+    /**
+     * temperature x10, humidity x10, pressure x100, pm2.5, pm10, wind speed x10, wind direction,
+     * rainfall x10, solar radiation, rssi, error code
+     */
+    public static String weather(String sensorIdHex, long sessionId, int order,
+                                 double temperature, double humidity, double pressureHpa, int pm25, int pm10,
+                                 double windSpeed, int windDirection, double rainfall, int solarRadiation, int rssi) {
+        return frame(sensorIdHex, sessionId, order,
+                (int) Math.round(temperature * 10), (int) Math.round(humidity * 10), (int) Math.round(pressureHpa * 100),
+                pm25, pm10, (int) Math.round(windSpeed * 10), windDirection, (int) Math.round(rainfall * 10),
+                solarRadiation, rssi, 0);
+    }
+
+    public static String hexId(long sensorId) {
+        StringBuilder sb = new StringBuilder(12);
+        appendHex(sb, sensorId & 0xFFFFFFFFFFFFL, 12);
+        return sb.toString();
+    }
+
+    static void appendHex(StringBuilder sb, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(HEX[(int) ((value >>> shift) & 0xF)]);
+        }
+    }
+}
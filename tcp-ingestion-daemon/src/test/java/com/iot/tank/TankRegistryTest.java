@@ -0,0 +1,165 @@
+package com.iot.tank;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iot.TcpIngestionDaemon;
+import com.iot.protocol.SensorFrameDecoder;
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import com.iot.support.SensorFrames;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TankRegistryTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String LEVEL_SENSOR = "A1B2C3D4E5F6";
+
+    private static JsonNode export(boolean incremental, String updatedAt, String dimensions) throws Exception {
+        return MAPPER.readTree("{\"generatedAt\":\"2024-05-01T10:00:00Z\",\"incremental\":" + incremental + ","
+                + "\"devices\":[{\"sensorId\":\"" + LEVEL_SENSOR + "\",\"deviceType\":\"radar_level_sensor\","
+                + "\"tankType\":{\"_id\":\"t1\",\"updatedAt\":\"" + updatedAt + "\",\"shape\":\"cylindrical\","
+                + "\"orientation\":\"horizontal\",\"dimensions\":" + dimensions + ",\"capacity\":20000,\"offsetDepth\":0}},"
+                + "{\"sensorId\":\"" + SensorFrames.AIR_QUALITY_SENSOR + "\",\"deviceType\":\"radar_level_sensor\","
+                + "\"tankType\":{\"_id\":\"t2\",\"shape\":\"rectangular\",\"dimensions\":{\"length\":2,\"width\":1,\"height\":2},\"capacity\":4000}}]}");
+    }
+
+    @Test
+    void testLookupTableMatchesGeometry() throws Exception {
+        JsonNode dimensions = MAPPER.readTree("{\"diameter\":2.5,\"length\":4,\"height\":2.5}");
+        TankProfile profile = TankProfile.build(export(false, "v1", dimensions.toString()).path("devices").get(0), "v1");
+
+        for (double level = 0; level <= 2.5; level += 0.0371) {
+            double exact = TankGeometry.volumeM3("cylindrical", "horizontal", dimensions, level) * 1000;
+            assertEquals(exact, profile.litersAt(level), Math.max(1.0, exact * 0.001), "level " + level);
+        }
+        // Ultrasonic reports distance from the top: 0.5m of ullage in a 2.5m tank is 2.0m of liquid
+        assertEquals(2.0, profile.liquidLevel(0.5), 1e-9);
+        assertEquals(0, profile.liquidLevel(10), 1e-9);
+    }
+
+    /**
+     * convertSensorReadingToLevel from the server's volumeProcessor.js, line for line, including
+     * JavaScript's {@code ||} defaults
+     */
+    private static double serverLevel(double raw, String sensorType, JsonNode config, double height,
+                                      double offsetDepth, double calibrationOffset) {
+        String type = sensorType.isEmpty() ? "unknown" : sensorType.toLowerCase();
+        if (Double.isNaN(raw)) {
+            return 0;
+        }
+        double compensated = raw + calibrationOffset;
+        double level;
+        switch (type) {
+            case "ultrasonic": case "ultrasonic_level_sensor": case "radar": case "radar_level_sensor":
+            case "laser": case "laser_level_sensor":
+                double maxRange = or(config.path("maxSensorRange").asDouble(0), height * 1.5);
+                double minRange = or(config.path("minSensorRange").asDouble(0), 0.05);
+                double effective = Math.max(Math.min(compensated, maxRange), minRange);
+                level = height - effective - offsetDepth;
+                break;
+            case "pressure": case "pressure_transmitter": case "submersible": case "submersible_level_sensor":
+                level = compensated * or(config.path("pressureToHeightFactor").asDouble(0), 1) + offsetDepth;
+                break;
+            default:
+                level = compensated + offsetDepth;
+        }
+        if (level < 0) {
+            level = 0;
+        }
+        if (level > height) {
+            level = height;
+        }
+        return level;
+    }
+
+    private static double or(double value, double fallback) {
+        return value == 0 || Double.isNaN(value) ? fallback : value;
+    }
+
+    @Test
+    void testLevelRuleMatchesServer() throws Exception {
+        String[] types = {"radar_level_sensor", "ULTRASONIC_LEVEL_SENSOR", "laser", "Level1", "level2", "", "other",
+                "pressure_transmitter", "submersible", "float_switch", "load_cell"};
+        String[] configs = {"{}", "{\"minSensorRange\":0,\"maxSensorRange\":0,\"pressureToHeightFactor\":0}",
+                "{\"minSensorRange\":0.2,\"maxSensorRange\":2,\"pressureToHeightFactor\":0.5}"};
+        double[] readings = {Double.NaN, -0.3, 0, 0.02, 0.5, 1.2, 2.4, 3.9, 10};
+        int compared = 0;
+        for (String type : types) {
+            for (String config : configs) {
+                for (double offsetDepth : new double[] {0, 0.3}) {
+                    JsonNode device = MAPPER.readTree("{\"sensorId\":\"" + LEVEL_SENSOR + "\",\"deviceType\":\"" + type + "\","
+                            + "\"calibrationOffset\":0.1,\"sensorConfig\":" + config + ","
+                            + "\"tankType\":{\"shape\":\"rectangular\",\"dimensions\":{\"length\":2,\"width\":1,\"height\":2.5},"
+                            + "\"capacity\":5000,\"offsetDepth\":" + offsetDepth + "}}");
+                    TankProfile profile = TankProfile.build(device, "v1");
+                    for (double reading : readings) {
+                        double expected = serverLevel(reading, type, device.path("sensorConfig"), 2.5, offsetDepth, 0.1);
+                        assertEquals(expected, profile.liquidLevel(reading), 1e-9,
+                                type + " " + config + " offset " + offsetDepth + " reading " + reading);
+                        compared++;
+                    }
+                }
+            }
+        }
+        assertEquals(types.length * configs.length * 2 * readings.length, compared);
+
+        // Unknown and empty types read the level directly, and a zero minimum range means 5 cm
+        JsonNode plain = MAPPER.readTree("{\"deviceType\":\"\",\"tankType\":{\"shape\":\"rectangular\","
+                + "\"dimensions\":{\"length\":2,\"width\":1,\"height\":2.5}}}");
+        assertEquals(0.5, TankProfile.build(plain, "v1").liquidLevel(0.5), 1e-9);
+        JsonNode zeroMin = MAPPER.readTree("{\"deviceType\":\"radar_level_sensor\",\"sensorConfig\":{\"minSensorRange\":0},"
+                + "\"tankType\":{\"shape\":\"rectangular\",\"dimensions\":{\"length\":2,\"width\":1,\"height\":2.5}}}");
+        assertEquals(2.45, TankProfile.build(zeroMin, "v1").liquidLevel(0), 1e-9);
+    }
+
+    @Test
+    void testOnlyChangedTanksAreRebuilt() throws Exception {
+        TankRegistry registry = new TankRegistry("unused");
+        String dims = "{\"diameter\":2.5,\"length\":4,\"height\":2.5}";
+        assertEquals(2, registry.apply(export(false, "v1", dims)));
+        assertEquals(0, registry.apply(export(false, "v1", dims)));
+        assertEquals(1, registry.apply(export(false, "v2", "{\"diameter\":3,\"length\":4,\"height\":3}")));
+        assertEquals(2, registry.size());
+
+        registry.apply(MAPPER.readTree("{\"incremental\":true,\"removed\":[\"" + LEVEL_SENSOR + "\"]}"));
+        assertEquals(1, registry.size());
+        assertNull(registry.get(SensorFrameDecoder.parseSensorId(LEVEL_SENSOR)));
+        assertNotNull(registry.get(SensorFrameDecoder.AIR_QUALITY_SENSOR_ID));
+    }
+
+    @Test
+    void testForwardedLevelReadingCarriesVolume() throws Exception {
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(true)) {
+            TankRegistry registry = new TankRegistry("unused");
+            registry.apply(export(false, "v1", "{\"diameter\":2.5,\"length\":4,\"height\":2.5}"));
+            TcpIngestionDaemon daemon = new TcpIngestionDaemon(0, backend.getRawDataUrl());
+            daemon.setTankRegistry(registry);
+
+            try (EmbeddedDaemon embedded = new EmbeddedDaemon(daemon);
+                 Socket socket = new Socket("127.0.0.1", embedded.port());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                // 2m tank with 0.5m of ullage → 1.5m of liquid in a 2 x 1 footprint = 3000 L of 4000
+                out.println(SensorFrames.airQuality(SensorFrames.AIR_QUALITY_SENSOR, 1, 1, 20, 50, 5, 10, 40, 0.5, 70));
+                assertEquals("OK", in.readLine());
+                assertTrue(backend.awaitAccepted(1, 5, TimeUnit.SECONDS));
+            }
+
+            Map<?, ?> body = MAPPER.readValue(backend.getBodies().get(0), Map.class);
+            Map<?, ?> volume = (Map<?, ?>) body.get("tankVolume");
+            assertNotNull(volume);
+            assertEquals(1.5, ((Number) volume.get("level")).doubleValue(), 1e-6);
+            assertEquals(3000.0, ((Number) volume.get("volume")).doubleValue(), 0.5);
+            assertEquals(75.0, ((Number) volume.get("fillPercentage")).doubleValue(), 0.05);
+            assertEquals(1, registry.getReadingsEnriched());
+        }
+    }
+}
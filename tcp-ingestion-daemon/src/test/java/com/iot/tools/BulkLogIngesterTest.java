@@ -0,0 +1,132 @@
+package com.iot.tools;
+
+import com.iot.sink.NdjsonFileSink;
+import com.iot.sink.SensorRecord;
+import com.iot.sink.SensorSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkLogIngesterTest {
+    private static final long T0 = 1_704_067_200_000L;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Collects the hex of every accepted record
+     */
+    private static class CollectingSink implements SensorSink {
+        final Set<String> frames = ConcurrentHashMap.newKeySet();
+        final Set<String> timestamps = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public CompletableFuture<Boolean> accept(SensorRecord record) {
+            frames.add(record.getRawHex());
+            timestamps.add((String) record.getExtraFields().get("timestamp"));
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override public String getName() { return "collect"; }
+        @Override public void printStats() { }
+        @Override public void shutdown() { }
+    }
+
+    private static String frame(int i) {
+        return "FEDC01" + "A1B2C3" + String.format("%06X", i % 4096) + String.format("%08X", i) + "030010"
+                + "000000FA000001F40000003C00000000";
+    }
+
+    private static String spaced(String hex, char separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < hex.length(); i += 2) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(hex, i, i + 2);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Mixed contiguous / colon / spaced frames with noise lines and one bad frame per 1000
+     */
+    private Path writeLog(int frames) throws Exception {
+        Path log = tempDir.resolve("mixed.log");
+        try (BufferedWriter writer = Files.newBufferedWriter(log, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < frames; i++) {
+                String ts = Instant.ofEpochMilli(T0 + i * 1000L).toString().replace('T', ' ').replace("Z", "");
+                String hex = frame(i);
+                String body = i % 3 == 0 ? hex.toLowerCase() : spaced(hex, i % 3 == 1 ? ':' : ' ');
+                writer.write(ts + " [INFO] gateway rx Bytes in Hex: " + body + "\n");
+                if (i % 1000 == 0) {
+                    writer.write(ts + " [INFO] heartbeat from gateway\n");
+                    // Header claims 16 payload bytes but only 4 follow
+                    writer.write(ts + " [WARN] Bytes in Hex: FEDC01A1B2C3D4E5F60000000103001000000001\n");
+                }
+            }
+        }
+        return log;
+    }
+
+    @Test
+    void testParallelChunksFindEveryFrameOnce() throws Exception {
+        int frames = 20_000;
+        Path log = writeLog(frames);
+        assertTrue(Files.size(log) > 10 * 64 * 1024, "log must span many chunks");
+
+        CollectingSink sink = new CollectingSink();
+        BulkLogIngester ingester = new BulkLogIngester(sink, 4, 64 * 1024, 250);
+        ingester.ingest(log);
+
+        assertTrue(ingester.getChunks() >= 10);
+        assertEquals(frames, ingester.getFramesFound());
+        assertEquals(frames, ingester.getFramesAccepted());
+        assertEquals(20, ingester.getFramesRejected());
+        assertEquals(frames, sink.frames.size(), "no frame lost or duplicated at chunk boundaries");
+        assertTrue(sink.frames.contains(frame(12_345)));
+        assertTrue(sink.timestamps.contains("2024-01-01T00:00:00Z"));
+        assertTrue(ingester.getMegabytesPerSecond() > 0);
+    }
+
+    @Test
+    void testStreamsToNdjson() throws Exception {
+        Path log = writeLog(3000);
+        Path out = tempDir.resolve("ndjson");
+        NdjsonFileSink sink = new NdjsonFileSink(out);
+        BulkLogIngester ingester = new BulkLogIngester(sink, 2, 64 * 1024, 500);
+        ingester.ingest(log);
+        sink.shutdown();
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(out)) {
+            files = listing.collect(Collectors.toList());
+        }
+        long lines = 0;
+        for (Path file : files) {
+            lines += Files.readAllLines(file).size();
+        }
+        assertEquals(3000, lines);
+        assertEquals(1, files.size(), "3000 frames at 1/s stay within the first hour");
+    }
+
+    @Test
+    void testDeclaredPayloadLength() {
+        assertTrue(BulkLogIngester.hasDeclaredPayload(frame(1).getBytes(StandardCharsets.US_ASCII)));
+        assertFalse(BulkLogIngester.hasDeclaredPayload(
+                "FEDC01A1B2C3D4E5F6000000010300100000000100".getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,123 @@
+package com.iot.tools;
+
+import com.iot.support.EmbeddedDaemon;
+import com.iot.support.FakeBackendServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays a generated gateway log into an in-process daemon
+ */
+public class SensorLogReplayerIT {
+    private static final String[] SENSOR_IDS = {"16098522754E", "124A7DA90849", "0A0B0C0D0E0F", "A1B2C3D4E5F6"};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testScannerHandlesSpacedColonAndWindowBoundaries() throws Exception {
+        Path log = writeLog(500);
+        List<Long> timestamps = new ArrayList<>();
+        List<String> frames = new ArrayList<>();
+
+        // Tiny window forces many remaps and line-boundary adjustments
+        MappedLogScanner scanner = new MappedLogScanner(log, 4096);
+        scanner.scan((ts, hex) -> {
+            timestamps.add(ts);
+            frames.add(new String(hex, StandardCharsets.US_ASCII));
+            return true;
+        });
+
+        assertEquals(500, frames.size());
+        assertEquals(2, scanner.getFramesRejected(), "The truncated frame and the impossible date should be rejected");
+        assertTrue(frames.get(1).startsWith("FEDC01124A7DA90849"), frames.get(1));
+        assertEquals(frames.get(0).toUpperCase(), frames.get(0));
+        assertEquals(1_704_067_200_000L, timestamps.get(0), "2024-01-01 00:00:00.000 UTC");
+        assertEquals(1_704_067_200_000L + 499 * 250, timestamps.get(499));
+    }
+
+    @Test
+    void testReplayOverParallelConnections() throws Exception {
+        Path log = writeLog(2000);
+
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(false);
+             EmbeddedDaemon daemon = new EmbeddedDaemon(backend.getRawDataUrl())) {
+            SensorLogReplayer replayer = new SensorLogReplayer("127.0.0.1", daemon.port(), 4, 0, 0);
+            replayer.replay(log);
+
+            assertEquals(2000, replayer.getSent());
+            assertEquals(2000, replayer.getAcked());
+            assertEquals(0, replayer.getErrors());
+            assertEquals(2000, replayer.getAckLatency().getTotalCount());
+            assertTrue(backend.awaitAccepted(2000, 60, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testTimestampFaithfulPacing() throws Exception {
+        // 40 frames 250ms apart = ~10s of log time; at 20x that is ~0.5s of wall time
+        Path log = writeLog(40);
+
+        try (FakeBackendServer backend = new FakeBackendServer().withRecordBodies(false);
+             EmbeddedDaemon daemon = new EmbeddedDaemon(backend.getRawDataUrl())) {
+            long start = System.nanoTime();
+            new SensorLogReplayer("127.0.0.1", daemon.port(), 2, 0, 20).replay(log);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(elapsedMs >= 450, "Replay should follow scaled log time, took " + elapsedMs + "ms");
+        }
+    }
+
+    /**
+     * Frames alternate between spaced, colon-separated and contiguous hex, 250ms apart
+     */
+    private Path writeLog(int frames) throws Exception {
+        Path log = tempDir.resolve("gateway-" + frames + ".log");
+        try (BufferedWriter writer = Files.newBufferedWriter(log, StandardCharsets.UTF_8)) {
+            long base = 1_704_067_200_000L;
+            for (int i = 0; i < frames; i++) {
+                String frame = "FEDC01" + SENSOR_IDS[i % SENSOR_IDS.length]
+                        + String.format("%08X", i) + "030010"
+                        + "000000FA000001F40000003C00000000";
+                if (i % 3 == 0) {
+                    frame = frame.toLowerCase();
+                }
+                String body = i % 3 == 1 ? spaced(frame, ':') : i % 3 == 2 ? spaced(frame, ' ') : frame;
+                writer.write(timestamp(base + i * 250L) + " [INFO] gateway rx Bytes in Hex: " + body + "\n");
+                if (i == 0) {
+                    writer.write(timestamp(base) + " [INFO] heartbeat from gateway\n");
+                    writer.write(timestamp(base) + " [WARN] Bytes in Hex: FE DC 01 16\n");
+                    writer.write("2024-02-30 00:00:00.000 [INFO] gateway rx Bytes in Hex: " + frame + "\n");
+                }
+            }
+        }
+        return log;
+    }
+
+    private static String spaced(String hex, char separator) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < hex.length(); i += 2) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(hex, i, i + 2);
+        }
+        return sb.toString();
+    }
+
+    private static String timestamp(long epochMillis) {
+        return java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+                .withZone(java.time.ZoneOffset.UTC)
+                .format(java.time.Instant.ofEpochMilli(epochMillis));
+    }
+}